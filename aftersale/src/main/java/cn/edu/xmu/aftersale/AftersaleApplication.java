@@ -1,14 +1,18 @@
 package cn.edu.xmu.aftersale;
 
+import cn.edu.xmu.javaee.core.clonefactory.CloneFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 售后模块启动类
  */
 @SpringBootApplication(scanBasePackages = {"cn.edu.xmu.aftersale", "cn.edu.xmu.javaee.core"})
 @EnableFeignClients
+@EnableScheduling
+@CloneFactory("cn.edu.xmu.aftersale.model")  // 编译时生成的PO与领域对象拷贝方法
 public class AftersaleApplication {
     public static void main(String[] args) {
         SpringApplication.run(AftersaleApplication.class, args);
@@ -1,7 +1,8 @@
 package cn.edu.xmu.aftersale.client;
 
 import cn.edu.xmu.aftersale.client.dto.CreateServiceOrderRequest;
-import cn.edu.xmu.javaee.core.model.ReturnObject;
+import cn.edu.xmu.aftersale.client.dto.CreateServiceOrderResponse;
+import cn.edu.xmu.javaee.core.model.InternalReturnObject;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,7 +16,7 @@ public interface ServiceClient {
      * 创建服务单
      */
     @PostMapping("/internal/shops/{shopId}/aftersales/{aftersalesId}/serviceorders")
-    ReturnObject createServiceOrder(
+    InternalReturnObject<CreateServiceOrderResponse> createServiceOrder(
             @PathVariable("shopId") Long shopId,
             @PathVariable("aftersalesId") Long aftersalesId,
             @RequestBody CreateServiceOrderRequest request);
@@ -25,7 +26,7 @@ public interface ServiceClient {
      *
      */
     @DeleteMapping("/internal/shops/{shopId}/aftersales/{aftersalesId}/serviceorders/cancel")
-    ReturnObject cancelServiceOrder(
+    InternalReturnObject<Void> cancelServiceOrder(
             @PathVariable("shopId") Long shopId,
             @PathVariable("aftersalesId") Long aftersalesId,
             @RequestParam("reason") String reason);
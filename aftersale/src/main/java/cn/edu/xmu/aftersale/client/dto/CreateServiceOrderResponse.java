@@ -0,0 +1,16 @@
+package cn.edu.xmu.aftersale.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 创建服务单响应
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateServiceOrderResponse {
+    private Long id;      // 服务单ID
+    private Integer type; // 服务单类型
+}
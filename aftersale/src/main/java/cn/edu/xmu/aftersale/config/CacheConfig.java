@@ -0,0 +1,35 @@
+package cn.edu.xmu.aftersale.config;
+
+import cn.edu.xmu.aftersale.dao.po.AftersaleOrderPo;
+import cn.edu.xmu.javaee.core.mapper.RedisUtil;
+import cn.edu.xmu.javaee.core.util.TwoLevelCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 售后单缓存配置
+ */
+@Configuration
+public class CacheConfig {
+
+    /**
+     * 售后单按ID缓存，l2-enabled为false时只使用进程内缓存
+     */
+    @Bean
+    public TwoLevelCache<AftersaleOrderPo> aftersaleOrderCache(RedisUtil redisUtil, MeterRegistry registry,
+                                                               RedisMessageListenerContainer container,
+                                                               @Value("${aftersale.cache.l1-max-size:10000}") long maxSize,
+                                                               @Value("${aftersale.cache.l1-timeout:30}") long localTimeout,
+                                                               @Value("${aftersale.cache.l2-timeout:600}") long remoteTimeout,
+                                                               @Value("${aftersale.cache.l2-enabled:true}") boolean remoteEnabled) {
+        TwoLevelCache<AftersaleOrderPo> cache = new TwoLevelCache<>("aftersale:order", maxSize, localTimeout,
+                remoteTimeout, remoteEnabled ? redisUtil : null, registry);
+        if (remoteEnabled) {
+            container.addMessageListener(cache, cache.getTopic());
+        }
+        return cache;
+    }
+}
@@ -1,20 +1,39 @@
 package cn.edu.xmu.aftersale.controller;
 
 import cn.edu.xmu.aftersale.controller.dto.AcceptAftersaleRequest;
+import cn.edu.xmu.aftersale.controller.dto.BatchCancelAftersaleRequest;
+import cn.edu.xmu.aftersale.controller.dto.BatchConfirmAftersaleRequest;
 import cn.edu.xmu.aftersale.controller.dto.CancelAftersaleRequest;
 import cn.edu.xmu.aftersale.controller.dto.ConfirmAftersaleRequest;
 import cn.edu.xmu.aftersale.controller.dto.ProcessReceivedAftersaleRequest;
+import cn.edu.xmu.aftersale.model.AftersaleBatchResult;
+import cn.edu.xmu.aftersale.model.AftersaleExportFormat;
+import cn.edu.xmu.aftersale.model.AftersaleOrderQuery;
+import cn.edu.xmu.aftersale.model.AftersaleStatus;
+import cn.edu.xmu.aftersale.model.AftersaleType;
 import cn.edu.xmu.aftersale.service.AftersaleService;
+import cn.edu.xmu.javaee.core.aop.Idempotent;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
 import cn.edu.xmu.javaee.core.model.ReturnObject;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * 售后控制器
@@ -26,9 +45,158 @@ import java.util.Map;
 @Validated
 public class AftersaleController {
 
+    /** 导出时gzip的缓冲区大小 */
+    private static final int EXPORT_BUFFER_SIZE = 8192;
+
     private final AftersaleService aftersaleService;
 
+    /**
+     * 商户查询售后单列表
+     * page、pageSize、beginTime、endTime由ControllerAspect规整；请求中没有的时间参数不按其过滤，
+     * 只给出beginTime或endTime时另一端不设界
+     * 深翻页使用上一页返回的nextCursor作为cursor
+     */
+    @GetMapping("/aftersaleorders")
+    public ReturnObject listAftersaleOrders(
+            @PathVariable("shopid") Long shopId,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "type", required = false) Integer type,
+            @RequestParam(value = "customerId", required = false) Long customerId,
+            @RequestParam(value = "orderId", required = false) Long orderId,
+            @RequestParam(value = "beginTime", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beginTime,
+            @RequestParam(value = "endTime", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "pageSize", required = false) Integer pageSize,
+            HttpServletRequest request) {
+
+        log.info("商户查询售后单列表API: shopId={}, status={}, type={}, page={}, pageSize={}, cursor={}",
+                shopId, status, type, page, pageSize, cursor);
+
+        AftersaleType aftersaleType = AftersaleType.ofCode(type);
+        if (type != null && aftersaleType == null) {
+            return ReturnObject.error(ReturnNo.FIELD_NOTVALID, "未知的售后类型: " + type);
+        }
+        AftersaleStatus aftersaleStatus;
+        try {
+            aftersaleStatus = status == null || status.isBlank() ? null : AftersaleStatus.of(status);
+        } catch (IllegalArgumentException e) {
+            return ReturnObject.error(ReturnNo.FIELD_NOTVALID, e.getMessage());
+        }
+        AftersaleOrderQuery query = AftersaleOrderQuery.builder()
+                .shopId(shopId)
+                .status(aftersaleStatus)
+                .type(aftersaleType)
+                .customerId(customerId)
+                .orderId(orderId)
+                .beginTime(requestedTime(request, "beginTime", beginTime))
+                .endTime(requestedTime(request, "endTime", endTime))
+                .build();
+        return new ReturnObject(aftersaleService.listAftersaleOrders(query, cursor, page, pageSize));
+    }
+
+    /**
+     * 请求中有该时间参数时返回其值，否则返回null
+     * ControllerAspect会把缺少的时间参数填成Constants中启动时固定的默认值，不能用作查询条件
+     */
+    private static LocalDateTime requestedTime(HttpServletRequest request, String name, LocalDateTime value) {
+        String raw = request.getParameter(name);
+        return raw == null || raw.isBlank() ? null : value;
+    }
+
+    /**
+     * 商户导出售后单，条件同列表接口，不分页
+     * format为csv（默认）或ndjson；请求头Accept-Encoding含gzip时压缩输出
+     * 返回值不是ReturnObject，不经过ControllerAspect：未指定时间范围时不按时间过滤，参数错误直接返回400
+     */
+    @GetMapping("/aftersaleorders/export")
+    public ResponseEntity<?> exportAftersaleOrders(
+            @PathVariable("shopid") Long shopId,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "type", required = false) Integer type,
+            @RequestParam(value = "customerId", required = false) Long customerId,
+            @RequestParam(value = "orderId", required = false) Long orderId,
+            @RequestParam(value = "beginTime", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beginTime,
+            @RequestParam(value = "endTime", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(value = "format", required = false, defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        log.info("商户导出售后单API: shopId={}, status={}, type={}, format={}", shopId, status, type, format);
+
+        AftersaleType aftersaleType = AftersaleType.ofCode(type);
+        if (type != null && aftersaleType == null) {
+            return badRequest("未知的售后类型: " + type);
+        }
+        AftersaleStatus aftersaleStatus;
+        AftersaleExportFormat exportFormat;
+        try {
+            aftersaleStatus = status == null || status.isBlank() ? null : AftersaleStatus.of(status);
+            exportFormat = AftersaleExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+
+        AftersaleOrderQuery query = AftersaleOrderQuery.builder()
+                .shopId(shopId)
+                .status(aftersaleStatus)
+                .type(aftersaleType)
+                .customerId(customerId)
+                .orderId(orderId)
+                .beginTime(beginTime)
+                .endTime(endTime)
+                .build();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream zip = new GZIPOutputStream(StreamUtils.nonClosing(out), EXPORT_BUFFER_SIZE)) {
+                    aftersaleService.exportAftersaleOrders(query, exportFormat, zip);
+                }
+            } else {
+                aftersaleService.exportAftersaleOrders(query, exportFormat, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("aftersaleorders-" + shopId + "." + exportFormat.getCode()).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Accept-Encoding中有gzip且q不为0
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!"gzip".equalsIgnoreCase(parts[0].trim())) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.matches("q=0(\\.0{0,3})?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static ResponseEntity<ReturnObject> badRequest(String message) {
+        return ResponseEntity.status(ReturnNo.FIELD_NOTVALID.getHttpStatus())
+                .body(ReturnObject.error(ReturnNo.FIELD_NOTVALID, message));
+    }
+
     /** 商户审核售后 */
+    @Idempotent
     @PutMapping("/aftersaleorders/{id}/confirm")
     public ReturnObject confirmAftersale(
             @PathVariable("shopid") Long shopId,
@@ -49,6 +217,7 @@ public class AftersaleController {
     }
 
     /** 商户取消售后单 */
+    @Idempotent
     @DeleteMapping("/aftersaleorders/{id}/cancel")
     public ReturnObject cancelAftersale(
             @PathVariable("shopid") Long shopId,
@@ -72,6 +241,7 @@ public class AftersaleController {
     }
 
     /** 商户验收（待验收 -> 已验收/已拒绝） */
+    @Idempotent
     @PutMapping("/aftersaleorders/{id}/accept")
     public ReturnObject acceptAftersale(
             @PathVariable("shopid") Long shopId,
@@ -92,6 +262,7 @@ public class AftersaleController {
     }
 
     /** 商户处理已验收商品（已验收 -> 完成/发货） */
+    @Idempotent
     @PutMapping("/aftersaleorders/{id}/receive")
     public ReturnObject processReceivedAftersale(
             @PathVariable("shopid") Long shopId,
@@ -110,5 +281,48 @@ public class AftersaleController {
 
         return new ReturnObject(data);
     }
-}
 
+    /** 商户批量审核售后，返回每个售后单的结果 */
+    @Idempotent
+    @PutMapping("/aftersaleorders/batch/confirm")
+    public ReturnObject batchConfirmAftersale(
+            @PathVariable("shopid") Long shopId,
+            @Valid @RequestBody BatchConfirmAftersaleRequest request) {
+
+        log.info("商户批量审核售后API: shopId={}, size={}, confirm={}", shopId, request.getIds().size(), request.getConfirm());
+
+        List<AftersaleBatchResult> results = aftersaleService.batchConfirmAftersale(
+                shopId, request.getIds(), request.getConfirm(), request.getConclusion());
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("errno", ReturnNo.OK.getCode());
+        data.put("errmsg", ReturnNo.OK.getMessage());
+        data.put("results", results);
+
+        return new ReturnObject(data);
+    }
+
+    /** 商户批量取消售后单，返回每个售后单的结果 */
+    @Idempotent
+    @DeleteMapping("/aftersaleorders/batch/cancel")
+    public ReturnObject batchCancelAftersale(
+            @PathVariable("shopid") Long shopId,
+            @Valid @RequestBody BatchCancelAftersaleRequest request) {
+
+        log.info("商户批量取消售后API: shopId={}, size={}, reason={}", shopId, request.getIds().size(), request.getReason());
+
+        if (!Boolean.TRUE.equals(request.getConfirm())) {
+            return ReturnObject.error(ReturnNo.BAD_REQUEST, "confirm必须为true");
+        }
+
+        List<AftersaleBatchResult> results = aftersaleService.batchCancelAftersale(
+                shopId, request.getIds(), request.getReason());
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("errno", ReturnNo.OK.getCode());
+        data.put("errmsg", ReturnNo.OK.getMessage());
+        data.put("results", results);
+
+        return new ReturnObject(data);
+    }
+}
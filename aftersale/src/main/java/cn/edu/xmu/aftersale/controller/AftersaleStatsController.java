@@ -0,0 +1,56 @@
+package cn.edu.xmu.aftersale.controller;
+
+import cn.edu.xmu.aftersale.service.AftersaleStatsService;
+import cn.edu.xmu.javaee.core.model.ReturnObject;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 售后单统计控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/shops/{shopid}")
+@RequiredArgsConstructor
+public class AftersaleStatsController {
+
+    /** 未指定开始日期时统计的天数 */
+    private static final int DEFAULT_DAYS = 30;
+
+    private final AftersaleStatsService statsService;
+
+    /**
+     * 商户查询售后单统计：按状态、类型计数和每日新建数
+     * 未指定endDate时为今天，未指定beginDate时取截至endDate的30天
+     */
+    @GetMapping("/aftersaleorders/stats")
+    public ReturnObject getAftersaleStats(
+            @PathVariable("shopid") Long shopId,
+            @RequestParam(value = "beginDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate beginDate,
+            @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        log.info("商户查询售后单统计API: shopId={}, beginDate={}, endDate={}", shopId, beginDate, endDate);
+
+        LocalDate end = endDate == null ? LocalDate.now() : endDate;
+        LocalDate begin = beginDate == null ? end.minusDays(DEFAULT_DAYS - 1) : beginDate;
+        return new ReturnObject(statsService.getAftersaleStats(shopId, begin, end));
+    }
+
+    /** 从售后单重建商铺的统计 */
+    @PutMapping("/aftersaleorders/stats/rebuild")
+    public ReturnObject rebuildAftersaleStats(@PathVariable("shopid") Long shopId) {
+
+        log.info("重建售后单统计API: shopId={}", shopId);
+
+        int rows = statsService.rebuildAftersaleStats(shopId);
+        Map<String, Object> data = new HashMap<>();
+        data.put("rows", rows);
+        return new ReturnObject(data);
+    }
+}
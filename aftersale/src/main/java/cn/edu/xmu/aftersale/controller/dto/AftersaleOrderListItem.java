@@ -0,0 +1,50 @@
+package cn.edu.xmu.aftersale.controller.dto;
+
+import cn.edu.xmu.aftersale.model.AftersaleOrder;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 售后单列表项
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AftersaleOrderListItem {
+
+    private Long id;
+    private Long orderId;
+    private Long customerId;
+    private Long productId;
+    private Integer type;
+    /** 状态码，同审核等接口返回的status */
+    private String status;
+    private String reason;
+    private String conclusion;
+    private Long expressId;
+    private Long returnExpressId;
+    private LocalDateTime gmtCreate;
+    private LocalDateTime gmtModified;
+
+    public static AftersaleOrderListItem of(AftersaleOrder order) {
+        return AftersaleOrderListItem.builder()
+                .id(order.getId())
+                .orderId(order.getOrderId())
+                .customerId(order.getCustomerId())
+                .productId(order.getProductId())
+                .type(order.getType())
+                .status(order.getStatus() == null ? null : order.getStatus().getCode())
+                .reason(order.getReason())
+                .conclusion(order.getConclusion())
+                .expressId(order.getExpressId())
+                .returnExpressId(order.getReturnExpressId())
+                .gmtCreate(order.getCreatedAt())
+                .gmtModified(order.getUpdatedAt())
+                .build();
+    }
+}
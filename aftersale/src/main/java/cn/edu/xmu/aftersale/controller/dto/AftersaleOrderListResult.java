@@ -0,0 +1,27 @@
+package cn.edu.xmu.aftersale.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 售后单列表查询返回体（放在ReturnObject.data内）
+ * nextCursor为空表示没有下一页；翻页时把nextCursor作为cursor参数传回
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AftersaleOrderListResult {
+
+    private List<AftersaleOrderListItem> list;
+
+    private Integer page;
+
+    private Integer pageSize;
+
+    private String nextCursor;
+}
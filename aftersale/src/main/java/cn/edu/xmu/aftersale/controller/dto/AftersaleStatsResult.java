@@ -0,0 +1,44 @@
+package cn.edu.xmu.aftersale.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 售后单统计返回体（放在ReturnObject.data内）
+ * 统计的是在beginDate~endDate（含）创建的售后单，按其当前状态、类型计数
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AftersaleStatsResult {
+
+    private LocalDate beginDate;
+
+    private LocalDate endDate;
+
+    private Long total;
+
+    /** 按状态计数，键为状态码（同列表接口的status），每个状态都列出 */
+    private Map<String, Long> byStatus;
+
+    /** 按售后类型计数，键为类型码，每个类型都列出 */
+    private Map<Integer, Long> byType;
+
+    /** 每天创建的售后单数，按日期升序，没有售后单的日期计0 */
+    private List<DailyCount> daily;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DailyCount {
+        private LocalDate date;
+        private Long count;
+    }
+}
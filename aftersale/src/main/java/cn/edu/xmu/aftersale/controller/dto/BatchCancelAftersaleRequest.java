@@ -0,0 +1,24 @@
+package cn.edu.xmu.aftersale.controller.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量取消售后请求
+ */
+@Data
+public class BatchCancelAftersaleRequest {
+
+    @NotEmpty(message = "ids不能为空")
+    @Size(max = 1000, message = "单次最多处理1000个售后单")
+    private List<@NotNull Long> ids;
+
+    @NotNull(message = "confirm不能为空")
+    private Boolean confirm;
+
+    private String reason;
+}
@@ -0,0 +1,72 @@
+package cn.edu.xmu.aftersale.dao;
+
+import cn.edu.xmu.aftersale.dao.po.AftersaleExpressPo;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 售后单-运单关联Mapper - 对应表 aftersale_express
+ * call_status: 0-未调用 1-成功 2-失败 3-调用中
+ */
+@Mapper
+public interface AftersaleExpressMapper {
+
+    /**
+     * 关联售后单查询，带出商铺ID和售后单是否已取消，cancelled为售后单已取消的状态码
+     */
+    String SELECT_WITH_ORDER = "SELECT e.id, e.aftersale_id, e.status, e.contract_id, e.pay_method, e.name, e.mobile, " +
+            "e.region_id, e.address, e.cargo_details, e.express_id, e.bill_code, e.express_status, e.call_status, " +
+            "e.fail_reason, e.retry_count, e.next_retry_time, e.gmt_create, e.gmt_modified, " +
+            "a.shop_id AS shop_id, (a.status = #{cancelled}) AS order_cancelled " +
+            "FROM aftersale_express e JOIN aftersales a ON a.id = e.aftersale_id ";
+
+    /**
+     * 登记建单请求
+     */
+    @Insert("INSERT INTO aftersale_express (aftersale_id, status, contract_id, pay_method, name, mobile, region_id, address, " +
+            "cargo_details, call_status, retry_count, gmt_create, gmt_modified) " +
+            "VALUES (#{aftersaleId}, #{status}, #{contractId}, #{payMethod}, #{name}, #{mobile}, #{regionId}, #{address}, " +
+            "#{cargoDetails}, #{callStatus}, #{retryCount}, #{gmtCreate}, #{gmtModified})")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int insert(AftersaleExpressPo po);
+
+    @Select(SELECT_WITH_ORDER + "WHERE e.id = #{id}")
+    AftersaleExpressPo findById(@Param("id") Long id, @Param("cancelled") Integer cancelled);
+
+    /**
+     * 查询可派发的记录：未调用或失败且到了重试时间的，以及调用中但超时未回写的
+     */
+    @Select(SELECT_WITH_ORDER +
+            "WHERE e.status = 'CREATED' AND ((e.call_status IN (0, 2) AND e.retry_count < #{maxRetry} " +
+            "AND (e.next_retry_time IS NULL OR e.next_retry_time <= #{now})) " +
+            "OR (e.call_status = 3 AND e.gmt_modified < #{staleBefore})) " +
+            "ORDER BY e.id LIMIT #{limit}")
+    List<AftersaleExpressPo> findDispatchable(@Param("now") LocalDateTime now,
+                                              @Param("staleBefore") LocalDateTime staleBefore,
+                                              @Param("maxRetry") int maxRetry,
+                                              @Param("limit") int limit,
+                                              @Param("cancelled") Integer cancelled);
+
+    /**
+     * 抢占记录，call_status和gmt_modified与读到的一致才能置为调用中
+     */
+    @Update("UPDATE aftersale_express SET call_status = 3, gmt_modified = #{now} " +
+            "WHERE id = #{id} AND status = 'CREATED' AND call_status = #{callStatus} AND gmt_modified = #{gmtModified}")
+    int claim(@Param("id") Long id, @Param("callStatus") Integer callStatus,
+              @Param("gmtModified") LocalDateTime gmtModified, @Param("now") LocalDateTime now);
+
+    @Update("UPDATE aftersale_express SET call_status = 1, express_id = #{expressId}, bill_code = #{billCode}, " +
+            "express_status = #{expressStatus}, fail_reason = NULL, gmt_modified = #{now} WHERE id = #{id} AND call_status = 3")
+    int markSuccess(@Param("id") Long id, @Param("expressId") Long expressId, @Param("billCode") String billCode,
+                    @Param("expressStatus") Integer expressStatus, @Param("now") LocalDateTime now);
+
+    @Update("UPDATE aftersale_express SET call_status = 2, retry_count = retry_count + 1, fail_reason = #{failReason}, " +
+            "next_retry_time = #{nextRetryTime}, gmt_modified = #{now} WHERE id = #{id} AND call_status = 3")
+    int markFailed(@Param("id") Long id, @Param("failReason") String failReason,
+                   @Param("nextRetryTime") LocalDateTime nextRetryTime, @Param("now") LocalDateTime now);
+
+    @Update("UPDATE aftersale_express SET status = 'CANCELED', gmt_modified = #{now} WHERE id = #{id}")
+    int markCanceled(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
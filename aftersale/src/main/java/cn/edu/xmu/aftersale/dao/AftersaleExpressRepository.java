@@ -0,0 +1,112 @@
+package cn.edu.xmu.aftersale.dao;
+
+import cn.edu.xmu.aftersale.client.dto.CreatePackageResponse;
+import cn.edu.xmu.aftersale.dao.po.AftersaleExpressPo;
+import cn.edu.xmu.aftersale.model.AftersaleExpress;
+import cn.edu.xmu.aftersale.model.AftersaleOrder;
+import cn.edu.xmu.aftersale.model.AftersaleStatus;
+import cn.edu.xmu.javaee.core.util.OutboxDispatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 售后单运单发件箱仓储
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class AftersaleExpressRepository implements OutboxDispatcher.Store<AftersaleExpress, CreatePackageResponse> {
+
+    /** fail_reason 列长度 */
+    private static final int FAIL_REASON_LENGTH = 255;
+    /** 售后单已取消的状态码 */
+    private static final Integer CANCELLED = AftersaleOrder.convertStatusToInt(AftersaleStatus.CANCELLED);
+
+    private final AftersaleExpressMapper mapper;
+
+    /**
+     * 登记建单请求
+     */
+    public AftersaleExpress create(AftersaleExpress express) {
+        AftersaleExpressPo po = express.toPo();
+        mapper.insert(po);
+        express.setId(po.getId());
+        log.info("运单发件箱登记成功: id={}, aftersaleId={}", po.getId(), po.getAftersaleId());
+        return express;
+    }
+
+    /**
+     * 根据ID查询，不存在时返回null
+     */
+    @Override
+    public AftersaleExpress findById(Long id) {
+        return AftersaleExpress.fromPo(mapper.findById(id, CANCELLED));
+    }
+
+    /**
+     * 查询可派发的记录
+     * @param now 当前时间
+     * @param staleBefore 调用中的记录在此时间之前未回写视为超时
+     * @param maxRetry 最大调用次数
+     * @param limit 最多返回条数
+     */
+    @Override
+    public List<AftersaleExpress> findDispatchable(LocalDateTime now, LocalDateTime staleBefore, int maxRetry, int limit) {
+        List<AftersaleExpressPo> pos = mapper.findDispatchable(now, staleBefore, maxRetry, limit, CANCELLED);
+        List<AftersaleExpress> list = new ArrayList<>(pos.size());
+        for (AftersaleExpressPo po : pos) {
+            list.add(AftersaleExpress.fromPo(po));
+        }
+        return list;
+    }
+
+    /**
+     * 抢占记录
+     * @return 抢占成功返回true，已被其他派发线程抢占返回false
+     */
+    @Override
+    public boolean claim(AftersaleExpress express) {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        if (mapper.claim(express.getId(), express.getCallStatus(), express.getUpdatedAt(), now) == 0) {
+            return false;
+        }
+        express.setCallStatus(AftersaleExpress.CALL_DISPATCHING);
+        express.setUpdatedAt(now);
+        return true;
+    }
+
+    /**
+     * 回写建单结果
+     */
+    @Override
+    public void markSuccess(Long id, CreatePackageResponse data) {
+        int rows = mapper.markSuccess(id, data.getId(), data.getBillCode(), data.getStatus(), LocalDateTime.now().withNano(0));
+        if (rows == 0) {
+            log.warn("运单发件箱回写成功结果未命中: id={}, expressId={}", id, data.getId());
+        }
+    }
+
+    /**
+     * 记录失败并设置下次重试时间，nextRetryTime为null表示不再重试
+     */
+    @Override
+    public void markFailed(Long id, String failReason, LocalDateTime nextRetryTime) {
+        if (failReason != null && failReason.length() > FAIL_REASON_LENGTH) {
+            failReason = failReason.substring(0, FAIL_REASON_LENGTH);
+        }
+        mapper.markFailed(id, failReason, nextRetryTime, LocalDateTime.now().withNano(0));
+    }
+
+    /**
+     * 作废记录
+     */
+    @Override
+    public void markCanceled(Long id) {
+        mapper.markCanceled(id, LocalDateTime.now().withNano(0));
+    }
+}
@@ -2,6 +2,11 @@ package cn.edu.xmu.aftersale.dao;
 
 import cn.edu.xmu.aftersale.dao.po.AftersaleOrderPo;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 售后单Mapper - 对应表 aftersales
@@ -9,15 +14,20 @@ import org.apache.ibatis.annotations.*;
 @Mapper
 public interface AftersaleOrderMapper {
 
+    /**
+     * 查询售后单时取的列，与aftersaleResult一一对应；联系人、取货地址等领域对象用不到的列不取
+     */
+    String COLUMNS = "id, shop_id, order_id, customer_id, product_id, type, reason, status, conclusion, " +
+            "express_id, return_express_id, gmt_create, gmt_modified";
+
     /**
      * 根据ID查询售后单
      */
-    @Select("SELECT * FROM aftersales WHERE id = #{id} AND shop_id = #{shopId}")
-    @Results({
+    @Select("SELECT " + COLUMNS + " FROM aftersales WHERE id = #{id} AND shop_id = #{shopId}")
+    @Results(id = "aftersaleResult", value = {
             @Result(property = "id", column = "id"),
             @Result(property = "shopId", column = "shop_id"),
             @Result(property = "orderId", column = "order_id"),
-            @Result(property = "orderItemId", column = "order_item_id"),
             @Result(property = "customerId", column = "customer_id"),
             @Result(property = "productId", column = "product_id"),
             @Result(property = "type", column = "type"),
@@ -31,13 +41,98 @@ public interface AftersaleOrderMapper {
     })
     AftersaleOrderPo findById(@Param("shopId") Long shopId, @Param("id") Long id);
 
+    /**
+     * 按条件查询商铺的售后单，按创建时间、ID倒序
+     * 给出游标时从游标之后继续取（keyset），走idx_shop_status_create/idx_shop_create，
+     * 扫描行数只与limit有关；offset只用于不带游标的浅翻页
+     */
+    @Select({"<script>",
+            "SELECT " + COLUMNS + " FROM aftersales WHERE shop_id = #{shopId}",
+            "<if test='status != null'>AND status = #{status}</if>",
+            "<if test='type != null'>AND type = #{type}</if>",
+            "<if test='customerId != null'>AND customer_id = #{customerId}</if>",
+            "<if test='orderId != null'>AND order_id = #{orderId}</if>",
+            "<if test='beginTime != null'>AND gmt_create &gt;= #{beginTime}</if>",
+            "<if test='endTime != null'>AND gmt_create &lt;= #{endTime}</if>",
+            "<if test='cursorTime != null'>",
+            "AND (gmt_create &lt; #{cursorTime} OR (gmt_create = #{cursorTime} AND id &lt; #{cursorId}))",
+            "</if>",
+            "ORDER BY gmt_create DESC, id DESC",
+            "LIMIT #{limit} OFFSET #{offset}",
+            "</script>"})
+    @ResultMap("aftersaleResult")
+    List<AftersaleOrderPo> search(@Param("shopId") Long shopId,
+                                  @Param("status") Integer status,
+                                  @Param("type") Integer type,
+                                  @Param("customerId") Long customerId,
+                                  @Param("orderId") Long orderId,
+                                  @Param("beginTime") LocalDateTime beginTime,
+                                  @Param("endTime") LocalDateTime endTime,
+                                  @Param("cursorTime") LocalDateTime cursorTime,
+                                  @Param("cursorId") Long cursorId,
+                                  @Param("offset") int offset,
+                                  @Param("limit") int limit);
+
+    /**
+     * 按与search相同的条件逐行读出商铺的全部售后单，交给handler处理，用于导出
+     * fetchSize为Integer.MIN_VALUE时MySQL驱动按行流式读取结果集，不把整个结果集缓存在内存里；
+     * 读完之前该连接不能执行其他语句
+     */
+    @Select({"<script>",
+            "SELECT " + COLUMNS + " FROM aftersales WHERE shop_id = #{shopId}",
+            "<if test='status != null'>AND status = #{status}</if>",
+            "<if test='type != null'>AND type = #{type}</if>",
+            "<if test='customerId != null'>AND customer_id = #{customerId}</if>",
+            "<if test='orderId != null'>AND order_id = #{orderId}</if>",
+            "<if test='beginTime != null'>AND gmt_create &gt;= #{beginTime}</if>",
+            "<if test='endTime != null'>AND gmt_create &lt;= #{endTime}</if>",
+            "ORDER BY gmt_create DESC, id DESC",
+            "</script>"})
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultMap("aftersaleResult")
+    void scan(@Param("shopId") Long shopId,
+              @Param("status") Integer status,
+              @Param("type") Integer type,
+              @Param("customerId") Long customerId,
+              @Param("orderId") Long orderId,
+              @Param("beginTime") LocalDateTime beginTime,
+              @Param("endTime") LocalDateTime endTime,
+              ResultHandler<AftersaleOrderPo> handler);
+
+    /**
+     * 按ID批量查询同一商铺的售后单
+     */
+    @Select({"<script>",
+            "SELECT " + COLUMNS + " FROM aftersales WHERE shop_id = #{shopId} AND id IN",
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    @ResultMap("aftersaleResult")
+    List<AftersaleOrderPo> findByIds(@Param("shopId") Long shopId, @Param("ids") List<Long> ids);
+
     /**
      * 更新售后单状态
+     * dirtyFields不为null时只写其中的列（领域对象与载入时相比改动过的），为null时写全部可更新的列
+     * express_id 可能已由运单发件箱异步回填，内存中为null时保留库里的值
+     * expectedStatus 不为null时只在库里的状态仍为该值时更新（比较并交换），被并发修改时返回0
      */
-    @Update("UPDATE aftersales SET status = #{status}, conclusion = #{conclusion}, express_id = #{expressId}, " +
-            "return_express_id = #{returnExpressId}, gmt_modified = #{gmtModified} WHERE id = #{id} AND shop_id = #{shopId}")
+    @Update({"<script>",
+            "UPDATE aftersales <set>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('status')\">status = #{status},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('conclusion')\">conclusion = #{conclusion},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('expressId')\">express_id = COALESCE(#{expressId}, express_id),</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('returnExpressId')\">return_express_id = #{returnExpressId},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('gmtModified')\">gmt_modified = #{gmtModified},</if>",
+            "</set> WHERE id = #{id} AND shop_id = #{shopId}",
+            "<if test='expectedStatus != null'>AND status = #{expectedStatus}</if>",
+            "</script>"})
     int updateStatus(AftersaleOrderPo po);
 
+    /**
+     * 回填异步创建的运单ID，售后单已取消或已有运单时不更新
+     */
+    @Update("UPDATE aftersales SET express_id = #{expressId} WHERE id = #{id} AND express_id IS NULL AND status <> #{cancelled}")
+    int fillExpressId(@Param("id") Long id, @Param("expressId") Long expressId, @Param("cancelled") Integer cancelled);
+
     /**
      * 插入售后单（用于测试）
      */
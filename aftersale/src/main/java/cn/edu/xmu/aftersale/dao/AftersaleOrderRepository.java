@@ -2,13 +2,27 @@ package cn.edu.xmu.aftersale.dao;
 
 import cn.edu.xmu.aftersale.dao.po.AftersaleOrderPo;
 import cn.edu.xmu.aftersale.model.AftersaleOrder;
+import cn.edu.xmu.aftersale.model.AftersaleOrderQuery;
+import cn.edu.xmu.aftersale.model.AftersaleStatus;
 import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.PageCursor;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.TwoLevelCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * 售后单仓储
@@ -18,14 +32,20 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class AftersaleOrderRepository {
 
+    private static final Integer CANCELLED = AftersaleOrder.convertStatusToInt(AftersaleStatus.CANCELLED);
+
     private final AftersaleOrderMapper mapper;
+    private final TwoLevelCache<AftersaleOrderPo> cache;
+    private final AftersaleStatsRepository stats;
+    private final SqlSessionFactory sqlSessionFactory;
 
     /**
      * 根据ID查询售后单
+     * 经两级缓存读取，缓存按ID存放，命中后再核对商铺；所有写操作都会失效对应ID
      */
     public AftersaleOrder findById(Long shopId, Long id) {
-        AftersaleOrderPo po = mapper.findById(shopId, id);
-        if (po == null) {
+        AftersaleOrderPo po = cache.get(String.valueOf(id), key -> mapper.findById(shopId, id));
+        if (po == null || !Objects.equals(po.getShopId(), shopId)) {
             throw new BusinessException(ReturnNo.AFTERSALE_NOT_FOUND);
         }
         return AftersaleOrder.fromPo(po);
@@ -33,16 +53,151 @@ public class AftersaleOrderRepository {
 
     /**
      * 保存售后单
+     * 从数据库载入的售后单按载入时的状态做条件更新，期间被其他请求改过状态则抛出AFTERSALE_STATE_CONFLICT，
+     * 由调用方事务回滚，不加行锁；只写与载入时相比改动过的列，没有改动时不访问数据库
+     * 状态有变化时在同一事务内更新aftersale_stats
      */
     public void save(AftersaleOrder order) {
         AftersaleOrderPo po = order.toPo();
+        if (po.getDirtyFields() != null && po.getDirtyFields().isEmpty()) {
+            log.debug("售后单没有改动，不更新: id={}", order.getId());
+            return;
+        }
         int rows = mapper.updateStatus(po);
+        cache.evict(String.valueOf(order.getId()));
         if (rows == 0) {
+            if (po.getExpectedStatus() != null && mapper.findById(order.getShopId(), order.getId()) != null) {
+                log.warn("售后单状态已被并发修改: id={}, expected={}", order.getId(), order.getPersistedStatus());
+                throw new BusinessException(ReturnNo.AFTERSALE_STATE_CONFLICT,
+                        String.format("售后单(id=%d)状态已被修改，请刷新后重试", order.getId()));
+            }
             throw new BusinessException(ReturnNo.AFTERSALE_NOT_FOUND);
         }
+        stats.recordTransitions(List.of(po));
+        order.markPersisted();
         log.info("售后单更新成功: id={}, status={}", order.getId(), order.getStatus());
     }
 
+    /**
+     * 批量保存售后单，用于批量审核、取消
+     * 各售后单按载入时的状态做条件更新，在BATCH执行器上攒成JDBC批量语句一次发出，
+     * 按每条语句的更新行数找出已被其他请求改过状态的售后单，这些售后单不保存，也不抛异常；
+     * 批量会话经Spring取当前事务的连接，与调用方的其他读写在同一事务内。
+     * 保存成功的状态变化合并为一次aftersale_stats更新
+     * @return 状态已被并发修改、未保存的售后单ID
+     */
+    public Set<Long> saveAll(List<AftersaleOrder> orders) {
+        List<AftersaleOrder> changed = new ArrayList<>(orders.size());
+        List<AftersaleOrderPo> pos = new ArrayList<>(orders.size());
+        for (AftersaleOrder order : orders) {
+            AftersaleOrderPo po = order.toPo();
+            if (po.getDirtyFields() == null || !po.getDirtyFields().isEmpty()) {
+                changed.add(order);
+                pos.add(po);
+            }
+        }
+        Set<Long> conflicts = new HashSet<>();
+        if (pos.isEmpty()) {
+            return conflicts;
+        }
+
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            AftersaleOrderMapper batchMapper = session.getMapper(AftersaleOrderMapper.class);
+            for (AftersaleOrderPo po : pos) {
+                batchMapper.updateStatus(po);
+            }
+            // 改动的列不同时SQL不同，分成多个批次，按参数对应回售后单
+            for (BatchResult result : session.flushStatements()) {
+                int[] counts = result.getUpdateCounts();
+                List<Object> parameters = result.getParameterObjects();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        conflicts.add(((AftersaleOrderPo) parameters.get(i)).getId());
+                    }
+                }
+            }
+        }
+
+        List<AftersaleOrderPo> saved = new ArrayList<>(pos.size());
+        for (int i = 0; i < pos.size(); i++) {
+            AftersaleOrder order = changed.get(i);
+            cache.evict(String.valueOf(order.getId()));
+            if (conflicts.contains(order.getId())) {
+                log.warn("售后单状态已被并发修改: id={}, expected={}", order.getId(), order.getPersistedStatus());
+                continue;
+            }
+            saved.add(pos.get(i));
+            order.markPersisted();
+        }
+        stats.recordTransitions(saved);
+        log.info("售后单批量更新完成: total={}, conflicts={}", pos.size(), conflicts.size());
+        return conflicts;
+    }
+
+    /**
+     * 按ID批量查询同一商铺的售后单，不存在的ID不在结果中
+     */
+    public List<AftersaleOrder> findByIds(Long shopId, List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<AftersaleOrderPo> pos = mapper.findByIds(shopId, ids);
+        List<AftersaleOrder> orders = new ArrayList<>(pos.size());
+        for (AftersaleOrderPo po : pos) {
+            orders.add(AftersaleOrder.fromPo(po));
+        }
+        return orders;
+    }
+
+    /**
+     * 按条件查询售后单，不经过缓存
+     * @param after 上一页最后一条的游标，为null时从offset开始取
+     */
+    public List<AftersaleOrder> search(AftersaleOrderQuery query, PageCursor after, int offset, int limit) {
+        List<AftersaleOrderPo> pos = mapper.search(query.getShopId(),
+                query.getStatus() == null ? null : AftersaleOrder.convertStatusToInt(query.getStatus()),
+                query.getType() == null ? null : query.getType().getCode(),
+                query.getCustomerId(), query.getOrderId(), query.getBeginTime(), query.getEndTime(),
+                after == null ? null : after.getCreatedAt(), after == null ? null : after.getId(),
+                offset, limit);
+        List<AftersaleOrder> orders = new ArrayList<>(pos.size());
+        for (AftersaleOrderPo po : pos) {
+            orders.add(AftersaleOrder.fromPo(po));
+        }
+        return orders;
+    }
+
+    /**
+     * 按条件逐行读出售后单，交给consumer处理，不经过缓存，也不构造领域对象
+     * 结果集在数据库连接上流式读取，内存占用与行数无关；consumer处理完一行才读下一行
+     * @return 读出的行数
+     */
+    public long scan(AftersaleOrderQuery query, Consumer<AftersaleOrderPo> consumer) {
+        long[] rows = new long[1];
+        mapper.scan(query.getShopId(),
+                query.getStatus() == null ? null : AftersaleOrder.convertStatusToInt(query.getStatus()),
+                query.getType() == null ? null : query.getType().getCode(),
+                query.getCustomerId(), query.getOrderId(), query.getBeginTime(), query.getEndTime(),
+                context -> {
+                    consumer.accept(context.getResultObject());
+                    rows[0]++;
+                });
+        return rows[0];
+    }
+
+    /**
+     * 回填异步创建的运单ID
+     * @return 售后单已取消或已有运单时返回false
+     */
+    public boolean fillExpressId(Long id, Long expressId) {
+        boolean filled = mapper.fillExpressId(id, expressId, CANCELLED) > 0;
+        if (filled) {
+            cache.evict(String.valueOf(id));
+        }
+        log.info("售后单运单回填: id={}, expressId={}, filled={}", id, expressId, filled);
+        return filled;
+    }
+
     /**
      * 创建售后单（用于测试）
      */
@@ -56,6 +211,7 @@ public class AftersaleOrderRepository {
         }
         AftersaleOrderPo po = order.toPo();
         mapper.insert(po);
+        stats.recordCreated(po);
         order.setId(po.getId());
         log.info("售后单创建成功: id={}", po.getId());
         return order;
@@ -0,0 +1,52 @@
+package cn.edu.xmu.aftersale.dao;
+
+import cn.edu.xmu.aftersale.dao.po.AftersaleStatsPo;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 售后单统计Mapper - 对应表 aftersale_stats
+ * 主键为 (shop_id, stat_date, type, status)
+ */
+@Mapper
+public interface AftersaleStatsMapper {
+
+    /**
+     * 按增量更新计数，行不存在时插入；一条语句完成，不先查询
+     */
+    @Insert({"<script>",
+            "INSERT INTO aftersale_stats (shop_id, stat_date, type, status, order_count) VALUES",
+            "<foreach collection='list' item='po' separator=','>",
+            "(#{po.shopId}, #{po.statDate}, #{po.type}, #{po.status}, #{po.orderCount})",
+            "</foreach>",
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count)",
+            "</script>"})
+    int increment(@Param("list") List<AftersaleStatsPo> deltas);
+
+    /**
+     * 查询商铺在日期范围内的计数，按主键前缀读取，行数只与天数有关
+     */
+    @Select("SELECT shop_id, stat_date, type, status, order_count FROM aftersale_stats " +
+            "WHERE shop_id = #{shopId} AND stat_date BETWEEN #{beginDate} AND #{endDate} AND order_count <> 0")
+    List<AftersaleStatsPo> findByShop(@Param("shopId") Long shopId,
+                                      @Param("beginDate") LocalDate beginDate,
+                                      @Param("endDate") LocalDate endDate);
+
+    @Delete("DELETE FROM aftersale_stats WHERE shop_id = #{shopId}")
+    int deleteByShop(@Param("shopId") Long shopId);
+
+    /**
+     * 从aftersales汇总商铺的计数，对读到的售后单加共享锁，直到事务结束
+     */
+    @Select("SELECT shop_id, DATE(gmt_create) AS stat_date, type, status, COUNT(*) AS order_count FROM aftersales " +
+            "WHERE shop_id = #{shopId} GROUP BY shop_id, DATE(gmt_create), type, status LOCK IN SHARE MODE")
+    List<AftersaleStatsPo> sumOrdersForShare(@Param("shopId") Long shopId);
+
+    /**
+     * 有售后单的商铺，走idx_shop_id
+     */
+    @Select("SELECT DISTINCT shop_id FROM aftersales ORDER BY shop_id")
+    List<Long> findShopIds();
+}
@@ -0,0 +1,117 @@
+package cn.edu.xmu.aftersale.dao;
+
+import cn.edu.xmu.aftersale.dao.po.AftersaleOrderPo;
+import cn.edu.xmu.aftersale.dao.po.AftersaleStatsPo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * 售后单统计仓储
+ * 计数随售后单的创建、状态变化在调用方事务内增减；与售后单不一致时由rebuild按商铺重新汇总
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class AftersaleStatsRepository {
+
+    /** 重建时每条INSERT最多写入的计数行数 */
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    /** 按主键排序，多个事务更新同一批计数时加锁顺序一致，避免互相等待 */
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::shopId)
+            .thenComparing(Key::statDate)
+            .thenComparing(Key::type)
+            .thenComparing(Key::status);
+
+    private final AftersaleStatsMapper mapper;
+
+    /**
+     * 记录新建的售后单
+     */
+    public void recordCreated(AftersaleOrderPo po) {
+        if (po.getGmtCreate() == null || po.getStatus() == null) {
+            return;
+        }
+        Map<Key, Integer> deltas = new TreeMap<>(KEY_ORDER);
+        add(deltas, po, po.getStatus(), 1);
+        increment(deltas);
+    }
+
+    /**
+     * 记录售后单的状态变化：原状态（expectedStatus）减一，新状态加一
+     * 没有原状态的（不是从数据库载入的）无法得知增量，跳过，由rebuild修正
+     */
+    public void recordTransitions(List<AftersaleOrderPo> pos) {
+        Map<Key, Integer> deltas = new TreeMap<>(KEY_ORDER);
+        for (AftersaleOrderPo po : pos) {
+            if (po.getExpectedStatus() == null || po.getGmtCreate() == null) {
+                log.debug("售后单没有载入时的状态，不更新统计: id={}", po.getId());
+                continue;
+            }
+            if (Objects.equals(po.getExpectedStatus(), po.getStatus())) {
+                continue;
+            }
+            add(deltas, po, po.getExpectedStatus(), -1);
+            add(deltas, po, po.getStatus(), 1);
+        }
+        increment(deltas);
+    }
+
+    /**
+     * 查询商铺在日期范围内（含两端）的计数
+     */
+    public List<AftersaleStatsPo> findByShop(Long shopId, LocalDate beginDate, LocalDate endDate) {
+        return mapper.findByShop(shopId, beginDate, endDate);
+    }
+
+    /**
+     * 从售后单重新汇总商铺的计数，需在事务内调用
+     * 与售后单的写入（先锁aftersales行，再更新aftersale_stats）加锁顺序相同：先以共享锁读出并汇总该商铺的售后单，
+     * 再删除、写入计数行。已锁住售后单的事务先完成，之后该商铺售后单的写入等待重建提交，不会互相死锁
+     * @return 汇总后的计数行数
+     */
+    public int rebuild(Long shopId) {
+        List<AftersaleStatsPo> rows = mapper.sumOrdersForShare(shopId);
+        mapper.deleteByShop(shopId);
+        for (int from = 0; from < rows.size(); from += REBUILD_BATCH_SIZE) {
+            mapper.increment(rows.subList(from, Math.min(from + REBUILD_BATCH_SIZE, rows.size())));
+        }
+        log.info("售后单统计重建完成: shopId={}, rows={}", shopId, rows.size());
+        return rows.size();
+    }
+
+    /**
+     * 有售后单的商铺
+     */
+    public List<Long> findShopIds() {
+        return mapper.findShopIds();
+    }
+
+    private static void add(Map<Key, Integer> deltas, AftersaleOrderPo po, Integer status, int delta) {
+        deltas.merge(new Key(po.getShopId(), po.getGmtCreate().toLocalDate(), po.getType(), status), delta, Integer::sum);
+    }
+
+    private void increment(Map<Key, Integer> deltas) {
+        List<AftersaleStatsPo> list = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            if (delta != 0) {
+                list.add(new AftersaleStatsPo(key.shopId(), key.statDate(), key.type(), key.status(), delta));
+            }
+        });
+        if (!list.isEmpty()) {
+            mapper.increment(list);
+        }
+    }
+
+    private record Key(Long shopId, LocalDate statDate, Integer type, Integer status) {
+    }
+}
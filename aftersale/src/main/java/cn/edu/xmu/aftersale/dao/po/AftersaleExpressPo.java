@@ -0,0 +1,38 @@
+package cn.edu.xmu.aftersale.dao.po;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 售后单-运单关联持久化对象 - 对应数据库表 aftersale_express
+ * shopId、orderCancelled 由查询时关联 aftersales 得到，不是表字段
+ */
+@Data
+public class AftersaleExpressPo {
+    private Long id;
+    private Long aftersaleId;
+    /** CREATED-已登记 CANCELED-已作废 */
+    private String status;
+    private Long contractId;
+    private Integer payMethod;
+    private String name;
+    private String mobile;
+    private Long regionId;
+    private String address;
+    /** 货物明细JSON数组 */
+    private String cargoDetails;
+    private Long expressId;
+    private String billCode;
+    private Integer expressStatus;
+    /** 0-未调用 1-成功 2-失败 3-调用中 */
+    private Integer callStatus;
+    private String failReason;
+    private Integer retryCount;
+    private LocalDateTime nextRetryTime;
+    private LocalDateTime gmtCreate;
+    private LocalDateTime gmtModified;
+
+    private Long shopId;
+    private Boolean orderCancelled;
+}
@@ -1,17 +1,19 @@
 package cn.edu.xmu.aftersale.dao.po;
 
 import lombok.Data;
+
+import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.Set;
 
 /**
  * 售后单持久化对象 - 对应数据库表 aftersales
  */
 @Data
-public class AftersaleOrderPo {
+public class AftersaleOrderPo implements Serializable {
     private Long id;
     private Long shopId;
     private Long orderId;
-    private Long orderItemId;
     private Long customerId;
     private Long productId;
     private Integer type; // 0-换货 1-退货 2-维修
@@ -25,5 +27,9 @@ public class AftersaleOrderPo {
     private Long returnExpressId;
     private LocalDateTime gmtCreate;
     private LocalDateTime gmtModified;
+    /** 条件更新时期望的原状态，不是表字段；为null时不做状态比较 */
+    private Integer expectedStatus;
+    /** 条件更新时要写的属性，不是表字段；为null时写全部可更新的列 */
+    private Set<String> dirtyFields;
 }
 
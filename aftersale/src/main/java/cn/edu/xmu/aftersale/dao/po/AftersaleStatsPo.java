@@ -0,0 +1,23 @@
+package cn.edu.xmu.aftersale.dao.po;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 售后单统计持久化对象 - 对应数据库表 aftersale_stats
+ * 写入时orderCount为增量，可以为负
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AftersaleStatsPo {
+    private Long shopId;
+    /** 售后单创建日期 */
+    private LocalDate statDate;
+    private Integer type;
+    private Integer status;
+    private Integer orderCount;
+}
@@ -0,0 +1,31 @@
+package cn.edu.xmu.aftersale.model;
+
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量操作中单个售后单的处理结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AftersaleBatchResult {
+
+    private Long id;
+    private Integer errno;
+    private String errmsg;
+    /** 处理后的状态码，失败时为空 */
+    private String status;
+
+    public static AftersaleBatchResult ok(Long id, AftersaleStatus status) {
+        return new AftersaleBatchResult(id, ReturnNo.OK.getErrNo(), ReturnNo.OK.getMessage(), status.getCode());
+    }
+
+    public static AftersaleBatchResult error(Long id, ReturnNo code, String errmsg) {
+        return new AftersaleBatchResult(id, code.getErrNo(), errmsg, null);
+    }
+}
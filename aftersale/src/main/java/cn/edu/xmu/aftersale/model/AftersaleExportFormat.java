@@ -0,0 +1,28 @@
+package cn.edu.xmu.aftersale.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 售后单导出格式
+ * CSV首行为列名；NDJSON每行一个JSON对象
+ */
+@Getter
+@AllArgsConstructor
+public enum AftersaleExportFormat {
+    CSV("csv", "text/csv;charset=UTF-8"),
+    NDJSON("ndjson", "application/x-ndjson");
+
+    /** 请求参数format的取值，也是导出文件的扩展名 */
+    private final String code;
+    private final String contentType;
+
+    public static AftersaleExportFormat of(String code) {
+        for (AftersaleExportFormat format : values()) {
+            if (format.getCode().equalsIgnoreCase(code)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("未知的导出格式: " + code);
+    }
+}
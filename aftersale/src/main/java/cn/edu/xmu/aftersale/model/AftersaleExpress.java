@@ -0,0 +1,134 @@
+package cn.edu.xmu.aftersale.model;
+
+import cn.edu.xmu.aftersale.client.dto.CreatePackageRequest;
+import cn.edu.xmu.aftersale.dao.po.AftersaleExpressPo;
+import cn.edu.xmu.javaee.core.util.JacksonUtil;
+import cn.edu.xmu.javaee.core.util.OutboxDispatcher;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 售后单运单发件箱记录
+ * 审核事务内登记建单请求，提交后由后台派发器调用物流模块创建运单并回填结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AftersaleExpress implements OutboxDispatcher.Record {
+
+    private Long id;
+    private Long aftersaleId;
+    private Long shopId;
+    private String status;
+    private CreatePackageRequest request;
+    private Long expressId;
+    private String billCode;
+    private Integer expressStatus;
+    private Integer callStatus;
+    private String failReason;
+    private Integer retryCount;
+    private LocalDateTime nextRetryTime;
+    /** 所属售后单是否已取消 */
+    private boolean orderCancelled;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    /**
+     * 为售后单登记一条待派发的建单请求
+     */
+    public static AftersaleExpress of(AftersaleOrder order, CreatePackageRequest request) {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        return AftersaleExpress.builder()
+                .aftersaleId(order.getId())
+                .shopId(order.getShopId())
+                .status(STATUS_CREATED)
+                .request(request)
+                .callStatus(CALL_PENDING)
+                .retryCount(0)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    /**
+     * 从PO构建领域对象
+     */
+    public static AftersaleExpress fromPo(AftersaleExpressPo po) {
+        if (po == null) {
+            return null;
+        }
+        CreatePackageRequest request = CreatePackageRequest.builder()
+                .contractId(po.getContractId())
+                .payMethod(po.getPayMethod())
+                .address(CreatePackageRequest.AddressInfo.builder()
+                        .name(po.getName())
+                        .mobile(po.getMobile())
+                        .regionId(po.getRegionId())
+                        .address(po.getAddress())
+                        .build())
+                .cargoDetails(parseCargoDetails(po.getCargoDetails()))
+                .build();
+        return AftersaleExpress.builder()
+                .id(po.getId())
+                .aftersaleId(po.getAftersaleId())
+                .shopId(po.getShopId())
+                .status(po.getStatus())
+                .request(request)
+                .expressId(po.getExpressId())
+                .billCode(po.getBillCode())
+                .expressStatus(po.getExpressStatus())
+                .callStatus(po.getCallStatus())
+                .failReason(po.getFailReason())
+                .retryCount(po.getRetryCount())
+                .nextRetryTime(po.getNextRetryTime())
+                .orderCancelled(Boolean.TRUE.equals(po.getOrderCancelled()))
+                .createdAt(po.getGmtCreate())
+                .updatedAt(po.getGmtModified())
+                .build();
+    }
+
+    /**
+     * 转换为PO
+     */
+    public AftersaleExpressPo toPo() {
+        AftersaleExpressPo po = new AftersaleExpressPo();
+        po.setId(this.id);
+        po.setAftersaleId(this.aftersaleId);
+        po.setStatus(this.status);
+        if (this.request != null) {
+            po.setContractId(this.request.getContractId());
+            po.setPayMethod(this.request.getPayMethod());
+            CreatePackageRequest.AddressInfo address = this.request.getAddress();
+            if (address != null) {
+                po.setName(address.getName());
+                po.setMobile(address.getMobile());
+                po.setRegionId(address.getRegionId());
+                po.setAddress(address.getAddress());
+            }
+            po.setCargoDetails(JacksonUtil.toJson(this.request.getCargoDetails()));
+        }
+        po.setExpressId(this.expressId);
+        po.setBillCode(this.billCode);
+        po.setExpressStatus(this.expressStatus);
+        po.setCallStatus(this.callStatus);
+        po.setFailReason(this.failReason);
+        po.setRetryCount(this.retryCount);
+        po.setNextRetryTime(this.nextRetryTime);
+        po.setGmtCreate(this.createdAt);
+        po.setGmtModified(this.updatedAt);
+        return po;
+    }
+
+    private static List<CreatePackageRequest.CargoDetail> parseCargoDetails(String json) {
+        CreatePackageRequest.CargoDetail[] details = JacksonUtil.toObj(json, CreatePackageRequest.CargoDetail[].class);
+        return details == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(details));
+    }
+}
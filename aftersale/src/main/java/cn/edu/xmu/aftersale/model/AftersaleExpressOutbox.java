@@ -0,0 +1,35 @@
+package cn.edu.xmu.aftersale.model;
+
+import cn.edu.xmu.aftersale.client.dto.CreatePackageRequest;
+
+import java.util.List;
+
+/**
+ * 售后运单发件箱
+ * 策略只在当前事务内登记建单请求，事务提交后再异步创建运单并回填售后单express_id
+ */
+public interface AftersaleExpressOutbox {
+
+    /**
+     * 登记建单请求
+     * @return 发件箱记录ID，在defer内调用时请求只暂存，返回null
+     */
+    Long enqueue(AftersaleOrder order, CreatePackageRequest request);
+
+    /**
+     * 在当前线程执行action，期间enqueue的建单请求不写入发件箱，暂存后返回
+     * 用于批量处理：售后单保存成功后再由调用方enqueueAll，保存失败的直接丢弃
+     */
+    List<Request> defer(Runnable action);
+
+    /**
+     * 登记defer暂存的建单请求
+     */
+    void enqueueAll(List<Request> requests);
+
+    /**
+     * 暂存的建单请求
+     */
+    record Request(AftersaleOrder order, CreatePackageRequest request) {
+    }
+}
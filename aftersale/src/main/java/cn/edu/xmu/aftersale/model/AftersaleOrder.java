@@ -1,14 +1,25 @@
 package cn.edu.xmu.aftersale.model;
 
 import cn.edu.xmu.aftersale.dao.po.AftersaleOrderPo;
+import cn.edu.xmu.javaee.core.clonefactory.CopyFrom;
+import cn.edu.xmu.javaee.core.clonefactory.CopyTo;
 import cn.edu.xmu.javaee.core.exception.BusinessException;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.model.Stateful;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * 售后单领域对象
@@ -17,7 +28,9 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class AftersaleOrder {
+@CopyFrom(AftersaleOrderPo.class)
+@CopyTo(AftersaleOrderPo.class)
+public class AftersaleOrder implements Stateful {
     
     private Long id;
     private Long shopId;
@@ -34,56 +47,71 @@ public class AftersaleOrder {
     private Long returnExpressId;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    /** 从数据库载入时的状态，保存时以此做条件更新；不是从数据库载入的为null */
+    private AftersaleStatus persistedStatus;
+    /** 从数据库载入（或上次保存）时的PO，保存时与之比较只写改动过的列；不是从数据库载入的为null */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private AftersaleOrderPo loaded;
 
     /**
      * 从PO构建领域对象
+     * 同名属性由编译时生成的CloneFactory拷贝，状态码和时间字段在这里转换
      */
     public static AftersaleOrder fromPo(AftersaleOrderPo po) {
         if (po == null) {
             return null;
         }
-        return AftersaleOrder.builder()
-                .id(po.getId())
-                .shopId(po.getShopId())
-                .orderId(po.getOrderId())
-                .customerId(po.getCustomerId())
-                .productId(po.getProductId())
-                .type(po.getType())
-                .status(convertStatus(po.getStatus()))
-                .reason(po.getReason())
-                .conclusion(po.getConclusion())
-                .expressId(po.getExpressId())
-                .returnExpressId(po.getReturnExpressId())
-                .createdAt(po.getGmtCreate())
-                .updatedAt(po.getGmtModified())
-                .build();
+        AftersaleOrder order = CloneFactory.copy(new AftersaleOrder(), po);
+        order.status = convertStatus(po.getStatus());
+        order.persistedStatus = order.status;
+        order.createdAt = po.getGmtCreate();
+        order.updatedAt = po.getGmtModified();
+        order.loaded = po;
+        return order;
     }
 
     /**
      * 转换为PO
      */
     public AftersaleOrderPo toPo() {
-        AftersaleOrderPo po = new AftersaleOrderPo();
-        po.setId(this.id);
-        po.setShopId(this.shopId);
-        po.setOrderId(this.orderId);
-        po.setCustomerId(this.customerId);
-        po.setProductId(this.productId);
-        po.setType(this.type);
+        AftersaleOrderPo po = CloneFactory.copy(new AftersaleOrderPo(), this);
         po.setStatus(convertStatusToInt(this.status));
-        po.setReason(this.reason);
-        po.setConclusion(this.conclusion);
-        po.setExpressId(this.expressId);
-        po.setReturnExpressId(this.returnExpressId);
         po.setGmtCreate(this.createdAt);
         po.setGmtModified(this.updatedAt);
+        po.setExpectedStatus(this.persistedStatus == null ? null : convertStatusToInt(this.persistedStatus));
+        po.setDirtyFields(dirtyFields(po));
         return po;
     }
 
+    /**
+     * 与载入时相比改动过的可更新属性，不是从数据库载入的返回null
+     */
+    private Set<String> dirtyFields(AftersaleOrderPo po) {
+        if (this.loaded == null) {
+            return null;
+        }
+        Set<String> dirty = new HashSet<>();
+        markIfChanged(dirty, "status", po.getStatus(), loaded.getStatus());
+        markIfChanged(dirty, "conclusion", po.getConclusion(), loaded.getConclusion());
+        markIfChanged(dirty, "expressId", po.getExpressId(), loaded.getExpressId());
+        markIfChanged(dirty, "returnExpressId", po.getReturnExpressId(), loaded.getReturnExpressId());
+        markIfChanged(dirty, "gmtModified", po.getGmtModified(), loaded.getGmtModified());
+        return dirty;
+    }
+
+    private static void markIfChanged(Set<String> dirty, String field, Object current, Object loaded) {
+        if (!Objects.equals(current, loaded)) {
+            dirty.add(field);
+        }
+    }
+
     /**
      * 将数据库状态码转换为状态枚举
      */
-    private static AftersaleStatus convertStatus(Integer statusCode) {
+    public static AftersaleStatus convertStatus(Integer statusCode) {
         if (statusCode == null) {
             return AftersaleStatus.PENDING;
         }
@@ -102,7 +130,7 @@ public class AftersaleOrder {
     /**
      * 将状态枚举转换为数据库状态码
      */
-    private static Integer convertStatusToInt(AftersaleStatus status) {
+    public static Integer convertStatusToInt(AftersaleStatus status) {
         if (status == null) {
             return 0;
         }
@@ -117,6 +145,23 @@ public class AftersaleOrder {
         };
     }
 
+    /** 保存成功后，当前状态即为数据库中的状态 */
+    public void markPersisted() {
+        this.persistedStatus = this.status;
+        this.loaded = toPo();
+    }
+
+    /** 从载入时的状态到当前状态的迁移，由DaoAspect计入state.transitions */
+    @Override
+    public Transition transition() {
+        if (this.status == null || this.status == this.persistedStatus) {
+            return null;
+        }
+        AftersaleType aftersaleType = AftersaleType.ofCode(this.type);
+        return new Transition("aftersale", aftersaleType == null ? "UNKNOWN" : aftersaleType.name(),
+                this.persistedStatus == null ? "NEW" : this.persistedStatus.name(), this.status.name());
+    }
+
     /** 检查是否为待审核 */
     public void checkPendingStatus() {
         if (!AftersaleStatus.PENDING.equals(this.status)) {
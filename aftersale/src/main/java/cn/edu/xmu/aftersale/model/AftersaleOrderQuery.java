@@ -0,0 +1,27 @@
+package cn.edu.xmu.aftersale.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 售后单列表查询条件，除shopId外均可为空
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AftersaleOrderQuery {
+
+    private Long shopId;
+    private AftersaleStatus status;
+    private AftersaleType type;
+    private Long customerId;
+    private Long orderId;
+    /** 创建时间范围，闭区间 */
+    private LocalDateTime beginTime;
+    private LocalDateTime endTime;
+}
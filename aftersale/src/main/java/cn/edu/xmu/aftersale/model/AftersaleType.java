@@ -17,13 +17,37 @@ public enum AftersaleType {
     private final Integer code;
     private final String description;
 
+    /** 按code下标索引的类型表 */
+    private static final AftersaleType[] BY_CODE;
+
+    static {
+        AftersaleType[] values = values();
+        int max = 0;
+        for (AftersaleType type : values) {
+            max = Math.max(max, type.getCode());
+        }
+        BY_CODE = new AftersaleType[max + 1];
+        for (AftersaleType type : values) {
+            BY_CODE[type.getCode()] = type;
+        }
+    }
+
     public static AftersaleType valueOf(Integer code) {
-        for (AftersaleType type : values()) {
-            if (type.getCode().equals(code)) {
-                return type;
-            }
+        AftersaleType type = ofCode(code);
+        if (type == null) {
+            throw new IllegalArgumentException("未知的售后类型: " + code);
+        }
+        return type;
+    }
+
+    /**
+     * 按code取类型，未知code返回null
+     */
+    public static AftersaleType ofCode(Integer code) {
+        if (code == null || code < 0 || code >= BY_CODE.length) {
+            return null;
         }
-        throw new IllegalArgumentException("未知的售后类型: " + code);
+        return BY_CODE[code];
     }
 }
 
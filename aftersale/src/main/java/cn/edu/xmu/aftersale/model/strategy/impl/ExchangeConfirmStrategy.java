@@ -1,12 +1,10 @@
 package cn.edu.xmu.aftersale.model.strategy.impl;
 
-import cn.edu.xmu.aftersale.client.LogisticsClient;
 import cn.edu.xmu.aftersale.client.dto.CreatePackageRequest;
-import cn.edu.xmu.aftersale.client.dto.CreatePackageResponse;
+import cn.edu.xmu.aftersale.model.AftersaleExpressOutbox;
 import cn.edu.xmu.aftersale.model.AftersaleOrder;
 import cn.edu.xmu.aftersale.model.AftersaleType;
 import cn.edu.xmu.aftersale.model.strategy.AftersaleConfirmStrategy;
-import cn.edu.xmu.javaee.core.model.InternalReturnObject;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -16,14 +14,14 @@ import java.util.List;
 
 /**
  * 换货审核策略
- * 审核通过后需要创建换货运单
+ * 审核通过后需要创建换货运单，运单由发件箱在事务提交后异步创建
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ExchangeConfirmStrategy implements AftersaleConfirmStrategy {
 
-    private final LogisticsClient logisticsClient;
+    private final AftersaleExpressOutbox expressOutbox;
 
     @Override
     public void confirm(AftersaleOrder order, Boolean confirm, String conclusion) {
@@ -34,11 +32,10 @@ public class ExchangeConfirmStrategy implements AftersaleConfirmStrategy {
             order.approveToBeReceived(conclusion != null ? conclusion : "同意换货");
             log.info("换货审核通过: orderId={}, 状态转换为待验收", order.getId());
             
-            // 创建换货运单（客户寄回商品到商家）
+            // 登记换货运单（客户寄回商品到商家），事务提交后异步创建并回填expressId
             try {
-                Long expressId = createExchangePackage(order);
-                order.setExpressId(expressId);
-                log.info("换货运单创建成功: aftersaleId={}, expressId={}", order.getId(), expressId);
+                Long outboxId = expressOutbox.enqueue(order, buildExchangePackage(order));
+                log.info("换货运单已登记: aftersaleId={}, outboxId={}", order.getId(), outboxId);
             } catch (Exception e) {
                 log.error("创建换货运单失败: aftersaleId={}", order.getId(), e);
                 throw new RuntimeException("创建换货运单失败: " + e.getMessage(), e);
@@ -56,10 +53,10 @@ public class ExchangeConfirmStrategy implements AftersaleConfirmStrategy {
     }
     
     /**
-     * 创建换货运单
+     * 构建换货运单请求
      * 客户寄回商品到商家仓库
      */
-    private Long createExchangePackage(AftersaleOrder order) {
+    private CreatePackageRequest buildExchangePackage(AftersaleOrder order) {
         // 构建收件地址（商家仓库地址）
         CreatePackageRequest.AddressInfo address = 
             CreatePackageRequest.AddressInfo.builder()
@@ -84,25 +81,11 @@ public class ExchangeConfirmStrategy implements AftersaleConfirmStrategy {
         cargoList.add(cargo);
         
         // 构建完整请求
-        CreatePackageRequest request = CreatePackageRequest.builder()
+        return CreatePackageRequest.builder()
                 .contractId(0L)          // 0表示自动选择物流合同
                 .payMethod(2)            // 2-收方付（商家承担运费）
                 .address(address)
                 .cargoDetails(cargoList)
                 .build();
-        
-        // 调用物流API
-        InternalReturnObject<CreatePackageResponse> response = 
-            logisticsClient.createPackage(
-                order.getShopId(),
-                "Bearer token",  // 实际应该从上下文获取
-                request
-            );
-        
-        CreatePackageResponse packageData = response.getData();
-        log.info("物流运单创建成功: packageId={}, billCode={}", 
-                 packageData.getId(), packageData.getBillCode());
-        
-        return packageData.getId();
     }
 }
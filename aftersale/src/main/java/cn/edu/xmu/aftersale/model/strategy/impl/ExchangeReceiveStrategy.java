@@ -7,6 +7,7 @@ import cn.edu.xmu.aftersale.model.AftersaleOrder;
 import cn.edu.xmu.aftersale.model.AftersaleType;
 import cn.edu.xmu.aftersale.model.strategy.AftersaleProcessStrategy;
 import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -22,6 +23,7 @@ import java.util.List;
 public class ExchangeReceiveStrategy implements AftersaleProcessStrategy {
 
     private final LogisticsClient logisticsClient;
+    private final ServiceTokenProvider serviceTokenProvider;
 
     @Override
     public void process(AftersaleOrder order, String conclusion) {
@@ -63,7 +65,7 @@ public class ExchangeReceiveStrategy implements AftersaleProcessStrategy {
                 .build();
 
         InternalReturnObject<CreatePackageResponse> response =
-                logisticsClient.createPackage(order.getShopId(), "Bearer token", request);
+                logisticsClient.createPackage(order.getShopId(), serviceTokenProvider.getToken(), request);
         return response.getData().getId();
     }
 }
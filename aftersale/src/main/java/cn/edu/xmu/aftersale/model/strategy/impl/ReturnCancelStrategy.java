@@ -5,6 +5,7 @@ import cn.edu.xmu.aftersale.model.AftersaleOrder;
 import cn.edu.xmu.aftersale.model.AftersaleType;
 import cn.edu.xmu.aftersale.model.strategy.AftersaleCancelStrategy;
 import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -19,6 +20,7 @@ import org.springframework.stereotype.Component;
 public class ReturnCancelStrategy implements AftersaleCancelStrategy {
 
     private final LogisticsClient logisticsClient;
+    private final ServiceTokenProvider serviceTokenProvider;
 
     @Override
     public void cancel(AftersaleOrder order, String reason) {
@@ -37,7 +39,7 @@ public class ReturnCancelStrategy implements AftersaleCancelStrategy {
                     logisticsClient.cancelPackage(
                         order.getShopId(),
                         order.getExpressId(),
-                        "Bearer token"  // 实际应该从上下文获取
+                        serviceTokenProvider.getToken()
                     );
                 
                 log.info("退货运单取消成功: expressId={}", order.getExpressId());
@@ -0,0 +1,141 @@
+package cn.edu.xmu.aftersale.service;
+
+import cn.edu.xmu.aftersale.client.LogisticsClient;
+import cn.edu.xmu.aftersale.client.dto.CreatePackageRequest;
+import cn.edu.xmu.aftersale.client.dto.CreatePackageResponse;
+import cn.edu.xmu.aftersale.dao.AftersaleExpressRepository;
+import cn.edu.xmu.aftersale.dao.AftersaleOrderRepository;
+import cn.edu.xmu.aftersale.model.AftersaleExpress;
+import cn.edu.xmu.aftersale.model.AftersaleExpressOutbox;
+import cn.edu.xmu.aftersale.model.AftersaleOrder;
+import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.OutboxDispatcher;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 售后运单发件箱
+ * 审核事务内只登记建单请求（aftersale_express，call_status=0），事务提交后由OutboxDispatcher调用物流模块；
+ * 建单成功后回填售后单express_id，派发期间售后单被取消的撤销运单
+ */
+@Slf4j
+@Service
+public class AftersaleExpressDispatcher implements AftersaleExpressOutbox, OutboxDispatcher.Handler<AftersaleExpress, CreatePackageResponse> {
+
+    private final AftersaleExpressRepository expressRepository;
+    private final AftersaleOrderRepository orderRepository;
+    private final LogisticsClient logisticsClient;
+    private final ServiceTokenProvider serviceTokenProvider;
+    private final OutboxDispatcher<AftersaleExpress, CreatePackageResponse> dispatcher;
+    /** defer执行期间暂存的建单请求 */
+    private final ThreadLocal<List<Request>> deferred = new ThreadLocal<>();
+
+    public AftersaleExpressDispatcher(AftersaleExpressRepository expressRepository,
+                                      AftersaleOrderRepository orderRepository,
+                                      LogisticsClient logisticsClient,
+                                      ServiceTokenProvider serviceTokenProvider,
+                                      @Value("${aftersale.express-outbox.concurrency:4}") int concurrency,
+                                      @Value("${aftersale.express-outbox.batch-size:100}") int batchSize,
+                                      @Value("${aftersale.express-outbox.max-retry:8}") int maxRetry,
+                                      @Value("${aftersale.express-outbox.stale-seconds:120}") long staleSeconds) {
+        this.expressRepository = expressRepository;
+        this.orderRepository = orderRepository;
+        this.logisticsClient = logisticsClient;
+        this.serviceTokenProvider = serviceTokenProvider;
+        this.dispatcher = new OutboxDispatcher<>("aftersale-express", expressRepository, this,
+                concurrency, batchSize, maxRetry, Duration.ofSeconds(staleSeconds));
+    }
+
+    /**
+     * 登记建单请求，在调用方事务提交后派发
+     */
+    @Override
+    public Long enqueue(AftersaleOrder order, CreatePackageRequest request) {
+        List<Request> buffer = deferred.get();
+        if (buffer != null) {
+            buffer.add(new Request(order, request));
+            return null;
+        }
+        AftersaleExpress express = expressRepository.create(AftersaleExpress.of(order, request));
+        dispatcher.submitAfterCommit(express.getId());
+        return express.getId();
+    }
+
+    @Override
+    public List<Request> defer(Runnable action) {
+        if (deferred.get() != null) {
+            throw new IllegalStateException("不支持嵌套的defer");
+        }
+        List<Request> buffer = new ArrayList<>();
+        deferred.set(buffer);
+        try {
+            action.run();
+        } finally {
+            deferred.remove();
+        }
+        return buffer;
+    }
+
+    @Override
+    public void enqueueAll(List<Request> requests) {
+        for (Request request : requests) {
+            enqueue(request.order(), request.request());
+        }
+    }
+
+    /**
+     * 定时扫描待派发的记录
+     */
+    @Scheduled(fixedDelayString = "${aftersale.express-outbox.poll-interval:5000}",
+            initialDelayString = "${aftersale.express-outbox.poll-interval:5000}")
+    public void poll() {
+        dispatcher.poll();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    /**
+     * 调用物流模块创建运单
+     */
+    @Override
+    public CreatePackageResponse send(AftersaleExpress express) {
+        InternalReturnObject<CreatePackageResponse> response =
+                logisticsClient.createPackage(express.getShopId(), serviceTokenProvider.getToken(), express.getRequest());
+        if (response == null || response.getData() == null
+                || !Integer.valueOf(ReturnNo.OK.getErrNo()).equals(response.getErrno())) {
+            throw new IllegalStateException(response == null ? "物流模块无响应" : response.getErrmsg());
+        }
+        return response.getData();
+    }
+
+    /**
+     * 回填售后单express_id，派发期间售后单被取消时撤销刚创建的运单
+     */
+    @Override
+    public void onSuccess(AftersaleExpress express, CreatePackageResponse data) {
+        log.info("运单创建成功: id={}, aftersaleId={}, expressId={}, billCode={}",
+                express.getId(), express.getAftersaleId(), data.getId(), data.getBillCode());
+        if (orderRepository.fillExpressId(express.getAftersaleId(), data.getId())) {
+            return;
+        }
+        try {
+            logisticsClient.cancelPackage(express.getShopId(), data.getId(), serviceTokenProvider.getToken());
+            expressRepository.markCanceled(express.getId());
+            log.info("售后单已取消，撤销运单: aftersaleId={}, expressId={}", express.getAftersaleId(), data.getId());
+        } catch (RuntimeException e) {
+            log.error("撤销运单失败: aftersaleId={}, expressId={}", express.getAftersaleId(), data.getId(), e);
+        }
+    }
+}
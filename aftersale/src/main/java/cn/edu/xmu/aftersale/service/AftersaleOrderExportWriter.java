@@ -0,0 +1,259 @@
+package cn.edu.xmu.aftersale.service;
+
+import cn.edu.xmu.aftersale.dao.po.AftersaleOrderPo;
+import cn.edu.xmu.aftersale.model.AftersaleExportFormat;
+import cn.edu.xmu.aftersale.model.AftersaleOrder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 把售后单PO逐行写成导出格式，字段与列表接口的AftersaleOrderListItem相同
+ * status经AftersaleStatus转换为状态码，type为数据库中的类型码；只缓冲当前行，不持有已写出的行
+ */
+abstract class AftersaleOrderExportWriter {
+
+    static final String[] COLUMNS = {"id", "orderId", "customerId", "productId", "type", "status", "reason",
+            "conclusion", "expressId", "returnExpressId", "gmtCreate", "gmtModified"};
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    /** 数字、时间先格式化到这里再写出，每行不再为它们创建字符串 */
+    final char[] scratch = new char[32];
+
+    static AftersaleOrderExportWriter of(AftersaleExportFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case CSV -> new Csv(out);
+            case NDJSON -> new Ndjson(out);
+        };
+    }
+
+    /**
+     * 写出一行
+     */
+    abstract void write(AftersaleOrderPo po) throws IOException;
+
+    /**
+     * 把缓冲的内容写入输出流，不关闭输出流
+     */
+    abstract void finish() throws IOException;
+
+    static String status(Integer code) {
+        return AftersaleOrder.convertStatus(code).getCode();
+    }
+
+    /**
+     * 把value的十进制写到scratch，返回长度
+     */
+    int formatDigits(long value) {
+        if (value == Long.MIN_VALUE) {
+            String text = Long.toString(value);
+            text.getChars(0, text.length(), scratch, 0);
+            return text.length();
+        }
+        boolean negative = value < 0;
+        long rest = negative ? -value : value;
+        int pos = scratch.length;
+        do {
+            scratch[--pos] = (char) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        if (negative) {
+            scratch[--pos] = '-';
+        }
+        int length = scratch.length - pos;
+        System.arraycopy(scratch, pos, scratch, 0, length);
+        return length;
+    }
+
+    /**
+     * 按ISO_LOCAL_DATE_TIME把time写到scratch，返回长度；年份不在0~9999时交给DateTimeFormatter
+     */
+    int formatTime(LocalDateTime time) {
+        int year = time.getYear();
+        if (year < 0 || year > 9999) {
+            String text = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(time);
+            text.getChars(0, text.length(), scratch, 0);
+            return text.length();
+        }
+        pad(year, 0, 4);
+        scratch[4] = '-';
+        pad(time.getMonthValue(), 5, 2);
+        scratch[7] = '-';
+        pad(time.getDayOfMonth(), 8, 2);
+        scratch[10] = 'T';
+        pad(time.getHour(), 11, 2);
+        scratch[13] = ':';
+        pad(time.getMinute(), 14, 2);
+        scratch[16] = ':';
+        pad(time.getSecond(), 17, 2);
+        int nano = time.getNano();
+        if (nano == 0) {
+            return 19;
+        }
+        // 与DateTimeFormatter一样去掉小数末尾的0
+        int length = 9;
+        while (nano % 10 == 0) {
+            nano /= 10;
+            length--;
+        }
+        scratch[19] = '.';
+        pad(nano, 20, length);
+        return 20 + length;
+    }
+
+    private void pad(int value, int offset, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            scratch[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * RFC 4180：首行为列名，含逗号、双引号、换行的值加双引号，值中的双引号写两次；null为空值
+     */
+    private static final class Csv extends AftersaleOrderExportWriter {
+
+        private final Writer writer;
+
+        private Csv(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        void write(AftersaleOrderPo po) throws IOException {
+            value(po.getId());
+            writer.write(',');
+            value(po.getOrderId());
+            writer.write(',');
+            value(po.getCustomerId());
+            writer.write(',');
+            value(po.getProductId());
+            writer.write(',');
+            value(po.getType());
+            writer.write(',');
+            writer.write(status(po.getStatus()));
+            writer.write(',');
+            text(po.getReason());
+            writer.write(',');
+            text(po.getConclusion());
+            writer.write(',');
+            value(po.getExpressId());
+            writer.write(',');
+            value(po.getReturnExpressId());
+            writer.write(',');
+            time(po.getGmtCreate());
+            writer.write(',');
+            time(po.getGmtModified());
+            writer.write("\r\n");
+        }
+
+        @Override
+        void finish() throws IOException {
+            writer.flush();
+        }
+
+        private void value(Number value) throws IOException {
+            if (value != null) {
+                writer.write(scratch, 0, formatDigits(value.longValue()));
+            }
+        }
+
+        private void time(LocalDateTime value) throws IOException {
+            if (value != null) {
+                writer.write(scratch, 0, formatTime(value));
+            }
+        }
+
+        private void text(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+    }
+
+    /**
+     * 每行一个JSON对象，null的字段不写
+     */
+    private static final class Ndjson extends AftersaleOrderExportWriter {
+
+        private final JsonGenerator generator;
+
+        private Ndjson(OutputStream out) throws IOException {
+            this.generator = JSON_FACTORY.createGenerator(out);
+        }
+
+        @Override
+        void write(AftersaleOrderPo po) throws IOException {
+            generator.writeStartObject();
+            number(COLUMNS[0], po.getId());
+            number(COLUMNS[1], po.getOrderId());
+            number(COLUMNS[2], po.getCustomerId());
+            number(COLUMNS[3], po.getProductId());
+            number(COLUMNS[4], po.getType());
+            generator.writeStringField(COLUMNS[5], status(po.getStatus()));
+            text(COLUMNS[6], po.getReason());
+            text(COLUMNS[7], po.getConclusion());
+            number(COLUMNS[8], po.getExpressId());
+            number(COLUMNS[9], po.getReturnExpressId());
+            time(COLUMNS[10], po.getGmtCreate());
+            time(COLUMNS[11], po.getGmtModified());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        void finish() throws IOException {
+            generator.close();
+        }
+
+        private void number(String name, Number value) throws IOException {
+            if (value != null) {
+                generator.writeNumberField(name, value.longValue());
+            }
+        }
+
+        private void text(String name, String value) throws IOException {
+            if (value != null) {
+                generator.writeStringField(name, value);
+            }
+        }
+
+        private void time(String name, LocalDateTime value) throws IOException {
+            if (value != null) {
+                generator.writeFieldName(name);
+                generator.writeString(scratch, 0, formatTime(value));
+            }
+        }
+    }
+}
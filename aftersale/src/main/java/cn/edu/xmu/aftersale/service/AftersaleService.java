@@ -1,31 +1,76 @@
 package cn.edu.xmu.aftersale.service;
 
+import cn.edu.xmu.aftersale.controller.dto.AftersaleOrderListItem;
+import cn.edu.xmu.aftersale.controller.dto.AftersaleOrderListResult;
 import cn.edu.xmu.aftersale.dao.AftersaleOrderRepository;
+import cn.edu.xmu.aftersale.model.AftersaleBatchResult;
+import cn.edu.xmu.aftersale.model.AftersaleExportFormat;
+import cn.edu.xmu.aftersale.model.AftersaleExpressOutbox;
 import cn.edu.xmu.aftersale.model.AftersaleOrder;
+import cn.edu.xmu.aftersale.model.AftersaleOrderQuery;
+import cn.edu.xmu.aftersale.model.AftersaleType;
 import cn.edu.xmu.aftersale.model.strategy.AftersaleAcceptStrategy;
 import cn.edu.xmu.aftersale.model.strategy.AftersaleCancelStrategy;
 import cn.edu.xmu.aftersale.model.strategy.AftersaleConfirmStrategy;
 import cn.edu.xmu.aftersale.model.strategy.AftersaleProcessStrategy;
-import lombok.RequiredArgsConstructor;
+import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.PageCursor;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.StrategyRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * 售后服务
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class AftersaleService {
 
     private final AftersaleOrderRepository repository;
-    private final List<AftersaleConfirmStrategy> confirmStrategies;
-    private final List<AftersaleCancelStrategy> cancelStrategies;
-    private final List<AftersaleAcceptStrategy> acceptStrategies;
-    private final List<AftersaleProcessStrategy> processStrategies;
+    private final StrategyRegistry<AftersaleType, AftersaleConfirmStrategy> confirmStrategies;
+    private final StrategyRegistry<AftersaleType, AftersaleCancelStrategy> cancelStrategies;
+    private final StrategyRegistry<AftersaleType, AftersaleAcceptStrategy> acceptStrategies;
+    private final StrategyRegistry<AftersaleType, AftersaleProcessStrategy> processStrategies;
+    /** 批量处理时策略登记的运单先暂存，售后单保存成功后再登记 */
+    private final AftersaleExpressOutbox expressOutbox;
+
+    /**
+     * 启动时按售后类型建立策略分派表
+     * 审核、取消对所有类型都必须有策略；验收和验收后处理只有退货、换货需要
+     */
+    public AftersaleService(AftersaleOrderRepository repository,
+                            List<AftersaleConfirmStrategy> confirmStrategies,
+                            List<AftersaleCancelStrategy> cancelStrategies,
+                            List<AftersaleAcceptStrategy> acceptStrategies,
+                            List<AftersaleProcessStrategy> processStrategies,
+                            AftersaleExpressOutbox expressOutbox) {
+        EnumSet<AftersaleType> all = EnumSet.allOf(AftersaleType.class);
+        EnumSet<AftersaleType> returned = EnumSet.of(AftersaleType.EXCHANGE, AftersaleType.RETURN);
+        this.repository = repository;
+        this.confirmStrategies = StrategyRegistry.of("售后审核策略", AftersaleType.class, confirmStrategies,
+                (s, type) -> s.support(type.getCode()), all);
+        this.cancelStrategies = StrategyRegistry.of("售后取消策略", AftersaleType.class, cancelStrategies,
+                (s, type) -> s.support(type.getCode()), all);
+        this.acceptStrategies = StrategyRegistry.of("售后验收策略", AftersaleType.class, acceptStrategies,
+                (s, type) -> s.support(type.getCode()), returned);
+        this.processStrategies = StrategyRegistry.of("售后验收后处理策略", AftersaleType.class, processStrategies,
+                (s, type) -> s.support(type.getCode()), returned);
+        this.expressOutbox = expressOutbox;
+    }
 
     /** 商户审核售后单 */
     @Transactional
@@ -35,10 +80,7 @@ public class AftersaleService {
         AftersaleOrder order = repository.findById(shopId, id);
         order.checkPendingStatus();
 
-        AftersaleConfirmStrategy strategy = confirmStrategies.stream()
-                .filter(s -> s.support(order.getType()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("不支持的售后类型: " + order.getType()));
+        AftersaleConfirmStrategy strategy = dispatch(confirmStrategies, order.getType());
 
         strategy.confirm(order, confirm, conclusion);
 
@@ -55,10 +97,7 @@ public class AftersaleService {
         AftersaleOrder order = repository.findById(shopId, id);
         order.checkCanReceive();
 
-        AftersaleAcceptStrategy strategy = acceptStrategies.stream()
-                .filter(s -> s.support(order.getType()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("不支持的售后类型: " + order.getType()));
+        AftersaleAcceptStrategy strategy = dispatch(acceptStrategies, order.getType());
 
         strategy.accept(order, accept, conclusion);
 
@@ -75,10 +114,7 @@ public class AftersaleService {
         AftersaleOrder order = repository.findById(shopId, id);
         order.checkCanProcessReceived();
 
-        AftersaleProcessStrategy strategy = processStrategies.stream()
-                .filter(s -> s.support(order.getType()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("不支持的售后类型: " + order.getType()));
+        AftersaleProcessStrategy strategy = dispatch(processStrategies, order.getType());
 
         strategy.process(order, conclusion);
 
@@ -95,10 +131,7 @@ public class AftersaleService {
         AftersaleOrder order = repository.findById(shopId, id);
         order.checkCanCancel();
 
-        AftersaleCancelStrategy strategy = cancelStrategies.stream()
-                .filter(s -> s.support(order.getType()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("不支持的售后类型: " + order.getType()));
+        AftersaleCancelStrategy strategy = dispatch(cancelStrategies, order.getType());
 
         strategy.cancel(order, reason);
 
@@ -106,5 +139,149 @@ public class AftersaleService {
         log.info("售后单取消完成: id={}, status={}", id, order.getStatus());
         return order.getStatus().getCode();
     }
-}
 
+    /**
+     * 商户查询售后单列表
+     * 带cursor时按游标取下一页（keyset），忽略page；不带cursor时按page取，只适合浅翻页
+     * 多取一条判断是否还有下一页，有则返回最后一条的游标
+     */
+    public AftersaleOrderListResult listAftersaleOrders(AftersaleOrderQuery query, String cursor, int page, int pageSize) {
+        PageCursor after = PageCursor.decode(cursor);
+        int offset = after == null ? (page - 1) * pageSize : 0;
+        List<AftersaleOrder> orders = repository.search(query, after, offset, pageSize + 1);
+
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            AftersaleOrder last = orders.get(pageSize - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return AftersaleOrderListResult.builder()
+                .list(orders.stream().map(AftersaleOrderListItem::of).toList())
+                .page(after == null ? page : null)
+                .pageSize(pageSize)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * 导出商铺符合条件的全部售后单，按创建时间、ID倒序写入out
+     * 结果集流式读取，每读一行直接写出，不构造领域对象，内存占用与行数无关
+     * @return 导出的行数
+     */
+    public long exportAftersaleOrders(AftersaleOrderQuery query, AftersaleExportFormat format, OutputStream out) throws IOException {
+        AftersaleOrderExportWriter writer = AftersaleOrderExportWriter.of(format, out);
+        long rows;
+        try {
+            rows = repository.scan(query, po -> {
+                try {
+                    writer.write(po);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 写出失败（通常是客户端断开）时经MyBatis包装后抛出，还原为IOException
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof UncheckedIOException io) {
+                    throw io.getCause();
+                }
+            }
+            throw e;
+        }
+        writer.finish();
+        log.info("售后单导出完成: shopId={}, format={}, rows={}", query.getShopId(), format, rows);
+        return rows;
+    }
+
+    /**
+     * 商户批量审核售后单
+     * 一次查询载入全部售后单，逐个执行审核策略并写回
+     * @return 每个售后单的处理结果，顺序与ids一致（重复ID只处理一次）
+     */
+    @Transactional
+    public List<AftersaleBatchResult> batchConfirmAftersale(Long shopId, List<Long> ids, Boolean confirm, String conclusion) {
+        log.info("开始批量审核售后单: shopId={}, size={}, confirm={}", shopId, ids.size(), confirm);
+        return batchProcess(shopId, ids, order -> {
+            order.checkPendingStatus();
+            dispatch(confirmStrategies, order.getType()).confirm(order, confirm, conclusion);
+        });
+    }
+
+    /**
+     * 商户批量取消售后单
+     * @return 每个售后单的处理结果，顺序与ids一致（重复ID只处理一次）
+     */
+    @Transactional
+    public List<AftersaleBatchResult> batchCancelAftersale(Long shopId, List<Long> ids, String reason) {
+        log.info("开始批量取消售后单: shopId={}, size={}, reason={}", shopId, ids.size(), reason);
+        return batchProcess(shopId, ids, order -> {
+            order.checkCanCancel();
+            dispatch(cancelStrategies, order.getType()).cancel(order, reason);
+        });
+    }
+
+    /**
+     * 批量处理：单个售后单失败只记录在结果中，不影响其余售后单
+     * 先逐个执行策略，策略登记的运单暂存不写入；执行成功的售后单由saveAll一次批量条件更新，
+     * 已被并发修改的报AFTERSALE_STATE_CONFLICT，只有保存成功的售后单才登记暂存的运单
+     */
+    private List<AftersaleBatchResult> batchProcess(Long shopId, List<Long> ids, Consumer<AftersaleOrder> action) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, AftersaleOrder> orders = new HashMap<>();
+        for (AftersaleOrder order : repository.findByIds(shopId, distinctIds)) {
+            orders.put(order.getId(), order);
+        }
+
+        Map<Long, AftersaleBatchResult> failures = new HashMap<>();
+        Map<Long, List<AftersaleExpressOutbox.Request>> expresses = new HashMap<>();
+        List<AftersaleOrder> changed = new ArrayList<>(orders.size());
+        for (Long id : distinctIds) {
+            AftersaleOrder order = orders.get(id);
+            if (order == null) {
+                failures.put(id, AftersaleBatchResult.error(id, ReturnNo.AFTERSALE_NOT_FOUND, ReturnNo.AFTERSALE_NOT_FOUND.getMessage()));
+                continue;
+            }
+            try {
+                expresses.put(id, expressOutbox.defer(() -> action.accept(order)));
+                changed.add(order);
+            } catch (BusinessException e) {
+                log.warn("批量处理售后单失败: id={}, errno={}, message={}", id, e.getErrno(), e.getMessage());
+                failures.put(id, AftersaleBatchResult.error(id, e.getErrno(), e.getMessage()));
+            } catch (RuntimeException e) {
+                log.error("批量处理售后单异常: id={}", id, e);
+                failures.put(id, AftersaleBatchResult.error(id, ReturnNo.INTERNAL_SERVER_ERR, e.getMessage()));
+            }
+        }
+
+        Set<Long> conflicts = repository.saveAll(changed);
+        for (AftersaleOrder order : changed) {
+            if (conflicts.contains(order.getId())) {
+                failures.put(order.getId(), AftersaleBatchResult.error(order.getId(), ReturnNo.AFTERSALE_STATE_CONFLICT,
+                        String.format("售后单(id=%d)状态已被修改，请刷新后重试", order.getId())));
+            } else {
+                expressOutbox.enqueueAll(expresses.get(order.getId()));
+            }
+        }
+
+        List<AftersaleBatchResult> results = new ArrayList<>(distinctIds.size());
+        for (Long id : distinctIds) {
+            AftersaleBatchResult failure = failures.get(id);
+            results.add(failure != null ? failure : AftersaleBatchResult.ok(id, orders.get(id).getStatus()));
+        }
+        log.info("批量处理售后单完成: shopId={}, total={}, success={}", shopId, distinctIds.size(),
+                distinctIds.size() - failures.size());
+        return results;
+    }
+
+    /**
+     * 按售后类型取策略
+     */
+    private static <S> S dispatch(StrategyRegistry<AftersaleType, S> registry, Integer type) {
+        S strategy = registry.get(AftersaleType.ofCode(type));
+        if (strategy == null) {
+            throw new IllegalArgumentException("不支持的售后类型: " + type);
+        }
+        return strategy;
+    }
+}
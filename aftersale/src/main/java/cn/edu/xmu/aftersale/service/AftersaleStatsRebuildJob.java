@@ -0,0 +1,36 @@
+package cn.edu.xmu.aftersale.service;
+
+import cn.edu.xmu.aftersale.dao.AftersaleStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 售后单统计重建任务
+ * 按aftersale.stats.rebuild-cron定时逐个商铺重建，每个商铺一个事务，单个商铺失败不影响其他商铺；
+ * 上线后的首次执行即为历史数据回填。多实例部署时只需一个实例执行，其余实例配置为"-"关闭
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AftersaleStatsRebuildJob {
+
+    private final AftersaleStatsRepository repository;
+    private final AftersaleStatsService statsService;
+
+    @Scheduled(cron = "${aftersale.stats.rebuild-cron:0 30 3 * * *}")
+    public void rebuildAll() {
+        int failed = 0;
+        long start = System.currentTimeMillis();
+        for (Long shopId : repository.findShopIds()) {
+            try {
+                statsService.rebuildAftersaleStats(shopId);
+            } catch (RuntimeException e) {
+                failed++;
+                log.error("售后单统计重建失败: shopId={}", shopId, e);
+            }
+        }
+        log.info("售后单统计重建结束: failed={}, elapsed={}ms", failed, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,87 @@
+package cn.edu.xmu.aftersale.service;
+
+import cn.edu.xmu.aftersale.controller.dto.AftersaleStatsResult;
+import cn.edu.xmu.aftersale.dao.AftersaleStatsRepository;
+import cn.edu.xmu.aftersale.dao.po.AftersaleStatsPo;
+import cn.edu.xmu.aftersale.model.AftersaleOrder;
+import cn.edu.xmu.aftersale.model.AftersaleStatus;
+import cn.edu.xmu.aftersale.model.AftersaleType;
+import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 售后单统计服务
+ * 读aftersale_stats汇总表，查询的行数与天数有关，与售后单数无关
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AftersaleStatsService {
+
+    /** 一次查询最多的天数 */
+    static final int MAX_DAYS = 366;
+
+    private final AftersaleStatsRepository repository;
+
+    /**
+     * 商铺在beginDate~endDate（含）创建的售后单统计
+     */
+    public AftersaleStatsResult getAftersaleStats(Long shopId, LocalDate beginDate, LocalDate endDate) {
+        long days = ChronoUnit.DAYS.between(beginDate, endDate) + 1;
+        if (days <= 0 || days > MAX_DAYS) {
+            throw new BusinessException(ReturnNo.FIELD_NOTVALID,
+                    String.format("统计日期范围须为1~%d天: %s ~ %s", MAX_DAYS, beginDate, endDate));
+        }
+
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (AftersaleStatus status : AftersaleStatus.values()) {
+            byStatus.put(status.getCode(), 0L);
+        }
+        Map<Integer, Long> byType = new LinkedHashMap<>();
+        for (AftersaleType type : AftersaleType.values()) {
+            byType.put(type.getCode(), 0L);
+        }
+        long[] daily = new long[(int) days];
+        long total = 0;
+        for (AftersaleStatsPo po : repository.findByShop(shopId, beginDate, endDate)) {
+            long count = po.getOrderCount();
+            total += count;
+            byStatus.merge(AftersaleOrder.convertStatus(po.getStatus()).getCode(), count, Long::sum);
+            byType.merge(po.getType(), count, Long::sum);
+            daily[(int) ChronoUnit.DAYS.between(beginDate, po.getStatDate())] += count;
+        }
+
+        List<AftersaleStatsResult.DailyCount> list = new ArrayList<>(daily.length);
+        for (int i = 0; i < daily.length; i++) {
+            list.add(new AftersaleStatsResult.DailyCount(beginDate.plusDays(i), daily[i]));
+        }
+        return AftersaleStatsResult.builder()
+                .beginDate(beginDate)
+                .endDate(endDate)
+                .total(total)
+                .byStatus(byStatus)
+                .byType(byType)
+                .daily(list)
+                .build();
+    }
+
+    /**
+     * 从售后单重新汇总商铺的统计，用于补齐建表前的历史数据和修正偏差
+     * @return 汇总后的计数行数
+     */
+    @Transactional
+    public int rebuildAftersaleStats(Long shopId) {
+        return repository.rebuild(shopId);
+    }
+}
@@ -0,0 +1,42 @@
+package cn.edu.xmu.aftersale.client;
+
+import cn.edu.xmu.aftersale.client.dto.CreatePackageRequest;
+import cn.edu.xmu.aftersale.client.dto.CreateServiceOrderRequest;
+import cn.edu.xmu.aftersale.model.strategy.impl.RepairCancelStrategy;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.AopUtils;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OpenFeignMapperAspect的切点应覆盖本模块的Feign客户端
+ */
+class FeignClientPointcutTest {
+
+    private final AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+
+    FeignClientPointcutTest() {
+        pointcut.setExpression("cn.edu.xmu.javaee.core.aop.CommonPointCuts.openFeignMapperMethods()");
+    }
+
+    @Test
+    void shouldMatchFeignClientMethods() throws Exception {
+        assertTrue(matches(LogisticsClient.class.getMethod("createPackage", Long.class, String.class, CreatePackageRequest.class)));
+        assertTrue(matches(LogisticsClient.class.getMethod("cancelPackage", Long.class, Long.class, String.class)));
+        assertTrue(matches(ServiceClient.class.getMethod("createServiceOrder", Long.class, Long.class, CreateServiceOrderRequest.class)));
+        assertTrue(matches(ServiceClient.class.getMethod("cancelServiceOrder", Long.class, Long.class, String.class)));
+    }
+
+    @Test
+    void shouldNotMatchDtoOrStrategy() throws Exception {
+        assertFalse(matches(CreatePackageRequest.class.getMethod("getAddress")));
+        assertFalse(matches(RepairCancelStrategy.class.getMethod("support", Integer.class)));
+    }
+
+    private boolean matches(Method method) {
+        return AopUtils.canApply(pointcut, method.getDeclaringClass()) && pointcut.matches(method, method.getDeclaringClass());
+    }
+}
@@ -1,24 +1,51 @@
 package cn.edu.xmu.aftersale.controller;
 
 import cn.edu.xmu.aftersale.controller.dto.AcceptAftersaleRequest;
+import cn.edu.xmu.aftersale.controller.dto.AftersaleOrderListResult;
+import cn.edu.xmu.aftersale.controller.dto.BatchCancelAftersaleRequest;
+import cn.edu.xmu.aftersale.controller.dto.BatchConfirmAftersaleRequest;
 import cn.edu.xmu.aftersale.controller.dto.CancelAftersaleRequest;
 import cn.edu.xmu.aftersale.controller.dto.ConfirmAftersaleRequest;
 import cn.edu.xmu.aftersale.controller.dto.ProcessReceivedAftersaleRequest;
+import cn.edu.xmu.aftersale.model.AftersaleBatchResult;
+import cn.edu.xmu.aftersale.model.AftersaleExportFormat;
+import cn.edu.xmu.aftersale.model.AftersaleOrderQuery;
 import cn.edu.xmu.aftersale.model.AftersaleStatus;
+import cn.edu.xmu.aftersale.model.AftersaleType;
 import cn.edu.xmu.aftersale.service.AftersaleService;
+import cn.edu.xmu.javaee.core.model.Constants;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
 import cn.edu.xmu.javaee.core.model.ReturnObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -107,5 +134,134 @@ class AftersaleControllerTest {
         assertEquals(AftersaleStatus.CANCELLED.getCode(), data.get("status"));
         assertEquals(ReturnNo.OK.getMessage(), data.get("errmsg"));
     }
-}
 
+    @Test
+    void batchConfirmAftersaleShouldReturnPerIdResults() {
+        BatchConfirmAftersaleRequest request = new BatchConfirmAftersaleRequest();
+        request.setIds(List.of(2L, 3L));
+        request.setConfirm(true);
+        request.setConclusion("同意");
+        List<AftersaleBatchResult> results = List.of(
+                AftersaleBatchResult.ok(2L, AftersaleStatus.TO_BE_RECEIVED),
+                AftersaleBatchResult.error(3L, ReturnNo.AFTERSALE_NOT_FOUND, "不存在"));
+        when(aftersaleService.batchConfirmAftersale(1L, List.of(2L, 3L), true, "同意")).thenReturn(results);
+
+        ReturnObject result = controller.batchConfirmAftersale(1L, request);
+
+        Map<?, ?> data = (Map<?, ?>) result.getData();
+        assertEquals(ReturnNo.OK.getCode(), data.get("errno"));
+        assertEquals(results, data.get("results"));
+    }
+
+    @Test
+    void batchCancelAftersaleShouldRejectWhenConfirmFalse() {
+        BatchCancelAftersaleRequest request = new BatchCancelAftersaleRequest();
+        request.setIds(List.of(2L));
+        request.setConfirm(false);
+
+        ReturnObject result = controller.batchCancelAftersale(1L, request);
+
+        assertEquals(ReturnNo.BAD_REQUEST.getCode(), result.getErrno());
+        verify(aftersaleService, never()).batchCancelAftersale(any(), any(), any());
+    }
+
+    @Test
+    void listAftersaleOrdersShouldIgnoreDefaultTimeRange() {
+        AftersaleOrderListResult page = AftersaleOrderListResult.builder().list(List.of()).page(1).pageSize(10).build();
+        ArgumentCaptor<AftersaleOrderQuery> captor = ArgumentCaptor.forClass(AftersaleOrderQuery.class);
+        when(aftersaleService.listAftersaleOrders(captor.capture(), eq(null), eq(1), eq(10))).thenReturn(page);
+
+        ReturnObject result = controller.listAftersaleOrders(1L, "PENDING", 1, null, null,
+                Constants.BEGIN_TIME, Constants.END_TIME, null, 1, 10, new MockHttpServletRequest());
+
+        assertEquals(page, result.getData());
+        AftersaleOrderQuery query = captor.getValue();
+        assertEquals(AftersaleStatus.PENDING, query.getStatus());
+        assertEquals(AftersaleType.RETURN, query.getType());
+        assertNull(query.getBeginTime());
+        assertNull(query.getEndTime());
+    }
+
+    @Test
+    void listAftersaleOrdersWithOnlyBeginTimeShouldLeaveEndOpen() {
+        LocalDateTime begin = LocalDateTime.of(2024, 1, 1, 0, 0);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter("beginTime", "2024-01-01T00:00:00");
+        ArgumentCaptor<AftersaleOrderQuery> captor = ArgumentCaptor.forClass(AftersaleOrderQuery.class);
+        when(aftersaleService.listAftersaleOrders(captor.capture(), eq(null), eq(1), eq(10)))
+                .thenReturn(AftersaleOrderListResult.builder().list(List.of()).page(1).pageSize(10).build());
+
+        // ControllerAspect把缺少的endTime填成Constants.END_TIME
+        controller.listAftersaleOrders(1L, null, null, null, null, begin, Constants.END_TIME, null, 1, 10, request);
+
+        assertEquals(begin, captor.getValue().getBeginTime());
+        assertNull(captor.getValue().getEndTime());
+    }
+
+    @Test
+    void listAftersaleOrdersWithOnlyEndTimeShouldLeaveBeginOpen() {
+        LocalDateTime end = LocalDateTime.of(2024, 1, 31, 23, 59, 59);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter("endTime", "2024-01-31T23:59:59");
+        ArgumentCaptor<AftersaleOrderQuery> captor = ArgumentCaptor.forClass(AftersaleOrderQuery.class);
+        when(aftersaleService.listAftersaleOrders(captor.capture(), eq(null), eq(1), eq(10)))
+                .thenReturn(AftersaleOrderListResult.builder().list(List.of()).page(1).pageSize(10).build());
+
+        // ControllerAspect把缺少的beginTime填成Constants.BEGIN_TIME
+        controller.listAftersaleOrders(1L, null, null, null, null, Constants.BEGIN_TIME, end, null, 1, 10, request);
+
+        assertNull(captor.getValue().getBeginTime());
+        assertEquals(end, captor.getValue().getEndTime());
+    }
+
+    @Test
+    void listAftersaleOrdersShouldRejectUnknownStatus() {
+        ReturnObject result = controller.listAftersaleOrders(1L, "UNKNOWN", null, null, null,
+                Constants.BEGIN_TIME, Constants.END_TIME, null, 1, 10, new MockHttpServletRequest());
+
+        assertEquals(ReturnNo.FIELD_NOTVALID, result.getCode());
+        verify(aftersaleService, never()).listAftersaleOrders(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void exportAftersaleOrdersShouldStreamGzipWhenAccepted() throws Exception {
+        ArgumentCaptor<AftersaleOrderQuery> captor = ArgumentCaptor.forClass(AftersaleOrderQuery.class);
+        when(aftersaleService.exportAftersaleOrders(captor.capture(), eq(AftersaleExportFormat.NDJSON), any()))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(2, OutputStream.class).write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        ResponseEntity<?> response = controller.exportAftersaleOrders(1L, "CANCELLED", null, null, null,
+                null, null, "ndjson", "gzip, deflate");
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("aftersaleorders-1.ndjson", response.getHeaders().getContentDisposition().getFilename());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals("{\"id\":1}\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(AftersaleStatus.CANCELLED, captor.getValue().getStatus());
+        assertNull(captor.getValue().getBeginTime());
+    }
+
+    @Test
+    void exportAftersaleOrdersShouldRejectUnknownFormat() {
+        ResponseEntity<?> response = controller.exportAftersaleOrders(1L, null, null, null, null,
+                null, null, "xlsx", null);
+
+        assertEquals(ReturnNo.FIELD_NOTVALID.getHttpStatus(), response.getStatusCode().value());
+        assertEquals(ReturnNo.FIELD_NOTVALID, ((ReturnObject) response.getBody()).getCode());
+        verifyNoInteractions(aftersaleService);
+    }
+
+    @Test
+    void acceptsGzipShouldHonorQualityZero() {
+        assertTrue(AftersaleController.acceptsGzip("deflate, GZIP;q=0.8"));
+        assertFalse(AftersaleController.acceptsGzip("gzip;q=0, br"));
+        assertFalse(AftersaleController.acceptsGzip("identity"));
+        assertFalse(AftersaleController.acceptsGzip(null));
+    }
+}
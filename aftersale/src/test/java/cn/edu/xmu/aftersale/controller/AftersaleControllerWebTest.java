@@ -4,6 +4,7 @@ import cn.edu.xmu.aftersale.AftersaleApplication;
 import cn.edu.xmu.aftersale.client.LogisticsClient;
 import cn.edu.xmu.aftersale.client.ServiceClient;
 import cn.edu.xmu.aftersale.client.dto.CreatePackageResponse;
+import cn.edu.xmu.aftersale.client.dto.CreateServiceOrderResponse;
 import cn.edu.xmu.aftersale.dao.AftersaleOrderRepository;
 import cn.edu.xmu.aftersale.model.AftersaleOrder;
 import cn.edu.xmu.aftersale.model.AftersaleStatus;
@@ -79,9 +80,9 @@ public class AftersaleControllerWebTest {
         logisticsSuccess.setErrmsg(ReturnNo.OK.getMessage());
         when(logisticsClient.cancelPackage(anyLong(), anyLong(), anyString())).thenReturn(logisticsSuccess);
 
-        cn.edu.xmu.javaee.core.model.ReturnObject serviceSuccess = new cn.edu.xmu.javaee.core.model.ReturnObject(ReturnNo.OK);
-        when(serviceClient.createServiceOrder(anyLong(), anyLong(), any())).thenReturn(serviceSuccess);
-        when(serviceClient.cancelServiceOrder(anyLong(), anyLong(), anyString())).thenReturn(serviceSuccess);
+        InternalReturnObject<CreateServiceOrderResponse> serviceCreated = new InternalReturnObject<>(new CreateServiceOrderResponse(1L, 0));
+        when(serviceClient.createServiceOrder(anyLong(), anyLong(), any())).thenReturn(serviceCreated);
+        when(serviceClient.cancelServiceOrder(anyLong(), anyLong(), anyString())).thenReturn(new InternalReturnObject<>());
     }
 
     @AfterEach
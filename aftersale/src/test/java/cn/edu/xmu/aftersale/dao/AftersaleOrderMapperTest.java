@@ -0,0 +1,72 @@
+package cn.edu.xmu.aftersale.dao;
+
+import cn.edu.xmu.aftersale.dao.po.AftersaleOrderPo;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 不连数据库，只检查Mapper注解生成的SQL
+ */
+class AftersaleOrderMapperTest {
+
+    private Configuration configuration;
+
+    @BeforeEach
+    void setUp() {
+        configuration = new Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(AftersaleOrderMapper.class);
+    }
+
+    @Test
+    void updateStatusShouldOnlyWriteDirtyColumns() {
+        AftersaleOrderPo po = new AftersaleOrderPo();
+        po.setDirtyFields(Set.of("status", "gmtModified"));
+        po.setExpectedStatus(0);
+
+        assertEquals("UPDATE aftersales SET status = ?, gmt_modified = ? WHERE id = ? AND shop_id = ? AND status = ?",
+                sql("updateStatus", po));
+    }
+
+    @Test
+    void updateStatusShouldWriteAllColumnsWithoutDirtyFields() {
+        assertEquals("UPDATE aftersales SET status = ?, conclusion = ?, express_id = COALESCE(?, express_id), "
+                        + "return_express_id = ?, gmt_modified = ? WHERE id = ? AND shop_id = ?",
+                sql("updateStatus", new AftersaleOrderPo()));
+    }
+
+    @Test
+    void findByIdShouldSelectExplicitColumns() {
+        String sql = sql("findById", null);
+
+        assertFalse(sql.contains("*"));
+        assertEquals("SELECT " + AftersaleOrderMapper.COLUMNS + " FROM aftersales WHERE id = ? AND shop_id = ?", sql);
+    }
+
+    @Test
+    void scanShouldStreamAllRowsWithoutLimit() {
+        MappedStatement statement = configuration.getMappedStatement(AftersaleOrderMapper.class.getName() + ".scan");
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("status", 6);
+
+        assertEquals(Integer.MIN_VALUE, statement.getFetchSize());
+        assertEquals(ResultSetType.FORWARD_ONLY, statement.getResultSetType());
+        assertEquals("SELECT " + AftersaleOrderMapper.COLUMNS + " FROM aftersales WHERE shop_id = ? AND status = ? "
+                + "ORDER BY gmt_create DESC, id DESC", sql("scan", parameter));
+    }
+
+    private String sql(String statement, Object parameter) {
+        return configuration.getMappedStatement(AftersaleOrderMapper.class.getName() + "." + statement)
+                .getBoundSql(parameter).getSql().replaceAll("\\s+", " ").trim();
+    }
+}
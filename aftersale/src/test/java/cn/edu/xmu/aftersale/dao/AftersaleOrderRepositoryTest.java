@@ -0,0 +1,281 @@
+package cn.edu.xmu.aftersale.dao;
+
+import cn.edu.xmu.aftersale.dao.po.AftersaleOrderPo;
+import cn.edu.xmu.aftersale.model.AftersaleOrder;
+import cn.edu.xmu.aftersale.model.AftersaleOrderQuery;
+import cn.edu.xmu.aftersale.model.AftersaleStatus;
+import cn.edu.xmu.aftersale.model.AftersaleType;
+import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.mapper.RedisUtil;
+import cn.edu.xmu.javaee.core.model.PageCursor;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.TwoLevelCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AftersaleOrderRepositoryTest {
+
+    @Mock
+    private AftersaleOrderMapper mapper;
+    @Mock
+    private AftersaleStatsRepository stats;
+    @Mock
+    private SqlSessionFactory sqlSessionFactory;
+
+    private AftersaleOrderRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new AftersaleOrderRepository(mapper,
+                new TwoLevelCache<>("aftersale:order", 100, 60, 600, null, new SimpleMeterRegistry()), stats, sqlSessionFactory);
+    }
+
+    @Test
+    void findByIdShouldServeRepeatedReadsFromCache() {
+        when(mapper.findById(1L, 10L)).thenReturn(buildPo(10L, 0));
+
+        repository.findById(1L, 10L);
+        AftersaleOrder order = repository.findById(1L, 10L);
+
+        assertEquals(10L, order.getId());
+        verify(mapper, times(1)).findById(1L, 10L);
+    }
+
+    @Test
+    void findByIdShouldRejectCachedOrderOfOtherShop() {
+        when(mapper.findById(1L, 10L)).thenReturn(buildPo(10L, 0));
+        repository.findById(1L, 10L);
+
+        BusinessException e = assertThrows(BusinessException.class, () -> repository.findById(2L, 10L));
+
+        assertEquals(ReturnNo.AFTERSALE_NOT_FOUND, e.getErrno());
+    }
+
+    @Test
+    void saveShouldEvictCachedOrder() {
+        when(mapper.findById(1L, 10L)).thenReturn(buildPo(10L, 0), buildPo(10L, 1));
+        when(mapper.updateStatus(any(AftersaleOrderPo.class))).thenReturn(1);
+        AftersaleOrder order = repository.findById(1L, 10L);
+        order.approveToBeReceived("同意");
+
+        repository.save(order);
+
+        assertEquals(AftersaleStatus.TO_BE_RECEIVED, repository.findById(1L, 10L).getStatus());
+        verify(mapper, times(2)).findById(1L, 10L);
+    }
+
+    @Test
+    void fillExpressIdShouldEvictCachedOrder() {
+        when(mapper.findById(1L, 10L)).thenReturn(buildPo(10L, 0));
+        when(mapper.fillExpressId(10L, 888L, 6)).thenReturn(1);
+        repository.findById(1L, 10L);
+
+        repository.fillExpressId(10L, 888L);
+        repository.findById(1L, 10L);
+
+        verify(mapper, times(2)).findById(1L, 10L);
+    }
+
+    @Test
+    void findByIdShouldUseRedisAndFallBackWhenUnavailable() {
+        RedisUtil redisUtil = mock(RedisUtil.class);
+        when(redisUtil.get("aftersale:order:10")).thenReturn(buildPo(10L, 0));
+        when(redisUtil.get("aftersale:order:11")).thenThrow(new IllegalStateException("redis down"));
+        when(mapper.findById(1L, 11L)).thenReturn(buildPo(11L, 0));
+        AftersaleOrderRepository remote = new AftersaleOrderRepository(mapper,
+                new TwoLevelCache<>("aftersale:order", 100, 60, 600, redisUtil, new SimpleMeterRegistry()), stats, sqlSessionFactory);
+
+        assertEquals(10L, remote.findById(1L, 10L).getId());
+        assertEquals(11L, remote.findById(1L, 11L).getId());
+
+        verify(mapper, never()).findById(1L, 10L);
+        verify(redisUtil).set(eq("aftersale:order:11"), any(AftersaleOrderPo.class), anyLong());
+    }
+
+    @Test
+    void saveShouldCompareWithLoadedStatus() {
+        when(mapper.findById(1L, 10L)).thenReturn(buildPo(10L, 0));
+        when(mapper.updateStatus(any(AftersaleOrderPo.class))).thenReturn(1);
+        AftersaleOrder order = repository.findById(1L, 10L);
+        order.approveToBeReceived("同意");
+
+        repository.save(order);
+
+        ArgumentCaptor<AftersaleOrderPo> captor = ArgumentCaptor.forClass(AftersaleOrderPo.class);
+        verify(mapper).updateStatus(captor.capture());
+        assertEquals(0, captor.getValue().getExpectedStatus());
+        assertEquals(1, captor.getValue().getStatus());
+        assertEquals(AftersaleStatus.TO_BE_RECEIVED, order.getPersistedStatus());
+    }
+
+    @Test
+    void saveShouldRecordTransitionInStatsAfterUpdate() {
+        when(mapper.findById(1L, 10L)).thenReturn(buildPo(10L, 0));
+        when(mapper.updateStatus(any(AftersaleOrderPo.class))).thenReturn(1);
+        AftersaleOrder order = repository.findById(1L, 10L);
+        order.cancel();
+
+        repository.save(order);
+
+        ArgumentCaptor<List<AftersaleOrderPo>> captor = ArgumentCaptor.forClass(List.class);
+        verify(stats).recordTransitions(captor.capture());
+        assertEquals(0, captor.getValue().get(0).getExpectedStatus());
+        assertEquals(6, captor.getValue().get(0).getStatus());
+    }
+
+    @Test
+    void saveShouldOnlyWriteChangedColumns() {
+        when(mapper.findById(1L, 10L)).thenReturn(buildPo(10L, 0));
+        when(mapper.updateStatus(any(AftersaleOrderPo.class))).thenReturn(1);
+        AftersaleOrder order = repository.findById(1L, 10L);
+        order.cancel();
+
+        repository.save(order);
+
+        ArgumentCaptor<AftersaleOrderPo> captor = ArgumentCaptor.forClass(AftersaleOrderPo.class);
+        verify(mapper).updateStatus(captor.capture());
+        assertEquals(Set.of("status", "gmtModified"), captor.getValue().getDirtyFields());
+    }
+
+    @Test
+    void saveShouldSkipUnchangedOrder() {
+        when(mapper.findById(1L, 10L)).thenReturn(buildPo(10L, 0));
+        when(mapper.updateStatus(any(AftersaleOrderPo.class))).thenReturn(1);
+        AftersaleOrder order = repository.findById(1L, 10L);
+        order.approveToBeReceived("同意");
+        repository.save(order);
+
+        repository.save(order);
+
+        verify(mapper, times(1)).updateStatus(any(AftersaleOrderPo.class));
+    }
+
+    @Test
+    void saveShouldReportConflictWhenStatusChangedConcurrently() {
+        when(mapper.findById(1L, 10L)).thenReturn(buildPo(10L, 0));
+        when(mapper.updateStatus(any(AftersaleOrderPo.class))).thenReturn(0);
+        AftersaleOrder order = repository.findById(1L, 10L);
+        order.cancel();
+
+        BusinessException e = assertThrows(BusinessException.class, () -> repository.save(order));
+
+        assertEquals(ReturnNo.AFTERSALE_STATE_CONFLICT, e.getErrno());
+        assertEquals(AftersaleStatus.PENDING, order.getPersistedStatus());
+        verifyNoInteractions(stats);
+    }
+
+    @Test
+    void saveShouldReportNotFoundWhenRowMissing() {
+        when(mapper.findById(1L, 10L)).thenReturn(buildPo(10L, 0), (AftersaleOrderPo) null);
+        when(mapper.updateStatus(any(AftersaleOrderPo.class))).thenReturn(0);
+        AftersaleOrder order = repository.findById(1L, 10L);
+        order.cancel();
+
+        BusinessException e = assertThrows(BusinessException.class, () -> repository.save(order));
+
+        assertEquals(ReturnNo.AFTERSALE_NOT_FOUND, e.getErrno());
+    }
+
+    @Test
+    void saveAllShouldBatchUpdatesAndReportOnlyOrdersChangedConcurrently() {
+        when(mapper.findById(1L, 10L)).thenReturn(buildPo(10L, 0));
+        when(mapper.findById(1L, 11L)).thenReturn(buildPo(11L, 0));
+        AftersaleOrder first = repository.findById(1L, 10L);
+        AftersaleOrder second = repository.findById(1L, 11L);
+        first.cancel();
+        second.cancel();
+        // 第二单在载入后被其他请求改过状态，条件更新影响0行
+        BatchResult batch = batchSession(1, 0);
+
+        Set<Long> conflicts = repository.saveAll(List.of(first, second));
+
+        assertEquals(Set.of(11L), conflicts);
+        assertEquals(2, batch.getParameterObjects().size());
+        assertEquals(AftersaleStatus.CANCELLED, first.getPersistedStatus());
+        assertEquals(AftersaleStatus.PENDING, second.getPersistedStatus());
+        ArgumentCaptor<List<AftersaleOrderPo>> captor = ArgumentCaptor.forClass(List.class);
+        verify(stats, times(1)).recordTransitions(captor.capture());
+        assertEquals(List.of(10L), captor.getValue().stream().map(AftersaleOrderPo::getId).toList());
+        verify(mapper, never()).updateStatus(any());
+    }
+
+    @Test
+    void saveAllShouldSkipUnchangedOrders() {
+        when(mapper.findById(1L, 10L)).thenReturn(buildPo(10L, 0));
+        AftersaleOrder order = repository.findById(1L, 10L);
+
+        assertTrue(repository.saveAll(List.of(order)).isEmpty());
+
+        verifyNoInteractions(sqlSessionFactory, stats);
+    }
+
+    @Test
+    void searchShouldPassCodesAndCursorToMapper() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 10, 0);
+        AftersaleOrderQuery query = AftersaleOrderQuery.builder()
+                .shopId(1L)
+                .status(AftersaleStatus.CANCELLED)
+                .type(AftersaleType.REPAIR)
+                .customerId(7L)
+                .build();
+        when(mapper.search(1L, 6, 2, 7L, null, null, null, time, 9L, 0, 11))
+                .thenReturn(List.of(buildPo(8L, 6)));
+
+        List<AftersaleOrder> orders = repository.search(query, new PageCursor(time, 9L), 0, 11);
+
+        assertEquals(1, orders.size());
+        assertEquals(AftersaleStatus.CANCELLED, orders.get(0).getStatus());
+    }
+
+    /**
+     * 模拟BATCH执行器：updateStatus只攒下参数，flushStatements时按counts返回每条语句的更新行数
+     */
+    private BatchResult batchSession(int... counts) {
+        SqlSession session = mock(SqlSession.class);
+        AftersaleOrderMapper batchMapper = mock(AftersaleOrderMapper.class);
+        BatchResult batch = new BatchResult(null, "UPDATE aftersales");
+        batch.setUpdateCounts(counts);
+        when(sqlSessionFactory.openSession(ExecutorType.BATCH)).thenReturn(session);
+        when(session.getMapper(AftersaleOrderMapper.class)).thenReturn(batchMapper);
+        when(batchMapper.updateStatus(any())).thenAnswer(invocation -> {
+            batch.addParameterObject(invocation.getArgument(0));
+            return BatchExecutor.BATCH_UPDATE_RETURN_VALUE;
+        });
+        when(session.flushStatements()).thenReturn(List.of(batch));
+        return batch;
+    }
+
+    private AftersaleOrderPo buildPo(Long id, Integer status) {
+        AftersaleOrderPo po = new AftersaleOrderPo();
+        po.setId(id);
+        po.setShopId(1L);
+        po.setOrderId(100L);
+        po.setType(1);
+        po.setReason("质量问题");
+        po.setStatus(status);
+        return po;
+    }
+}
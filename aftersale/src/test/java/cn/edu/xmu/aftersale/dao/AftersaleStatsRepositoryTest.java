@@ -0,0 +1,130 @@
+package cn.edu.xmu.aftersale.dao;
+
+import cn.edu.xmu.aftersale.dao.po.AftersaleOrderPo;
+import cn.edu.xmu.aftersale.dao.po.AftersaleStatsPo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AftersaleStatsRepositoryTest {
+
+    private static final LocalDateTime MAY_1 = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    @Mock
+    private AftersaleStatsMapper mapper;
+
+    private AftersaleStatsRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new AftersaleStatsRepository(mapper);
+    }
+
+    @Test
+    void recordTransitionsShouldMergeDeltasInKeyOrder() {
+        // 两单从待审核取消、一单从待审核到待验收：待审核-3，已取消+2，待验收+1
+        List<AftersaleOrderPo> pos = List.of(
+                changed(1L, MAY_1, 0, 6), changed(2L, MAY_1, 0, 1), changed(3L, MAY_1.plusHours(1), 0, 6));
+
+        repository.recordTransitions(pos);
+
+        assertEquals(List.of(
+                        new AftersaleStatsPo(1L, LocalDate.of(2024, 5, 1), 1, 0, -3),
+                        new AftersaleStatsPo(1L, LocalDate.of(2024, 5, 1), 1, 1, 1),
+                        new AftersaleStatsPo(1L, LocalDate.of(2024, 5, 1), 1, 6, 2)),
+                incremented());
+    }
+
+    @Test
+    void recordTransitionsShouldKeepDaysApartAndDropNetZero() {
+        // 同一天一单0->1、一单1->0，相互抵消；另一天的单独计
+        List<AftersaleOrderPo> pos = List.of(
+                changed(1L, MAY_1, 0, 1), changed(2L, MAY_1, 1, 0), changed(3L, MAY_1.minusDays(1), 1, 3));
+
+        repository.recordTransitions(pos);
+
+        assertEquals(List.of(
+                        new AftersaleStatsPo(1L, LocalDate.of(2024, 4, 30), 1, 1, -1),
+                        new AftersaleStatsPo(1L, LocalDate.of(2024, 4, 30), 1, 3, 1)),
+                incremented());
+    }
+
+    @Test
+    void recordTransitionsShouldSkipOrdersWithoutLoadedStatus() {
+        AftersaleOrderPo unloaded = changed(1L, MAY_1, null, 6);
+        AftersaleOrderPo unchanged = changed(2L, MAY_1, 1, 1);
+
+        repository.recordTransitions(List.of(unloaded, unchanged));
+
+        verify(mapper, never()).increment(any());
+    }
+
+    @Test
+    void recordCreatedShouldIncrementCreatedDay() {
+        repository.recordCreated(changed(1L, MAY_1, null, 0));
+
+        assertEquals(List.of(new AftersaleStatsPo(1L, LocalDate.of(2024, 5, 1), 1, 0, 1)), incremented());
+    }
+
+    @Test
+    void rebuildShouldLockOrdersBeforeReplacingShopRows() {
+        List<AftersaleStatsPo> rows = List.of(
+                new AftersaleStatsPo(1L, LocalDate.of(2024, 5, 1), 1, 0, 3),
+                new AftersaleStatsPo(1L, LocalDate.of(2024, 5, 1), 1, 6, 1));
+        when(mapper.sumOrdersForShare(1L)).thenReturn(rows);
+
+        assertEquals(2, repository.rebuild(1L));
+
+        // 与售后单写入相同：先锁aftersales，再写aftersale_stats
+        var order = inOrder(mapper);
+        order.verify(mapper).sumOrdersForShare(1L);
+        order.verify(mapper).deleteByShop(1L);
+        order.verify(mapper).increment(rows);
+    }
+
+    @Test
+    void rebuildShouldWriteLargeShopsInBatches() {
+        List<AftersaleStatsPo> rows = new ArrayList<>();
+        for (int i = 0; i < 1201; i++) {
+            rows.add(new AftersaleStatsPo(1L, LocalDate.of(2020, 1, 1).plusDays(i), 1, 0, 1));
+        }
+        when(mapper.sumOrdersForShare(1L)).thenReturn(rows);
+
+        assertEquals(1201, repository.rebuild(1L));
+
+        verify(mapper).increment(rows.subList(0, 500));
+        verify(mapper).increment(rows.subList(500, 1000));
+        verify(mapper).increment(rows.subList(1000, 1201));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AftersaleStatsPo> incremented() {
+        ArgumentCaptor<List<AftersaleStatsPo>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mapper).increment(captor.capture());
+        return captor.getValue();
+    }
+
+    private AftersaleOrderPo changed(Long id, LocalDateTime createdAt, Integer from, Integer to) {
+        AftersaleOrderPo po = new AftersaleOrderPo();
+        po.setId(id);
+        po.setShopId(1L);
+        po.setType(1);
+        po.setGmtCreate(createdAt);
+        po.setExpectedStatus(from);
+        po.setStatus(to);
+        return po;
+    }
+}
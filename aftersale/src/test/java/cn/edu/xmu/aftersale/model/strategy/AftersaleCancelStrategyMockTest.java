@@ -9,6 +9,7 @@ import cn.edu.xmu.aftersale.model.strategy.impl.RepairCancelStrategy;
 import cn.edu.xmu.aftersale.model.strategy.impl.ReturnCancelStrategy;
 import cn.edu.xmu.javaee.core.model.InternalReturnObject;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,6 +29,8 @@ class AftersaleCancelStrategyMockTest {
 
     @Mock
     private LogisticsClient logisticsClient;
+
+    private final ServiceTokenProvider serviceTokenProvider = new ServiceTokenProvider(3600, 300);
     
     @Mock
     private cn.edu.xmu.aftersale.client.ServiceClient serviceClient;
@@ -38,8 +41,8 @@ class AftersaleCancelStrategyMockTest {
 
     @BeforeEach
     void setUp() {
-        returnCancelStrategy = new ReturnCancelStrategy(logisticsClient);
-        exchangeCancelStrategy = new ExchangeCancelStrategy(logisticsClient);
+        returnCancelStrategy = new ReturnCancelStrategy(logisticsClient, serviceTokenProvider);
+        exchangeCancelStrategy = new ExchangeCancelStrategy(logisticsClient, serviceTokenProvider);
         repairCancelStrategy = new RepairCancelStrategy(serviceClient);
     }
 
@@ -283,7 +286,7 @@ class AftersaleCancelStrategyMockTest {
                 .build();
         
         // Mock ServiceClient (维修取消会调用服务模块)
-        cn.edu.xmu.javaee.core.model.ReturnObject mockReturnObject = new cn.edu.xmu.javaee.core.model.ReturnObject();
+        InternalReturnObject<Void> mockReturnObject = new InternalReturnObject<>();
         when(serviceClient.cancelServiceOrder(anyLong(), anyLong(), anyString())).thenReturn(mockReturnObject);
         
         // Act
@@ -1,16 +1,13 @@
 package cn.edu.xmu.aftersale.model.strategy;
 
-import cn.edu.xmu.aftersale.client.LogisticsClient;
 import cn.edu.xmu.aftersale.client.dto.CreatePackageRequest;
-import cn.edu.xmu.aftersale.client.dto.CreatePackageResponse;
+import cn.edu.xmu.aftersale.model.AftersaleExpressOutbox;
 import cn.edu.xmu.aftersale.model.AftersaleOrder;
 import cn.edu.xmu.aftersale.model.AftersaleStatus;
 import cn.edu.xmu.aftersale.model.AftersaleType;
 import cn.edu.xmu.aftersale.model.strategy.impl.ExchangeConfirmStrategy;
 import cn.edu.xmu.aftersale.model.strategy.impl.RepairConfirmStrategy;
 import cn.edu.xmu.aftersale.model.strategy.impl.ReturnConfirmStrategy;
-import cn.edu.xmu.javaee.core.model.InternalReturnObject;
-import cn.edu.xmu.javaee.core.model.ReturnNo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,28 +21,28 @@ import static org.mockito.Mockito.*;
 
 /**
  * 售后审核策略Mock测试
- * 重点测试：退货/换货审核通过时创建运单的逻辑
+ * 重点测试：退货/换货审核通过时登记运单的逻辑，运单由发件箱异步创建
  */
 @ExtendWith(MockitoExtension.class)
 class AftersaleConfirmStrategyMockTest {
 
     @Mock
-    private LogisticsClient logisticsClient;
+    private AftersaleExpressOutbox expressOutbox;
     
     private ReturnConfirmStrategy returnConfirmStrategy;
     private ExchangeConfirmStrategy exchangeConfirmStrategy;
 
     @BeforeEach
     void setUp() {
-        returnConfirmStrategy = new ReturnConfirmStrategy(logisticsClient);
-        exchangeConfirmStrategy = new ExchangeConfirmStrategy(logisticsClient);
+        returnConfirmStrategy = new ReturnConfirmStrategy(expressOutbox);
+        exchangeConfirmStrategy = new ExchangeConfirmStrategy(expressOutbox);
     }
 
     /**
-     * 测试：退货审核通过应该创建运单 ⭐ 核心
+     * 测试：退货审核通过应该登记运单 ⭐ 核心
      */
     @Test
-    void returnConfirmApprovedShouldCreatePackage() {
+    void returnConfirmApprovedShouldEnqueuePackage() {
         // Arrange: 准备待审核的退货售后单
         AftersaleOrder order = AftersaleOrder.builder()
                 .id(100L)
@@ -56,20 +53,9 @@ class AftersaleConfirmStrategyMockTest {
                 .reason("商品质量问题")
                 .build();
         
-        // Mock: 模拟物流API返回运单ID=888
-        CreatePackageResponse mockResponse = new CreatePackageResponse();
-        mockResponse.setId(888L);
-        mockResponse.setBillCode("RETURN123456");
-        mockResponse.setPayMethod(2);
-        mockResponse.setStatus(0);
-        
-        InternalReturnObject<CreatePackageResponse> returnObject = 
-            new InternalReturnObject<>();
-        returnObject.setErrno(ReturnNo.OK.getErrNo());
-        returnObject.setData(mockResponse);
-        
-        when(logisticsClient.createPackage(anyLong(), anyString(), any(CreatePackageRequest.class)))
-            .thenReturn(returnObject);
+        // Mock: 发件箱登记成功
+        when(expressOutbox.enqueue(any(AftersaleOrder.class), any(CreatePackageRequest.class)))
+            .thenReturn(888L);
         
         // Act: 执行审核（通过）
         returnConfirmStrategy.confirm(order, true, "同意退货");
@@ -81,14 +67,14 @@ class AftersaleConfirmStrategyMockTest {
         // 2. 结论已记录
         assertEquals("同意退货", order.getConclusion());
         
-        // 3. 运单ID已保存 ⭐ 核心验证
-        assertEquals(888L, order.getExpressId());
+        // 3. 运单ID由发件箱事务提交后回填，审核时为空 ⭐ 核心验证
+        assertNull(order.getExpressId());
         
-        // 4. 验证物流API被调用
+        // 4. 验证登记到发件箱
         ArgumentCaptor<CreatePackageRequest> captor = 
             ArgumentCaptor.forClass(CreatePackageRequest.class);
-        verify(logisticsClient, times(1))
-            .createPackage(eq(1L), anyString(), captor.capture());
+        verify(expressOutbox, times(1))
+            .enqueue(eq(order), captor.capture());
         
         // 5. 验证请求参数
         CreatePackageRequest request = captor.getValue();
@@ -101,10 +87,10 @@ class AftersaleConfirmStrategyMockTest {
     }
 
     /**
-     * 测试：换货审核通过应该创建运单 ⭐ 核心
+     * 测试：换货审核通过应该登记运单 ⭐ 核心
      */
     @Test
-    void exchangeConfirmApprovedShouldCreatePackage() {
+    void exchangeConfirmApprovedShouldEnqueuePackage() {
         // Arrange
         AftersaleOrder order = AftersaleOrder.builder()
                 .id(101L)
@@ -116,17 +102,8 @@ class AftersaleConfirmStrategyMockTest {
                 .build();
         
         // Mock
-        CreatePackageResponse mockResponse = new CreatePackageResponse();
-        mockResponse.setId(999L);
-        mockResponse.setBillCode("EXCHANGE654321");
-        
-        InternalReturnObject<CreatePackageResponse> returnObject = 
-            new InternalReturnObject<>();
-        returnObject.setErrno(ReturnNo.OK.getErrNo());
-        returnObject.setData(mockResponse);
-        
-        when(logisticsClient.createPackage(anyLong(), anyString(), any()))
-            .thenReturn(returnObject);
+        when(expressOutbox.enqueue(any(), any()))
+            .thenReturn(999L);
         
         // Act
         exchangeConfirmStrategy.confirm(order, true, "同意换货");
@@ -134,10 +111,12 @@ class AftersaleConfirmStrategyMockTest {
         // Assert
         assertEquals(AftersaleStatus.TO_BE_RECEIVED, order.getStatus());
         assertEquals("同意换货", order.getConclusion());
-        assertEquals(999L, order.getExpressId());  // ⭐ 运单ID已保存
         
-        verify(logisticsClient, times(1))
-            .createPackage(eq(2L), anyString(), any());
+        ArgumentCaptor<CreatePackageRequest> captor = 
+            ArgumentCaptor.forClass(CreatePackageRequest.class);
+        verify(expressOutbox, times(1))
+            .enqueue(eq(order), captor.capture());
+        assertEquals("换货商品", captor.getValue().getCargoDetails().get(0).getName());
     }
 
     /**
@@ -161,9 +140,9 @@ class AftersaleConfirmStrategyMockTest {
         assertEquals("不符合退货条件", order.getConclusion());
         assertNull(order.getExpressId());  // 没有运单ID
         
-        // 验证没有调用物流API
-        verify(logisticsClient, never())
-            .createPackage(anyLong(), anyString(), any());
+        // 验证没有登记运单
+        verify(expressOutbox, never())
+            .enqueue(any(), any());
     }
 
     /**
@@ -186,15 +165,15 @@ class AftersaleConfirmStrategyMockTest {
         assertEquals(AftersaleStatus.REJECTED, order.getStatus());
         assertNull(order.getExpressId());
         
-        verify(logisticsClient, never())
-            .createPackage(anyLong(), anyString(), any());
+        verify(expressOutbox, never())
+            .enqueue(any(), any());
     }
 
     /**
-     * 测试：物流API失败时应该抛出异常
+     * 测试：登记发件箱失败时应该抛出异常，审核事务回滚
      */
     @Test
-    void returnConfirmShouldThrowExceptionWhenLogisticsFails() {
+    void returnConfirmShouldThrowExceptionWhenEnqueueFails() {
         // Arrange
         AftersaleOrder order = AftersaleOrder.builder()
                 .id(104L)
@@ -203,9 +182,9 @@ class AftersaleConfirmStrategyMockTest {
                 .status(AftersaleStatus.PENDING)
                 .build();
         
-        // Mock: 物流API抛出异常
-        when(logisticsClient.createPackage(anyLong(), anyString(), any()))
-            .thenThrow(new RuntimeException("物流服务不可用"));
+        // Mock: 写发件箱抛出异常
+        when(expressOutbox.enqueue(any(), any()))
+            .thenThrow(new RuntimeException("数据库不可用"));
         
         // Act & Assert
         RuntimeException exception = assertThrows(
@@ -215,8 +194,8 @@ class AftersaleConfirmStrategyMockTest {
         
         assertTrue(exception.getMessage().contains("创建退货运单失败"));
         
-        verify(logisticsClient, times(1))
-            .createPackage(anyLong(), anyString(), any());
+        verify(expressOutbox, times(1))
+            .enqueue(any(), any());
     }
 
     /**
@@ -237,10 +216,10 @@ class AftersaleConfirmStrategyMockTest {
     }
 
     /**
-     * 测试：验证传递给物流API的详细参数
+     * 测试：验证登记到发件箱的详细参数
      */
     @Test
-    void shouldPassCorrectParametersToLogisticsAPI() {
+    void shouldPassCorrectParametersToOutbox() {
         // Arrange
         AftersaleOrder order = AftersaleOrder.builder()
                 .id(105L)
@@ -250,25 +229,21 @@ class AftersaleConfirmStrategyMockTest {
                 .build();
         
         // Mock
-        CreatePackageResponse mockResponse = new CreatePackageResponse();
-        mockResponse.setId(777L);
-        mockResponse.setBillCode("TEST999");
-        
-        InternalReturnObject<CreatePackageResponse> returnObject = 
-            new InternalReturnObject<>();
-        returnObject.setErrno(ReturnNo.OK.getErrNo());
-        returnObject.setData(mockResponse);
-        
-        when(logisticsClient.createPackage(anyLong(), anyString(), any()))
-            .thenReturn(returnObject);
+        when(expressOutbox.enqueue(any(), any()))
+            .thenReturn(777L);
         
         // Act
         returnConfirmStrategy.confirm(order, true, "测试");
         
         // Assert: 详细验证参数
+        ArgumentCaptor<AftersaleOrder> orderCaptor = 
+            ArgumentCaptor.forClass(AftersaleOrder.class);
         ArgumentCaptor<CreatePackageRequest> captor = 
             ArgumentCaptor.forClass(CreatePackageRequest.class);
-        verify(logisticsClient).createPackage(eq(3L), anyString(), captor.capture());
+        verify(expressOutbox).enqueue(orderCaptor.capture(), captor.capture());
+        
+        // 验证商铺ID随售后单登记
+        assertEquals(3L, orderCaptor.getValue().getShopId());
         
         CreatePackageRequest request = captor.getValue();
         
@@ -291,4 +266,3 @@ class AftersaleConfirmStrategyMockTest {
         assertEquals("件", request.getCargoDetails().get(0).getUnit());
     }
 }
-
@@ -4,11 +4,13 @@ import cn.edu.xmu.aftersale.client.LogisticsClient;
 import cn.edu.xmu.aftersale.client.ServiceClient;
 import cn.edu.xmu.aftersale.client.dto.CreatePackageResponse;
 import cn.edu.xmu.aftersale.client.dto.CreateServiceOrderRequest;
+import cn.edu.xmu.aftersale.model.AftersaleExpressOutbox;
 import cn.edu.xmu.aftersale.model.AftersaleOrder;
 import cn.edu.xmu.aftersale.model.AftersaleStatus;
 import cn.edu.xmu.aftersale.model.AftersaleType;
 import cn.edu.xmu.aftersale.model.strategy.impl.*;
 import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -26,8 +28,13 @@ class AftersaleStrategyTest {
 
     @Mock
     private LogisticsClient logisticsClient;
+
+    private final ServiceTokenProvider serviceTokenProvider = new ServiceTokenProvider(3600, 300);
+
     @Mock
     private ServiceClient serviceClient;
+    @Mock
+    private AftersaleExpressOutbox expressOutbox;
 
     private ReturnConfirmStrategy returnConfirmStrategy;
     private ExchangeConfirmStrategy exchangeConfirmStrategy;
@@ -42,27 +49,27 @@ class AftersaleStrategyTest {
 
     @BeforeEach
     void init() {
-        returnConfirmStrategy = new ReturnConfirmStrategy(logisticsClient);
-        exchangeConfirmStrategy = new ExchangeConfirmStrategy(logisticsClient);
-        returnCancelStrategy = new ReturnCancelStrategy(logisticsClient);
-        exchangeCancelStrategy = new ExchangeCancelStrategy(logisticsClient);
+        returnConfirmStrategy = new ReturnConfirmStrategy(expressOutbox);
+        exchangeConfirmStrategy = new ExchangeConfirmStrategy(expressOutbox);
+        returnCancelStrategy = new ReturnCancelStrategy(logisticsClient, serviceTokenProvider);
+        exchangeCancelStrategy = new ExchangeCancelStrategy(logisticsClient, serviceTokenProvider);
         repairConfirmStrategy = new RepairConfirmStrategy(serviceClient);
         repairCancelStrategy = new RepairCancelStrategy(serviceClient);
-        returnAcceptStrategy = new ReturnAcceptStrategy(logisticsClient);
-        exchangeAcceptStrategy = new ExchangeAcceptStrategy(logisticsClient);
+        returnAcceptStrategy = new ReturnAcceptStrategy(logisticsClient, serviceTokenProvider);
+        exchangeAcceptStrategy = new ExchangeAcceptStrategy(logisticsClient, serviceTokenProvider);
         returnProcessStrategy = new ReturnReceiveStrategy(logisticsClient);
-        exchangeProcessStrategy = new ExchangeReceiveStrategy(logisticsClient);
+        exchangeProcessStrategy = new ExchangeReceiveStrategy(logisticsClient, serviceTokenProvider);
     }
 
     @Test
     void returnConfirmStrategyShouldHandleApproveAndReject() {
         AftersaleOrder order = buildOrder(AftersaleType.RETURN);
-        when(logisticsClient.createPackage(any(), any(), any()))
-                .thenReturn(successPackage(100L));
+        when(expressOutbox.enqueue(any(), any())).thenReturn(100L);
 
         returnConfirmStrategy.confirm(order, true, "同意退货");
         assertEquals(AftersaleStatus.TO_BE_RECEIVED, order.getStatus());
-        assertEquals(100L, order.getExpressId());
+        verify(expressOutbox).enqueue(eq(order), any());
+        verifyNoInteractions(logisticsClient);
 
         order.setStatus(AftersaleStatus.PENDING);
         returnConfirmStrategy.confirm(order, false, "拒绝退货");
@@ -72,12 +79,11 @@ class AftersaleStrategyTest {
     @Test
     void exchangeConfirmStrategyShouldMoveToPendingReceive() {
         AftersaleOrder order = buildOrder(AftersaleType.EXCHANGE);
-        when(logisticsClient.createPackage(any(), any(), any()))
-                .thenReturn(successPackage(200L));
+        when(expressOutbox.enqueue(any(), any())).thenReturn(200L);
 
         exchangeConfirmStrategy.confirm(order, true, null);
         assertEquals(AftersaleStatus.TO_BE_RECEIVED, order.getStatus());
-        assertEquals(200L, order.getExpressId());
+        verify(expressOutbox).enqueue(eq(order), any());
 
         order.setStatus(AftersaleStatus.PENDING);
         exchangeConfirmStrategy.confirm(order, false, "库存不足");
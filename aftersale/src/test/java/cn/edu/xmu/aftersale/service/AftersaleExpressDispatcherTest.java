@@ -0,0 +1,151 @@
+package cn.edu.xmu.aftersale.service;
+
+import cn.edu.xmu.aftersale.client.LogisticsClient;
+import cn.edu.xmu.aftersale.client.dto.CreatePackageRequest;
+import cn.edu.xmu.aftersale.client.dto.CreatePackageResponse;
+import cn.edu.xmu.aftersale.dao.AftersaleExpressRepository;
+import cn.edu.xmu.aftersale.dao.AftersaleOrderRepository;
+import cn.edu.xmu.aftersale.model.AftersaleExpress;
+import cn.edu.xmu.aftersale.model.AftersaleExpressOutbox;
+import cn.edu.xmu.aftersale.model.AftersaleOrder;
+import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 派发循环（抢占、重试、轮询）由core的OutboxDispatcherTest覆盖，这里只测售后单相关的部分
+ */
+@ExtendWith(MockitoExtension.class)
+class AftersaleExpressDispatcherTest {
+
+    @Mock
+    private AftersaleExpressRepository expressRepository;
+    @Mock
+    private AftersaleOrderRepository orderRepository;
+    @Mock
+    private LogisticsClient logisticsClient;
+
+    private final ServiceTokenProvider serviceTokenProvider = new ServiceTokenProvider(3600, 300);
+
+    private AftersaleExpressDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new AftersaleExpressDispatcher(expressRepository, orderRepository, logisticsClient, serviceTokenProvider, 2, 10, 3, 120);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sendShouldReturnCreatedPackage() {
+        AftersaleExpress express = buildExpress();
+        when(logisticsClient.createPackage(eq(10L), anyString(), same(express.getRequest()))).thenReturn(success(888L));
+
+        CreatePackageResponse data = dispatcher.send(express);
+
+        assertEquals(888L, data.getId());
+        assertEquals("SF888", data.getBillCode());
+    }
+
+    @Test
+    void sendShouldThrowWhenLogisticsRejects() {
+        when(logisticsClient.createPackage(anyLong(), anyString(), any()))
+                .thenReturn(new InternalReturnObject<>(500, "合同不存在"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> dispatcher.send(buildExpress()));
+
+        assertEquals("合同不存在", e.getMessage());
+    }
+
+    @Test
+    void onSuccessShouldFillExpressId() {
+        when(orderRepository.fillExpressId(1L, 888L)).thenReturn(true);
+
+        dispatcher.onSuccess(buildExpress(), success(888L).getData());
+
+        verify(orderRepository).fillExpressId(1L, 888L);
+        verifyNoInteractions(logisticsClient);
+    }
+
+    @Test
+    void onSuccessShouldCancelPackageWhenOrderCancelledMeanwhile() {
+        when(orderRepository.fillExpressId(1L, 888L)).thenReturn(false);
+
+        dispatcher.onSuccess(buildExpress(), success(888L).getData());
+
+        verify(logisticsClient).cancelPackage(eq(10L), eq(888L), anyString());
+        verify(expressRepository).markCanceled(5L);
+    }
+
+    @Test
+    void enqueueShouldRecordPendingRequest() {
+        AftersaleOrder order = AftersaleOrder.builder().id(1L).shopId(10L).build();
+        when(expressRepository.create(any())).thenAnswer(invocation -> {
+            AftersaleExpress created = invocation.getArgument(0);
+            created.setId(5L);
+            return created;
+        });
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertEquals(5L, dispatcher.enqueue(order, CreatePackageRequest.builder().contractId(0L).build()));
+
+        ArgumentCaptor<AftersaleExpress> captor = ArgumentCaptor.forClass(AftersaleExpress.class);
+        verify(expressRepository).create(captor.capture());
+        assertEquals(1L, captor.getValue().getAftersaleId());
+        assertEquals(10L, captor.getValue().getShopId());
+        assertEquals(AftersaleExpress.CALL_PENDING, captor.getValue().getCallStatus());
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+    }
+
+    @Test
+    void deferShouldHoldRequestsUntilEnqueueAll() {
+        AftersaleOrder order = AftersaleOrder.builder().id(1L).shopId(10L).build();
+        CreatePackageRequest request = CreatePackageRequest.builder().contractId(0L).build();
+        when(expressRepository.create(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<AftersaleExpressOutbox.Request> deferred = dispatcher.defer(() -> dispatcher.enqueue(order, request));
+
+        assertEquals(1, deferred.size());
+        verify(expressRepository, never()).create(any());
+
+        TransactionSynchronizationManager.initSynchronization();
+        dispatcher.enqueueAll(deferred);
+
+        verify(expressRepository).create(any());
+    }
+
+    private AftersaleExpress buildExpress() {
+        return AftersaleExpress.builder()
+                .id(5L)
+                .aftersaleId(1L)
+                .shopId(10L)
+                .status(AftersaleExpress.STATUS_CREATED)
+                .request(CreatePackageRequest.builder().contractId(0L).payMethod(2).build())
+                .callStatus(AftersaleExpress.CALL_PENDING)
+                .retryCount(0)
+                .build();
+    }
+
+    private InternalReturnObject<CreatePackageResponse> success(Long id) {
+        return new InternalReturnObject<>(new CreatePackageResponse(id, "SF" + id, 2, 0));
+    }
+}
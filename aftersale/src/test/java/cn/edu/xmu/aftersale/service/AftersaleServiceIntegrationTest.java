@@ -5,6 +5,7 @@ import cn.edu.xmu.aftersale.client.ServiceClient;
 import cn.edu.xmu.aftersale.client.dto.CreatePackageRequest;
 import cn.edu.xmu.aftersale.client.dto.CreatePackageResponse;
 import cn.edu.xmu.aftersale.dao.AftersaleOrderRepository;
+import cn.edu.xmu.aftersale.model.AftersaleExpressOutbox;
 import cn.edu.xmu.aftersale.model.AftersaleOrder;
 import cn.edu.xmu.aftersale.model.AftersaleStatus;
 import cn.edu.xmu.aftersale.model.AftersaleType;
@@ -13,6 +14,7 @@ import cn.edu.xmu.javaee.core.exception.BusinessException;
 import cn.edu.xmu.javaee.core.model.InternalReturnObject;
 import cn.edu.xmu.javaee.core.model.ReturnObject;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,38 +32,42 @@ class AftersaleServiceIntegrationTest {
     @Mock private LogisticsClient logisticsClient;
     @Mock private ServiceClient serviceClient;
     @Mock private AftersaleOrderRepository repository;
+    @Mock private AftersaleExpressOutbox expressOutbox;
+    private final ServiceTokenProvider serviceTokenProvider = new ServiceTokenProvider(3600, 300);
     private AftersaleService aftersaleService;
 
     @BeforeEach
     void setUp() {
-        ReturnConfirmStrategy returnConfirmStrategy = new ReturnConfirmStrategy(logisticsClient);
-        ExchangeConfirmStrategy exchangeConfirmStrategy = new ExchangeConfirmStrategy(logisticsClient);
+        ReturnConfirmStrategy returnConfirmStrategy = new ReturnConfirmStrategy(expressOutbox);
+        ExchangeConfirmStrategy exchangeConfirmStrategy = new ExchangeConfirmStrategy(expressOutbox);
         RepairConfirmStrategy repairConfirmStrategy = new RepairConfirmStrategy(serviceClient);
-        ReturnCancelStrategy returnCancelStrategy = new ReturnCancelStrategy(logisticsClient);
-        ExchangeCancelStrategy exchangeCancelStrategy = new ExchangeCancelStrategy(logisticsClient);
+        ReturnCancelStrategy returnCancelStrategy = new ReturnCancelStrategy(logisticsClient, serviceTokenProvider);
+        ExchangeCancelStrategy exchangeCancelStrategy = new ExchangeCancelStrategy(logisticsClient, serviceTokenProvider);
         RepairCancelStrategy repairCancelStrategy = new RepairCancelStrategy(serviceClient);
-        ReturnAcceptStrategy returnAcceptStrategy = new ReturnAcceptStrategy(logisticsClient);
-        ExchangeAcceptStrategy exchangeAcceptStrategy = new ExchangeAcceptStrategy(logisticsClient);
+        ReturnAcceptStrategy returnAcceptStrategy = new ReturnAcceptStrategy(logisticsClient, serviceTokenProvider);
+        ExchangeAcceptStrategy exchangeAcceptStrategy = new ExchangeAcceptStrategy(logisticsClient, serviceTokenProvider);
         ReturnReceiveStrategy returnProcessStrategy = new ReturnReceiveStrategy(logisticsClient);
-        ExchangeReceiveStrategy exchangeProcessStrategy = new ExchangeReceiveStrategy(logisticsClient);
+        ExchangeReceiveStrategy exchangeProcessStrategy = new ExchangeReceiveStrategy(logisticsClient, serviceTokenProvider);
 
         aftersaleService = new AftersaleService(
                 repository,
                 List.of(returnConfirmStrategy, exchangeConfirmStrategy, repairConfirmStrategy),
                 List.of(returnCancelStrategy, exchangeCancelStrategy, repairCancelStrategy),
                 List.of(returnAcceptStrategy, exchangeAcceptStrategy),
-                List.of(returnProcessStrategy, exchangeProcessStrategy)
+                List.of(returnProcessStrategy, exchangeProcessStrategy),
+                expressOutbox
         );
     }
 
     @Test
-    void confirmReturnAftersale_Approve_ShouldCreatePackage() {
+    void confirmReturnAftersale_Approve_ShouldEnqueuePackage() {
         AftersaleOrder order = AftersaleOrder.builder().id(1L).shopId(10L).type(AftersaleType.RETURN.getCode()).status(AftersaleStatus.PENDING).build();
         when(repository.findById(10L, 1L)).thenReturn(order);
-        InternalReturnObject<CreatePackageResponse> ret = new InternalReturnObject<>(); ret.setErrno(0); ret.setData(new CreatePackageResponse(888L, "R001", 2, 0));
-        when(logisticsClient.createPackage(anyLong(), anyString(), any())).thenReturn(ret);
+        when(expressOutbox.enqueue(eq(order), any(CreatePackageRequest.class))).thenReturn(1L);
         String status = aftersaleService.confirmAftersale(10L, 1L, true, "同意");
         assertEquals(AftersaleStatus.TO_BE_RECEIVED.getCode(), status);
+        verify(logisticsClient, never()).createPackage(anyLong(), anyString(), any());
+        verify(repository).save(order);
     }
 
     @Test
@@ -1,20 +1,36 @@
 package cn.edu.xmu.aftersale.service;
 
+import cn.edu.xmu.aftersale.controller.dto.AftersaleOrderListResult;
 import cn.edu.xmu.aftersale.dao.AftersaleOrderRepository;
+import cn.edu.xmu.aftersale.dao.po.AftersaleOrderPo;
+import cn.edu.xmu.aftersale.model.AftersaleBatchResult;
+import cn.edu.xmu.aftersale.model.AftersaleExportFormat;
+import cn.edu.xmu.aftersale.model.AftersaleExpressOutbox;
 import cn.edu.xmu.aftersale.model.AftersaleOrder;
+import cn.edu.xmu.aftersale.model.AftersaleOrderQuery;
 import cn.edu.xmu.aftersale.model.AftersaleStatus;
 import cn.edu.xmu.aftersale.model.AftersaleType;
 import cn.edu.xmu.aftersale.model.strategy.*;
 import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.PageCursor;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -45,12 +61,19 @@ class AftersaleServiceTest {
     private AftersaleCancelStrategy returnCancelStrategy;
     @Mock
     private AftersaleCancelStrategy repairCancelStrategy;
+    @Mock
+    private AftersaleExpressOutbox expressOutbox;
 
     private AftersaleService aftersaleService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(expressOutbox.defer(any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return List.of();
+        });
+        when(repository.saveAll(any())).thenReturn(Set.of());
 
         when(exchangeConfirmStrategy.support(AftersaleType.EXCHANGE.getCode())).thenReturn(true);
         when(returnConfirmStrategy.support(AftersaleType.RETURN.getCode())).thenReturn(true);
@@ -91,7 +114,8 @@ class AftersaleServiceTest {
                 List.of(exchangeConfirmStrategy, returnConfirmStrategy, repairConfirmStrategy),
                 List.of(exchangeCancelStrategy, returnCancelStrategy, repairCancelStrategy),
                 List.of(exchangeAcceptStrategy, returnAcceptStrategy),
-                List.of(exchangeProcessStrategy, returnProcessStrategy));
+                List.of(exchangeProcessStrategy, returnProcessStrategy),
+                expressOutbox);
     }
 
     @Test
@@ -149,6 +173,104 @@ class AftersaleServiceTest {
         verify(repository).save(order);
     }
 
+    @Test
+    void confirmAftersaleShouldRejectUnknownType() {
+        AftersaleOrder order = buildOrder(9, AftersaleStatus.PENDING);
+        when(repository.findById(order.getShopId(), order.getId())).thenReturn(order);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> aftersaleService.confirmAftersale(order.getShopId(), order.getId(), true, "未知类型"));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void constructorShouldRejectDuplicateStrategies() {
+        when(repairConfirmStrategy.support(AftersaleType.RETURN.getCode())).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> new AftersaleService(
+                repository,
+                List.of(exchangeConfirmStrategy, returnConfirmStrategy, repairConfirmStrategy),
+                List.of(exchangeCancelStrategy, returnCancelStrategy, repairCancelStrategy),
+                List.of(exchangeAcceptStrategy, returnAcceptStrategy),
+                List.of(exchangeProcessStrategy, returnProcessStrategy),
+                expressOutbox));
+    }
+
+    @Test
+    void constructorShouldRejectMissingStrategies() {
+        assertThrows(IllegalStateException.class, () -> new AftersaleService(
+                repository,
+                List.of(exchangeConfirmStrategy, returnConfirmStrategy),
+                List.of(exchangeCancelStrategy, returnCancelStrategy, repairCancelStrategy),
+                List.of(exchangeAcceptStrategy, returnAcceptStrategy),
+                List.of(exchangeProcessStrategy, returnProcessStrategy),
+                expressOutbox));
+    }
+
+    @Test
+    void batchConfirmAftersaleShouldReportEachIdAndSaveChangedOrders() {
+        AftersaleOrder pending = buildOrder(AftersaleType.RETURN, AftersaleStatus.PENDING);
+        AftersaleOrder cancelled = buildOrder(AftersaleType.REPAIR, AftersaleStatus.CANCELLED);
+        List<Long> ids = List.of(pending.getId(), cancelled.getId(), 999L, pending.getId());
+        when(repository.findByIds(200L, List.of(pending.getId(), cancelled.getId(), 999L)))
+                .thenReturn(List.of(pending, cancelled));
+
+        List<AftersaleBatchResult> results = aftersaleService.batchConfirmAftersale(200L, ids, true, "批量同意");
+
+        assertEquals(3, results.size());
+        assertEquals(ReturnNo.OK.getErrNo(), results.get(0).getErrno());
+        assertEquals(AftersaleStatus.TO_BE_RECEIVED.getCode(), results.get(0).getStatus());
+        assertEquals(ReturnNo.AFTERSALE_STATE_INVALID.getErrNo(), results.get(1).getErrno());
+        assertEquals(ReturnNo.AFTERSALE_NOT_FOUND.getErrNo(), results.get(2).getErrno());
+        verify(repository).saveAll(List.of(pending));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void batchCancelAftersaleShouldIsolateStrategyFailure() {
+        AftersaleOrder exchange = buildOrder(AftersaleType.EXCHANGE, AftersaleStatus.TO_BE_RECEIVED);
+        AftersaleOrder returned = buildOrder(AftersaleType.RETURN, AftersaleStatus.TO_BE_RECEIVED);
+        when(repository.findByIds(200L, List.of(exchange.getId(), returned.getId())))
+                .thenReturn(List.of(exchange, returned));
+        doThrow(new RuntimeException("物流服务不可用")).when(returnCancelStrategy).cancel(any(), any());
+
+        List<AftersaleBatchResult> results = aftersaleService.batchCancelAftersale(200L,
+                List.of(exchange.getId(), returned.getId()), "批量取消");
+
+        assertEquals(AftersaleStatus.CANCELLED.getCode(), results.get(0).getStatus());
+        assertEquals(ReturnNo.INTERNAL_SERVER_ERR.getErrNo(), results.get(1).getErrno());
+        verify(repository).saveAll(List.of(exchange));
+        verify(expressOutbox, times(1)).enqueueAll(any());
+    }
+
+    @Test
+    void batchConfirmAftersaleShouldDropOnlyOrderChangedConcurrently() {
+        AftersaleOrder first = buildOrder(AftersaleType.RETURN, AftersaleStatus.PENDING);
+        AftersaleOrder second = buildOrder(AftersaleType.EXCHANGE, AftersaleStatus.PENDING);
+        when(repository.findByIds(200L, List.of(first.getId(), second.getId()))).thenReturn(List.of(first, second));
+        List<AftersaleExpressOutbox.Request> firstExpress = List.of(new AftersaleExpressOutbox.Request(first, null));
+        List<AftersaleExpressOutbox.Request> secondExpress = List.of(new AftersaleExpressOutbox.Request(second, null));
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return firstExpress;
+        }).doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return secondExpress;
+        }).when(expressOutbox).defer(any());
+        when(repository.saveAll(List.of(first, second))).thenReturn(Set.of(second.getId()));
+
+        List<AftersaleBatchResult> results = aftersaleService.batchConfirmAftersale(200L,
+                List.of(first.getId(), second.getId()), true, "批量同意");
+
+        assertEquals(ReturnNo.OK.getErrNo(), results.get(0).getErrno());
+        assertEquals(AftersaleStatus.TO_BE_RECEIVED.getCode(), results.get(0).getStatus());
+        assertEquals(ReturnNo.AFTERSALE_STATE_CONFLICT.getErrNo(), results.get(1).getErrno());
+        // 第二单的策略已执行，但条件更新未命中，暂存的运单不登记；第一单照常保存并登记运单
+        verify(exchangeConfirmStrategy).confirm(eq(second), eq(true), eq("批量同意"));
+        verify(expressOutbox).enqueueAll(firstExpress);
+        verify(expressOutbox, never()).enqueueAll(secondExpress);
+    }
+
     private void stubConfirmStrategy(AftersaleConfirmStrategy strategy, AftersaleStatus passStatus) {
         doAnswer(invocation -> {
             AftersaleOrder order = invocation.getArgument(0);
@@ -190,6 +312,139 @@ class AftersaleServiceTest {
         when(strategy.support(any())).thenReturn(acceptedResult);
     }
 
+    @Test
+    void listAftersaleOrdersShouldReturnCursorWhenMoreRowsRemain() {
+        AftersaleOrderQuery query = AftersaleOrderQuery.builder().shopId(200L).build();
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 10, 0);
+        List<AftersaleOrder> rows = List.of(listed(3L, time), listed(2L, time), listed(1L, time.minusHours(1)));
+        when(repository.search(query, null, 0, 3)).thenReturn(rows);
+
+        AftersaleOrderListResult result = aftersaleService.listAftersaleOrders(query, null, 1, 2);
+
+        assertEquals(2, result.getList().size());
+        assertEquals(1, result.getPage());
+        assertNotNull(result.getNextCursor());
+        PageCursor cursor = PageCursor.decode(result.getNextCursor());
+        assertEquals(2L, cursor.getId());
+        assertEquals(time, cursor.getCreatedAt());
+    }
+
+    @Test
+    void listAftersaleOrdersShouldSeekFromCursorAndIgnorePage() {
+        AftersaleOrderQuery query = AftersaleOrderQuery.builder().shopId(200L).build();
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 10, 0);
+        String cursor = new PageCursor(time, 2L).encode();
+        when(repository.search(eq(query), any(PageCursor.class), eq(0), eq(3)))
+                .thenReturn(List.of(listed(1L, time.minusHours(1))));
+
+        AftersaleOrderListResult result = aftersaleService.listAftersaleOrders(query, cursor, 50, 2);
+
+        assertEquals(1, result.getList().size());
+        assertNull(result.getNextCursor());
+        assertNull(result.getPage());
+    }
+
+    @Test
+    void listAftersaleOrdersShouldRejectMalformedCursor() {
+        AftersaleOrderQuery query = AftersaleOrderQuery.builder().shopId(200L).build();
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> aftersaleService.listAftersaleOrders(query, "not-a-cursor", 1, 10));
+
+        assertEquals(ReturnNo.FIELD_NOTVALID, e.getErrno());
+        verify(repository, never()).search(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void exportAftersaleOrdersShouldWriteCsvWithStatusCodes() throws IOException {
+        AftersaleOrderQuery query = AftersaleOrderQuery.builder().shopId(200L).build();
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 10, 0);
+        stubScan(query, exported(2L, 6, "质量问题, 要求\"退货\"", time), exported(1L, 1, null, time.minusHours(1)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = aftersaleService.exportAftersaleOrders(query, AftersaleExportFormat.CSV, out);
+
+        assertEquals(2, rows);
+        assertEquals("id,orderId,customerId,productId,type,status,reason,conclusion,expressId,returnExpressId,gmtCreate,gmtModified\r\n"
+                        + "2,20,30,40,1,CANCELLED,\"质量问题, 要求\"\"退货\"\"\",,,,2024-05-01T10:00:00,\r\n"
+                        + "1,10,30,40,1,TO_BE_RECEIVED,,,,,2024-05-01T09:00:00,\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportAftersaleOrdersShouldWriteOneJsonObjectPerLine() throws IOException {
+        AftersaleOrderQuery query = AftersaleOrderQuery.builder().shopId(200L).build();
+        stubScan(query, exported(1L, 5, "换行\n原因", LocalDateTime.of(2024, 5, 1, 10, 0, 30, 120_000_000)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        aftersaleService.exportAftersaleOrders(query, AftersaleExportFormat.NDJSON, out);
+
+        assertEquals("{\"id\":1,\"orderId\":10,\"customerId\":30,\"productId\":40,\"type\":1,\"status\":\"COMPLETED\","
+                        + "\"reason\":\"换行\\n原因\",\"gmtCreate\":\"2024-05-01T10:00:30.12\"}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportAftersaleOrdersShouldRethrowWriteFailure() {
+        AftersaleOrderQuery query = AftersaleOrderQuery.builder().shopId(200L).build();
+        // 模拟MyBatis把结果处理中的异常包装后抛出
+        when(repository.scan(eq(query), any())).thenAnswer(invocation -> {
+            Consumer<AftersaleOrderPo> consumer = invocation.getArgument(1);
+            try {
+                // 超过写出缓冲区，在读结果集的过程中就写到输出流
+                consumer.accept(exported(1L, 0, "退".repeat(10000), null));
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Error querying database", e);
+            }
+            return 1L;
+        });
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        IOException e = assertThrows(IOException.class,
+                () -> aftersaleService.exportAftersaleOrders(query, AftersaleExportFormat.NDJSON, broken));
+
+        assertEquals("Broken pipe", e.getMessage());
+    }
+
+    private void stubScan(AftersaleOrderQuery query, AftersaleOrderPo... pos) {
+        when(repository.scan(eq(query), any())).thenAnswer(invocation -> {
+            Consumer<AftersaleOrderPo> consumer = invocation.getArgument(1);
+            for (AftersaleOrderPo po : pos) {
+                consumer.accept(po);
+            }
+            return (long) pos.length;
+        });
+    }
+
+    private AftersaleOrderPo exported(Long id, int status, String reason, LocalDateTime createdAt) {
+        AftersaleOrderPo po = new AftersaleOrderPo();
+        po.setId(id);
+        po.setShopId(200L);
+        po.setOrderId(id * 10);
+        po.setCustomerId(30L);
+        po.setProductId(40L);
+        po.setType(AftersaleType.RETURN.getCode());
+        po.setStatus(status);
+        po.setReason(reason);
+        po.setGmtCreate(createdAt);
+        return po;
+    }
+
+    private AftersaleOrder listed(Long id, LocalDateTime createdAt) {
+        return AftersaleOrder.builder()
+                .id(id)
+                .shopId(200L)
+                .type(AftersaleType.RETURN.getCode())
+                .status(AftersaleStatus.PENDING)
+                .createdAt(createdAt)
+                .build();
+    }
+
     private AftersaleOrder buildOrder(AftersaleType type, AftersaleStatus status) {
         return buildOrder(type.getCode(), status);
     }
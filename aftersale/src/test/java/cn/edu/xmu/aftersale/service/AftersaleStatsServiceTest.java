@@ -0,0 +1,74 @@
+package cn.edu.xmu.aftersale.service;
+
+import cn.edu.xmu.aftersale.controller.dto.AftersaleStatsResult;
+import cn.edu.xmu.aftersale.dao.AftersaleStatsRepository;
+import cn.edu.xmu.aftersale.dao.po.AftersaleStatsPo;
+import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AftersaleStatsServiceTest {
+
+    private static final LocalDate MAY_1 = LocalDate.of(2024, 5, 1);
+
+    @Mock
+    private AftersaleStatsRepository repository;
+
+    private AftersaleStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new AftersaleStatsService(repository);
+    }
+
+    @Test
+    void getAftersaleStatsShouldSumByStatusTypeAndDay() {
+        when(repository.findByShop(1L, MAY_1, MAY_1.plusDays(2))).thenReturn(List.of(
+                new AftersaleStatsPo(1L, MAY_1, 1, 0, 3),
+                new AftersaleStatsPo(1L, MAY_1, 2, 6, 1),
+                new AftersaleStatsPo(1L, MAY_1.plusDays(2), 1, 0, 2)));
+
+        AftersaleStatsResult result = service.getAftersaleStats(1L, MAY_1, MAY_1.plusDays(2));
+
+        assertEquals(6L, result.getTotal());
+        assertEquals(5L, result.getByStatus().get("PENDING"));
+        assertEquals(1L, result.getByStatus().get("CANCELLED"));
+        assertEquals(0L, result.getByStatus().get("COMPLETED"));
+        assertEquals(7, result.getByStatus().size());
+        assertEquals(0L, result.getByType().get(0));
+        assertEquals(5L, result.getByType().get(1));
+        assertEquals(1L, result.getByType().get(2));
+        assertEquals(List.of(
+                        new AftersaleStatsResult.DailyCount(MAY_1, 4L),
+                        new AftersaleStatsResult.DailyCount(MAY_1.plusDays(1), 0L),
+                        new AftersaleStatsResult.DailyCount(MAY_1.plusDays(2), 2L)),
+                result.getDaily());
+    }
+
+    @Test
+    void getAftersaleStatsShouldRejectInvalidRange() {
+        BusinessException reversed = assertThrows(BusinessException.class,
+                () -> service.getAftersaleStats(1L, MAY_1, MAY_1.minusDays(1)));
+        BusinessException tooLong = assertThrows(BusinessException.class,
+                () -> service.getAftersaleStats(1L, MAY_1, MAY_1.plusDays(AftersaleStatsService.MAX_DAYS)));
+
+        assertEquals(ReturnNo.FIELD_NOTVALID, reversed.getErrno());
+        assertEquals(ReturnNo.FIELD_NOTVALID, tooLong.getErrno());
+        verify(repository, never()).findByShop(any(), any(), any());
+    }
+}
@@ -0,0 +1,190 @@
+package cn.edu.xmu.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import cn.edu.xmu.benchmark.controller.BenchmarkController;
+import cn.edu.xmu.javaee.core.aop.ControllerAspect;
+import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.ReturnObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static cn.edu.xmu.javaee.core.model.Constants.BEGIN_TIME;
+import static cn.edu.xmu.javaee.core.model.Constants.END_TIME;
+
+/**
+ * ControllerAspect每个请求的开销：经AspectJ代理调用控制器方法
+ * direct为不经切面直接调用；plainMethod/pagedMethod为当前实现（按方法缓存参数位置，含controller.calls计时）；
+ * legacyPlainMethod/legacyPagedMethod为原实现（每次取参数名、正则匹配数字、用异常处理时间格式）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ControllerAspectBenchmark {
+
+    private BenchmarkController direct;
+    private BenchmarkController proxied;
+    private BenchmarkController legacy;
+    private ServletRequestAttributes plainRequest;
+    private ServletRequestAttributes pagedRequest;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger("cn.edu.xmu")).setLevel(Level.OFF);
+        ControllerAspect aspect = new ControllerAspect(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(aspect, "max_page_size", 1000);
+        ReflectionTestUtils.setField(aspect, "default_page_size", 10);
+
+        direct = new BenchmarkController();
+        proxied = proxy(aspect);
+        legacy = proxy(new LegacyControllerAspect(1000, 10));
+
+        plainRequest = new ServletRequestAttributes(new MockHttpServletRequest("PUT", "/shops/1/aftersaleorders/1/confirm"),
+                new MockHttpServletResponse());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/shops/1/aftersaleorders");
+        request.setParameter("page", "3");
+        request.setParameter("pageSize", "20");
+        request.setParameter("beginTime", "2024-01-01T00:00:00");
+        request.setParameter("endTime", "2024-12-31T23:59:59");
+        pagedRequest = new ServletRequestAttributes(request, new MockHttpServletResponse());
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public ReturnObject direct() {
+        RequestContextHolder.setRequestAttributes(plainRequest);
+        return direct.confirm(1L, 1L, null);
+    }
+
+    @Benchmark
+    public ReturnObject plainMethod() {
+        RequestContextHolder.setRequestAttributes(plainRequest);
+        return proxied.confirm(1L, 1L, null);
+    }
+
+    @Benchmark
+    public ReturnObject pagedMethod() {
+        RequestContextHolder.setRequestAttributes(pagedRequest);
+        return proxied.list(1L, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public ReturnObject legacyPlainMethod() {
+        RequestContextHolder.setRequestAttributes(plainRequest);
+        return legacy.confirm(1L, 1L, null);
+    }
+
+    @Benchmark
+    public ReturnObject legacyPagedMethod() {
+        RequestContextHolder.setRequestAttributes(pagedRequest);
+        return legacy.list(1L, null, null, null, null, null);
+    }
+
+    private static BenchmarkController proxy(Object aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new BenchmarkController());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    /**
+     * 原ControllerAspect的分页参数处理（不含计时）
+     */
+    @Aspect
+    public static class LegacyControllerAspect {
+
+        private final int maxPageSize;
+        private final int defaultPageSize;
+
+        public LegacyControllerAspect(int maxPageSize, int defaultPageSize) {
+            this.maxPageSize = maxPageSize;
+            this.defaultPageSize = defaultPageSize;
+        }
+
+        @Around("cn.edu.xmu.javaee.core.aop.CommonPointCuts.controllers()")
+        public Object doAround(ProceedingJoinPoint jp) throws Throwable {
+            ReturnObject retVal;
+            MethodSignature ms = (MethodSignature) jp.getSignature();
+            HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest();
+            String[] paramNames = ms.getParameterNames();
+            Object[] args = jp.getArgs();
+            try {
+                retVal = (ReturnObject) jp.proceed(checkPageTimeLimit(request, paramNames, args));
+            } catch (BusinessException exception) {
+                retVal = new ReturnObject(exception.getErrno(), exception.getMessage());
+            }
+            ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getResponse()
+                    .setStatus(retVal.getCode().getHttpStatus());
+            return retVal;
+        }
+
+        private Object[] checkPageTimeLimit(HttpServletRequest request, String[] paramNames, Object[] args) {
+            Integer page = 1, pageSize = defaultPageSize;
+            LocalDateTime beginTime = BEGIN_TIME, endTime = END_TIME;
+            String pageString = request.getParameter("page");
+            String pageSizeString = request.getParameter("pageSize");
+            String beginTimeString = request.getParameter("beginTime");
+            String endTimeString = request.getParameter("endTime");
+            if (null != pageString && !pageString.isEmpty() && pageString.matches("\\d+")) {
+                page = Integer.valueOf(pageString);
+                if (page <= 0) {
+                    page = 1;
+                }
+            }
+            if (null != pageSizeString && !pageSizeString.isEmpty() && pageSizeString.matches("\\d+")) {
+                pageSize = Integer.valueOf(pageSizeString);
+                if (pageSize <= 0 || pageSize > maxPageSize) {
+                    pageSize = defaultPageSize;
+                }
+            }
+            try {
+                if (null != beginTimeString && null != endTimeString && !beginTimeString.isEmpty() && !endTimeString.isEmpty()) {
+                    beginTime = LocalDateTime.parse(beginTimeString);
+                    endTime = LocalDateTime.parse(endTimeString);
+                    if (beginTime.isAfter(endTime)) {
+                        beginTime = BEGIN_TIME;
+                        endTime = END_TIME;
+                    }
+                }
+            } catch (Exception e) {
+                beginTime = BEGIN_TIME;
+                endTime = END_TIME;
+            }
+            for (int i = 0; i < paramNames.length; i++) {
+                if (paramNames[i].equals("page")) {
+                    args[i] = page;
+                } else if (paramNames[i].equals("pageSize")) {
+                    args[i] = pageSize;
+                } else if (paramNames[i].equals("beginTime") && args[i] == null) {
+                    args[i] = beginTime;
+                } else if (paramNames[i].equals("endTime") && args[i] == null) {
+                    args[i] = endTime;
+                }
+            }
+            return args;
+        }
+    }
+}
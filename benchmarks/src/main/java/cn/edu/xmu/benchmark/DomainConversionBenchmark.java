@@ -0,0 +1,320 @@
+package cn.edu.xmu.benchmark;
+
+import cn.edu.xmu.aftersale.dao.po.AftersaleOrderPo;
+import cn.edu.xmu.aftersale.model.AftersaleOrder;
+import cn.edu.xmu.aftersale.model.AftersaleStatus;
+import cn.edu.xmu.service.dao.po.ServiceOrderPo;
+import cn.edu.xmu.service.dao.po.ServiceProviderDraftPo;
+import cn.edu.xmu.service.model.DraftStatus;
+import cn.edu.xmu.service.model.ServiceOrder;
+import cn.edu.xmu.service.model.ServiceOrderStatus;
+import cn.edu.xmu.service.model.ServiceProviderDraft;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 售后单、服务单、服务商草稿的PO与领域对象互转
+ * 领域对象的fromPo/toPo使用编译时生成的CloneFactory，*Builder为原来手写的builder/setter版本
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DomainConversionBenchmark {
+
+    private AftersaleOrderPo aftersalePo;
+    private AftersaleOrder aftersaleOrder;
+    private ServiceOrderPo serviceOrderPo;
+    private ServiceOrder serviceOrder;
+    private ServiceProviderDraftPo draftPo;
+    private ServiceProviderDraft draft;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+
+        aftersalePo = new AftersaleOrderPo();
+        aftersalePo.setId(1L);
+        aftersalePo.setShopId(2L);
+        aftersalePo.setOrderId(3L);
+        aftersalePo.setCustomerId(5L);
+        aftersalePo.setProductId(6L);
+        aftersalePo.setType(1);
+        aftersalePo.setReason("商品破损");
+        aftersalePo.setStatus(1);
+        aftersalePo.setConclusion("同意退货");
+        aftersalePo.setExpressId(7L);
+        aftersalePo.setGmtCreate(now);
+        aftersalePo.setGmtModified(now);
+        aftersaleOrder = AftersaleOrder.fromPo(aftersalePo);
+
+        serviceOrderPo = new ServiceOrderPo();
+        serviceOrderPo.setId(1L);
+        serviceOrderPo.setType(1);
+        serviceOrderPo.setConsignee("客户");
+        serviceOrderPo.setAddress("厦门市思明区");
+        serviceOrderPo.setMobile("13900000000");
+        serviceOrderPo.setStatus(2);
+        serviceOrderPo.setDescription("屏幕不亮");
+        serviceOrderPo.setServiceStaffId(8L);
+        serviceOrderPo.setServiceProviderId(9L);
+        serviceOrderPo.setCustomerId(5L);
+        serviceOrderPo.setRegionId(10L);
+        serviceOrderPo.setProductId(6L);
+        serviceOrderPo.setAftersaleId(1L);
+        serviceOrderPo.setExpressId(11L);
+        serviceOrderPo.setCreatedAt(now);
+        serviceOrderPo.setUpdatedAt(now);
+        serviceOrder = ServiceOrder.fromPo(serviceOrderPo);
+
+        draftPo = new ServiceProviderDraftPo();
+        draftPo.setId(1L);
+        draftPo.setServiceProviderId(9L);
+        draftPo.setProviderName("厦门维修中心");
+        draftPo.setContactPerson("李四");
+        draftPo.setContactPhone("13800000000");
+        draftPo.setAddress("厦门市湖里区");
+        draftPo.setStatus("PENDING");
+        draftPo.setCreatedAt(now);
+        draftPo.setUpdatedAt(now);
+        draft = ServiceProviderDraft.fromPo(draftPo);
+    }
+
+    @Benchmark
+    public AftersaleOrder aftersaleFromPo() {
+        return AftersaleOrder.fromPo(aftersalePo);
+    }
+
+    @Benchmark
+    public AftersaleOrderPo aftersaleToPo() {
+        return aftersaleOrder.toPo();
+    }
+
+    @Benchmark
+    public ServiceOrder serviceOrderFromPo() {
+        return ServiceOrder.fromPo(serviceOrderPo);
+    }
+
+    @Benchmark
+    public ServiceOrderPo serviceOrderToPo() {
+        return serviceOrder.toPo();
+    }
+
+    @Benchmark
+    public ServiceProviderDraft draftFromPo() {
+        return ServiceProviderDraft.fromPo(draftPo);
+    }
+
+    @Benchmark
+    public ServiceProviderDraftPo draftToPo() {
+        return draft.toPo();
+    }
+
+    @Benchmark
+    public AftersaleOrder aftersaleFromPoBuilder() {
+        return BuilderConversion.aftersaleFromPo(aftersalePo);
+    }
+
+    @Benchmark
+    public AftersaleOrderPo aftersaleToPoBuilder() {
+        return BuilderConversion.aftersaleToPo(aftersaleOrder);
+    }
+
+    @Benchmark
+    public ServiceOrder serviceOrderFromPoBuilder() {
+        return BuilderConversion.serviceOrderFromPo(serviceOrderPo);
+    }
+
+    @Benchmark
+    public ServiceOrderPo serviceOrderToPoBuilder() {
+        return BuilderConversion.serviceOrderToPo(serviceOrder);
+    }
+
+    @Benchmark
+    public ServiceProviderDraft draftFromPoBuilder() {
+        return BuilderConversion.draftFromPo(draftPo);
+    }
+
+    @Benchmark
+    public ServiceProviderDraftPo draftToPoBuilder() {
+        return BuilderConversion.draftToPo(draft);
+    }
+
+    /**
+     * 改用CloneFactory之前手写的fromPo/toPo
+     */
+    static final class BuilderConversion {
+
+        static AftersaleOrder aftersaleFromPo(AftersaleOrderPo po) {
+            AftersaleStatus status = aftersaleStatus(po.getStatus());
+            return AftersaleOrder.builder()
+                    .id(po.getId())
+                    .shopId(po.getShopId())
+                    .orderId(po.getOrderId())
+                    .customerId(po.getCustomerId())
+                    .productId(po.getProductId())
+                    .type(po.getType())
+                    .status(status)
+                    .persistedStatus(status)
+                    .reason(po.getReason())
+                    .conclusion(po.getConclusion())
+                    .expressId(po.getExpressId())
+                    .returnExpressId(po.getReturnExpressId())
+                    .createdAt(po.getGmtCreate())
+                    .updatedAt(po.getGmtModified())
+                    .build();
+        }
+
+        static AftersaleOrderPo aftersaleToPo(AftersaleOrder order) {
+            AftersaleOrderPo po = new AftersaleOrderPo();
+            po.setId(order.getId());
+            po.setShopId(order.getShopId());
+            po.setOrderId(order.getOrderId());
+            po.setCustomerId(order.getCustomerId());
+            po.setProductId(order.getProductId());
+            po.setType(order.getType());
+            po.setStatus(AftersaleOrder.convertStatusToInt(order.getStatus()));
+            po.setReason(order.getReason());
+            po.setConclusion(order.getConclusion());
+            po.setExpressId(order.getExpressId());
+            po.setReturnExpressId(order.getReturnExpressId());
+            po.setGmtCreate(order.getCreatedAt());
+            po.setGmtModified(order.getUpdatedAt());
+            po.setExpectedStatus(order.getPersistedStatus() == null ? null
+                    : AftersaleOrder.convertStatusToInt(order.getPersistedStatus()));
+            return po;
+        }
+
+        static ServiceOrder serviceOrderFromPo(ServiceOrderPo po) {
+            ServiceOrderStatus status = serviceOrderStatus(po.getStatus());
+            return ServiceOrder.builder()
+                    .id(po.getId())
+                    .type(po.getType())
+                    .consignee(po.getConsignee())
+                    .address(po.getAddress())
+                    .mobile(po.getMobile())
+                    .status(status)
+                    .persistedStatus(status)
+                    .description(po.getDescription())
+                    .serviceStaffId(po.getServiceStaffId())
+                    .serviceProviderId(po.getServiceProviderId())
+                    .serviceContractId(po.getServiceContractId())
+                    .serviceId(po.getServiceId())
+                    .customerId(po.getCustomerId())
+                    .regionId(po.getRegionId())
+                    .productId(po.getProductId())
+                    .aftersaleId(po.getAftersaleId())
+                    .expressId(po.getExpressId())
+                    .returnExpressId(po.getReturnExpressId())
+                    .createdAt(po.getCreatedAt())
+                    .updatedAt(po.getUpdatedAt())
+                    .build();
+        }
+
+        static ServiceOrderPo serviceOrderToPo(ServiceOrder order) {
+            ServiceOrderPo po = new ServiceOrderPo();
+            po.setId(order.getId());
+            po.setType(order.getType());
+            po.setConsignee(order.getConsignee());
+            po.setAddress(order.getAddress());
+            po.setMobile(order.getMobile());
+            po.setStatus(serviceOrderStatusToInt(order.getStatus()));
+            po.setDescription(order.getDescription());
+            po.setServiceStaffId(order.getServiceStaffId());
+            po.setServiceProviderId(order.getServiceProviderId());
+            po.setServiceContractId(order.getServiceContractId());
+            po.setServiceId(order.getServiceId());
+            po.setCustomerId(order.getCustomerId());
+            po.setRegionId(order.getRegionId());
+            po.setProductId(order.getProductId());
+            po.setAftersaleId(order.getAftersaleId());
+            po.setExpressId(order.getExpressId());
+            po.setReturnExpressId(order.getReturnExpressId());
+            po.setCreatedAt(order.getCreatedAt());
+            po.setUpdatedAt(order.getUpdatedAt());
+            po.setExpectedStatus(order.getPersistedStatus() == null ? null : serviceOrderStatusToInt(order.getPersistedStatus()));
+            return po;
+        }
+
+        static ServiceProviderDraft draftFromPo(ServiceProviderDraftPo po) {
+            return ServiceProviderDraft.builder()
+                    .id(po.getId())
+                    .serviceProviderId(po.getServiceProviderId())
+                    .providerName(po.getProviderName())
+                    .contactPerson(po.getContactPerson())
+                    .contactPhone(po.getContactPhone())
+                    .address(po.getAddress())
+                    .status(DraftStatus.of(po.getStatus()))
+                    .opinion(po.getOpinion())
+                    .createdAt(po.getCreatedAt())
+                    .updatedAt(po.getUpdatedAt())
+                    .build();
+        }
+
+        static ServiceProviderDraftPo draftToPo(ServiceProviderDraft draft) {
+            ServiceProviderDraftPo po = new ServiceProviderDraftPo();
+            po.setId(draft.getId());
+            po.setServiceProviderId(draft.getServiceProviderId());
+            po.setProviderName(draft.getProviderName());
+            po.setContactPerson(draft.getContactPerson());
+            po.setContactPhone(draft.getContactPhone());
+            po.setAddress(draft.getAddress());
+            po.setStatus(draft.getStatus().getCode());
+            po.setOpinion(draft.getOpinion());
+            po.setCreatedAt(draft.getCreatedAt());
+            po.setUpdatedAt(draft.getUpdatedAt());
+            return po;
+        }
+
+        private static AftersaleStatus aftersaleStatus(Integer statusCode) {
+            if (statusCode == null) {
+                return AftersaleStatus.PENDING;
+            }
+            return switch (statusCode) {
+                case 1 -> AftersaleStatus.TO_BE_RECEIVED;
+                case 2 -> AftersaleStatus.TO_BE_COMPLETED;
+                case 3 -> AftersaleStatus.RECEIVED;
+                case 4 -> AftersaleStatus.REJECTED;
+                case 5 -> AftersaleStatus.COMPLETED;
+                case 6 -> AftersaleStatus.CANCELLED;
+                default -> AftersaleStatus.PENDING;
+            };
+        }
+
+        private static ServiceOrderStatus serviceOrderStatus(Integer statusCode) {
+            if (statusCode == null) {
+                return ServiceOrderStatus.PENDING;
+            }
+            return switch (statusCode) {
+                case 1 -> ServiceOrderStatus.TO_BE_ASSIGNED;
+                case 2 -> ServiceOrderStatus.ASSIGNED;
+                case 3 -> ServiceOrderStatus.RECEIVED;
+                case 4 -> ServiceOrderStatus.REJECTED;
+                case 5 -> ServiceOrderStatus.COMPLETED;
+                case 6 -> ServiceOrderStatus.CANCELED;
+                case 7 -> ServiceOrderStatus.RETURNED;
+                default -> ServiceOrderStatus.PENDING;
+            };
+        }
+
+        private static Integer serviceOrderStatusToInt(ServiceOrderStatus status) {
+            if (status == null) {
+                return 0;
+            }
+            return switch (status) {
+                case PENDING -> 0;
+                case TO_BE_ASSIGNED -> 1;
+                case ASSIGNED -> 2;
+                case RECEIVED -> 3;
+                case REJECTED -> 4;
+                case COMPLETED -> 5;
+                case CANCELED -> 6;
+                case RETURNED -> 7;
+            };
+        }
+    }
+}
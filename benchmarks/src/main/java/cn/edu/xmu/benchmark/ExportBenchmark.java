@@ -0,0 +1,119 @@
+package cn.edu.xmu.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import cn.edu.xmu.aftersale.controller.dto.AftersaleOrderListItem;
+import cn.edu.xmu.aftersale.dao.AftersaleOrderRepository;
+import cn.edu.xmu.aftersale.dao.po.AftersaleOrderPo;
+import cn.edu.xmu.aftersale.model.AftersaleExportFormat;
+import cn.edu.xmu.aftersale.model.AftersaleOrder;
+import cn.edu.xmu.aftersale.model.AftersaleOrderQuery;
+import cn.edu.xmu.aftersale.model.strategy.impl.*;
+import cn.edu.xmu.aftersale.service.AftersaleService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 导出一个商铺的全部售后单
+ * stream*为导出接口：结果集逐行交给写出器，每行写完即可回收；rows由桩Repository逐行生成，与MyBatis流式读取时一样每行一个PO
+ * materializedJson为用列表接口的方式一次取出全部行：PO列表转领域对象、列表项，再由Jackson写出，内存中同时持有全部行
+ * 输出写到丢弃数据的流，不含数据库和网络的开销；用-prof gc看每次导出分配的字节数
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    private static final AftersaleOrderQuery QUERY = AftersaleOrderQuery.builder().shopId(1L).build();
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 6, 1, 10, 0);
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private AftersaleService service;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger("cn.edu.xmu")).setLevel(Level.OFF);
+        AftersaleOrderRepository repository = new AftersaleOrderRepository(null, null, null, null) {
+            @Override
+            public long scan(AftersaleOrderQuery query, Consumer<AftersaleOrderPo> consumer) {
+                for (int i = 0; i < rows; i++) {
+                    consumer.accept(row(i));
+                }
+                return rows;
+            }
+        };
+        service = new AftersaleService(repository,
+                List.of(new ExchangeConfirmStrategy(null), new ReturnConfirmStrategy(null), new RepairConfirmStrategy(null)),
+                List.of(new ExchangeCancelStrategy(null, null), new ReturnCancelStrategy(null, null), new RepairCancelStrategy(null)),
+                List.of(new ExchangeAcceptStrategy(null, null), new ReturnAcceptStrategy(null, null)),
+                List.of(new ExchangeReceiveStrategy(null, null), new ReturnReceiveStrategy(null)), null);
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Benchmark
+    public long streamCsv() throws IOException {
+        return service.exportAftersaleOrders(QUERY, AftersaleExportFormat.CSV, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long streamNdjson() throws IOException {
+        return service.exportAftersaleOrders(QUERY, AftersaleExportFormat.NDJSON, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long streamCsvGzip() throws IOException {
+        try (GZIPOutputStream zip = new GZIPOutputStream(OutputStream.nullOutputStream(), 8192)) {
+            return service.exportAftersaleOrders(QUERY, AftersaleExportFormat.CSV, zip);
+        }
+    }
+
+    @Benchmark
+    public int materializedJson() throws IOException {
+        List<AftersaleOrderPo> pos = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            pos.add(row(i));
+        }
+        List<AftersaleOrderListItem> items = new ArrayList<>(pos.size());
+        for (AftersaleOrderPo po : pos) {
+            items.add(AftersaleOrderListItem.of(AftersaleOrder.fromPo(po)));
+        }
+        objectMapper.writeValue(OutputStream.nullOutputStream(), items);
+        return items.size();
+    }
+
+    private static AftersaleOrderPo row(int i) {
+        AftersaleOrderPo po = new AftersaleOrderPo();
+        po.setId((long) i);
+        po.setShopId(1L);
+        po.setOrderId(100000L + i);
+        po.setCustomerId(200L + i % 50);
+        po.setProductId(300L + i % 20);
+        po.setType(i % 3);
+        po.setReason(i % 5 == 0 ? "商品破损, 要求\"退货\"" : "商品与描述不符");
+        po.setStatus(i % 7);
+        po.setConclusion(i % 2 == 0 ? "同意" : null);
+        po.setExpressId(i % 2 == 0 ? 400L + i : null);
+        po.setGmtCreate(TIME.minusSeconds(i));
+        po.setGmtModified(TIME.minusSeconds(i));
+        return po;
+    }
+}
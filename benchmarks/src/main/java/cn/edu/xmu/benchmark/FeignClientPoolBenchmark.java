@@ -0,0 +1,158 @@
+package cn.edu.xmu.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Feign;
+import feign.Headers;
+import feign.Param;
+import feign.RequestLine;
+import feign.hc5.ApacheHttp5Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地桩服务上的确认/派工调用（创建运单POST + 创建服务单POST）：
+ * pooled为连接池化的Apache HttpClient 5（当前配置），urlConnection为Feign默认的HttpURLConnection（原实现），
+ * noReuse为同一HttpClient 5但每次调用新建连接，作为连接复用收益的对照
+ * 每组结束时打印桩服务收到的请求数和建立的TCP连接数
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// 桩服务关闭Nagle算法，否则keep-alive连接上每个请求都会因延迟确认多等约40ms
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+public class FeignClientPoolBenchmark {
+
+    private static final String BODY = "{\"errno\":0,\"errmsg\":\"成功\",\"data\":{\"id\":888,\"billCode\":\"SF1234567890\"}}";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requests = new AtomicLong();
+
+    private CloseableHttpClient pooledHttpClient;
+    private CloseableHttpClient noReuseHttpClient;
+    private StubClient pooled;
+    private StubClient urlConnection;
+    private StubClient noReuse;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        serverExecutor = Executors.newFixedThreadPool(32);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", this::handle);
+        server.start();
+        String url = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        // 与spring.cloud.openfeign.httpclient的配置一致
+        PoolingHttpClientConnectionManager manager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(200)
+                .setMaxConnPerRoute(50)
+                .setConnectionTimeToLive(TimeValue.ofSeconds(60))
+                .build();
+        pooledHttpClient = HttpClients.custom().setConnectionManager(manager).build();
+        noReuseHttpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create().build())
+                .setConnectionReuseStrategy((request, response, context) -> false)
+                .build();
+
+        pooled = Feign.builder().client(new ApacheHttp5Client(pooledHttpClient)).target(StubClient.class, url);
+        urlConnection = Feign.builder().client(new Client.Default(null, null)).target(StubClient.class, url);
+        noReuse = Feign.builder().client(new ApacheHttp5Client(noReuseHttpClient)).target(StubClient.class, url);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.out.printf("%nrequests=%d, connections=%d%n", requests.get(), connections.size());
+        pooledHttpClient.close();
+        noReuseHttpClient.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String pooled1Thread() {
+        return confirmAndAssign(pooled);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String pooled16Threads() {
+        return confirmAndAssign(pooled);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String urlConnection1Thread() {
+        return confirmAndAssign(urlConnection);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String urlConnection16Threads() {
+        return confirmAndAssign(urlConnection);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String noReuse1Thread() {
+        return confirmAndAssign(noReuse);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String noReuse16Threads() {
+        return confirmAndAssign(noReuse);
+    }
+
+    private static String confirmAndAssign(StubClient client) {
+        client.createPackage(1L, "{\"address\":\"厦门市思明区\",\"contact\":\"张三\",\"mobile\":\"13900000000\"}");
+        return client.createServiceOrder(1L, 2L, "{\"type\":0,\"consignee\":\"张三\",\"mobile\":\"13900000000\"}");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        connections.add(exchange.getRemoteAddress());
+        requests.incrementAndGet();
+        try (InputStream in = exchange.getRequestBody()) {
+            in.readAllBytes();
+        }
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Headers("Content-Type: application/json")
+    interface StubClient {
+
+        @RequestLine("POST /internal/shops/{shopId}/packages")
+        String createPackage(@Param("shopId") Long shopId, String body);
+
+        @RequestLine("POST /internal/shops/{shopId}/aftersales/{aftersalesId}/serviceorders")
+        String createServiceOrder(@Param("shopId") Long shopId, @Param("aftersalesId") Long aftersalesId,
+                                  String body);
+    }
+}
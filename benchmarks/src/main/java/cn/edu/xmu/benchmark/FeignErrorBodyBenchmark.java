@@ -0,0 +1,98 @@
+package cn.edu.xmu.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import cn.edu.xmu.javaee.core.config.OpenFeignConfig;
+import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import cn.edu.xmu.javaee.core.util.JacksonUtil;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import feign.codec.ErrorDecoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解析Feign错误响应体中的errno和errmsg
+ * parseErrnoAndErrmsg为原OpenFeignMapperAspect的两次建树解析，streamErrnoAndErrmsg为流式扫描一遍；
+ * decodeOld/decodeStream为从Feign响应到业务异常的完整过程（原实现先由默认ErrorDecoder生成FeignException再解析）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeignErrorBodyBenchmark {
+
+    @Param({
+            "{\"errno\":4,\"errmsg\":\"运费模板对象(id=9999)不存在\"}",
+            "{\"errno\":706,\"errmsg\":\"售后单不存在\",\"data\":{\"id\":1,\"shopId\":2,\"items\":[1,2,3,4,5,6,7,8]}}",
+            "{\"data\":{\"id\":1,\"shopId\":2,\"items\":[1,2,3,4,5,6,7,8]},\"errmsg\":\"运单状态不允许\",\"errno\":7}"
+    })
+    public String body;
+
+    private byte[] bytes;
+    private Request request;
+    private ErrorDecoder defaultDecoder;
+    private ErrorDecoder streamDecoder;
+
+    @Setup
+    public void setUp() {
+        // 只比较解析和构造异常，不计日志输出
+        ((Logger) LoggerFactory.getLogger("cn.edu.xmu")).setLevel(Level.OFF);
+        bytes = body.getBytes(StandardCharsets.UTF_8);
+        request = Request.create(Request.HttpMethod.PUT, "http://127.0.0.1:8080/internal/shops/1/packages/9999/cancel",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        defaultDecoder = new ErrorDecoder.Default();
+        streamDecoder = new OpenFeignConfig().errorDecoder();
+    }
+
+    @Benchmark
+    public Integer parseInteger() {
+        return JacksonUtil.parseInteger(body, "errno");
+    }
+
+    @Benchmark
+    public String parseString() {
+        return JacksonUtil.parseString(body, "errmsg");
+    }
+
+    @Benchmark
+    public void parseErrnoAndErrmsg(Blackhole bh) {
+        bh.consume(JacksonUtil.parseInteger(body, "errno"));
+        bh.consume(JacksonUtil.parseString(body, "errmsg"));
+    }
+
+    @Benchmark
+    public InternalReturnObject<Void> streamErrnoAndErrmsg() {
+        return JacksonUtil.parseErrnoAndErrmsg(bytes);
+    }
+
+    @Benchmark
+    public void decodeOld(Blackhole bh) {
+        FeignException e = (FeignException) defaultDecoder.decode("LogisticsClient#cancelPackage(Long,Long,String)", response());
+        String content = e.contentUTF8();
+        bh.consume(JacksonUtil.parseInteger(content, "errno"));
+        bh.consume(JacksonUtil.parseString(content, "errmsg"));
+    }
+
+    @Benchmark
+    public Exception decodeStream() {
+        return streamDecoder.decode("LogisticsClient#cancelPackage(Long,Long,String)", response());
+    }
+
+    private Response response() {
+        return Response.builder()
+                .status(404)
+                .request(request)
+                .headers(Map.of())
+                .body(bytes)
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package cn.edu.xmu.benchmark;
+
+import cn.edu.xmu.javaee.core.config.OpenFeignConfig;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feign拦截器复制调用方包头：白名单（allowlist，当前实现）与全部复制（copyAll，原实现）对比
+ * 调用方请求带浏览器常见包头；headerBytes为拦截后Feign请求包头的字节数（名称+值+": "和CRLF）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FeignHeaderPropagationBenchmark {
+
+    private ServiceTokenProvider provider;
+    private RequestInterceptor allowlist;
+    private RequestInterceptor copyAll;
+
+    @Setup
+    public void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Host", "127.0.0.1:8081");
+        request.addHeader("Connection", "keep-alive");
+        request.addHeader("authorization", new ServiceTokenProvider(3600, 300).getToken());
+        request.addHeader("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+                + "(KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36");
+        request.addHeader("Accept", "application/json, text/plain, */*");
+        request.addHeader("Accept-Encoding", "gzip, deflate, br");
+        request.addHeader("Accept-Language", "zh-CN,zh;q=0.9,en;q=0.8");
+        request.addHeader("Cookie", "JSESSIONID=8C6F0A1E2B3D4C5F6A7B8C9D0E1F2A3B; Hm_lvt_0123456789abcdef=1714521600,"
+                + "1714608000; Hm_lpvt_0123456789abcdef=1714694400");
+        request.addHeader("Origin", "http://127.0.0.1:5173");
+        request.addHeader("Referer", "http://127.0.0.1:5173/shops/1/aftersales");
+        request.addHeader("Content-Length", "128");
+        request.addHeader("x-request-id", "4bf92f3577b34da6a3ce929d0e0e4736");
+        request.addHeader("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        provider = new ServiceTokenProvider(3600, 300);
+        allowlist = new OpenFeignConfig().requestInterceptor(provider, List.of("authorization", "x-request-id",
+                "traceparent", "tracestate", "b3", "x-b3-traceid", "x-b3-spanid", "x-b3-parentspanid", "x-b3-sampled"));
+        copyAll = new CopyAllInterceptor();
+
+        System.out.printf("%nheaderBytes: allowlist=%d, copyAll=%d%n",
+                headerBytes(allowlist()), headerBytes(copyAll()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        provider.destroy();
+    }
+
+    @Benchmark
+    public RequestTemplate allowlist() {
+        RequestTemplate template = new RequestTemplate();
+        allowlist.apply(template);
+        return template;
+    }
+
+    @Benchmark
+    public RequestTemplate copyAll() {
+        RequestTemplate template = new RequestTemplate();
+        copyAll.apply(template);
+        return template;
+    }
+
+    private static int headerBytes(RequestTemplate template) {
+        int bytes = 0;
+        for (Map.Entry<String, Collection<String>> entry : template.headers().entrySet()) {
+            for (String value : entry.getValue()) {
+                bytes += (entry.getKey() + ": " + value + "\r\n").getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 原实现：复制调用方的全部包头（Content-Length、Transfer-Encoding除外），每个包头都重新取一次headers()
+     */
+    static class CopyAllInterceptor implements RequestInterceptor {
+
+        @Override
+        public void apply(RequestTemplate requestTemplate) {
+            jakarta.servlet.http.HttpServletRequest request =
+                    ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+            Enumeration<String> headerNames = request.getHeaderNames();
+            while (headerNames.hasMoreElements()) {
+                String name = headerNames.nextElement();
+                if (name.equalsIgnoreCase("Content-Length") || name.equalsIgnoreCase("Transfer-Encoding")) {
+                    continue;
+                }
+                addHeader(requestTemplate, name, request.getHeader(name));
+            }
+            addHeader(requestTemplate, "Content-Type", "application/json;charset=UTF-8");
+        }
+
+        private void addHeader(RequestTemplate requestTemplate, String name, String... values) {
+            if (!requestTemplate.headers().containsKey(name)) {
+                requestTemplate.header(name, values);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package cn.edu.xmu.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对运行中的服务做闭环压测：concurrency个客户端各自循环发GET请求，统计吞吐量和延迟分位数
+ * 用于比较同一接口在平台线程与虚拟线程（virtual-threads配置）下的表现，不属于JMH基准
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar cn.edu.xmu.benchmark.HttpLoadTest &lt;url&gt; [concurrency] [seconds] [warmupSeconds] [token]
+ * </pre>
+ */
+public class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: HttpLoadTest <url> [concurrency=400] [seconds=30] [warmupSeconds=10] [token]");
+            System.exit(1);
+        }
+        URI uri = URI.create(args[0]);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int warmup = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        String token = args.length > 4 ? args[4] : null;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET();
+        if (token != null) {
+            builder.header("authorization", token);
+        }
+        HttpRequest request = builder.build();
+
+        run(client, request, concurrency, warmup);
+        Result result = run(client, request, concurrency, seconds);
+        System.out.printf("url=%s concurrency=%d seconds=%d%n", uri, concurrency, seconds);
+        System.out.println(result);
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, int seconds)
+            throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        List<Future<Worker>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(pool.submit(() -> new Worker().loop(client, request, deadline)));
+        }
+        Result result = new Result(seconds);
+        for (Future<Worker> future : futures) {
+            result.add(future.get());
+        }
+        pool.shutdown();
+        return result;
+    }
+
+    /**
+     * 单个客户端的循环和本地统计，结束后合并，避免压测端自身争用
+     */
+    private static class Worker {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        Worker loop(HttpClient client, HttpRequest request, long deadline) {
+            while (System.nanoTime() < deadline) {
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() >= 400) {
+                        errors++;
+                        continue;
+                    }
+                } catch (Exception e) {
+                    errors++;
+                    continue;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = System.nanoTime() - start;
+            }
+            return this;
+        }
+    }
+
+    private static class Result {
+        private final int seconds;
+        private long[] latencies = new long[0];
+        private long errors;
+
+        Result(int seconds) {
+            this.seconds = seconds;
+        }
+
+        void add(Worker worker) {
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            errors += worker.errors;
+        }
+
+        private double percentileMillis(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            Arrays.sort(latencies);
+            return String.format("requests=%d errors=%d throughput=%.1f/s p50=%.1fms p99=%.1fms max=%.1fms",
+                    latencies.length, errors, (double) latencies.length / seconds,
+                    percentileMillis(0.50), percentileMillis(0.99), percentileMillis(1.0));
+        }
+    }
+}
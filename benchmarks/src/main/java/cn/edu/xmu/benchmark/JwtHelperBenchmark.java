@@ -0,0 +1,60 @@
+package cn.edu.xmu.benchmark;
+
+import cn.edu.xmu.javaee.core.model.UserToken;
+import cn.edu.xmu.javaee.core.util.JwtHelper;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtHelper签发与校验token
+ * verifyTokenRebuild为原实现（每次构造Algorithm和JWTVerifier），verifyTokenPrebuilt只复用JWTVerifier，
+ * verifyToken为JwtHelper当前实现，同一token第二次起命中已校验缓存
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtHelperBenchmark {
+
+    /** 与JwtHelper相同的秘钥和签发者 */
+    private static final String SECRET = "Role-Privilege-Token";
+    private static final String ISSUER = "OOAD";
+
+    private JwtHelper jwtHelper;
+    private String token;
+    private JWTVerifier verifier;
+
+    @Setup
+    public void setUp() {
+        jwtHelper = new JwtHelper();
+        token = jwtHelper.createToken(1L, "admin", 0L, 1, 3600);
+        verifier = JWT.require(Algorithm.HMAC256(SECRET)).withIssuer(ISSUER).build();
+    }
+
+    @Benchmark
+    public String createToken() {
+        return jwtHelper.createToken(1L, "admin", 0L, 1, 3600);
+    }
+
+    @Benchmark
+    public UserToken verifyToken() {
+        return jwtHelper.verifyTokenAndGetClaims(token);
+    }
+
+    @Benchmark
+    public DecodedJWT verifyTokenPrebuilt() {
+        return verifier.verify(token);
+    }
+
+    @Benchmark
+    public DecodedJWT verifyTokenRebuild() {
+        return JWT.require(Algorithm.HMAC256(SECRET)).withIssuer(ISSUER).build().verify(token);
+    }
+}
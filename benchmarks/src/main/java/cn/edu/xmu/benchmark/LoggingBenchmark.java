@@ -0,0 +1,151 @@
+package cn.edu.xmu.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.encoder.Encoder;
+import cn.edu.xmu.javaee.core.util.LogSamplingFilter;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.slf4j.Slf4jImpl;
+import org.apache.ibatis.logging.stdout.StdOutImpl;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 8个请求线程同时审核售后单时日志的吞吐量，每次操作为一次审核请求：
+ * 服务、策略、Repository.save共5条INFO，加上更新语句的3行SQL日志
+ * current为原配置：同步控制台文本日志，SQL由StdOutImpl直接println；
+ * syncJson为同步输出JSON（MDC带traceId、shopId、orderId），SQL经SLF4J（DEBUG，不输出），用于区分编码和异步的影响；
+ * asyncJson经AsyncAppender的环形队列异步输出；asyncJsonSampled为prod配置，在此基础上对流转日志按1/10抽样
+ * stdout重定向到/dev/null，每行仍是一次write系统调用；队列满时等待而不丢弃，测的是可持续的吞吐量
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+    private static final String SERVICE = "cn.edu.xmu.aftersale.service.AftersaleService";
+    private static final String STRATEGY = "cn.edu.xmu.aftersale.model.strategy.impl.ReturnConfirmStrategy";
+    private static final String REPOSITORY = "cn.edu.xmu.aftersale.dao.AftersaleOrderRepository";
+    private static final String MAPPER = "cn.edu.xmu.aftersale.dao.AftersaleOrderMapper.updateByPrimaryKeySelective";
+    private static final String PATTERN = "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] %-40.40logger{39} : %m%n";
+
+    @Param({"current", "syncJson", "asyncJson", "asyncJsonSampled"})
+    private String mode;
+
+    private PrintStream stdout;
+    private Logger service;
+    private Logger strategy;
+    private Logger repository;
+    private Log sql;
+
+    @Setup
+    public void setUp() throws FileNotFoundException {
+        stdout = System.out;
+        // 与JVM的System.out一样带缓冲、每行刷新
+        System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream("/dev/null"), 128), true,
+                StandardCharsets.UTF_8));
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        if ("current".equals(mode)) {
+            PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+            encoder.setPattern(PATTERN);
+            root.addAppender(console(context, encoder));
+            sql = new StdOutImpl(MAPPER);
+        } else {
+            LogstashEncoder encoder = new LogstashEncoder();
+            encoder.setIncludeContext(false);
+            encoder.addIncludeMdcKeyName("traceId");
+            encoder.addIncludeMdcKeyName("shopId");
+            encoder.addIncludeMdcKeyName("orderId");
+            ConsoleAppender<ILoggingEvent> json = console(context, encoder);
+            if ("syncJson".equals(mode)) {
+                root.addAppender(json);
+            } else {
+                AsyncAppender async = new AsyncAppender();
+                async.setContext(context);
+                async.setQueueSize(8192);
+                // 不丢弃，队列满时请求线程等待
+                async.setDiscardingThreshold(0);
+                async.addAppender(json);
+                async.start();
+                root.addAppender(async);
+            }
+            sql = new Slf4jImpl(MAPPER);
+            if ("asyncJsonSampled".equals(mode)) {
+                LogSamplingFilter filter = new LogSamplingFilter();
+                filter.setContext(context);
+                filter.setLoggers(SERVICE + ",cn.edu.xmu.aftersale.model.strategy," + REPOSITORY);
+                filter.setRate(10);
+                filter.start();
+                context.addTurboFilter(filter);
+            }
+        }
+        service = context.getLogger(SERVICE);
+        strategy = context.getLogger(STRATEGY);
+        repository = context.getLogger(REPOSITORY);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public void confirmRequest() {
+        Long shopId = 3L, id = 5L;
+        boolean mdc = !"current".equals(mode);
+        if (mdc) {
+            MDC.put("traceId", "4bf92f3577b34da6a3ce929d0e0e4736");
+            MDC.put("shopId", "3");
+            MDC.put("orderId", "5");
+        }
+        service.info("开始审核售后单: shopId={}, id={}, confirm={}", shopId, id, true);
+        strategy.info("执行退货审核策略: orderId={}, confirm={}", id, true);
+        strategy.info("退货审核通过: orderId={}, 状态转换为待验收", id);
+        if (sql.isDebugEnabled()) {
+            sql.debug("==>  Preparing: UPDATE aftersale_order SET status = ?, conclusion = ?, updated_at = ? WHERE id = ? AND status = ?");
+            sql.debug("==> Parameters: 1(Integer), 同意退货(String), 2024-06-01T10:00(LocalDateTime), 5(Long), 0(Integer)");
+            sql.debug("<==    Updates: 1");
+        }
+        repository.info("售后单更新成功: id={}, status={}", id, 1);
+        service.info("售后单审核完成: id={}, status={}", id, 1);
+        if (mdc) {
+            MDC.remove("traceId");
+            MDC.remove("shopId");
+            MDC.remove("orderId");
+        }
+    }
+
+    private static ConsoleAppender<ILoggingEvent> console(Context context, Encoder<ILoggingEvent> encoder) {
+        encoder.setContext(context);
+        encoder.start();
+        ConsoleAppender<ILoggingEvent> appender = new ConsoleAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+}
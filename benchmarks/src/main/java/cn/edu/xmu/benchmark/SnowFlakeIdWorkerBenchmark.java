@@ -0,0 +1,102 @@
+package cn.edu.xmu.benchmark;
+
+import cn.edu.xmu.javaee.core.util.SnowFlakeIdWorker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SnowFlakeIdWorker在1~64线程下的竞争：CAS实现（cas*）与同一算法加synchronized（locked*）对比
+ * 两者都把预支上限设得足够大，测的是生成器本身的开销；正常配置下单节点每毫秒最多4096个ID，
+ * 持续超过该速率时两种实现都会被限速
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnowFlakeIdWorkerBenchmark {
+
+    /** 足够大的预支上限，基准期间不会被限速 */
+    private static final long UNLIMITED_BORROW = 1L << 30;
+
+    private SnowFlakeIdWorker worker;
+    private LockedWorker locked;
+
+    @Setup
+    public void setUp() {
+        worker = new SnowFlakeIdWorker(1L, 1L, UNLIMITED_BORROW);
+        locked = new LockedWorker();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long cas1Thread() {
+        return worker.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long cas4Threads() {
+        return worker.nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long cas16Threads() {
+        return worker.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long cas64Threads() {
+        return worker.nextId();
+    }
+
+    /**
+     * 每次取100个，吞吐量按批计
+     */
+    @Benchmark
+    @Threads(64)
+    public long[] casBatch100x64Threads() {
+        return worker.nextIds(100);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long locked1Thread() {
+        return locked.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long locked4Threads() {
+        return locked.nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long locked16Threads() {
+        return locked.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long locked64Threads() {
+        return locked.nextId();
+    }
+
+    /**
+     * 与SnowFlakeIdWorker相同的"时间截+序列"推进方式，改为synchronized保护，作为对照
+     */
+    static class LockedWorker {
+        private long state;
+
+        synchronized long nextId() {
+            long now = System.currentTimeMillis() - 1420041600000L;
+            state = now > (state >>> 12) ? now << 12 : state + 1;
+            return ((state >>> 12) << 22) | (1L << 19) | (1L << 12) | (state & 0xFFF);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package cn.edu.xmu.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程争用同一行时的状态流转：悲观锁（SELECT ... FOR UPDATE，锁内做业务处理）
+ * 与条件更新（无锁读取，锁外做业务处理，UPDATE ... WHERE status = 读到的状态，未命中则重读重试）对比
+ * 使用H2内存库，只比较两种方式的相对开销；conflicts为条件更新未命中、需要重试的次数
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class StatusTransitionContentionBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:contention;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    /** 读取状态后、写回之前的业务处理耗时（Blackhole.consumeCPU的token数） */
+    private static final long WORK = 200;
+
+    @State(Scope.Benchmark)
+    public static class Db {
+
+        private Connection keeper;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            keeper = DriverManager.getConnection(URL);
+            try (Statement st = keeper.createStatement()) {
+                st.execute("DROP TABLE IF EXISTS aftersales");
+                st.execute("CREATE TABLE aftersales (id BIGINT PRIMARY KEY, status INT NOT NULL)");
+                st.execute("INSERT INTO aftersales VALUES (1, 0)");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            keeper.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+
+        private Connection conn;
+        private PreparedStatement select;
+        private PreparedStatement selectForUpdate;
+        private PreparedStatement update;
+        private PreparedStatement casUpdate;
+
+        @Setup(Level.Trial)
+        public void setUp(Db db) throws SQLException {
+            conn = DriverManager.getConnection(URL);
+            select = conn.prepareStatement("SELECT status FROM aftersales WHERE id = 1");
+            selectForUpdate = conn.prepareStatement("SELECT status FROM aftersales WHERE id = 1 FOR UPDATE");
+            update = conn.prepareStatement("UPDATE aftersales SET status = ? WHERE id = 1");
+            casUpdate = conn.prepareStatement("UPDATE aftersales SET status = ? WHERE id = 1 AND status = ?");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            conn.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Conflicts {
+        public long conflicts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            conflicts = 0;
+        }
+    }
+
+    @Benchmark
+    public int pessimisticLock(Session s) throws SQLException {
+        s.conn.setAutoCommit(false);
+        try {
+            int status = readStatus(s.selectForUpdate);
+            Blackhole.consumeCPU(WORK);
+            s.update.setInt(1, status + 1);
+            s.update.executeUpdate();
+            s.conn.commit();
+            return status;
+        } catch (SQLException e) {
+            s.conn.rollback();
+            throw e;
+        } finally {
+            s.conn.setAutoCommit(true);
+        }
+    }
+
+    @Benchmark
+    public int optimisticCas(Session s, Conflicts c) throws SQLException {
+        while (true) {
+            int status = readStatus(s.select);
+            Blackhole.consumeCPU(WORK);
+            s.casUpdate.setInt(1, status + 1);
+            s.casUpdate.setInt(2, status);
+            if (s.casUpdate.executeUpdate() == 1) {
+                return status;
+            }
+            c.conflicts++;
+        }
+    }
+
+    private static int readStatus(PreparedStatement ps) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
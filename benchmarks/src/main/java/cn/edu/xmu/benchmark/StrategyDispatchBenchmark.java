@@ -0,0 +1,97 @@
+package cn.edu.xmu.benchmark;
+
+import cn.edu.xmu.aftersale.model.AftersaleType;
+import cn.edu.xmu.aftersale.model.strategy.AftersaleConfirmStrategy;
+import cn.edu.xmu.aftersale.model.strategy.impl.ExchangeConfirmStrategy;
+import cn.edu.xmu.aftersale.model.strategy.impl.RepairConfirmStrategy;
+import cn.edu.xmu.aftersale.model.strategy.impl.ReturnConfirmStrategy;
+import cn.edu.xmu.javaee.core.util.StrategyRegistry;
+import cn.edu.xmu.service.model.ServiceOrderStatus;
+import cn.edu.xmu.service.model.ServiceOrderType;
+import cn.edu.xmu.service.model.strategy.ServiceOrderCompleteStrategy;
+import cn.edu.xmu.service.model.strategy.impl.MailInCompleteStrategy;
+import cn.edu.xmu.service.model.strategy.impl.OnsiteCompleteStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 策略分派：遍历策略列表（stream + support）与启动时建立的分派表对比
+ * 策略只调用support，不触发远程调用，客户端传null即可
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StrategyDispatchBenchmark {
+
+    private List<AftersaleConfirmStrategy> confirmList;
+    private StrategyRegistry<AftersaleType, AftersaleConfirmStrategy> confirmRegistry;
+
+    private List<ServiceOrderCompleteStrategy> completeList;
+    private EnumMap<ServiceOrderType, StrategyRegistry<ServiceOrderStatus, ServiceOrderCompleteStrategy>> completeRegistry;
+
+    /** 分派最后一个策略，列表遍历的最坏情况 */
+    private Integer aftersaleType = AftersaleType.REPAIR.getCode();
+    private Integer serviceOrderType = ServiceOrderType.MAIL_IN_REPAIR.getCode();
+    private ServiceOrderStatus serviceOrderStatus = ServiceOrderStatus.RECEIVED;
+
+    @Setup
+    public void setUp() {
+        confirmList = List.of(new ExchangeConfirmStrategy(null), new ReturnConfirmStrategy(null), new RepairConfirmStrategy(null));
+        confirmRegistry = StrategyRegistry.of("confirm", AftersaleType.class, confirmList,
+                (s, type) -> s.support(type.getCode()), EnumSet.allOf(AftersaleType.class));
+
+        completeList = List.of(new OnsiteCompleteStrategy(), new MailInCompleteStrategy());
+        completeRegistry = new EnumMap<>(ServiceOrderType.class);
+        for (ServiceOrderType type : ServiceOrderType.values()) {
+            completeRegistry.put(type, StrategyRegistry.of("complete", ServiceOrderStatus.class, completeList,
+                    (s, status) -> s.support(type.getCode(), status.ordinal()), Collections.emptySet()));
+        }
+    }
+
+    @Benchmark
+    public AftersaleConfirmStrategy aftersaleStream() {
+        Integer type = aftersaleType;
+        return confirmList.stream()
+                .filter(s -> s.support(type))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("不支持的售后类型: " + type));
+    }
+
+    @Benchmark
+    public AftersaleConfirmStrategy aftersaleRegistry() {
+        AftersaleConfirmStrategy strategy = confirmRegistry.get(AftersaleType.ofCode(aftersaleType));
+        if (strategy == null) {
+            throw new IllegalArgumentException("不支持的售后类型: " + aftersaleType);
+        }
+        return strategy;
+    }
+
+    @Benchmark
+    public ServiceOrderCompleteStrategy serviceOrderStream() {
+        Integer type = serviceOrderType;
+        Integer status = serviceOrderStatus.ordinal();
+        return completeList.stream()
+                .filter(s -> s.support(type, status))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("当前状态和类型不支持完成操作"));
+    }
+
+    @Benchmark
+    public ServiceOrderCompleteStrategy serviceOrderRegistry() {
+        StrategyRegistry<ServiceOrderStatus, ServiceOrderCompleteStrategy> byStatus =
+                completeRegistry.get(ServiceOrderType.ofCode(serviceOrderType));
+        ServiceOrderCompleteStrategy strategy = byStatus == null ? null : byStatus.get(serviceOrderStatus);
+        if (strategy == null) {
+            throw new IllegalArgumentException("当前状态和类型不支持完成操作");
+        }
+        return strategy;
+    }
+}
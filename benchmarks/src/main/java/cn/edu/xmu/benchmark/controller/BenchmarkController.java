@@ -0,0 +1,24 @@
+package cn.edu.xmu.benchmark.controller;
+
+import cn.edu.xmu.javaee.core.model.ReturnObject;
+
+import java.time.LocalDateTime;
+
+/**
+ * ControllerAspectBenchmark用的控制器，包名需匹配CommonPointCuts.controllers()
+ */
+public class BenchmarkController {
+
+    private static final ReturnObject OK = new ReturnObject();
+
+    /** 无分页参数，如 confirm(shopid, id, dto) */
+    public ReturnObject confirm(Long shopId, Long id, Object body) {
+        return OK;
+    }
+
+    /** 带分页、时间参数 */
+    public ReturnObject list(Long shopId, String status, LocalDateTime beginTime, LocalDateTime endTime,
+                             Integer page, Integer pageSize) {
+        return OK;
+    }
+}
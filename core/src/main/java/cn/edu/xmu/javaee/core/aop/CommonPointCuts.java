@@ -20,10 +20,14 @@ public class CommonPointCuts {
     public void auditAnnotation() {
     }
 
+    @Pointcut("@annotation(cn.edu.xmu.javaee.core.aop.Idempotent)")
+    public void idempotentAnnotation() {
+    }
+
     /**
-     * 切点匹配所有 OpenFeign 的 Mapper 方法
+     * 切点匹配所有 OpenFeign 客户端的方法（各模块client包下的*Client，以及mapper.openfeign包）
      */
-    @Pointcut("execution(public * cn.edu.xmu..mapper.openfeign.*.*(..))")
+    @Pointcut("execution(public * cn.edu.xmu..client.*Client.*(..)) || execution(public * cn.edu.xmu..mapper.openfeign.*.*(..))")
     public void openFeignMapperMethods() {
     }
 }
@@ -4,6 +4,8 @@ package cn.edu.xmu.javaee.core.aop;
 import cn.edu.xmu.javaee.core.exception.BusinessException;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
 import cn.edu.xmu.javaee.core.model.ReturnObject;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -18,7 +20,11 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.lang.reflect.Method;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static cn.edu.xmu.javaee.core.model.Constants.BEGIN_TIME;
 import static cn.edu.xmu.javaee.core.model.Constants.END_TIME;
@@ -38,6 +44,20 @@ public class ControllerAspect {
     @Value("${oomall.core.page-size.default}")
     private int default_page_size;
 
+    /**
+     * controller.calls，按控制器方法和返回的错误码
+     */
+    private final MethodTimers timers;
+
+    /**
+     * 每个控制器方法的分页、时间参数位置，第一次调用时由参数名得到，之后不再取参数名
+     */
+    private final ConcurrentMap<Method, PageParams> pageParams = new ConcurrentHashMap<>();
+
+    public ControllerAspect(MeterRegistry registry) {
+        this.timers = new MethodTimers(registry, "controller.calls", "控制器方法耗时");
+    }
+
     /**
      * 所有返回值为ReturnObject的Controller
      *
@@ -50,22 +70,30 @@ public class ControllerAspect {
         ReturnObject retVal = null;
 
         MethodSignature ms = (MethodSignature) jp.getSignature();
-        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest();
-        HttpServletResponse response = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getResponse();
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        HttpServletRequest request = attributes.getRequest();
+        HttpServletResponse response = attributes.getResponse();
 
-        String[] paramNames = ms.getParameterNames();
-        logger.debug("doAround: method = {}, paramNames = {}", ms.getName(), paramNames);
+        PageParams params = pageParams.computeIfAbsent(ms.getMethod(), method -> PageParams.of(ms.getParameterNames()));
+        logger.debug("doAround: method = {}, pageParams = {}", ms.getName(), params);
         Object[] args = jp.getArgs();
+        Timer.Sample sample = timers.start();
         try {
-            Object[] newArgs = checkPageTimeLimit(request, paramNames, args);
-            retVal = (ReturnObject) jp.proceed(newArgs);
+            if (params != PageParams.NONE) {
+                checkPageTimeLimit(request, params, args);
+            }
+            retVal = (ReturnObject) jp.proceed(args);
         } catch (BusinessException exception) {
             logger.info("doAround: BusinessException， errno = {}", exception.getErrno());
             retVal = new ReturnObject(exception.getErrno(), exception.getMessage());
+        } catch (Throwable e) {
+            sample.stop(timers.timer(ms, "exception"));
+            throw e;
         }
 
         ReturnNo code = retVal.getCode();
-        logger.debug("doAround: jp = {}, code = {}", jp.getSignature().getName(), code);
+        sample.stop(timers.timer(ms, code.name()));
+        logger.debug("doAround: jp = {}, code = {}", ms.getName(), code);
         response.setStatus(code.getHttpStatus());
         return retVal;
     }
@@ -73,77 +101,129 @@ public class ControllerAspect {
     /**
      * 设置默认的page = 1和pageSize = 10
      * 防止客户端发过来pagesize过大的请求
+     * 只读取方法有的参数，不用正则，格式不对的时间不抛异常
      *
      * @author maguoqi
      *
      * @param request
-     * @param paramNames
-     * @param args
+     * @param params 分页、时间参数在方法参数中的位置
+     * @param args 方法参数，就地修改
      */
-    private Object[] checkPageTimeLimit(HttpServletRequest request, String[] paramNames, Object[] args) {
-        Integer page = 1, pageSize = default_page_size;
-        LocalDateTime beginTime = BEGIN_TIME, endTime = END_TIME;
-
-        if (request != null) {
+    void checkPageTimeLimit(HttpServletRequest request, PageParams params, Object[] args) {
+        if (params.page() >= 0) {
+            int page = request == null ? -1 : parseDigits(request.getParameter("page"));
+            args[params.page()] = page > 0 ? page : 1;
+        }
 
-            String pageString = request.getParameter("page");
-            String pageSizeString = request.getParameter("pageSize");
-            String beginTimeString = request.getParameter("beginTime");
-            String endTimeString = request.getParameter("endTime");
+        if (params.pageSize() >= 0) {
+            int pageSize = request == null ? -1 : parseDigits(request.getParameter("pageSize"));
+            args[params.pageSize()] = pageSize > 0 && pageSize <= max_page_size ? pageSize : default_page_size;
+        }
 
-            if (null != pageString && !pageString.isEmpty() && pageString.matches("\\d+")) {
-                page = Integer.valueOf(pageString);
-                if (page <= 0) {
-                    page = 1;
+        if (params.hasTime()) {
+            LocalDateTime beginTime = BEGIN_TIME, endTime = END_TIME;
+            if (request != null) {
+                LocalDateTime begin = parseTime(request.getParameter("beginTime"));
+                LocalDateTime end = parseTime(request.getParameter("endTime"));
+                if (null != begin && null != end && !begin.isAfter(end)) {
+                    beginTime = begin;
+                    endTime = end;
                 }
             }
-
-            if (null != pageSizeString && !pageSizeString.isEmpty() && pageSizeString.matches("\\d+")) {
-                pageSize = Integer.valueOf(pageSizeString);
-                if (pageSize <= 0 || pageSize > max_page_size) {
-                    pageSize = default_page_size;
-                }
+            if (params.beginTime() >= 0 && args[params.beginTime()] == null) {
+                args[params.beginTime()] = beginTime;
+            }
+            if (params.endTime() >= 0 && args[params.endTime()] == null) {
+                args[params.endTime()] = endTime;
             }
+        }
+    }
+
+    /**
+     * 全是数字时返回其值，否则（空、含非数字、超过9位）返回-1
+     */
+    static int parseDigits(String value) {
+        if (null == value || value.isEmpty() || value.length() > 9) {
+            return -1;
+        }
+        return digits(value, 0, value.length());
+    }
 
-            try {
-                if (null != beginTimeString && null != endTimeString && !beginTimeString.isEmpty() && !endTimeString.isEmpty()) {
-                    beginTime = LocalDateTime.parse(beginTimeString);
-                    endTime = LocalDateTime.parse(endTimeString);
-                    if (beginTime.isAfter(endTime)) {
-                        beginTime = BEGIN_TIME;
-                        endTime = END_TIME;
+    /**
+     * 按ISO_LOCAL_DATE_TIME解析，空或格式不对时返回null
+     * 常见的yyyy-MM-ddTHH:mm[:ss[.SSSSSSSSS]]直接取数字，不经DateTimeFormatter；
+     * 分隔符位置不对的直接返回null，只有其他写法（如带符号的年份）或取值不对（如2月30日）时才会走到异常
+     */
+    static LocalDateTime parseTime(String value) {
+        if (null == value || value.length() < 16 || value.charAt(4) != '-' || value.charAt(7) != '-'
+                || value.charAt(10) != 'T' || value.charAt(13) != ':') {
+            return null;
+        }
+        try {
+            int length = value.length();
+            int year = digits(value, 0, 4), month = digits(value, 5, 7), day = digits(value, 8, 10);
+            int hour = digits(value, 11, 13), minute = digits(value, 14, 16), second = 0, nano = 0;
+            boolean simple = length == 16;
+            if (length >= 19 && value.charAt(16) == ':') {
+                second = digits(value, 17, 19);
+                simple = length == 19;
+                if (length > 20 && length <= 29 && value.charAt(19) == '.') {
+                    nano = digits(value, 20, length);
+                    for (int i = length; i < 29; i++) {
+                        nano *= 10;
                     }
+                    simple = nano >= 0;
                 }
-            } catch (Exception e) {
-                logger.debug("Exception occurs in time checking: {}", e.getMessage());
             }
-        }
-
-        for (int i = 0; i < paramNames.length; i++) {
-            logger.debug("checkPageTimeLimit: paramNames[{}] = {}", i, paramNames[i]);
-            if (paramNames[i].equals("page")) {
-                logger.debug("checkPageTimeLimit: set {} to {}",paramNames[i], page);
-                args[i] = page;
-                continue;
+            if (simple && (year | month | day | hour | minute | second | nano) >= 0) {
+                return LocalDateTime.of(year, month, day, hour, minute, second, nano);
             }
+            return LocalDateTime.parse(value);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
 
-            if (paramNames[i].equals("pageSize")) {
-                logger.debug("checkPageTimeLimit: set {} to {}",paramNames[i], pageSize);
-                args[i] = pageSize;
-                continue;
+    /**
+     * value[begin, end)全是数字时返回其值，否则返回-1
+     */
+    private static int digits(String value, int begin, int end) {
+        int result = 0;
+        for (int i = begin; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
             }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
 
-            if (paramNames[i].equals("beginTime") && (args[i] == null)){
-                logger.debug("checkPageTimeLimit: set {} to {}",paramNames[i], BEGIN_TIME);
-                args[i] = beginTime;
-                continue;
+    /**
+     * 控制器方法中page、pageSize、beginTime、endTime参数的位置，没有的为-1
+     */
+    record PageParams(int page, int pageSize, int beginTime, int endTime) {
+
+        static final PageParams NONE = new PageParams(-1, -1, -1, -1);
+
+        static PageParams of(String[] paramNames) {
+            int page = -1, pageSize = -1, beginTime = -1, endTime = -1;
+            for (int i = 0; null != paramNames && i < paramNames.length; i++) {
+                switch (paramNames[i]) {
+                    case "page" -> page = i;
+                    case "pageSize" -> pageSize = i;
+                    case "beginTime" -> beginTime = i;
+                    case "endTime" -> endTime = i;
+                    default -> {
+                    }
+                }
             }
+            PageParams params = new PageParams(page, pageSize, beginTime, endTime);
+            return NONE.equals(params) ? NONE : params;
+        }
 
-            if (paramNames[i].equals("endTime") && (args[i] == null)){
-                logger.debug("checkPageTimeLimit: set {} to {}",paramNames[i], END_TIME);
-                args[i] = endTime;
-            }
+        boolean hasTime() {
+            return beginTime >= 0 || endTime >= 0;
         }
-        return args;
     }
 }
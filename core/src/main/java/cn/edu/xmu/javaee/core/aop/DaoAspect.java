@@ -4,6 +4,10 @@ package cn.edu.xmu.javaee.core.aop;
 
 import cn.edu.xmu.javaee.core.exception.BusinessException;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.model.Stateful;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -12,31 +16,98 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 @Aspect
 @Component
 public class DaoAspect {
 
     private final Logger logger = LoggerFactory.getLogger(DaoAspect.class);
 
+    private final MeterRegistry registry;
+
+    /**
+     * dao.calls，按dao方法和结果
+     */
+    private final MethodTimers timers;
+
+    /**
+     * state.transitions，按领域对象、类型和迁移前后的状态
+     */
+    private final ConcurrentMap<Stateful.Transition, Counter> transitions = new ConcurrentHashMap<>();
+
+    public DaoAspect(MeterRegistry registry) {
+        this.registry = registry;
+        this.timers = new MethodTimers(registry, "dao.calls", "dao方法耗时");
+    }
+
     @Around("cn.edu.xmu.javaee.core.aop.CommonPointCuts.daos()")
     public Object doAround(ProceedingJoinPoint jp) throws Throwable {
         Object obj = null;
 
         MethodSignature ms = (MethodSignature) jp.getSignature();
         Object target = jp.getTarget();
+        // 迁移前后的状态要在执行前取，保存成功后领域对象的载入状态会更新
+        List<Stateful.Transition> changes = transitions(jp.getArgs());
 
+        Timer.Sample sample = timers.start();
         try {
             obj = jp.proceed();
             logger.debug("doAround: obj = {}, method = {}", target, ms.getName());
         } catch(BusinessException e){
+            sample.stop(timers.timer(ms, e.getErrno().name()));
             throw e;
         }
         catch (Exception exception) {
 
+            sample.stop(timers.timer(ms, "exception"));
             logger.error("doAround: obj = {}, method = {}, e = {}", target, ms.getName(), exception);
             throw new BusinessException(ReturnNo.INTERNAL_SERVER_ERR, exception.getMessage());
         }
+        sample.stop(timers.timer(ms, "success"));
+        for (Stateful.Transition transition : changes) {
+            transitions.computeIfAbsent(transition, t -> Counter.builder("state.transitions")
+                    .description("领域对象状态迁移次数")
+                    .tag("entity", t.entity())
+                    .tag("type", t.type())
+                    .tag("from", t.from())
+                    .tag("to", t.to())
+                    .register(registry)).increment();
+        }
         return obj;
     }
 
+    /**
+     * 参数（及集合参数的元素）中状态有变化的领域对象
+     */
+    private static List<Stateful.Transition> transitions(Object[] args) {
+        List<Stateful.Transition> changes = List.of();
+        for (Object arg : args) {
+            if (arg instanceof Stateful stateful) {
+                changes = add(changes, stateful);
+            } else if (arg instanceof Collection<?> collection) {
+                for (Object element : collection) {
+                    if (!(element instanceof Stateful stateful)) {
+                        break;
+                    }
+                    changes = add(changes, stateful);
+                }
+            }
+        }
+        return changes;
+    }
+
+    private static List<Stateful.Transition> add(List<Stateful.Transition> changes, Stateful stateful) {
+        Stateful.Transition transition = stateful.transition();
+        if (transition == null) {
+            return changes;
+        }
+        List<Stateful.Transition> result = changes.isEmpty() ? new ArrayList<>() : changes;
+        result.add(transition);
+        return result;
+    }
 }
@@ -0,0 +1,15 @@
+package cn.edu.xmu.javaee.core.aop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注可按Idempotency-Key包头重放的Controller方法
+ * 同一个key的重复请求直接返回第一次的结果，不再执行方法，见IdempotentAspect
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
@@ -0,0 +1,198 @@
+package cn.edu.xmu.javaee.core.aop;
+
+import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.mapper.RedisUtil;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.model.ReturnObject;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 按Idempotency-Key包头重放@Idempotent方法的结果
+ * 第一次请求先在Redis占位（带超时的处理中标记），执行成功后把结果存回同一个键；
+ * 之后同一方法、同一路径、同一key的请求直接返回存下的结果，不访问数据库和下游服务。
+ * 占位期间的重复请求返回IDEMPOTENT_REQUEST_IN_PROGRESS；执行抛异常或返回5xx时删除占位，允许客户端重试。
+ * 占位和结果都带有请求参数（路径参数、请求体等）的指纹，同一key但参数不同的请求返回IDEMPOTENT_KEY_REUSED，不重放。
+ * 在ControllerAspect之内执行，重放的结果同样由ControllerAspect设置HTTP状态码；Redis不可用时不做幂等处理
+ */
+@Aspect
+@Component
+@Order(15)
+@Slf4j
+@RequiredArgsConstructor
+public class IdempotentAspect {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final String KEY_PREFIX = "idempotency:";
+
+    /**
+     * 占位仍是自己的时才删除，避免占位超时后删掉其他请求的
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final RedisUtil redisUtil;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${oomall.core.idempotency.timeout:86400}")
+    private long timeout;
+
+    @Value("${oomall.core.idempotency.lock-timeout:30}")
+    private long lockTimeout;
+
+    @Around("cn.edu.xmu.javaee.core.aop.CommonPointCuts.idempotentAnnotation()")
+    public Object doAround(ProceedingJoinPoint jp) throws Throwable {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest();
+        String idempotencyKey = request.getHeader(HEADER);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return jp.proceed();
+        }
+        String key = KEY_PREFIX + request.getMethod() + ":" + request.getRequestURI() + ":" + idempotencyKey;
+        String fingerprint = fingerprint(jp.getArgs());
+        // 占位的值为"指纹:随机串"，释放时整体比较
+        String token = fingerprint + ":" + UUID.randomUUID();
+
+        try {
+            Serializable stored = redisUtil.get(key);
+            if (stored == null && redisUtil.setIfAbsent(key, token, lockTimeout)) {
+                log.debug("doAround: acquired, key = {}", key);
+            } else {
+                if (stored == null) {
+                    stored = redisUtil.get(key);
+                }
+                if (!sameRequest(stored, fingerprint)) {
+                    log.info("doAround: key reused with different request, key = {}", key);
+                    throw new BusinessException(ReturnNo.IDEMPOTENT_KEY_REUSED,
+                            String.format("请求(%s=%s)的参数与首次请求不同", HEADER, idempotencyKey));
+                }
+                if (stored instanceof StoredResponse response) {
+                    log.info("doAround: replay, key = {}, code = {}", key, response.getCode());
+                    return response.toReturnObject(objectMapper);
+                }
+                throw new BusinessException(ReturnNo.IDEMPOTENT_REQUEST_IN_PROGRESS,
+                        String.format("请求(%s=%s)正在处理中", HEADER, idempotencyKey));
+            }
+        } catch (DataAccessException e) {
+            log.warn("doAround: redis unavailable, proceed without idempotency, key = {}", key, e);
+            return jp.proceed();
+        }
+
+        ReturnObject retVal;
+        try {
+            retVal = (ReturnObject) jp.proceed();
+        } catch (Throwable e) {
+            release(key, token);
+            throw e;
+        }
+
+        if (retVal.getCode().getHttpStatus() >= 500) {
+            release(key, token);
+        } else {
+            try {
+                redisUtil.set(key, StoredResponse.of(retVal, fingerprint, objectMapper), timeout);
+            } catch (DataAccessException | JsonProcessingException e) {
+                log.warn("doAround: fail to store response, key = {}", key, e);
+                release(key, token);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * 请求参数的指纹：方法参数按JSON序列化后的SHA-256，不含Servlet请求、响应和校验结果
+     */
+    String fingerprint(Object[] args) {
+        List<Object> values = new ArrayList<>(args.length);
+        for (Object arg : args) {
+            if (!(arg instanceof ServletRequest || arg instanceof ServletResponse || arg instanceof BindingResult)) {
+                values.add(arg);
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(values));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("无法序列化@Idempotent方法的参数", e);
+        } catch (NoSuchAlgorithmException e) {
+            // 每个JRE都必须提供SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 已存的占位或结果是否属于参数相同的请求；没有指纹的旧记录不比较
+     */
+    private static boolean sameRequest(Serializable stored, String fingerprint) {
+        String storedFingerprint = null;
+        if (stored instanceof StoredResponse response) {
+            storedFingerprint = response.getFingerprint();
+        } else if (stored instanceof String placeholder && placeholder.indexOf(':') > 0) {
+            storedFingerprint = placeholder.substring(0, placeholder.indexOf(':'));
+        }
+        return storedFingerprint == null || storedFingerprint.equals(fingerprint);
+    }
+
+    private void release(String key, String token) {
+        try {
+            redisUtil.executeScript(RELEASE_SCRIPT, List.of(key), token);
+        } catch (DataAccessException e) {
+            log.warn("release: fail to release key = {}, expires in {}s", key, lockTimeout, e);
+        }
+    }
+
+    /**
+     * 存在Redis中的结果，data按Controller的JSON格式存成字符串，重放时原样输出；fingerprint为首次请求参数的指纹
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StoredResponse implements Serializable {
+
+        private String code;
+
+        private String errMsg;
+
+        private String data;
+
+        private String fingerprint;
+
+        static StoredResponse of(ReturnObject retVal, String fingerprint, ObjectMapper mapper) throws JsonProcessingException {
+            String data = retVal.getData() == null ? null : mapper.writeValueAsString(retVal.getData());
+            return new StoredResponse(retVal.getCode().name(), retVal.getErrMsg(), data, fingerprint);
+        }
+
+        ReturnObject toReturnObject(ObjectMapper mapper) throws JsonProcessingException {
+            ReturnNo returnNo = ReturnNo.valueOf(code);
+            return data == null ? new ReturnObject(returnNo, errMsg) : new ReturnObject(returnNo, errMsg, mapper.readTree(data));
+        }
+    }
+}
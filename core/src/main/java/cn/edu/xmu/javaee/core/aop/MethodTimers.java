@@ -0,0 +1,68 @@
+package cn.edu.xmu.javaee.core.aop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * 切面用的按方法缓存的计时器
+ * 方法第一次被调用时生成标签（默认为类名、方法名），之后每次调用只按方法和结果查已注册的Timer，不做反射
+ */
+class MethodTimers {
+
+    private final MeterRegistry registry;
+
+    private final String name;
+
+    private final String description;
+
+    private final Function<Method, Tags> tagger;
+
+    private final ConcurrentMap<Method, MethodEntry> entries = new ConcurrentHashMap<>();
+
+    MethodTimers(MeterRegistry registry, String name, String description) {
+        this(registry, name, description,
+                method -> Tags.of("class", method.getDeclaringClass().getSimpleName(), "method", method.getName()));
+    }
+
+    MethodTimers(MeterRegistry registry, String name, String description, Function<Method, Tags> tagger) {
+        this.registry = registry;
+        this.name = name;
+        this.description = description;
+        this.tagger = tagger;
+    }
+
+    Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * @param outcome 调用结果，取值必须是有限的（如success、ReturnNo名）
+     */
+    Timer timer(MethodSignature ms, String outcome) {
+        MethodEntry entry = entries.computeIfAbsent(ms.getMethod(), method -> new MethodEntry(tagger.apply(method)));
+        return entry.timers.computeIfAbsent(outcome, o -> Timer.builder(name)
+                .description(description)
+                .tags(entry.tags)
+                .tag("outcome", o)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private static class MethodEntry {
+
+        private final Tags tags;
+
+        private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+        private MethodEntry(Tags tags) {
+            this.tags = tags;
+        }
+    }
+}
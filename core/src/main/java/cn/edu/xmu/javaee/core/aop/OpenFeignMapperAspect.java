@@ -5,10 +5,16 @@ import cn.edu.xmu.javaee.core.model.InternalReturnObject;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
 import cn.edu.xmu.javaee.core.util.JacksonUtil;
 import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.stereotype.Component;
 
 import java.util.Objects;
@@ -18,8 +24,35 @@ import java.util.Objects;
 @Slf4j
 public class OpenFeignMapperAspect {
 
+    /**
+     * feign.calls，按目标模块（@FeignClient的name）、客户端方法和结果
+     */
+    private final MethodTimers timers;
+
+    public OpenFeignMapperAspect(MeterRegistry registry) {
+        this.timers = new MethodTimers(registry, "feign.calls", "Feign调用耗时", method -> Tags.of(
+                "target", target(method.getDeclaringClass()),
+                "method", method.getDeclaringClass().getSimpleName() + "." + method.getName()));
+    }
+
     @Around("cn.edu.xmu.javaee.core.aop.CommonPointCuts.openFeignMapperMethods()")
     public Object handleFeignMapperReturn(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature ms = (MethodSignature) joinPoint.getSignature();
+        Timer.Sample sample = timers.start();
+        String outcome = "exception";
+        try {
+            Object result = invoke(joinPoint);
+            outcome = "success";
+            return result;
+        } catch (BusinessException e) {
+            outcome = e.getErrno().name();
+            throw e;
+        } finally {
+            sample.stop(timers.timer(ms, outcome));
+        }
+    }
+
+    private Object invoke(ProceedingJoinPoint joinPoint) throws Throwable {
         Object result;
 
         try {
@@ -42,26 +75,22 @@ public class OpenFeignMapperAspect {
                     log.warn("Unexpected response type: {}", result.getClass().getName());
                 }
             }
+        } catch (BusinessException e) {
+            // OpenFeignErrorDecoder、OpenFeignReturnInterceptor已转换的错误
+            throw e;
         } catch (FeignException e) {
-            // 捕获 FeignException
+            // 响应体不是返回对象时ErrorDecoder抛出的FeignException，以及连接、读取失败
             log.error("FeignException occurred: {}", e.getMessage());
 
-            // 解析 FeignException 的响应体，提取 errno 和 errmsg
-            String responseBody = e.contentUTF8();  // 获取响应体的内容
-            log.debug("FeignException response body: {}", responseBody);
-
-            // 解析 JSON 内容
-            // 这里假设返回的 JSON 是类似 {"errno":4, "errmsg":"运费模板对象(id=9999)不存在"} 格式
-            // 使用 JacksonUtil 解析 JSON 响应体中的 errno 和 errmsg
-            Integer errno = JacksonUtil.parseInteger(responseBody, "errno");
-            if (Objects.isNull(errno)) {
+            // 流式解析响应体中的 errno 和 errmsg，如 {"errno":4, "errmsg":"运费模板对象(id=9999)不存在"}
+            InternalReturnObject<Void> ret = JacksonUtil.parseErrnoAndErrmsg(e.content() != null ? e.content() : new byte[0]);
+            if (Objects.isNull(ret)) {
                 log.error("Error: errno is null in FeignException response");
                 throw new BusinessException(ReturnNo.INTERNAL_SERVER_ERR, "服务器错误");
             }
 
-            String errmsg = JacksonUtil.parseString(responseBody, "errmsg");
             // 根据 errno 判断并抛出对应的 BusinessException
-            throw new BusinessException(ReturnNo.getReturnNoByCode(errno), errmsg);
+            throw new BusinessException(ReturnNo.getReturnNoByCode(ret.getErrno()), ret.getErrmsg());
 
         } catch (Exception e) {
             // 捕获其他未预期的异常
@@ -71,4 +100,12 @@ public class OpenFeignMapperAspect {
 
         return result;  // 返回结果
     }
+
+    /**
+     * 客户端接口上@FeignClient的name，没有时为接口名
+     */
+    private static String target(Class<?> client) {
+        FeignClient feignClient = AnnotatedElementUtils.findMergedAnnotation(client, FeignClient.class);
+        return feignClient == null ? client.getSimpleName() : feignClient.name();
+    }
 }
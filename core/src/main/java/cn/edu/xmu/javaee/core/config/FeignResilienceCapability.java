@@ -0,0 +1,85 @@
+//School of Informatics Xiamen University, GPL-3.0 license
+package cn.edu.xmu.javaee.core.config;
+
+import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+/**
+ * Feign调用的熔断和舱壁隔离，按@FeignClient的name（目标模块）各取一个熔断器和信号量舱壁
+ * 舱壁已满或熔断器打开时不发请求，直接抛出BusinessException，调用线程不会卡在慢模块上；
+ * 连接、读取失败和5xx计为失败，超过slow-call-duration-threshold的调用计为慢调用，两者比例超过阈值时熔断
+ * 被拒绝的调用计入feign.client.rejected指标（target、reason标签）
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class FeignResilienceCapability implements Capability {
+
+    static final String REJECTED_METRIC = "feign.client.rejected";
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        String target = request.requestTemplate().feignTarget().name();
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(target);
+        if (!bulkhead.tryAcquirePermission()) {
+            throw reject(target, "bulkhead", "并发调用已满");
+        }
+        try {
+            CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(target);
+            if (!circuitBreaker.tryAcquirePermission()) {
+                throw reject(target, "circuit_breaker", "已熔断");
+            }
+            long start = circuitBreaker.getCurrentTimestamp();
+            try {
+                Response response = client.execute(request, options);
+                long duration = circuitBreaker.getCurrentTimestamp() - start;
+                if (response.status() >= 500) {
+                    circuitBreaker.onError(duration, circuitBreaker.getTimestampUnit(), new ServerErrorException(response.status()));
+                } else {
+                    circuitBreaker.onSuccess(duration, circuitBreaker.getTimestampUnit());
+                }
+                return response;
+            } catch (IOException | RuntimeException e) {
+                circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start, circuitBreaker.getTimestampUnit(), e);
+                throw e;
+            }
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+
+    private BusinessException reject(String target, String reason, String message) {
+        meterRegistry.counter(REJECTED_METRIC, "target", target, "reason", reason).increment();
+        log.warn("execute: 调用{}被拒绝，{}", target, message);
+        return new BusinessException(ReturnNo.INTERNAL_SERVER_ERR, String.format("%s%s，暂不可用", target, message));
+    }
+
+    /**
+     * 记入熔断器的5xx响应，不需要栈
+     */
+    private static class ServerErrorException extends RuntimeException {
+        ServerErrorException(int status) {
+            super("HTTP " + status, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package cn.edu.xmu.javaee.core.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 请求处理期间日志的MDC：traceId、shopId、orderId
+ * JSON日志每行都带上这几个字段，可以按请求、商铺、单据查找
+ */
+@Configuration
+public class LogContextConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new LogContextInterceptor());
+    }
+}
+
+/**
+ * traceId取自traceparent、x-request-id或x-b3-traceid包头，都没有时生成；shopId、orderId取自路径变量
+ */
+class LogContextInterceptor implements HandlerInterceptor {
+
+    static final String TRACE_ID = "traceId";
+    static final String SHOP_ID = "shopId";
+    static final String ORDER_ID = "orderId";
+
+    /**
+     * traceparent格式为 版本-traceId(32位)-spanId(16位)-标志
+     */
+    private static final int TRACEPARENT_LENGTH = 55;
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        MDC.put(TRACE_ID, traceId(request));
+        if (request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof Map<?, ?> variables) {
+            put(SHOP_ID, variables.get("shopid"), variables.get("shopId"));
+            put(ORDER_ID, variables.get("id"), variables.get("aftersalesId"));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        MDC.remove(TRACE_ID);
+        MDC.remove(SHOP_ID);
+        MDC.remove(ORDER_ID);
+    }
+
+    static String traceId(HttpServletRequest request) {
+        String traceparent = request.getHeader("traceparent");
+        if (null != traceparent && traceparent.length() == TRACEPARENT_LENGTH && traceparent.charAt(2) == '-') {
+            return traceparent.substring(3, 35);
+        }
+        String requestId = request.getHeader("x-request-id");
+        if (null != requestId && !requestId.isEmpty() && requestId.length() <= MAX_REQUEST_ID_LENGTH) {
+            return requestId;
+        }
+        String b3 = request.getHeader("x-b3-traceid");
+        if (null != b3 && !b3.isEmpty() && b3.length() <= MAX_REQUEST_ID_LENGTH) {
+            return b3;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return String.format("%016x%016x", random.nextLong(), random.nextLong());
+    }
+
+    private static void put(String key, Object value, Object fallback) {
+        Object id = null != value ? value : fallback;
+        if (null != id) {
+            MDC.put(key, id.toString());
+        }
+    }
+}
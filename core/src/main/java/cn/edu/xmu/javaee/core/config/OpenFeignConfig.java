@@ -17,85 +17,154 @@
 package cn.edu.xmu.javaee.core.config;
 
 import cn.edu.xmu.javaee.core.util.JwtHelper;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
+import feign.Capability;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
+import feign.ResponseInterceptor;
+import feign.codec.ErrorDecoder;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.Enumeration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
- * 将包头原样复制的OpenFeign的请求包头中
+ * 将调用方请求中的认证、链路追踪包头复制到OpenFeign的请求包头中
  *
  * @author mingqiu
  */
 @Configuration
 public class OpenFeignConfig{
 
+    /**
+     * 模块间调用的服务token，有效期和提前续签时间（秒）可配置
+     */
     @Bean
-    public RequestInterceptor requestInterceptor(){
-        return new OpenFeignHeaderInterceptor();
+    public ServiceTokenProvider serviceTokenProvider(@Value("${oomall.core.service-token.expire-time:3600}") long expireTime,
+                                                     @Value("${oomall.core.service-token.refresh-ahead:300}") long refreshAhead) {
+        return new ServiceTokenProvider(expireTime, refreshAhead);
+    }
+
+    /**
+     * @param propagateHeaders 从调用方请求复制到Feign请求的包头，authorization总会复制
+     */
+    @Bean
+    public RequestInterceptor requestInterceptor(ServiceTokenProvider serviceTokenProvider,
+                                                 @Value("${oomall.core.feign.propagate-headers:" + OpenFeignHeaderInterceptor.DEFAULT_PROPAGATE_HEADERS + "}")
+                                                 List<String> propagateHeaders){
+        return new OpenFeignHeaderInterceptor(serviceTokenProvider, propagateHeaders);
+    }
+
+    /**
+     * 非2xx响应中的errno、errmsg转换为BusinessException
+     */
+    @Bean
+    public ErrorDecoder errorDecoder() {
+        return new OpenFeignErrorDecoder();
+    }
+
+    /**
+     * 2xx响应中errno不为0时转换为BusinessException
+     */
+    @Bean
+    public ResponseInterceptor responseInterceptor() {
+        return new OpenFeignReturnInterceptor();
+    }
+
+    /**
+     * 按目标模块熔断和舱壁隔离，参数见resilience4j.circuitbreaker和resilience4j.bulkhead配置
+     */
+    @Bean
+    public Capability feignResilienceCapability(CircuitBreakerRegistry circuitBreakerRegistry,
+                                                BulkheadRegistry bulkheadRegistry, MeterRegistry meterRegistry) {
+        return new FeignResilienceCapability(circuitBreakerRegistry, bulkheadRegistry, meterRegistry);
     }
 }
 
+/**
+ * 只复制白名单中的包头（认证和链路追踪），白名单在启动时确定
+ */
 @Slf4j
 class OpenFeignHeaderInterceptor implements RequestInterceptor {
 
-    private static final JwtHelper jwtHelper = new JwtHelper();
+    static final String DEFAULT_PROPAGATE_HEADERS = "authorization,x-request-id,traceparent,tracestate,b3,"
+            + "x-b3-traceid,x-b3-spanid,x-b3-parentspanid,x-b3-sampled";
+
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String REQUEST_ID = "x-request-id";
+    private static final String TRACEPARENT = "traceparent";
+    private static final List<String> JSON_CONTENT_TYPE = List.of("application/json;charset=UTF-8");
+
+    private final ServiceTokenProvider serviceTokenProvider;
+    private final String[] propagateHeaders;
+
+    OpenFeignHeaderInterceptor(ServiceTokenProvider serviceTokenProvider, Collection<String> propagateHeaders) {
+        this.serviceTokenProvider = serviceTokenProvider;
+        Set<String> names = new LinkedHashSet<>();
+        names.add(JwtHelper.LOGIN_TOKEN_KEY);
+        propagateHeaders.stream()
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .filter(name -> !name.isEmpty())
+                .forEach(names::add);
+        this.propagateHeaders = names.toArray(String[]::new);
+        log.info("OpenFeignHeaderInterceptor: propagate headers = {}", names);
+    }
 
     @Override
     public void apply(RequestTemplate requestTemplate) {
-        HttpServletRequest request = ((ServletRequestAttributes) (RequestContextHolder.currentRequestAttributes())).getRequest();
-        if (Objects.isNull(request)) {
-            return;
-        }
+        // 不在请求线程中（如发件箱派发线程）时没有可复制的包头，只补服务token
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        HttpServletRequest request = attributes instanceof ServletRequestAttributes servletAttributes
+                ? servletAttributes.getRequest() : null;
 
-        Enumeration<String> headerNames = request.getHeaderNames();
-        if (Objects.isNull(headerNames)) {
-            return;
-        }
-        log.info("apply: feign interceptor.....");
-        boolean hasAuth = false;
-        // 把请求过来的header请求头 原样设置到feign请求头中
-        // 包括token
-        while (headerNames.hasMoreElements()) {
-            String name = headerNames.nextElement();
-            // 跳过 content-length,防止报错Feign报错feign.RetryableException: too many bytes written executing
-            if (name.equalsIgnoreCase("Content-Length")) {
-                log.debug("apply: skip Content-Length");
-                continue;
-            }
-            if (name.equalsIgnoreCase("Transfer-Encoding")) {
-                log.debug("apply: skip Transfer-Encoding");
-                continue;
-            }
-            if (name.equalsIgnoreCase("authorization")){
-                hasAuth = true;
+        // headers()每次都会复制一份，只取一次
+        Map<String, Collection<String>> existing = requestTemplate.headers();
+        boolean hasAuth = existing.containsKey(JwtHelper.LOGIN_TOKEN_KEY);
+        boolean hasTrace = existing.containsKey(REQUEST_ID) || existing.containsKey(TRACEPARENT);
+        if (Objects.nonNull(request)) {
+            for (String name : propagateHeaders) {
+                if (existing.containsKey(name)) {
+                    continue;
+                }
+                String value = request.getHeader(name);
+                if (Objects.nonNull(value)) {
+                    requestTemplate.header(name, value);
+                    hasAuth |= JwtHelper.LOGIN_TOKEN_KEY.equals(name);
+                    hasTrace |= REQUEST_ID.equals(name) || TRACEPARENT.equals(name);
+                }
             }
-            this.addHeader(requestTemplate, name, request.getHeader(name));
-
         }
-        this.addHeader(requestTemplate, "Content-Type", new String[]{"application/json;charset=UTF-8"});
-
-        log.debug("apply: add admin token...");
-        String adminToken = jwtHelper.createToken(1L, "admin", 0L, 1, 3600);
-        if (!hasAuth) {
-            this.addHeader(requestTemplate, "authorization", adminToken);
+        // 调用方没有带链路包头时，把本模块日志的traceId传给下游，两边日志的traceId一致
+        String traceId = MDC.get(LogContextInterceptor.TRACE_ID);
+        if (!hasTrace && Objects.nonNull(traceId)) {
+            requestTemplate.header(REQUEST_ID, traceId);
+        }
+        if (!existing.containsKey(CONTENT_TYPE)) {
+            requestTemplate.header(CONTENT_TYPE, JSON_CONTENT_TYPE);
         }
-    }
 
-    private void addHeader(RequestTemplate requestTemplate, String name, String... values) {
-        if (!requestTemplate.headers().containsKey(name)) {
-            requestTemplate.header(name, values);
-            log.debug("addHeader: name = {}, values= {}",name,values);
+        // 只有没有token时才使用服务token
+        if (!hasAuth) {
+            log.debug("apply: add service token...");
+            requestTemplate.header(JwtHelper.LOGIN_TOKEN_KEY, serviceTokenProvider.getToken());
         }
     }
-
 }
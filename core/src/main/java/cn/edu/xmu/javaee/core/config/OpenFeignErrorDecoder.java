@@ -0,0 +1,54 @@
+//School of Informatics Xiamen University, GPL-3.0 license
+package cn.edu.xmu.javaee.core.config;
+
+import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.JacksonUtil;
+import feign.Response;
+import feign.Util;
+import feign.codec.ErrorDecoder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * Feign调用返回非2xx时，把响应体中的errno、errmsg转换为BusinessException
+ * 响应体只读一次、流式扫描一遍；不是返回对象（如网关的HTML错误页）时按Feign默认方式抛出FeignException
+ */
+@Slf4j
+class OpenFeignErrorDecoder implements ErrorDecoder {
+
+    private final ErrorDecoder fallback = new ErrorDecoder.Default();
+
+    @Override
+    public Exception decode(String methodKey, Response response) {
+        byte[] body = null;
+        if (Objects.nonNull(response.body())) {
+            try (InputStream in = response.body().asInputStream()) {
+                body = Util.toByteArray(in);
+            } catch (IOException e) {
+                log.error("decode: 读取{}的响应体失败", methodKey, e);
+            }
+        }
+        InternalReturnObject<Void> ret = Objects.isNull(body) ? null : JacksonUtil.parseErrnoAndErrmsg(body);
+        if (Objects.isNull(ret)) {
+            return fallback.decode(methodKey, response.toBuilder().body(body).build());
+        }
+        log.error("decode: {} HTTP status = {}, errno = {}, errmsg = {}", methodKey, response.status(), ret.getErrno(), ret.getErrmsg());
+        return toBusinessException(ret.getErrno(), ret.getErrmsg());
+    }
+
+    /**
+     * 未知的错误码按服务器错误处理
+     */
+    static BusinessException toBusinessException(int errno, String errmsg) {
+        ReturnNo returnNo = ReturnNo.getReturnNoByCode(errno);
+        if (Objects.isNull(returnNo)) {
+            return new BusinessException(ReturnNo.INTERNAL_SERVER_ERR, Objects.nonNull(errmsg) ? errmsg : "未知错误码" + errno);
+        }
+        return new BusinessException(returnNo, Objects.nonNull(errmsg) ? errmsg : returnNo.getMessage());
+    }
+}
@@ -0,0 +1,31 @@
+//School of Informatics Xiamen University, GPL-3.0 license
+package cn.edu.xmu.javaee.core.config;
+
+import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import feign.InvocationContext;
+import feign.ResponseInterceptor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Objects;
+
+/**
+ * Feign调用返回2xx但errno不为0时抛出BusinessException
+ * 在Decoder之后检查已解码的InternalReturnObject，不再解析响应体；
+ * 在Decoder中抛出的异常会被Feign包装为DecodeException，所以放在ResponseInterceptor中
+ */
+@Slf4j
+class OpenFeignReturnInterceptor implements ResponseInterceptor {
+
+    @Override
+    public Object intercept(InvocationContext invocationContext, Chain chain) throws Exception {
+        Object result = chain.next(invocationContext);
+        if (result instanceof InternalReturnObject<?> ret && Objects.nonNull(ret.getErrno())
+                && ret.getErrno() != ReturnNo.OK.getErrNo()) {
+            log.error("intercept: HTTP status = {}, errno = {}, errmsg = {}",
+                    invocationContext.response().status(), ret.getErrno(), ret.getErrmsg());
+            throw OpenFeignErrorDecoder.toBusinessException(ret.getErrno(), ret.getErrmsg());
+        }
+        return result;
+    }
+}
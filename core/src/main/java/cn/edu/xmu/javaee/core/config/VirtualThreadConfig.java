@@ -0,0 +1,24 @@
+package cn.edu.xmu.javaee.core.config;
+
+import cn.edu.xmu.javaee.core.util.PinnedThreadMonitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 虚拟线程模式（spring.threads.virtual.enabled=true）下的附加配置
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public PinnedThreadMonitor pinnedThreadMonitor(MeterRegistry registry,
+                                                   @Value("${oomall.core.pinned-threshold:20}") long thresholdMillis) {
+        return new PinnedThreadMonitor(registry, Duration.ofMillis(thresholdMillis));
+    }
+}
@@ -85,6 +85,18 @@ public class RedisUtil {
         return true;
     }
 
+    /**
+     * 键不存在时才放入，可用作占位锁
+     *
+     * @param key   键
+     * @param value 值
+     * @param timeout 过期时间（秒），不加随机抖动
+     * @return true放入成功 false键已存在
+     */
+    public boolean setIfAbsent(String key, Serializable value, long timeout) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, timeout, TimeUnit.SECONDS));
+    }
+
     /**
      * 递减
      * @param key   键
@@ -254,6 +266,24 @@ public class RedisUtil {
         return redisTemplate.opsForList().leftPop(key);
     }
 
+    /**
+     * 向频道发布消息
+     * @param channel 频道
+     * @param message 消息，按value的序列化方式序列化
+     */
+    public void publish(String channel, Serializable message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    /**
+     * 反序列化订阅收到的消息体
+     * @param body 消息体
+     * @return 消息
+     */
+    public Object deserializeMessage(byte[] body) {
+        return redisTemplate.getValueSerializer().deserialize(body);
+    }
+
     /**
      * 执行脚本
      * @param script
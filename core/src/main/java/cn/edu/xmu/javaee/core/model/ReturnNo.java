@@ -27,6 +27,8 @@ public enum ReturnNo {
     DEL_FILE_FAILED(30, "ReturnNo.DEL_FILE_FAILED"),
     EXISTED_RELATION(31, "ReturnNo.EXISTED_RELATION"),
     INCONSISTENT_DATA(5, "ReturnNo.INCONSISTENT_DATA"),
+    IDEMPOTENT_REQUEST_IN_PROGRESS(32, "ReturnNo.IDEMPOTENT_REQUEST_IN_PROGRESS", 409),
+    IDEMPOTENT_KEY_REUSED(33, "ReturnNo.IDEMPOTENT_KEY_REUSED", 422),
 
     /**************************************
      *  支付模块
@@ -93,6 +95,7 @@ public enum ReturnNo {
      ************************************/
     AFTERSALE_NOT_FOUND(706, "ReturnNo.AFTERSALE_NOT_FOUND"),
     AFTERSALE_STATE_INVALID(707, "ReturnNo.AFTERSALE_STATE_INVALID"),
+    AFTERSALE_STATE_CONFLICT(708, "ReturnNo.AFTERSALE_STATE_CONFLICT", 409),
     ARBITRATION_NOTSELF(701, "仲裁(id=%d)非本用户受理的仲裁"),
     ARBITRATION_NOT_APPLICANT(702, "仲裁(id=%d)仅申请人可以撤销"),
     AFTERSALE_NOT_RETURNCHANGE(703, "(id=%d)不是退换货售后"),
@@ -104,6 +107,7 @@ public enum ReturnNo {
      ************************************/
     SERVICE_DRAFT_NOT_FOUND(751, "ReturnNo.SERVICE_DRAFT_NOT_FOUND"),
     SERVICE_DRAFT_STATE_INVALID(752, "ReturnNo.SERVICE_DRAFT_STATE_INVALID"),
+    SERVICE_ORDER_STATE_CONFLICT(753, "ReturnNo.SERVICE_ORDER_STATE_CONFLICT", 409),
 
 
     /***************************************************
@@ -0,0 +1,23 @@
+package cn.edu.xmu.javaee.core.model;
+
+/**
+ * 有状态的领域对象
+ * 作为参数传给dao包的方法（或在集合参数中）且调用成功时，DaoAspect按迁移计数state.transitions
+ */
+public interface Stateful {
+
+    /**
+     * 从载入时的状态（新建的为NEW）到当前状态的迁移，状态没有变化时返回null
+     */
+    Transition transition();
+
+    /**
+     * 状态迁移，四个值都作为指标标签，取值必须是有限的（类型名、状态名）
+     * @param entity 领域对象，如aftersale
+     * @param type 业务类型
+     * @param from 迁移前状态
+     * @param to 迁移后状态
+     */
+    record Transition(String entity, String type, String from, String to) {
+    }
+}
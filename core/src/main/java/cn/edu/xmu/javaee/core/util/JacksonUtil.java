@@ -1,7 +1,11 @@
 //School of Informatics Xiamen University, GPL-3.0 license
 package cn.edu.xmu.javaee.core.util;
 
+import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -25,6 +29,44 @@ public class JacksonUtil {
         }
     };
 
+    /**
+     * 线程安全，流式解析共用
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * 流式读取返回对象顶层的errno和errmsg，只扫描一遍，不构造JsonNode树，data等其他字段直接跳过
+     * @param body 返回对象的json，如{"errno":4,"errmsg":"运费模板对象(id=9999)不存在"}
+     * @return 只有errno和errmsg的返回对象，不是json对象或没有errno时返回null
+     */
+    public static InternalReturnObject<Void> parseErrnoAndErrmsg(byte[] body) {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            Integer errno = null;
+            String errmsg = null;
+            boolean errmsgFound = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME && (errno == null || !errmsgFound)) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("errno".equals(name) && value.isScalarValue()) {
+                    errno = parser.getValueAsInt();
+                } else if ("errmsg".equals(name) && value.isScalarValue()) {
+                    errmsg = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                    errmsgFound = true;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return errno == null ? null : new InternalReturnObject<>(errno, errmsg);
+        } catch (IOException e) {
+            // 网关错误页等不是json的响应体，由调用方按非返回对象处理
+            log.debug("parseErrnoAndErrmsg: {}", e.getMessage());
+        }
+        return null;
+    }
+
     public static String parseString(String body, String field) {
         ObjectMapper mapper = new ObjectMapper().registerModule(new Jdk8Module())
                 .registerModule(new JavaTimeModule());
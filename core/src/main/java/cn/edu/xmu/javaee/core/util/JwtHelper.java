@@ -9,10 +9,17 @@ import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT工具
@@ -35,6 +42,39 @@ public class JwtHelper {
     static final String AUDIENCE = "MINIAPP";
     // Request中的变量名
     public static final String LOGIN_TOKEN_KEY = "authorization";
+    // 已校验token的缓存条数
+    static final int MAX_VERIFIED_TOKENS = 10000;
+
+    // Algorithm和JWTVerifier都是线程安全的，只构造一次
+    private static final Algorithm ALGORITHM = Algorithm.HMAC256(SECRET);
+    private static final JWTVerifier VERIFIER = JWT.require(ALGORITHM)
+            .withIssuer(ISSUSER)
+            .build();
+
+    /**
+     * 校验通过的token，key为token的SHA-256，在token过期时移除
+     * 同一token在会话内会被反复出示，命中时不再验签和解码
+     */
+    private static final Cache<String, UserToken> VERIFIED = Caffeine.newBuilder()
+            .maximumSize(MAX_VERIFIED_TOKENS)
+            .expireAfter(new Expiry<String, UserToken>() {
+                @Override
+                public long expireAfterCreate(String key, UserToken value, long currentTime) {
+                    long remaining = value.getExpireTime().getTime() - System.currentTimeMillis();
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, UserToken value, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+                @Override
+                public long expireAfterRead(String key, UserToken value, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
 
     /**
      * 创建用户Token
@@ -45,7 +85,6 @@ public class JwtHelper {
     public String createToken(Long userId, String userName,Long departId,Integer userLevel, int expireTime) {
         logger.debug("createToken:");
         try {
-            Algorithm algorithm = Algorithm.HMAC256(SECRET);
             Map<String, Object> map = new HashMap<String, Object>();
             Date nowDate = new Date();
             Date expireDate = getAfterDate(nowDate, 0, 0, 0, 0, 0, expireTime);
@@ -72,7 +111,7 @@ public class JwtHelper {
                     // 签名过期的时间
                     .withExpiresAt(expireDate)
                     // 签名 Signature
-                    .sign(algorithm);
+                    .sign(ALGORITHM);
             return token;
         } catch (JWTCreationException exception) {
             exception.printStackTrace();
@@ -90,24 +129,48 @@ public class JwtHelper {
         if (token == null || token.isEmpty()) {
             return null;
         }
+        String key = hash(token);
+        UserToken cached = VERIFIED.getIfPresent(key);
+        if (cached != null) {
+            return copy(cached);
+        }
         try {
-            Algorithm algorithm = Algorithm.HMAC256(SECRET);
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .withIssuer(ISSUSER)
-                    .build();
-            DecodedJWT jwt = verifier.verify(token);
+            DecodedJWT jwt = VERIFIER.verify(token);
             Map<String, Claim> claims = jwt.getClaims();
             Claim claimUserId = claims.get("userId");
             Claim claimDepartId = claims.get("departId");
             Claim claimUserName = claims.get("userName");
             Claim claimUserLevel = claims.get("userLevel");
             Claim expireTime=claims.get("exp");
-            return UserToken.builder().id(claimUserId.asLong()).name(claimUserName.asString()).departId(claimDepartId.asLong()).expireTime(expireTime.asDate()).userLevel(claimUserLevel.asInt()).build();
+            UserToken userToken = UserToken.builder().id(claimUserId.asLong()).name(claimUserName.asString()).departId(claimDepartId.asLong()).expireTime(expireTime.asDate()).userLevel(claimUserLevel.asInt()).build();
+            if (userToken.getExpireTime() != null) {
+                VERIFIED.put(key, userToken);
+            }
+            return copy(userToken);
         } catch (JWTVerificationException exception) {
             return null;
         }
     }
 
+    /**
+     * 缓存中的对象不直接交给调用方，避免被修改
+     */
+    private static UserToken copy(UserToken token) {
+        return UserToken.builder().id(token.getId()).name(token.getName()).departId(token.getDepartId())
+                .expireTime(token.getExpireTime() == null ? null : new Date(token.getExpireTime().getTime()))
+                .userLevel(token.getUserLevel()).build();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // 每个JRE都必须提供SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
     public Date getAfterDate(Date date, int year, int month, int day, int hour, int minute, int second) {
         if (date == null) {
             date = new Date();
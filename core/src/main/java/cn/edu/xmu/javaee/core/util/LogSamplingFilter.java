@@ -0,0 +1,72 @@
+//School of Informatics Xiamen University, GPL-3.0 license
+package cn.edu.xmu.javaee.core.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按logger抽样INFO日志，用于每次状态流转都会打印的INFO日志（服务、策略、Repository.save）
+ * loggers中的logger（含子logger）每rate条INFO只输出1条，各logger单独计数；WARN、ERROR不抽样，DEBUG仍由日志级别决定
+ * 在logback-spring.xml中配置
+ */
+public class LogSamplingFilter extends TurboFilter {
+
+    /**
+     * 不在loggers中的logger共用，不计数
+     */
+    private static final AtomicLong NOT_SAMPLED = new AtomicLong();
+
+    private String[] loggers = new String[0];
+
+    private int rate = 1;
+
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    /**
+     * @param loggers 抽样的logger名，逗号分隔
+     */
+    public void setLoggers(String loggers) {
+        this.loggers = Arrays.stream(loggers.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toArray(String[]::new);
+        this.counters.clear();
+    }
+
+    /**
+     * @param rate 每rate条输出1条，不大于1时不抽样
+     */
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format为null的是isInfoEnabled()之类的判断，不计数
+        if (rate <= 1 || null == format || null == level || level.levelInt != Level.INFO_INT) {
+            return FilterReply.NEUTRAL;
+        }
+        AtomicLong counter = counters.computeIfAbsent(logger.getName(), name -> sampled(name) ? new AtomicLong() : NOT_SAMPLED);
+        if (counter == NOT_SAMPLED) {
+            return FilterReply.NEUTRAL;
+        }
+        return counter.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean sampled(String name) {
+        for (String prefix : loggers) {
+            if (name.startsWith(prefix) && (name.length() == prefix.length() || name.charAt(prefix.length()) == '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,229 @@
+//School of Informatics Xiamen University, GPL-3.0 license
+package cn.edu.xmu.javaee.core.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 发件箱派发器
+ * 业务事务内只登记待调用的远程请求，事务提交后交给固定大小的线程池执行，不占用数据库连接和请求线程等待远程调用
+ * 成功后回写结果；失败按指数退避重试，超过次数不再重试；定时轮询（poll）兜底处理提交后未能入队、
+ * 待重试以及调用中超时（派发线程所在实例宕机）的记录
+ * 多实例部署时靠Store.claim的条件更新保证同一记录只有一个线程执行
+ * @param <T> 发件箱记录
+ * @param <R> 远程调用的结果
+ */
+@Slf4j
+public class OutboxDispatcher<T extends OutboxDispatcher.Record, R> {
+
+    /** 首次重试间隔 */
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(5);
+    /** 最大重试间隔 */
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    /**
+     * 发件箱记录
+     */
+    public interface Record {
+        String STATUS_CREATED = "CREATED";
+        String STATUS_CANCELED = "CANCELED";
+
+        /** call_status: 0-未调用 1-成功 2-失败 3-调用中 */
+        int CALL_PENDING = 0;
+        int CALL_SUCCESS = 1;
+        int CALL_FAILED = 2;
+        int CALL_DISPATCHING = 3;
+
+        Long getId();
+
+        /** 已失败的次数 */
+        Integer getRetryCount();
+
+        /** 所属业务单据已取消，不必再调用 */
+        boolean isOrderCancelled();
+    }
+
+    /**
+     * 发件箱记录的存取，由各模块的仓储实现
+     */
+    public interface Store<T, R> {
+        /** 根据ID查询，不存在时返回null */
+        T findById(Long id);
+
+        /**
+         * 查询可派发的记录：未调用或失败且到了重试时间的，以及调用中但在staleBefore之前未回写的
+         */
+        List<T> findDispatchable(LocalDateTime now, LocalDateTime staleBefore, int maxRetry, int limit);
+
+        /** 抢占记录，已被其他派发线程抢占时返回false */
+        boolean claim(T record);
+
+        void markSuccess(Long id, R result);
+
+        /** 记录失败，nextRetryTime为null表示不再重试 */
+        void markFailed(Long id, String failReason, LocalDateTime nextRetryTime);
+
+        /** 作废记录 */
+        void markCanceled(Long id);
+    }
+
+    /**
+     * 远程调用及成功后的处理，由各模块实现
+     */
+    public interface Handler<T, R> {
+        /** 执行远程调用，失败时抛出异常 */
+        R send(T record);
+
+        /** 结果回写发件箱之后调用，如回填业务单据 */
+        void onSuccess(T record, R result);
+    }
+
+    private final String name;
+    private final Store<T, R> store;
+    private final Handler<T, R> handler;
+    private final ThreadPoolExecutor executor;
+    private final int batchSize;
+    private final int maxRetry;
+    private final Duration staleTimeout;
+
+    /**
+     * @param name 名称，用作线程名前缀和日志
+     * @param concurrency 派发线程数
+     * @param batchSize 每次轮询最多取出的记录数，也是线程池队列长度
+     * @param maxRetry 最大调用次数
+     * @param staleTimeout 调用中的记录超过这个时间未回写视为派发线程已退出
+     */
+    public OutboxDispatcher(String name, Store<T, R> store, Handler<T, R> handler,
+                            int concurrency, int batchSize, int maxRetry, Duration staleTimeout) {
+        this.name = name;
+        this.store = store;
+        this.handler = handler;
+        this.batchSize = batchSize;
+        this.maxRetry = maxRetry;
+        this.staleTimeout = staleTimeout;
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(batchSize), r -> {
+                    Thread t = new Thread(r, name + "-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 在当前事务提交后派发刚登记的记录；没有事务时立即派发
+     */
+    public void submitAfterCommit(Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(id);
+                }
+            });
+        } else {
+            submit(id);
+        }
+    }
+
+    /**
+     * 扫描待派发的记录，数量不超过线程池队列的空余容量；由各模块定时调用
+     */
+    public void poll() {
+        int capacity = Math.min(batchSize, executor.getQueue().remainingCapacity());
+        if (capacity <= 0) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<T> list = store.findDispatchable(now, now.minus(staleTimeout), maxRetry, capacity);
+            for (T record : list) {
+                if (!execute(() -> dispatch(record))) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("发件箱扫描失败: outbox={}", name, e);
+        }
+    }
+
+    /**
+     * 派发一条记录：抢占、远程调用、回写结果
+     */
+    public void dispatch(T record) {
+        if (!store.claim(record)) {
+            log.debug("发件箱记录已被抢占: outbox={}, id={}", name, record.getId());
+            return;
+        }
+        if (record.isOrderCancelled()) {
+            store.markCanceled(record.getId());
+            log.info("业务单据已取消，作废发件箱记录: outbox={}, id={}", name, record.getId());
+            return;
+        }
+
+        R result;
+        try {
+            result = handler.send(record);
+        } catch (RuntimeException e) {
+            int retry = (record.getRetryCount() == null ? 0 : record.getRetryCount()) + 1;
+            LocalDateTime next = retry < maxRetry ? LocalDateTime.now().plus(backoff(retry)) : null;
+            store.markFailed(record.getId(), e.getMessage(), next);
+            log.warn("发件箱调用失败: outbox={}, id={}, retry={}, nextRetryTime={}", name, record.getId(), retry, next, e);
+            return;
+        }
+
+        store.markSuccess(record.getId(), result);
+        handler.onSuccess(record, result);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 第retry次失败后的重试间隔
+     */
+    public static Duration backoff(int retry) {
+        Duration delay = BASE_BACKOFF.multipliedBy(1L << Math.min(retry - 1, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private void submit(Long id) {
+        execute(() -> {
+            T record = store.findById(id);
+            if (record != null) {
+                dispatch(record);
+            }
+        });
+    }
+
+    /**
+     * 交给线程池执行，队列已满时留给定时扫描
+     */
+    private boolean execute(Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("发件箱派发异常: outbox={}", name, e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.debug("发件箱派发队列已满，等待定时扫描: outbox={}", name);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+//School of Informatics Xiamen University, GPL-3.0 license
+package cn.edu.xmu.javaee.core.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * 虚拟线程固定（pinned）诊断
+ * 用JFR订阅jdk.VirtualThreadPinned事件：虚拟线程在synchronized块或本地方法中阻塞时无法让出载体线程，
+ * 超过阈值的每次固定都计入jvm.threads.virtual.pinned，并打印本项目代码中的调用位置
+ * Java 21以下没有该事件，不启动
+ */
+@Slf4j
+public class PinnedThreadMonitor implements SmartLifecycle {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "cn.edu.xmu.";
+    /** 日志中打印的栈帧数 */
+    private static final int MAX_FRAMES = 5;
+
+    private final Duration threshold;
+    private final Counter pinned;
+    private RecordingStream stream;
+
+    /**
+     * @param registry 指标注册表
+     * @param threshold 固定时长超过该值才记录
+     */
+    public PinnedThreadMonitor(MeterRegistry registry, Duration threshold) {
+        this.threshold = threshold;
+        this.pinned = Counter.builder("jvm.threads.virtual.pinned")
+                .description("虚拟线程被固定在载体线程上的次数")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("start: 当前Java {}不支持虚拟线程，不启动固定诊断", Runtime.version().feature());
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("start: 虚拟线程固定诊断已启动, threshold={}ms", threshold.toMillis());
+    }
+
+    @Override
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    void onPinned(RecordedEvent event) {
+        pinned.increment();
+        log.warn("onPinned: 虚拟线程被固定{}ms, at {}", event.getDuration().toMillis(),
+                describe(event.getStackTrace()));
+    }
+
+    /**
+     * 优先列出本项目的栈帧，没有时列出栈顶
+     */
+    private static String describe(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        String appFrames = stackTrace.getFrames().stream()
+                .filter(f -> f.getMethod().getType().getName().startsWith(APP_PACKAGE))
+                .limit(MAX_FRAMES)
+                .map(PinnedThreadMonitor::format)
+                .collect(Collectors.joining(" <- "));
+        if (!appFrames.isEmpty()) {
+            return appFrames;
+        }
+        return stackTrace.getFrames().stream()
+                .limit(MAX_FRAMES)
+                .map(PinnedThreadMonitor::format)
+                .collect(Collectors.joining(" <- "));
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
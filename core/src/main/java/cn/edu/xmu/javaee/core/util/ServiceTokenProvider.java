@@ -0,0 +1,106 @@
+//School of Informatics Xiamen University, GPL-3.0 license
+package cn.edu.xmu.javaee.core.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 模块间调用使用的服务token
+ * 第一次使用时签发并缓存，在过期前refreshAhead秒后台重新签发；
+ * 上次签发后没有被使用过就不再后台续签，下次使用时再签发
+ */
+@Slf4j
+public class ServiceTokenProvider implements DisposableBean {
+
+    private static final Long USER_ID = 1L;
+    private static final String USER_NAME = "admin";
+    private static final Long DEPART_ID = 0L;
+    private static final Integer USER_LEVEL = 1;
+
+    private final JwtHelper jwtHelper = new JwtHelper();
+    private final long expireTime;
+    private final long refreshAhead;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "service-token-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile Token current;
+    private volatile boolean used;
+
+    /**
+     * @param expireTime token有效期（秒）
+     * @param refreshAhead 过期前多少秒后台续签，应小于expireTime
+     */
+    public ServiceTokenProvider(long expireTime, long refreshAhead) {
+        if (refreshAhead <= 0 || refreshAhead >= expireTime) {
+            throw new IllegalArgumentException("refreshAhead should be between 0 and expireTime");
+        }
+        this.expireTime = expireTime;
+        this.refreshAhead = refreshAhead;
+    }
+
+    /**
+     * 获得服务token，缓存的token剩余有效期不足refreshAhead的一半时同步重新签发
+     */
+    public String getToken() {
+        used = true;
+        Token token = current;
+        if (token == null || System.currentTimeMillis() >= token.staleAt) {
+            token = refresh(token);
+        }
+        return token.value;
+    }
+
+    private Token refresh(Token seen) {
+        lock.lock();
+        try {
+            if (current != seen) {
+                // 其他线程已经签发
+                return current;
+            }
+            long now = System.currentTimeMillis();
+            long expiresAt = now + TimeUnit.SECONDS.toMillis(expireTime);
+            String value = jwtHelper.createToken(USER_ID, USER_NAME, DEPART_ID, USER_LEVEL, (int) expireTime);
+            if (value == null) {
+                throw new IllegalStateException("签发服务token失败");
+            }
+            Token token = new Token(value, expiresAt - TimeUnit.SECONDS.toMillis(refreshAhead) / 2);
+            current = token;
+            used = false;
+            scheduler.schedule(() -> backgroundRefresh(token), expireTime - refreshAhead, TimeUnit.SECONDS);
+            log.debug("refresh: 签发服务token, expiresAt={}", expiresAt);
+            return token;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void backgroundRefresh(Token seen) {
+        if (!used) {
+            log.debug("backgroundRefresh: 服务token未被使用，不续签");
+            return;
+        }
+        try {
+            refresh(seen);
+        } catch (RuntimeException e) {
+            // 续签失败时由getToken同步签发
+            log.error("backgroundRefresh: 续签服务token失败", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private record Token(String value, long staleAt) {
+    }
+}
@@ -1,5 +1,8 @@
 package cn.edu.xmu.javaee.core.util;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * Twitter_Snowflake<br>
  * SnowFlake的结构如下(每部分用-分开):<br>
@@ -11,69 +14,88 @@ package cn.edu.xmu.javaee.core.util;
  * 12位序列，毫秒内的计数，12位的计数顺序号支持每个节点每毫秒(同一机器，同一时间截)产生4096个ID序号<br>
  * 加起来刚好64位，为一个Long型。<br>
  * SnowFlake的优点是，整体上按照时间自增排序，并且整个分布式系统内不会产生ID碰撞(由数据中心ID和机器ID作区分)，并且效率较高，经测试，SnowFlake每秒能够产生26万ID左右。
- */
-/**
+ * <p>
+ * 实现上把"时间截+毫秒内序列"打包在一个AtomicLong里，用CAS推进，不加锁：
+ * 序列用完时直接进位到下一毫秒（预支未来的序列），不再自旋等待；
+ * 时钟回退时沿用上次的时间截继续预支，回退不超过maxBorrow毫秒时不报错；
+ * 预支超出maxBorrow毫秒时才等待时钟追上（tilNextMillis），因此ID中的时间截最多比实际时间超前maxBorrow毫秒
  */
 public class SnowFlakeIdWorker {
 
     // ==============================Fields===========================================
     /** 开始时间截 (2015-01-01) */
-    private final Long twepoch = 1420041600000L;
+    private static final long TWEPOCH = 1420041600000L;
 
     /** 机器id所占的位数 */
-    private final static Long workerIdBits = 7L;
+    private static final long WORKER_ID_BITS = 7L;
 
     /** 数据标识id所占的位数 */
-    private final static Long datacenterIdBits = 3L;
+    private static final long DATACENTER_ID_BITS = 3L;
 
-    /** 支持的最大机器id，结果是31 (这个移位算法可以很快的计算出几位二进制数所能表示的最大十进制数) */
-    public final static Long maxWorkerId = -1L ^ (-1L << workerIdBits);
+    /** 支持的最大机器id，结果是127 (这个移位算法可以很快的计算出几位二进制数所能表示的最大十进制数) */
+    public final static Long maxWorkerId = -1L ^ (-1L << WORKER_ID_BITS);
 
-    /** 支持的最大数据标识id，结果是31 */
-    public final static Long maxDatacenterId = -1L ^ (-1L << datacenterIdBits);
+    /** 支持的最大数据标识id，结果是7 */
+    public final static Long maxDatacenterId = -1L ^ (-1L << DATACENTER_ID_BITS);
 
     /** 序列在id中占的位数 */
-    private final Long sequenceBits = 12L;
+    private static final long SEQUENCE_BITS = 12L;
 
     /** 机器ID向左移12位 */
-    private final Long workerIdShift = sequenceBits;
+    private static final long WORKER_ID_SHIFT = SEQUENCE_BITS;
 
-    /** 数据标识id向左移17位(12+5) */
-    private final Long datacenterIdShift = sequenceBits + workerIdBits;
+    /** 数据标识id向左移19位(12+7) */
+    private static final long DATACENTER_ID_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
 
-    /** 时间截向左移22位(5+5+12) */
-    private final Long timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
+    /** 时间截向左移22位(12+7+3) */
+    private static final long TIMESTAMP_LEFT_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS + DATACENTER_ID_BITS;
 
     /** 生成序列的掩码，这里为4095 (0b111111111111=0xfff=4095) */
-    private final Long sequenceMask = -1L ^ (-1L << sequenceBits);
+    private static final long SEQUENCE_MASK = -1L ^ (-1L << SEQUENCE_BITS);
+
+    /** 每毫秒的序列数 */
+    private static final int SEQUENCE_PER_MILLIS = (int) SEQUENCE_MASK + 1;
 
-    /** 工作机器ID(0~31) */
-    private Long workerId;
+    /** 默认最多预支的毫秒数 */
+    public static final long DEFAULT_MAX_BORROW = 1000L;
 
-    /** 数据中心ID(0~31) */
-    private Long datacenterId;
+    /** 数据中心ID和机器ID移位后的值 */
+    private final long node;
 
-    /** 毫秒内序列(0~4095) */
-    private long sequence = 0L;
+    /** 最多预支的毫秒数 */
+    private final long maxBorrow;
 
-    /** 上次生成ID的时间截 */
-    private long lastTimestamp = -1L;
+    /** 高位为上次发出的时间截(相对TWEPOCH)，低12位为该毫秒内已发出的最大序列 */
+    private final AtomicLong state = new AtomicLong();
 
     //==============================Constructors=====================================
     /**
      * 构造函数
-     * @param workerId 工作ID (0~31)
-     * @param datacenterId 数据中心ID (0~31)
+     * @param workerId 工作ID (0~127)
+     * @param datacenterId 数据中心ID (0~7)
      */
     public SnowFlakeIdWorker(Long workerId, Long datacenterId) {
+        this(workerId, datacenterId, DEFAULT_MAX_BORROW);
+    }
+
+    /**
+     * 构造函数
+     * @param workerId 工作ID (0~127)
+     * @param datacenterId 数据中心ID (0~7)
+     * @param maxBorrow 最多预支的毫秒数，也是能容忍的时钟回退毫秒数
+     */
+    public SnowFlakeIdWorker(Long workerId, Long datacenterId, long maxBorrow) {
         if (workerId > maxWorkerId || workerId < 0) {
             throw new IllegalArgumentException(String.format("worker Id can't be greater than %d or less than 0", maxWorkerId));
         }
         if (datacenterId > maxDatacenterId || datacenterId < 0) {
             throw new IllegalArgumentException(String.format("datacenter Id can't be greater than %d or less than 0", maxDatacenterId));
         }
-        this.workerId = workerId;
-        this.datacenterId = datacenterId;
+        if (maxBorrow < 0) {
+            throw new IllegalArgumentException("maxBorrow can't be less than 0");
+        }
+        this.node = (datacenterId << DATACENTER_ID_SHIFT) | (workerId << WORKER_ID_SHIFT);
+        this.maxBorrow = maxBorrow;
     }
 
     // ==============================Methods==========================================
@@ -82,41 +104,71 @@ public class SnowFlakeIdWorker {
      * @return SnowflakeId
      */
     public Long nextId() {
-        
-
-        synchronized (this) {
-            Long timestamp = timeGen();
-            //如果当前时间小于上一次ID生成的时间戳，说明系统时钟回退过这个时候应当抛出异常
-            if (timestamp < lastTimestamp) {
-                throw new RuntimeException(
-                        String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
+        return toId(reserve(1));
+    }
+
+    /**
+     * 一次获得n个ID，用于批量插入，同一批内的ID连续递增 (该方法是线程安全的)
+     * @param n 个数
+     * @return 递增的ID
+     */
+    public long[] nextIds(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n can't be less than 0");
+        }
+        long[] ids = new long[n];
+        int filled = 0;
+        while (filled < n) {
+            // 每次最多预留一毫秒的序列，避免一次预支过多
+            int size = Math.min(n - filled, SEQUENCE_PER_MILLIS);
+            long first = reserve(size);
+            for (int i = 0; i < size; i++) {
+                ids[filled++] = toId(first + i);
             }
+        }
+        return ids;
+    }
 
-            //如果是同一时间生成的，则进行毫秒内序列
-            if (lastTimestamp == timestamp) {
-                sequence = (sequence + 1) & sequenceMask;
-                //毫秒内序列溢出
-                if (sequence == 0) {
-                    //阻塞到下一个毫秒,获得新的时间戳
-                    timestamp = tilNextMillis(lastTimestamp);
+    /**
+     * 预留连续size个"时间截+序列"
+     * @return 第一个的值
+     */
+    private long reserve(int size) {
+        while (true) {
+            long current = state.get();
+            long now = timeGen() - TWEPOCH;
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long first;
+            if (now > lastTimestamp) {
+                //时间戳改变，毫秒内序列重置
+                first = now << SEQUENCE_BITS;
+            } else {
+                //同一毫秒或时钟回退：接着上次的序列，用完时进位到下一毫秒
+                if (lastTimestamp - now > maxBorrow) {
+                    throw new IllegalStateException(
+                            String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - now));
                 }
+                first = current + 1;
             }
-            //时间戳改变，毫秒内序列重置
-            else {
-                sequence = 0L;
+            long last = first + size - 1;
+            if ((last >>> SEQUENCE_BITS) - now > maxBorrow) {
+                //预支超出上限，等时钟追上
+                tilNextMillis(TWEPOCH + (last >>> SEQUENCE_BITS) - maxBorrow - 1);
+                continue;
             }
-
-            //上次生成ID的时间截
-            lastTimestamp = timestamp;
-        
-
-        //移位并通过或运算拼到一起组成64位的ID
-            return ((timestamp - twepoch) << timestampLeftShift) //
-                    | (datacenterId << datacenterIdShift) //
-                    | (workerId << workerIdShift) //
-                    | sequence;
+            if (state.compareAndSet(current, last)) {
+                return first;
             }
         }
+    }
+
+    /**
+     * 移位并通过或运算拼到一起组成64位的ID
+     */
+    private long toId(long value) {
+        return ((value >>> SEQUENCE_BITS) << TIMESTAMP_LEFT_SHIFT) | node | (value & SEQUENCE_MASK);
+    }
+
     /**
      * 阻塞到下一个毫秒，直到获得新的时间戳
      * @param lastTimestamp 上次生成ID的时间截
@@ -125,6 +177,7 @@ public class SnowFlakeIdWorker {
     protected Long tilNextMillis(Long lastTimestamp) {
         long timestamp = timeGen();
         while (timestamp <= lastTimestamp) {
+            LockSupport.parkNanos(100_000L);
             timestamp = timeGen();
         }
         return timestamp;
@@ -137,4 +190,4 @@ public class SnowFlakeIdWorker {
     protected Long timeGen() {
         return System.currentTimeMillis();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+//School of Informatics Xiamen University, GPL-3.0 license
+package cn.edu.xmu.javaee.core.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+/**
+ * 按枚举值预先建立的策略分派表
+ * 启动时用support方法逐个探测每个枚举值，建立EnumMap，运行时按ordinal直接取出策略，
+ * 不再每次请求遍历策略列表
+ * 建表时校验：同一枚举值被多个策略支持（重复），或必需的枚举值没有策略（缺口），均抛出IllegalStateException
+ * @param <K> 分派键枚举
+ * @param <S> 策略类型
+ */
+public final class StrategyRegistry<K extends Enum<K>, S> {
+
+    private final EnumMap<K, S> table;
+
+    private StrategyRegistry(EnumMap<K, S> table) {
+        this.table = table;
+    }
+
+    /**
+     * 建立分派表
+     * @param name 分派表名称，用于错误信息
+     * @param keyType 分派键枚举类型
+     * @param strategies 全部策略
+     * @param support 判断策略是否支持某个枚举值
+     * @param required 必须有策略支持的枚举值
+     * @return 分派表
+     */
+    public static <K extends Enum<K>, S> StrategyRegistry<K, S> of(String name, Class<K> keyType,
+                                                                   Collection<? extends S> strategies,
+                                                                   BiPredicate<? super S, K> support,
+                                                                   Set<K> required) {
+        EnumMap<K, S> table = new EnumMap<>(keyType);
+        for (K key : keyType.getEnumConstants()) {
+            for (S strategy : strategies) {
+                if (!support.test(strategy, key)) {
+                    continue;
+                }
+                S exist = table.putIfAbsent(key, strategy);
+                if (exist != null) {
+                    throw new IllegalStateException(String.format("%s: %s同时被%s和%s支持",
+                            name, key, exist.getClass().getSimpleName(), strategy.getClass().getSimpleName()));
+                }
+            }
+        }
+
+        List<K> missing = new ArrayList<>();
+        for (K key : required) {
+            if (!table.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException(String.format("%s: %s没有对应的策略", name, missing));
+        }
+        return new StrategyRegistry<>(table);
+    }
+
+    /**
+     * 取出策略
+     * @param key 分派键，可以为null
+     * @return 策略，没有对应策略时返回null
+     */
+    public S get(K key) {
+        return key == null ? null : table.get(key);
+    }
+
+    /**
+     * 已注册的分派键
+     */
+    public Set<K> keys() {
+        return Collections.unmodifiableSet(table.keySet());
+    }
+}
@@ -0,0 +1,168 @@
+//School of Informatics Xiamen University, GPL-3.0 license
+package cn.edu.xmu.javaee.core.util;
+
+import cn.edu.xmu.javaee.core.mapper.RedisUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * 读穿透的两级缓存：进程内Caffeine（L1）+ Redis（L2）
+ * 读取顺序为L1、L2、loader，loader的结果回填两级缓存；同一个key的并发未命中只调用一次loader
+ * 失效时删除本地和Redis中的值，并在频道上广播key，其他实例收到后删除各自的L1；
+ * 在事务中失效时，事务结束后再失效一次，避免事务提交前被并发读取回填旧值
+ * Redis不可用时退化为只用L1，不影响读写
+ * 指标：L1为cache.gets等Caffeine指标，L2为cache.l2.gets（result=hit/miss）和cache.l2.errors，tag均为cache=名称
+ * @param <V> 缓存值，需能被RedisTemplate序列化
+ */
+@Slf4j
+public class TwoLevelCache<V extends Serializable> implements MessageListener {
+
+    private final String name;
+    private final Cache<String, V> local;
+    private final RedisUtil redisUtil;
+    private final long remoteTimeout;
+    private final ChannelTopic topic;
+
+    private final Counter remoteHit;
+    private final Counter remoteMiss;
+    private final Counter remoteError;
+
+    /**
+     * @param name 缓存名称，也是Redis key的前缀和失效频道名的一部分
+     * @param maxSize L1最大条数
+     * @param localTimeout L1写入后的过期时间（秒）
+     * @param remoteTimeout L2过期时间（秒）
+     * @param redisUtil 为null时只使用L1
+     * @param registry 指标注册表
+     */
+    public TwoLevelCache(String name, long maxSize, long localTimeout, long remoteTimeout,
+                         RedisUtil redisUtil, MeterRegistry registry) {
+        this.name = name;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTimeout))
+                .recordStats()
+                .build();
+        this.redisUtil = redisUtil;
+        this.remoteTimeout = remoteTimeout;
+        this.topic = new ChannelTopic("cache:evict:" + name);
+
+        CaffeineCacheMetrics.monitor(registry, local, name);
+        this.remoteHit = Counter.builder("cache.l2.gets").tag("cache", name).tag("result", "hit").register(registry);
+        this.remoteMiss = Counter.builder("cache.l2.gets").tag("cache", name).tag("result", "miss").register(registry);
+        this.remoteError = Counter.builder("cache.l2.errors").tag("cache", name).register(registry);
+    }
+
+    /**
+     * 读取缓存，两级均未命中时调用loader
+     * @param key 键
+     * @param loader 加载函数，返回null时不缓存
+     * @return 值
+     */
+    public V get(String key, Function<String, V> loader) {
+        return local.get(key, k -> {
+            V value = getRemote(k);
+            if (value != null) {
+                return value;
+            }
+            value = loader.apply(k);
+            if (value != null) {
+                setRemote(k, value);
+            }
+            return value;
+        });
+    }
+
+    /**
+     * 失效一个key
+     * @param key 键
+     */
+    public void evict(String key) {
+        doEvict(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    doEvict(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * 其他实例广播的失效通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object key = redisUtil.deserializeMessage(message.getBody());
+        if (key instanceof String k) {
+            local.invalidate(k);
+        }
+    }
+
+    /**
+     * 失效通知频道
+     */
+    public ChannelTopic getTopic() {
+        return topic;
+    }
+
+    private void doEvict(String key) {
+        local.invalidate(key);
+        if (redisUtil == null) {
+            return;
+        }
+        try {
+            redisUtil.del(remoteKey(key));
+            redisUtil.publish(topic.getTopic(), key);
+        } catch (RuntimeException e) {
+            remoteError.increment();
+            log.warn("{}: 失效Redis缓存失败, key={}", name, key, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V getRemote(String key) {
+        if (redisUtil == null) {
+            return null;
+        }
+        try {
+            V value = (V) redisUtil.get(remoteKey(key));
+            (value == null ? remoteMiss : remoteHit).increment();
+            return value;
+        } catch (RuntimeException e) {
+            remoteError.increment();
+            log.warn("{}: 读取Redis缓存失败, key={}", name, key, e);
+            return null;
+        }
+    }
+
+    private void setRemote(String key, V value) {
+        if (redisUtil == null) {
+            return;
+        }
+        try {
+            redisUtil.set(remoteKey(key), value, remoteTimeout);
+        } catch (RuntimeException e) {
+            remoteError.increment();
+            log.warn("{}: 写入Redis缓存失败, key={}", name, key, e);
+        }
+    }
+
+    private String remoteKey(String key) {
+        return name + ":" + key;
+    }
+}
@@ -0,0 +1,96 @@
+package cn.edu.xmu.javaee.core.aop;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static cn.edu.xmu.javaee.core.model.Constants.BEGIN_TIME;
+import static cn.edu.xmu.javaee.core.model.Constants.END_TIME;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分页、时间参数的解析和填充
+ */
+class ControllerAspectTest {
+
+    private ControllerAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        aspect = new ControllerAspect(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(aspect, "max_page_size", 1000);
+        ReflectionTestUtils.setField(aspect, "default_page_size", 10);
+    }
+
+    @Test
+    void pageParamsShouldLocateParametersByName() {
+        ControllerAspect.PageParams params = ControllerAspect.PageParams.of(
+                new String[]{"shopId", "beginTime", "endTime", "page", "pageSize"});
+
+        assertEquals(new ControllerAspect.PageParams(3, 4, 1, 2), params);
+        assertTrue(params.hasTime());
+        assertSame(ControllerAspect.PageParams.NONE, ControllerAspect.PageParams.of(new String[]{"shopId", "id", "dto"}));
+        assertSame(ControllerAspect.PageParams.NONE, ControllerAspect.PageParams.of(null));
+    }
+
+    @Test
+    void parseDigitsShouldRejectNonDigitsAndOverflow() {
+        assertEquals(20, ControllerAspect.parseDigits("20"));
+        assertEquals(0, ControllerAspect.parseDigits("0"));
+        assertEquals(-1, ControllerAspect.parseDigits(null));
+        assertEquals(-1, ControllerAspect.parseDigits(""));
+        assertEquals(-1, ControllerAspect.parseDigits("-1"));
+        assertEquals(-1, ControllerAspect.parseDigits("1a"));
+        assertEquals(-1, ControllerAspect.parseDigits("9999999999"));
+    }
+
+    @Test
+    void parseTimeShouldReturnNullForMalformedValues() {
+        assertEquals(LocalDateTime.of(2024, 1, 1, 8, 30), ControllerAspect.parseTime("2024-01-01T08:30:00"));
+        assertNull(ControllerAspect.parseTime(null));
+        assertNull(ControllerAspect.parseTime("2024-01-01"));
+        assertNull(ControllerAspect.parseTime("2024-01-01T08:30:00abc"));
+        assertNull(ControllerAspect.parseTime("2024-02-30T00:00:00"));
+        assertNull(ControllerAspect.parseTime("2024-01-01T24:00:00"));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 8, 30), ControllerAspect.parseTime("2024-01-01T08:30"));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 8, 30, 5, 120_000_000), ControllerAspect.parseTime("2024-01-01T08:30:05.12"));
+        assertNull(ControllerAspect.parseTime("2024-01-01T08:30:05.1x"));
+    }
+
+    @Test
+    void checkPageTimeLimitShouldFillRequestValues() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter("page", "3");
+        request.setParameter("pageSize", "20");
+        request.setParameter("beginTime", "2024-01-01T00:00:00");
+        request.setParameter("endTime", "2024-12-31T23:59:59");
+        Object[] args = {1L, null, null, null, null};
+
+        aspect.checkPageTimeLimit(request, new ControllerAspect.PageParams(3, 4, 1, 2), args);
+
+        assertArrayEquals(new Object[]{1L, LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 12, 31, 23, 59, 59), 3, 20}, args);
+    }
+
+    @Test
+    void checkPageTimeLimitShouldFallBackToDefaults() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter("page", "0");
+        request.setParameter("pageSize", "5000");
+        request.setParameter("beginTime", "2024-12-31T00:00:00");
+        request.setParameter("endTime", "2024-01-01T00:00:00");
+        LocalDateTime given = LocalDateTime.of(2024, 6, 1, 0, 0);
+        Object[] args = {null, given, null, null};
+
+        aspect.checkPageTimeLimit(request, new ControllerAspect.PageParams(2, 3, 0, 1), args);
+
+        assertArrayEquals(new Object[]{BEGIN_TIME, given, 1, 10}, args);
+
+        Object[] endOnly = {null, null};
+        aspect.checkPageTimeLimit(new MockHttpServletRequest(), new ControllerAspect.PageParams(-1, -1, -1, 0), endOnly);
+        assertEquals(END_TIME, endOnly[0]);
+    }
+}
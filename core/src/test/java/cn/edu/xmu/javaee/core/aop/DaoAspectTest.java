@@ -0,0 +1,89 @@
+package cn.edu.xmu.javaee.core.aop;
+
+import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.model.Stateful;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * dao.calls计时和state.transitions计数
+ */
+class DaoAspectTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private DaoAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        aspect = new DaoAspect(registry);
+    }
+
+    @Test
+    void successfulSaveShouldTimeCallAndCountTransition() throws Throwable {
+        Order order = new Order("PENDING", "TO_BE_RECEIVED");
+
+        aspect.doAround(joinPoint("save", order));
+        aspect.doAround(joinPoint("save", order));
+
+        Timer timer = registry.get("dao.calls").tags("class", "Repository", "method", "save", "outcome", "success").timer();
+        assertEquals(2, timer.count());
+        assertEquals(2.0, registry.get("state.transitions")
+                .tags("entity", "aftersale", "type", "RETURN", "from", "PENDING", "to", "TO_BE_RECEIVED").counter().count());
+    }
+
+    @Test
+    void collectionArgumentShouldCountEachChangedElement() throws Throwable {
+        aspect.doAround(joinPoint("saveAll", 1L, List.of(new Order("PENDING", "REJECTED"),
+                new Order("PENDING", "PENDING"), new Order("PENDING", "REJECTED"))));
+
+        assertEquals(2.0, registry.get("state.transitions").tags("to", "REJECTED").counter().count());
+        assertNull(registry.find("state.transitions").tags("to", "PENDING").counter());
+    }
+
+    @Test
+    void failedSaveShouldNotCountTransition() throws Throwable {
+        ProceedingJoinPoint jp = joinPoint("save", new Order("PENDING", "CANCELLED"));
+        when(jp.proceed()).thenThrow(new BusinessException(ReturnNo.AFTERSALE_STATE_CONFLICT, "冲突"));
+
+        assertThrows(BusinessException.class, () -> aspect.doAround(jp));
+
+        assertEquals(1, registry.get("dao.calls").tags("outcome", "AFTERSALE_STATE_CONFLICT").timer().count());
+        assertNull(registry.find("state.transitions").counter());
+    }
+
+    private ProceedingJoinPoint joinPoint(String method, Object... args) throws Throwable {
+        MethodSignature ms = mock(MethodSignature.class);
+        when(ms.getMethod()).thenReturn(Arrays.stream(Repository.class.getMethods())
+                .filter(m -> m.getName().equals(method)).findFirst().orElseThrow());
+        when(ms.getName()).thenReturn(method);
+        ProceedingJoinPoint jp = mock(ProceedingJoinPoint.class);
+        when(jp.getSignature()).thenReturn(ms);
+        when(jp.getArgs()).thenReturn(args);
+        when(jp.proceed()).thenReturn(null);
+        return jp;
+    }
+
+    interface Repository {
+        void save(Object order);
+
+        void saveAll(Long shopId, List<?> orders);
+    }
+
+    record Order(String from, String to) implements Stateful {
+        @Override
+        public Transition transition() {
+            return from.equals(to) ? null : new Transition("aftersale", "RETURN", from, to);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package cn.edu.xmu.javaee.core.aop;
+
+import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.mapper.RedisUtil;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.model.ReturnObject;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用内存Map模拟Redis，验证Idempotency-Key的占位、重放和释放
+ */
+class IdempotentAspectTest {
+
+    private final Map<String, Serializable> store = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RedisUtil redisUtil;
+    private IdempotentAspect aspect;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        when(redisUtil.get(anyString())).thenAnswer(inv -> store.get(inv.<String>getArgument(0)));
+        when(redisUtil.setIfAbsent(anyString(), any(), anyLong()))
+                .thenAnswer(inv -> store.putIfAbsent(inv.getArgument(0), inv.getArgument(1)) == null);
+        when(redisUtil.set(anyString(), any(), anyLong())).thenAnswer(inv -> {
+            store.put(inv.getArgument(0), inv.getArgument(1));
+            return true;
+        });
+        when(redisUtil.executeScript(any(), anyList(), any()))
+                .thenAnswer(inv -> store.remove(inv.<List<String>>getArgument(1).get(0), inv.getArgument(2)) ? 1L : 0L);
+        aspect = new IdempotentAspect(redisUtil, objectMapper);
+
+        request = new MockHttpServletRequest("PUT", "/shops/1/aftersaleorders/10/confirm");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void replayShouldReturnStoredResultWithoutProceeding() throws Throwable {
+        request.addHeader(IdempotentAspect.HEADER, "k1");
+        ProceedingJoinPoint jp = joinPoint(new ReturnObject(Map.of("status", "TO_BE_RECEIVED")));
+
+        ReturnObject first = (ReturnObject) aspect.doAround(jp);
+        ReturnObject replay = (ReturnObject) aspect.doAround(jp);
+
+        verify(jp, times(1)).proceed();
+        assertEquals(ReturnNo.OK, replay.getCode());
+        assertEquals(objectMapper.writeValueAsString(first), objectMapper.writeValueAsString(replay));
+    }
+
+    @Test
+    void inFlightRequestShouldBeRejected() throws Throwable {
+        request.addHeader(IdempotentAspect.HEADER, "k2");
+        store.put("idempotency:PUT:/shops/1/aftersaleorders/10/confirm:k2", "other-token");
+        ProceedingJoinPoint jp = joinPoint(new ReturnObject());
+
+        BusinessException e = assertThrows(BusinessException.class, () -> aspect.doAround(jp));
+
+        assertEquals(ReturnNo.IDEMPOTENT_REQUEST_IN_PROGRESS, e.getErrno());
+        verify(jp, never()).proceed();
+    }
+
+    @Test
+    void failureShouldReleaseKeyForRetry() throws Throwable {
+        request.addHeader(IdempotentAspect.HEADER, "k3");
+        ProceedingJoinPoint jp = mock(ProceedingJoinPoint.class);
+        when(jp.getArgs()).thenReturn(new Object[]{1L, 10L});
+        when(jp.proceed()).thenThrow(new BusinessException(ReturnNo.AFTERSALE_STATE_INVALID, "状态不允许"))
+                .thenReturn(new ReturnObject());
+
+        assertThrows(BusinessException.class, () -> aspect.doAround(jp));
+        assertTrue(store.isEmpty());
+
+        assertEquals(ReturnNo.OK, ((ReturnObject) aspect.doAround(jp)).getCode());
+        verify(jp, times(2)).proceed();
+    }
+
+    @Test
+    void requestWithoutKeyOrRedisShouldJustProceed() throws Throwable {
+        ProceedingJoinPoint jp = joinPoint(new ReturnObject());
+        aspect.doAround(jp);
+        verifyNoInteractions(redisUtil);
+
+        request.addHeader(IdempotentAspect.HEADER, "k4");
+        when(redisUtil.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        aspect.doAround(jp);
+        verify(jp, times(2)).proceed();
+    }
+
+    @Test
+    void sameKeyWithDifferentArgumentsShouldBeRejectedAfterCompletion() throws Throwable {
+        request.addHeader(IdempotentAspect.HEADER, "k5");
+        ProceedingJoinPoint first = joinPoint(new ReturnObject(), 1L, 10L, Map.of("conclusion", "同意"));
+        ProceedingJoinPoint second = joinPoint(new ReturnObject(), 1L, 10L, Map.of("conclusion", "不同意"));
+
+        aspect.doAround(first);
+        BusinessException e = assertThrows(BusinessException.class, () -> aspect.doAround(second));
+
+        assertEquals(ReturnNo.IDEMPOTENT_KEY_REUSED, e.getErrno());
+        assertEquals(422, e.getErrno().getHttpStatus());
+        verify(second, never()).proceed();
+    }
+
+    @Test
+    void sameKeyWithDifferentArgumentsShouldBeRejectedWhileInFlight() throws Throwable {
+        request.addHeader(IdempotentAspect.HEADER, "k6");
+        ProceedingJoinPoint other = joinPoint(new ReturnObject(), 1L, 11L);
+        store.put("idempotency:PUT:/shops/1/aftersaleorders/10/confirm:k6",
+                aspect.fingerprint(new Object[]{1L, 10L}) + ":other-token");
+
+        BusinessException e = assertThrows(BusinessException.class, () -> aspect.doAround(other));
+        assertEquals(ReturnNo.IDEMPOTENT_KEY_REUSED, e.getErrno());
+
+        ProceedingJoinPoint same = joinPoint(new ReturnObject(), 1L, 10L);
+        e = assertThrows(BusinessException.class, () -> aspect.doAround(same));
+        assertEquals(ReturnNo.IDEMPOTENT_REQUEST_IN_PROGRESS, e.getErrno());
+        verify(other, never()).proceed();
+        verify(same, never()).proceed();
+    }
+
+    private ProceedingJoinPoint joinPoint(ReturnObject retVal, Object... args) throws Throwable {
+        ProceedingJoinPoint jp = mock(ProceedingJoinPoint.class);
+        when(jp.getArgs()).thenReturn(args);
+        when(jp.proceed()).thenReturn(retVal);
+        return jp;
+    }
+}
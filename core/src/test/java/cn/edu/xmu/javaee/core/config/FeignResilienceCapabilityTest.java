@@ -0,0 +1,150 @@
+package cn.edu.xmu.javaee.core.config;
+
+import cn.edu.xmu.javaee.core.exception.BusinessException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import feign.FeignException;
+import feign.RequestLine;
+import feign.Target;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 在可注入延迟和状态码的本地桩服务上验证熔断和舱壁
+ */
+class FeignResilienceCapabilityTest {
+
+    private HttpServer server;
+    private String url;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile long delayMillis;
+    private volatile int status = 200;
+    private final CountDownLatch received = new CountDownLatch(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .failureRateThreshold(50)
+            .slowCallDurationThreshold(Duration.ofMillis(50))
+            .slowCallRateThreshold(50)
+            .waitDurationInOpenState(Duration.ofMinutes(1))
+            .build());
+    private final BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+            .maxConcurrentCalls(1)
+            .maxWaitDuration(Duration.ZERO)
+            .build());
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void slowCallsShouldOpenBreakerAndFailFast() {
+        StubClient logistics = client("logistics-module");
+        delayMillis = 100;
+        for (int i = 0; i < 4; i++) {
+            assertEquals("ok", logistics.call());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakerRegistry.circuitBreaker("logistics-module").getState());
+
+        // 熔断后不再发请求
+        assertThrows(BusinessException.class, logistics::call);
+        assertEquals(4, hits.get());
+        assertEquals(1.0, rejected("logistics-module", "circuit_breaker"));
+
+        // 其他目标模块不受影响
+        delayMillis = 0;
+        assertEquals("ok", client("service-module").call());
+    }
+
+    @Test
+    void serverErrorsShouldOpenBreaker() {
+        StubClient logistics = client("logistics-module");
+        status = 503;
+        for (int i = 0; i < 4; i++) {
+            assertThrows(FeignException.class, logistics::call);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakerRegistry.circuitBreaker("logistics-module").getState());
+        assertThrows(BusinessException.class, logistics::call);
+        assertEquals(4, hits.get());
+    }
+
+    @Test
+    void bulkheadShouldRejectConcurrentCall() throws Exception {
+        StubClient logistics = client("logistics-module");
+        delayMillis = 500;
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(logistics::call);
+        assertTrue(received.await(2, TimeUnit.SECONDS));
+
+        assertThrows(BusinessException.class, logistics::call);
+        assertEquals(1.0, rejected("logistics-module", "bulkhead"));
+
+        assertEquals("ok", first.get(2, TimeUnit.SECONDS));
+        delayMillis = 0;
+        assertEquals("ok", logistics.call());
+        assertEquals(2, hits.get());
+    }
+
+    private StubClient client(String name) {
+        return Feign.builder()
+                .addCapability(new FeignResilienceCapability(circuitBreakerRegistry, bulkheadRegistry, meterRegistry))
+                .target(new Target.HardCodedTarget<>(StubClient.class, name, url));
+    }
+
+    private double rejected(String target, String reason) {
+        return meterRegistry.counter(FeignResilienceCapability.REJECTED_METRIC, "target", target, "reason", reason).count();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        hits.incrementAndGet();
+        received.countDown();
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    interface StubClient {
+        @RequestLine("GET /internal/stub")
+        String call();
+    }
+}
@@ -0,0 +1,66 @@
+package cn.edu.xmu.javaee.core.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogContextInterceptorTest {
+
+    private final LogContextInterceptor interceptor = new LogContextInterceptor();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    void preHandleShouldPutTraceAndPathVariables() {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/shops/3/aftersaleorders/5/confirm");
+        request.addHeader("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("shopid", "3", "id", "5"));
+
+        assertTrue(interceptor.preHandle(request, response, null));
+
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", MDC.get("traceId"));
+        assertEquals("3", MDC.get("shopId"));
+        assertEquals("5", MDC.get("orderId"));
+
+        interceptor.afterCompletion(request, response, null, null);
+
+        assertNull(MDC.get("traceId"));
+        assertNull(MDC.get("shopId"));
+        assertNull(MDC.get("orderId"));
+    }
+
+    @Test
+    void internalPathShouldUseAftersalesIdAsOrderId() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("x-request-id", "req-1");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("shopId", "3", "aftersalesId", "8"));
+
+        interceptor.preHandle(request, response, null);
+
+        assertEquals("req-1", MDC.get("traceId"));
+        assertEquals("3", MDC.get("shopId"));
+        assertEquals("8", MDC.get("orderId"));
+    }
+
+    @Test
+    void traceIdShouldBeGeneratedWithoutHeaders() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("traceparent", "malformed");
+
+        String traceId = LogContextInterceptor.traceId(request);
+
+        assertEquals(32, traceId.length());
+        assertNotEquals(traceId, LogContextInterceptor.traceId(request));
+    }
+}
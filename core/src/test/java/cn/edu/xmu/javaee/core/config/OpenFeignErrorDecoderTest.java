@@ -0,0 +1,123 @@
+package cn.edu.xmu.javaee.core.config;
+
+import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.JacksonUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import feign.FeignException;
+import feign.RequestLine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地桩服务返回各种错误响应，验证OpenFeignErrorDecoder和OpenFeignReturnInterceptor
+ */
+class OpenFeignErrorDecoderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private HttpServer server;
+    private StubClient client;
+    private volatile int status;
+    private volatile String body;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        OpenFeignConfig config = new OpenFeignConfig();
+        client = Feign.builder()
+                .decoder((response, type) -> mapper.readValue(response.body().asInputStream(), mapper.constructType(type)))
+                .errorDecoder(config.errorDecoder())
+                .responseInterceptor(config.responseInterceptor())
+                .target(StubClient.class, "http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void okShouldReturnData() {
+        respond(200, "{\"errno\":0,\"errmsg\":\"成功\",\"data\":{\"id\":888}}");
+
+        assertEquals(888, client.call().getData().get("id"));
+    }
+
+    @Test
+    void errnoInOkResponseShouldThrowBusinessException() {
+        respond(200, "{\"errno\":4,\"errmsg\":\"运单对象(id=9999)不存在\"}");
+
+        BusinessException e = assertThrows(BusinessException.class, client::call);
+        assertEquals(ReturnNo.RESOURCE_ID_NOTEXIST, e.getErrno());
+        assertEquals("运单对象(id=9999)不存在", e.getMessage());
+    }
+
+    @Test
+    void errorResponseShouldThrowBusinessException() {
+        respond(403, "{\"data\":{\"errno\":0},\"errmsg\":\"超出范围\",\"errno\":17}");
+
+        BusinessException e = assertThrows(BusinessException.class, client::call);
+        assertEquals(ReturnNo.RESOURCE_ID_OUTSCOPE, e.getErrno());
+        assertEquals("超出范围", e.getMessage());
+    }
+
+    @Test
+    void unknownErrnoShouldBeInternalServerError() {
+        respond(500, "{\"errno\":99999}");
+
+        BusinessException e = assertThrows(BusinessException.class, client::call);
+        assertEquals(ReturnNo.INTERNAL_SERVER_ERR, e.getErrno());
+    }
+
+    @Test
+    void nonJsonErrorShouldFallBackToFeignException() {
+        respond(502, "<html><body>Bad Gateway</body></html>");
+
+        FeignException e = assertThrows(FeignException.class, client::call);
+        assertEquals(502, e.status());
+        assertEquals("<html><body>Bad Gateway</body></html>", e.contentUTF8());
+    }
+
+    @Test
+    void parseErrnoAndErrmsgShouldSkipNestedFields() {
+        byte[] json = "{\"data\":{\"errno\":1,\"items\":[1,{\"errmsg\":\"x\"}]},\"errmsg\":null,\"errno\":\"7\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        InternalReturnObject<Void> ret = JacksonUtil.parseErrnoAndErrmsg(json);
+
+        assertEquals(7, ret.getErrno());
+        assertNull(ret.getErrmsg());
+        assertNull(JacksonUtil.parseErrnoAndErrmsg("[1,2]".getBytes(StandardCharsets.UTF_8)));
+        assertNull(JacksonUtil.parseErrnoAndErrmsg("{\"errmsg\":\"x\"}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void respond(int status, String body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    interface StubClient {
+        @RequestLine("GET /internal/stub")
+        InternalReturnObject<Map<String, Object>> call();
+    }
+}
@@ -0,0 +1,105 @@
+package cn.edu.xmu.javaee.core.config;
+
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
+import feign.RequestTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class OpenFeignHeaderInterceptorTest {
+
+    private final ServiceTokenProvider provider = mock(ServiceTokenProvider.class);
+    private final OpenFeignHeaderInterceptor interceptor = new OpenFeignHeaderInterceptor(provider,
+            List.of(" X-Request-Id ", "traceparent", ""));
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        MDC.clear();
+    }
+
+    @Test
+    void applyShouldUseServiceTokenOutsideRequest() {
+        when(provider.getToken()).thenReturn("service-token");
+        RequestTemplate template = new RequestTemplate();
+
+        interceptor.apply(template);
+
+        assertEquals(List.of("service-token"), List.copyOf(template.headers().get("authorization")));
+    }
+
+    @Test
+    void applyShouldForwardCallerTokenWithoutSigning() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("authorization", "user-token");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        RequestTemplate template = new RequestTemplate();
+
+        interceptor.apply(template);
+
+        assertEquals(List.of("user-token"), List.copyOf(template.headers().get("authorization")));
+        verify(provider, never()).getToken();
+    }
+
+    @Test
+    void applyShouldCopyOnlyAllowedHeaders() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("authorization", "user-token");
+        request.addHeader("X-Request-Id", "req-1");
+        request.addHeader("Cookie", "JSESSIONID=1");
+        request.addHeader("User-Agent", "Mozilla/5.0");
+        request.addHeader("Content-Length", "12");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        RequestTemplate template = new RequestTemplate();
+
+        interceptor.apply(template);
+
+        assertEquals(Set.of("authorization", "x-request-id", "Content-Type"), template.headers().keySet());
+        assertEquals(List.of("req-1"), List.copyOf(template.headers().get("x-request-id")));
+    }
+
+    @Test
+    void applyShouldKeepExplicitToken() {
+        RequestTemplate template = new RequestTemplate();
+        template.header("authorization", "explicit-token");
+
+        interceptor.apply(template);
+
+        assertEquals(List.of("explicit-token"), List.copyOf(template.headers().get("authorization")));
+        verify(provider, never()).getToken();
+    }
+
+    @Test
+    void applyShouldSendLogTraceIdWhenCallerHasNone() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        MDC.put("traceId", "generated-1");
+        RequestTemplate template = new RequestTemplate();
+
+        interceptor.apply(template);
+
+        assertEquals(List.of("generated-1"), List.copyOf(template.headers().get("x-request-id")));
+    }
+
+    @Test
+    void applyShouldNotOverrideCallerTraceHeader() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        MDC.put("traceId", "4bf92f3577b34da6a3ce929d0e0e4736");
+        when(provider.getToken()).thenReturn("service-token");
+        RequestTemplate template = new RequestTemplate();
+
+        interceptor.apply(template);
+
+        assertEquals(Set.of("authorization", "traceparent", "Content-Type"), template.headers().keySet());
+    }
+}
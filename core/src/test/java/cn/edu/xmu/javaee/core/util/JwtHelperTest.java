@@ -0,0 +1,51 @@
+package cn.edu.xmu.javaee.core.util;
+
+import cn.edu.xmu.javaee.core.model.UserToken;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtHelperTest {
+
+    private final JwtHelper jwtHelper = new JwtHelper();
+
+    @Test
+    void verifyShouldReturnClaimsOnRepeatedCalls() {
+        String token = jwtHelper.createToken(7L, "shop7", 3L, 1, 3600);
+
+        UserToken first = jwtHelper.verifyTokenAndGetClaims(token);
+        UserToken second = jwtHelper.verifyTokenAndGetClaims(token);
+
+        assertEquals(7L, second.getId());
+        assertEquals("shop7", second.getName());
+        assertEquals(3L, second.getDepartId());
+        assertEquals(1, second.getUserLevel());
+        assertEquals(first, second);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void cachedClaimsShouldNotBeAffectedByCallerChanges() {
+        String token = jwtHelper.createToken(8L, "shop8", 3L, 1, 3600);
+        jwtHelper.verifyTokenAndGetClaims(token).setId(99L);
+
+        assertEquals(8L, jwtHelper.verifyTokenAndGetClaims(token).getId());
+    }
+
+    @Test
+    void verifyShouldRejectExpiredToken() {
+        String token = jwtHelper.createToken(9L, "shop9", 3L, 1, -10);
+
+        assertNull(jwtHelper.verifyTokenAndGetClaims(token));
+    }
+
+    @Test
+    void verifyShouldRejectTamperedToken() {
+        String token = jwtHelper.createToken(10L, "shop10", 3L, 1, 3600);
+        jwtHelper.verifyTokenAndGetClaims(token);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertNull(jwtHelper.verifyTokenAndGetClaims(tampered));
+        assertNull(jwtHelper.verifyTokenAndGetClaims(""));
+    }
+}
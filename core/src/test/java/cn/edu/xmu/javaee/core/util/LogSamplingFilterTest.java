@@ -0,0 +1,70 @@
+package cn.edu.xmu.javaee.core.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSamplingFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final LogSamplingFilter filter = new LogSamplingFilter();
+
+    @BeforeEach
+    void setUp() {
+        filter.setLoggers(" cn.edu.xmu.aftersale.model.strategy, cn.edu.xmu.aftersale.dao.AftersaleOrderRepository ,");
+        filter.setRate(10);
+    }
+
+    @Test
+    void infoShouldBeSampledPerLogger() {
+        Logger strategy = context.getLogger("cn.edu.xmu.aftersale.model.strategy.impl.ReturnConfirmStrategy");
+        Logger repository = context.getLogger("cn.edu.xmu.aftersale.dao.AftersaleOrderRepository");
+
+        assertEquals(3, accepted(strategy, Level.INFO, 25));
+        assertEquals(1, accepted(repository, Level.INFO, 10));
+    }
+
+    @Test
+    void otherLevelsAndLoggersShouldNotBeSampled() {
+        Logger strategy = context.getLogger("cn.edu.xmu.aftersale.model.strategy.impl.ReturnConfirmStrategy");
+        Logger service = context.getLogger("cn.edu.xmu.aftersale.service.AftersaleService");
+        Logger similar = context.getLogger("cn.edu.xmu.aftersale.model.strategyX");
+
+        assertEquals(20, accepted(strategy, Level.WARN, 20));
+        assertEquals(20, accepted(strategy, Level.ERROR, 20));
+        assertEquals(20, accepted(service, Level.INFO, 20));
+        assertEquals(20, accepted(similar, Level.INFO, 20));
+    }
+
+    @Test
+    void enabledChecksShouldNotCount() {
+        Logger strategy = context.getLogger("cn.edu.xmu.aftersale.model.strategy.impl.ReturnConfirmStrategy");
+        for (int i = 0; i < 5; i++) {
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, strategy, Level.INFO, null, null, null));
+        }
+
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, strategy, Level.INFO, "审核: orderId={}", new Object[]{1L}, null));
+        assertEquals(FilterReply.DENY, filter.decide(null, strategy, Level.INFO, "审核: orderId={}", new Object[]{1L}, null));
+    }
+
+    @Test
+    void rateOfOneShouldKeepEverything() {
+        filter.setRate(1);
+
+        assertEquals(20, accepted(context.getLogger("cn.edu.xmu.aftersale.dao.AftersaleOrderRepository"), Level.INFO, 20));
+    }
+
+    private long accepted(Logger logger, Level level, int times) {
+        return IntStream.range(0, times)
+                .mapToObj(i -> filter.decide(null, logger, level, "售后单更新成功: id={}", new Object[]{(long) i}, null))
+                .filter(reply -> reply != FilterReply.DENY)
+                .count();
+    }
+}
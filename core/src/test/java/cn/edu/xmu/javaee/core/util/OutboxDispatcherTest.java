@@ -0,0 +1,165 @@
+package cn.edu.xmu.javaee.core.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    @Mock
+    private OutboxDispatcher.Store<Entry, String> store;
+    @Mock
+    private OutboxDispatcher.Handler<Entry, String> handler;
+
+    private OutboxDispatcher<Entry, String> dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new OutboxDispatcher<>("test-outbox", store, handler, 2, 10, 3, Duration.ofSeconds(120));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void dispatchShouldSendAndRecordResult() {
+        Entry entry = new Entry(5L, 0, false);
+        when(store.claim(entry)).thenReturn(true);
+        when(handler.send(entry)).thenReturn("SF888");
+
+        dispatcher.dispatch(entry);
+
+        var order = inOrder(store, handler);
+        order.verify(store).markSuccess(5L, "SF888");
+        order.verify(handler).onSuccess(entry, "SF888");
+        verify(store, never()).markFailed(anyLong(), any(), any());
+    }
+
+    @Test
+    void dispatchShouldSkipWhenClaimedByOthers() {
+        Entry entry = new Entry(5L, 0, false);
+        when(store.claim(entry)).thenReturn(false);
+
+        dispatcher.dispatch(entry);
+
+        verifyNoInteractions(handler);
+        verify(store, never()).markSuccess(anyLong(), any());
+    }
+
+    @Test
+    void dispatchShouldScheduleRetryWhenSendFails() {
+        Entry entry = new Entry(5L, 0, false);
+        when(store.claim(entry)).thenReturn(true);
+        when(handler.send(entry)).thenThrow(new IllegalStateException("物流服务不可用"));
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch(entry);
+
+        ArgumentCaptor<LocalDateTime> captor = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(store).markFailed(eq(5L), eq("物流服务不可用"), captor.capture());
+        assertFalse(captor.getValue().isBefore(before.plusSeconds(5)));
+        verify(handler, never()).onSuccess(any(), any());
+    }
+
+    @Test
+    void dispatchShouldStopRetryAfterMaxRetry() {
+        Entry entry = new Entry(5L, 2, false);
+        when(store.claim(entry)).thenReturn(true);
+        when(handler.send(entry)).thenThrow(new IllegalStateException("合同不存在"));
+
+        dispatcher.dispatch(entry);
+
+        verify(store).markFailed(eq(5L), eq("合同不存在"), isNull());
+    }
+
+    @Test
+    void dispatchShouldDiscardWhenOrderCancelled() {
+        Entry entry = new Entry(5L, 0, true);
+        when(store.claim(entry)).thenReturn(true);
+
+        dispatcher.dispatch(entry);
+
+        verify(store).markCanceled(5L);
+        verifyNoInteractions(handler);
+    }
+
+    @Test
+    void submitAfterCommitShouldWaitForCommit() {
+        Entry entry = new Entry(5L, 0, false);
+        when(store.findById(5L)).thenReturn(entry);
+        when(store.claim(entry)).thenReturn(true);
+        when(handler.send(entry)).thenReturn("SF888");
+
+        TransactionSynchronizationManager.initSynchronization();
+        dispatcher.submitAfterCommit(5L);
+
+        // 事务提交前不派发
+        verify(store, never()).findById(anyLong());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        verify(handler, timeout(2000)).onSuccess(entry, "SF888");
+    }
+
+    @Test
+    void submitAfterCommitShouldIgnoreRolledBackRecord() {
+        when(store.findById(5L)).thenReturn(null);
+
+        dispatcher.submitAfterCommit(5L);
+
+        verify(store, timeout(2000)).findById(5L);
+        verify(store, never()).claim(any());
+    }
+
+    @Test
+    void pollShouldDispatchDueRecords() {
+        Entry entry = new Entry(5L, 1, false);
+        when(store.findDispatchable(any(), any(), eq(3), eq(10))).thenReturn(List.of(entry));
+        when(store.claim(entry)).thenReturn(true);
+        when(handler.send(entry)).thenReturn("SF888");
+
+        dispatcher.poll();
+
+        verify(store, timeout(2000)).markSuccess(5L, "SF888");
+        // onSuccess在markSuccess之后异步执行，等它完成再结束
+        verify(handler, timeout(2000)).onSuccess(entry, "SF888");
+    }
+
+    @Test
+    void backoffShouldGrowAndBeCapped() {
+        assertEquals(Duration.ofSeconds(5), OutboxDispatcher.backoff(1));
+        assertEquals(Duration.ofSeconds(20), OutboxDispatcher.backoff(3));
+        assertEquals(Duration.ofMinutes(10), OutboxDispatcher.backoff(30));
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Entry implements OutboxDispatcher.Record {
+        private Long id;
+        private Integer retryCount;
+        private boolean orderCancelled;
+    }
+}
@@ -0,0 +1,28 @@
+package cn.edu.xmu.javaee.core.util;
+
+import cn.edu.xmu.javaee.core.model.UserToken;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceTokenProviderTest {
+
+    @Test
+    void getTokenShouldReuseSignedToken() {
+        ServiceTokenProvider provider = new ServiceTokenProvider(3600, 300);
+
+        String first = provider.getToken();
+
+        assertSame(first, provider.getToken());
+        UserToken user = new JwtHelper().verifyTokenAndGetClaims(first);
+        assertEquals(1L, user.getId());
+        assertEquals("admin", user.getName());
+        provider.destroy();
+    }
+
+    @Test
+    void constructorShouldRejectRefreshAheadOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new ServiceTokenProvider(300, 300));
+        assertThrows(IllegalArgumentException.class, () -> new ServiceTokenProvider(3600, 0));
+    }
+}
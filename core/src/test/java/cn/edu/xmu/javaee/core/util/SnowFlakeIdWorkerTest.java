@@ -0,0 +1,110 @@
+package cn.edu.xmu.javaee.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowFlakeIdWorkerTest {
+
+    /** 2024-01-01，相对开始时间截的偏移不影响测试 */
+    private static final long NOW = 1704038400000L;
+
+    @Test
+    void nextIdShouldBeUniqueUnderContention() throws Exception {
+        SnowFlakeIdWorker worker = new SnowFlakeIdWorker(1L, 1L);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                long[] ids = new long[10000];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = worker.nextId();
+                }
+                return ids;
+            }));
+        }
+        Set<Long> seen = new HashSet<>();
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get();
+            for (int i = 0; i < ids.length; i++) {
+                assertTrue(seen.add(ids[i]));
+                if (i > 0) {
+                    assertTrue(ids[i] > ids[i - 1]);
+                }
+            }
+        }
+        pool.shutdown();
+        assertEquals(80000, seen.size());
+    }
+
+    @Test
+    void sequenceOverflowShouldBorrowNextMillisecond() {
+        FixedClockWorker worker = new FixedClockWorker(10);
+        long[] ids = worker.nextIds(4097);
+
+        assertEquals(ids[0] + (1L << 22), ids[4096]);
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i] > ids[i - 1]);
+        }
+    }
+
+    @Test
+    void clockRollbackWithinLimitShouldKeepIncreasing() {
+        FixedClockWorker worker = new FixedClockWorker(10);
+        long before = worker.nextId();
+
+        worker.clock.addAndGet(-5);
+        long after = worker.nextId();
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    void clockRollbackBeyondLimitShouldBeRejected() {
+        FixedClockWorker worker = new FixedClockWorker(10);
+        worker.nextId();
+
+        worker.clock.addAndGet(-11);
+
+        assertThrows(IllegalStateException.class, worker::nextId);
+    }
+
+    @Test
+    void nodeBitsShouldBeEmbedded() {
+        long id = new SnowFlakeIdWorker(5L, 3L).nextId();
+
+        assertEquals(5L, (id >>> 12) & SnowFlakeIdWorker.maxWorkerId);
+        assertEquals(3L, (id >>> 19) & SnowFlakeIdWorker.maxDatacenterId);
+    }
+
+    @Test
+    void constructorShouldRejectOutOfRangeIds() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowFlakeIdWorker(128L, 0L));
+        assertThrows(IllegalArgumentException.class, () -> new SnowFlakeIdWorker(0L, 8L));
+    }
+
+    /**
+     * 时钟由测试控制
+     */
+    private static class FixedClockWorker extends SnowFlakeIdWorker {
+        private final AtomicLong clock = new AtomicLong(NOW);
+
+        FixedClockWorker(long maxBorrow) {
+            super(1L, 1L, maxBorrow);
+        }
+
+        @Override
+        protected Long timeGen() {
+            return clock.get();
+        }
+    }
+}
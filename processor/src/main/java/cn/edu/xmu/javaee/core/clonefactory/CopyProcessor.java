@@ -0,0 +1,373 @@
+package cn.edu.xmu.javaee.core.clonefactory;
+
+import com.google.auto.service.AutoService;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 处理@CopyFrom、@CopyTo、@CopyNotNullFrom和@CopyNotNullTo，编译时生成CloneFactory
+ * 生成的copy/copyNotNull方法只调用getter/setter，不用反射；source为null时直接返回target
+ * 同名但类型不能赋值的属性（如PO中的Integer状态码与领域对象中的枚举）不拷贝，由调用方自行转换
+ * 注解定义在core模块中，这里按类名访问，处理器本身不依赖core
+ */
+@AutoService(Processor.class)
+@SupportedAnnotationTypes({CopyProcessor.COPY_FROM, CopyProcessor.COPY_TO, CopyProcessor.COPY_NOT_NULL_FROM, CopyProcessor.COPY_NOT_NULL_TO})
+public class CopyProcessor extends AbstractProcessor {
+
+    static final String PACKAGE = "cn.edu.xmu.javaee.core.clonefactory";
+    static final String COPY_FROM = PACKAGE + ".CopyFrom";
+    static final String COPY_TO = PACKAGE + ".CopyTo";
+    static final String COPY_NOT_NULL_FROM = PACKAGE + ".CopyNotNullFrom";
+    static final String COPY_NOT_NULL_TO = PACKAGE + ".CopyNotNullTo";
+    static final String CLONE_FACTORY = PACKAGE + ".CloneFactory";
+    static final String DEFAULT_PACKAGE = "cn.edu.xmu.javaee.core.util";
+
+    /**
+     * 四种注解对应的生成方式
+     * from为true时被注解的类是目标，注解中的类是源；否则反之
+     */
+    private enum Kind {
+        FROM(COPY_FROM, "copy", true, false),
+        TO(COPY_TO, "copy", false, false),
+        NOT_NULL_FROM(COPY_NOT_NULL_FROM, "copyNotNull", true, true),
+        NOT_NULL_TO(COPY_NOT_NULL_TO, "copyNotNull", false, true);
+
+        private final String annotation;
+        private final String methodName;
+        private final boolean from;
+        private final boolean notNull;
+
+        Kind(String annotation, String methodName, boolean from, boolean notNull) {
+            this.annotation = annotation;
+            this.methodName = methodName;
+            this.from = from;
+            this.notNull = notNull;
+        }
+    }
+
+    private Messager messager;
+    private Types types;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.messager = processingEnv.getMessager();
+        this.types = processingEnv.getTypeUtils();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (annotations.isEmpty()) {
+            return false;
+        }
+        TypeSpec.Builder typeSpecBuilder = TypeSpec.classBuilder("CloneFactory")
+                .addJavadoc("generated by CopyProcessor, do not edit\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build());
+
+        for (Kind kind : Kind.values()) {
+            for (TypeElement element : annotatedClasses(roundEnv, kind.annotation)) {
+                for (DeclaredType other : getClass(element, kind.annotation)) {
+                    TypeElement otherElement = (TypeElement) other.asElement();
+                    TypeElement target = kind.from ? element : otherElement;
+                    TypeElement source = kind.from ? otherElement : element;
+                    typeSpecBuilder.addMethod(copyMethod(kind, element, target, source));
+                }
+            }
+        }
+
+        String packageName = annotatedClasses(roundEnv, CLONE_FACTORY).stream()
+                .map(element -> getAnnotationValue(element, CLONE_FACTORY, "value"))
+                .flatMap(Optional::stream)
+                .map(value -> (String) value.getValue())
+                .reduce((first, second) -> {
+                    messager.printMessage(Diagnostic.Kind.WARNING, "存在多个@CloneFactory，使用" + second);
+                    return second;
+                })
+                .orElse(DEFAULT_PACKAGE);
+
+        try {
+            JavaFile.builder(packageName, typeSpecBuilder.build()).build().writeTo(processingEnv.getFiler());
+        } catch (Exception e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "生成CloneFactory失败: " + e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * 生成一个copy或copyNotNull方法，按目标类的属性声明顺序逐个赋值
+     * @param kind 注解种类
+     * @param annotated 带注解的类，Exclude/Of写在它的属性上
+     */
+    private MethodSpec copyMethod(Kind kind, TypeElement annotated, TypeElement target, TypeElement source) {
+        String annotationName = kind.annotation.substring(PACKAGE.length() + 1);
+        String other = (kind.from ? source : target).getSimpleName().toString();
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(kind.methodName)
+                .addJavadoc(kind.notNull ? "Copy non-null fields from source to target\n" : "Copy all fields from source to target\n")
+                .addJavadoc("generated by @" + annotationName + "(" + other + ") in {" + annotated.getSimpleName() + "}\n")
+                .addJavadoc("@param target the target object\n")
+                .addJavadoc("@param source the source object\n")
+                .addJavadoc("@return the copied target object\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(TypeName.get(target.asType()))
+                .addParameter(TypeName.get(target.asType()), "target")
+                .addParameter(TypeName.get(source.asType()), "source")
+                .beginControlFlow("if (null == source)")
+                .addStatement("return target")
+                .endControlFlow();
+
+        Map<String, Property> getters = getters(source);
+        DeclaredType otherType = (DeclaredType) (kind.from ? source : target).asType();
+        for (Property setter : setters(target)) {
+            Property getter = getters.get(setter.name);
+            if (getter == null) {
+                continue;
+            }
+            Property annotatedProperty = kind.from ? setter : getter;
+            if (shouldExclude(annotated, annotatedProperty, kind.annotation, otherType)) {
+                continue;
+            }
+            if (!types.isAssignable(getter.type, setter.type)) {
+                messager.printMessage(Diagnostic.Kind.NOTE, String.format("%s.%s(%s)与%s.%s(%s)类型不一致，不拷贝",
+                        source.getSimpleName(), getter.name, getter.type, target.getSimpleName(), setter.name, setter.type), annotated);
+                continue;
+            }
+            if (kind.notNull && !getter.type.getKind().isPrimitive()) {
+                builder.beginControlFlow("if (null != source.$L())", getter.accessor)
+                        .addStatement("target.$L(source.$L())", setter.accessor, getter.accessor)
+                        .endControlFlow();
+            } else {
+                builder.addStatement("target.$L(source.$L())", setter.accessor, getter.accessor);
+            }
+        }
+        return builder.addStatement("return target").build();
+    }
+
+    /**
+     * 类的一个可读或可写属性
+     * @param name 属性名
+     * @param type 属性类型（getter的返回类型或setter的参数类型）
+     * @param accessor getter或setter方法名
+     * @param field 对应的字段，只有getter/setter方法时为null
+     */
+    private record Property(String name, TypeMirror type, String accessor, VariableElement field) {
+    }
+
+    /**
+     * 获取所有可以Get的属性（包括父类），按名称索引
+     * 字段有getter方法或Lombok的@Getter/@Data/@Value注解即可读；没有字段的getter方法也算一个属性
+     */
+    private Map<String, Property> getters(TypeElement type) {
+        Map<String, Property> properties = new LinkedHashMap<>();
+        List<ExecutableElement> methods = getAllMethods(type);
+        for (VariableElement field : getAllFields(type)) {
+            String getterName = getGetterName(field);
+            boolean readable = hasLombok(field, "lombok.Getter", "lombok.Data", "lombok.Value")
+                    || hasLombok(field.getEnclosingElement(), "lombok.Getter", "lombok.Data", "lombok.Value")
+                    || methods.stream().anyMatch(method -> isGetter(method) && method.getSimpleName().contentEquals(getterName));
+            if (readable) {
+                properties.putIfAbsent(field.getSimpleName().toString(),
+                        new Property(field.getSimpleName().toString(), field.asType(), getterName, field));
+            }
+        }
+        methods.stream()
+                .filter(this::isGetter)
+                .filter(method -> method.getSimpleName().toString().startsWith("get"))
+                .forEach(method -> {
+                    String name = decapitalize(method.getSimpleName().toString().substring(3));
+                    properties.putIfAbsent(name, new Property(name, method.getReturnType(), method.getSimpleName().toString(), null));
+                });
+        return properties;
+    }
+
+    /**
+     * 获取所有可以Set的属性（包括父类），按字段声明顺序
+     * 字段有setter方法或Lombok的@Setter/@Data注解即可写；没有字段的setter方法也算一个属性
+     */
+    private List<Property> setters(TypeElement type) {
+        Map<String, Property> properties = new LinkedHashMap<>();
+        List<ExecutableElement> methods = getAllMethods(type);
+        for (VariableElement field : getAllFields(type)) {
+            if (field.getModifiers().contains(Modifier.FINAL)) {
+                continue;
+            }
+            String setterName = getSetterName(field.getSimpleName().toString());
+            boolean writable = hasLombok(field, "lombok.Setter", "lombok.Data")
+                    || hasLombok(field.getEnclosingElement(), "lombok.Setter", "lombok.Data")
+                    || methods.stream().anyMatch(method -> isSetter(method) && method.getSimpleName().contentEquals(setterName));
+            if (writable) {
+                properties.putIfAbsent(field.getSimpleName().toString(),
+                        new Property(field.getSimpleName().toString(), field.asType(), setterName, field));
+            }
+        }
+        methods.stream()
+                .filter(this::isSetter)
+                .forEach(method -> {
+                    String name = decapitalize(method.getSimpleName().toString().substring(3));
+                    properties.putIfAbsent(name, new Property(name, method.getParameters().get(0).asType(),
+                            method.getSimpleName().toString(), null));
+                });
+        return new ArrayList<>(properties.values());
+    }
+
+    /**
+     * 检查属性是否应该被排除
+     * 字段及其getter/setter上的Exclude中有other则排除；有Of且Of中没有other也排除
+     */
+    private boolean shouldExclude(TypeElement annotated, Property property, String annotation, DeclaredType other) {
+        List<Element> elements = new ArrayList<>();
+        if (property.field != null) {
+            elements.add(property.field);
+        }
+        String capitalized = capitalize(property.name);
+        getAllMethods(annotated).stream()
+                .filter(method -> method.getSimpleName().contentEquals("get" + capitalized)
+                        || method.getSimpleName().contentEquals("is" + capitalized)
+                        || method.getSimpleName().contentEquals("set" + capitalized))
+                .forEach(elements::add);
+
+        List<DeclaredType> excludeList = elements.stream()
+                .flatMap(element -> getClass(element, annotation + ".Exclude").stream())
+                .collect(Collectors.toList());
+        List<DeclaredType> ofList = elements.stream()
+                .flatMap(element -> getClass(element, annotation + ".Of").stream())
+                .collect(Collectors.toList());
+        boolean excluded = excludeList.stream().anyMatch(type -> types.isSameType(type, other));
+        boolean notOf = !ofList.isEmpty() && ofList.stream().noneMatch(type -> types.isSameType(type, other));
+        return excluded || notOf;
+    }
+
+    /**
+     * 带指定注解的类，按全限定名排序使生成的代码稳定
+     */
+    private List<TypeElement> annotatedClasses(RoundEnvironment roundEnv, String annotation) {
+        TypeElement annotationElement = processingEnv.getElementUtils().getTypeElement(annotation);
+        if (annotationElement == null) {
+            return List.of();
+        }
+        return roundEnv.getElementsAnnotatedWith(annotationElement).stream()
+                .filter(element -> element.getKind() == ElementKind.CLASS)
+                .map(element -> (TypeElement) element)
+                .sorted(Comparator.comparing(element -> element.getQualifiedName().toString()))
+                .collect(Collectors.toList());
+    }
+
+    // 获取类的所有方法（包括父类，直到Object）
+    private List<ExecutableElement> getAllMethods(TypeElement type) {
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (TypeElement current : hierarchy(type)) {
+            methods.addAll(ElementFilter.methodsIn(current.getEnclosedElements()));
+        }
+        return methods;
+    }
+
+    // 获取类的所有非静态字段（包括父类，直到Object）
+    private List<VariableElement> getAllFields(TypeElement type) {
+        List<VariableElement> fields = new ArrayList<>();
+        for (TypeElement current : hierarchy(type)) {
+            ElementFilter.fieldsIn(current.getEnclosedElements()).stream()
+                    .filter(field -> !field.getModifiers().contains(Modifier.STATIC))
+                    .forEach(fields::add);
+        }
+        return fields;
+    }
+
+    // 从当前类到父类的层次结构，不含Object
+    private List<TypeElement> hierarchy(TypeElement type) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            hierarchy.add(current);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return hierarchy;
+    }
+
+    private boolean isGetter(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        return !method.getModifiers().contains(Modifier.STATIC)
+                && method.getModifiers().contains(Modifier.PUBLIC)
+                && method.getParameters().isEmpty()
+                && method.getReturnType().getKind() != TypeKind.VOID
+                && ((name.startsWith("get") && name.length() > 3) || (name.startsWith("is") && name.length() > 2));
+    }
+
+    private boolean isSetter(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        return !method.getModifiers().contains(Modifier.STATIC)
+                && method.getModifiers().contains(Modifier.PUBLIC)
+                && method.getParameters().size() == 1
+                && name.startsWith("set") && name.length() > 3;
+    }
+
+    // 检查元素（字段或类）是否有指定的Lombok注解
+    private boolean hasLombok(Element element, String... annotations) {
+        Set<String> names = Set.of(annotations);
+        return element.getAnnotationMirrors().stream()
+                .anyMatch(am -> names.contains(am.getAnnotationType().toString()));
+    }
+
+    // 获取元素上注解的值，未写时取默认值
+    private Optional<AnnotationValue> getAnnotationValue(Element element, String annotation, String key) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (mirror.getAnnotationType().toString().equals(annotation)) {
+                return processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet().stream()
+                        .filter(entry -> entry.getKey().getSimpleName().contentEquals(key))
+                        .map(entry -> (AnnotationValue) entry.getValue())
+                        .findFirst();
+            }
+        }
+        return Optional.empty();
+    }
+
+    // 获取注解的value（Class[]），并转换为类型列表
+    @SuppressWarnings("unchecked")
+    private List<DeclaredType> getClass(Element element, String annotation) {
+        return getAnnotationValue(element, annotation, "value")
+                .map(value -> (List<? extends AnnotationValue>) value.getValue())
+                .map(classes -> classes.stream()
+                        .map(clazz -> (DeclaredType) clazz.getValue())
+                        .collect(Collectors.toList()))
+                .orElse(List.of());
+    }
+
+    /**
+     * 字段的getter方法名，与Lombok一致：boolean为isName，其他为getName
+     */
+    private String getGetterName(VariableElement field) {
+        String prefix = field.asType().getKind() == TypeKind.BOOLEAN ? "is" : "get";
+        return prefix + capitalize(field.getSimpleName().toString());
+    }
+
+    private String getSetterName(String fieldName) {
+        return "set" + capitalize(fieldName);
+    }
+
+    private static String capitalize(String name) {
+        return name.substring(0, 1).toUpperCase() + name.substring(1);
+    }
+
+    private static String decapitalize(String name) {
+        return name.substring(0, 1).toLowerCase() + name.substring(1);
+    }
+}
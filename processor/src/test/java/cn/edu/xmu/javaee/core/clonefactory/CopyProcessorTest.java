@@ -0,0 +1,156 @@
+package cn.edu.xmu.javaee.core.clonefactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用javac编译带注解的示例类，检查生成的CloneFactory
+ */
+class CopyProcessorTest {
+
+    private static final String ANNOTATION = """
+            package cn.edu.xmu.javaee.core.clonefactory;
+            import java.lang.annotation.*;
+            @Retention(RetentionPolicy.SOURCE)
+            public @interface %s {
+                %s
+                @Retention(RetentionPolicy.SOURCE) @interface Exclude { Class<?>[] value(); }
+                @Retention(RetentionPolicy.SOURCE) @interface Of { Class<?>[] value(); }
+            }
+            """;
+
+    private static final Map<String, String> SOURCES = Map.of(
+            "cn/edu/xmu/javaee/core/clonefactory/CopyFrom.java", ANNOTATION.formatted("CopyFrom", "Class<?>[] value();"),
+            "cn/edu/xmu/javaee/core/clonefactory/CopyNotNullTo.java", ANNOTATION.formatted("CopyNotNullTo", "Class<?>[] value();"),
+            "cn/edu/xmu/javaee/core/clonefactory/CloneFactory.java", ANNOTATION.formatted("CloneFactory", "String value() default \"\";"),
+            "demo/Po.java", """
+                    package demo;
+                    public class Po {
+                        private Long id; private String name; private Integer status; private boolean deleted;
+                        public Long getId() { return id; } public void setId(Long id) { this.id = id; }
+                        public String getName() { return name; } public void setName(String name) { this.name = name; }
+                        public Integer getStatus() { return status; } public void setStatus(Integer status) { this.status = status; }
+                        public boolean isDeleted() { return deleted; } public void setDeleted(boolean deleted) { this.deleted = deleted; }
+                    }
+                    """,
+            "demo/Bo.java", """
+                    package demo;
+                    import cn.edu.xmu.javaee.core.clonefactory.*;
+                    @CloneFactory("demo.generated")
+                    @CopyFrom(Po.class)
+                    @CopyNotNullTo(Po.class)
+                    public class Bo {
+                        private Long id;
+                        @CopyFrom.Exclude(Po.class) private String name;
+                        private String status;
+                        private boolean deleted;
+                        public Long getId() { return id; } public void setId(Long id) { this.id = id; }
+                        public String getName() { return name; } public void setName(String name) { this.name = name; }
+                        public String getStatus() { return status; } public void setStatus(String status) { this.status = status; }
+                        public boolean isDeleted() { return deleted; } public void setDeleted(boolean deleted) { this.deleted = deleted; }
+                    }
+                    """);
+
+    @TempDir
+    static Path dir;
+    private static ClassLoader loader;
+    private static Class<?> factory;
+
+    @BeforeAll
+    static void compile() throws Exception {
+        Path src = dir.resolve("src");
+        Path out = Files.createDirectories(dir.resolve("out"));
+        for (Map.Entry<String, String> entry : SOURCES.entrySet()) {
+            Path file = src.resolve(entry.getKey());
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, entry.getValue());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromPaths(
+                    SOURCES.keySet().stream().map(src::resolve).toList());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    List.of("-d", out.toString(), "-s", out.toString(), "-implicit:class"), null, units);
+            task.setProcessors(List.of(new CopyProcessor()));
+            assertTrue(task.call(), diagnostics.getDiagnostics().toString());
+        }
+        loader = new URLClassLoader(new URL[]{out.toUri().toURL()});
+        factory = loader.loadClass("demo.generated.CloneFactory");
+    }
+
+    @Test
+    void copyShouldSkipExcludedAndIncompatibleFields() throws Exception {
+        Object po = newInstance("demo.Po");
+        set(po, "setId", Long.class, 1L);
+        set(po, "setName", String.class, "name");
+        set(po, "setStatus", Integer.class, 2);
+        set(po, "setDeleted", boolean.class, true);
+
+        Object bo = invoke("copy", newInstance("demo.Bo"), po);
+
+        assertEquals(1L, get(bo, "getId"));
+        assertNull(get(bo, "getName"));
+        assertNull(get(bo, "getStatus"));
+        assertEquals(true, get(bo, "isDeleted"));
+    }
+
+    @Test
+    void copyNotNullShouldKeepTargetValues() throws Exception {
+        Object bo = newInstance("demo.Bo");
+        set(bo, "setName", String.class, "new");
+        Object po = newInstance("demo.Po");
+        set(po, "setId", Long.class, 1L);
+        set(po, "setName", String.class, "old");
+
+        assertSame(po, invoke("copyNotNull", po, bo));
+        assertEquals(1L, get(po, "getId"));
+        assertEquals("new", get(po, "getName"));
+    }
+
+    @Test
+    void nullSourceShouldReturnTarget() throws Exception {
+        Object bo = newInstance("demo.Bo");
+        Method copy = factory.getMethod("copy", loader.loadClass("demo.Bo"), loader.loadClass("demo.Po"));
+
+        assertSame(bo, copy.invoke(null, bo, null));
+    }
+
+    @Test
+    void generatedSourceShouldNotUseReflection() throws IOException {
+        String generated = Files.readString(dir.resolve("out/demo/generated/CloneFactory.java"));
+
+        assertFalse(generated.contains("reflect"));
+        assertTrue(generated.contains("if (null != source.getName())"));
+    }
+
+    private static Object newInstance(String name) throws Exception {
+        return loader.loadClass(name).getConstructor().newInstance();
+    }
+
+    private static Object invoke(String method, Object target, Object source) throws Exception {
+        return factory.getMethod(method, target.getClass(), source.getClass()).invoke(null, target, source);
+    }
+
+    private static void set(Object object, String setter, Class<?> type, Object value) throws Exception {
+        object.getClass().getMethod(setter, type).invoke(object, value);
+    }
+
+    private static Object get(Object object, String getter) throws Exception {
+        return object.getClass().getMethod(getter).invoke(object);
+    }
+}
@@ -1,14 +1,18 @@
 package cn.edu.xmu.service;
 
+import cn.edu.xmu.javaee.core.clonefactory.CloneFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 服务模块启动类
  */
 @SpringBootApplication(scanBasePackages = {"cn.edu.xmu.service", "cn.edu.xmu.javaee.core"})
 @EnableFeignClients  // 启用OpenFeign
+@EnableScheduling  // 运单发件箱定时扫描
+@CloneFactory("cn.edu.xmu.service.model")  // 编译时生成的PO与领域对象拷贝方法
 public class ServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(ServiceApplication.class, args);
@@ -1,5 +1,6 @@
 package cn.edu.xmu.service.controller;
 
+import cn.edu.xmu.javaee.core.aop.Idempotent;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
 import cn.edu.xmu.javaee.core.model.ReturnObject;
 import cn.edu.xmu.service.controller.dto.CreateServiceOrderRequest;
@@ -27,6 +28,7 @@ public class ServiceOrderInternalController {
      * 创建服务单（内部接口）
      * POST /internal/shops/{shopId}/aftersales/{aftersalesId}/serviceorders
      */
+    @Idempotent
     @PostMapping("/serviceorders")
     public ReturnObject createServiceOrder(
             @PathVariable Long shopId,
@@ -61,6 +63,7 @@ public class ServiceOrderInternalController {
      * 取消服务单（内部接口）
      * DELETE /internal/shops/{shopId}/aftersales/{aftersalesId}/serviceorders/cancel
      */
+    @Idempotent
     @DeleteMapping("/serviceorders/cancel")
     public ReturnObject cancelServiceOrder(
             @PathVariable Long shopId,
@@ -40,21 +40,23 @@ public class ServiceProviderController {
             @RequestParam(value = "serviceprovidername", required = false) String serviceProviderName,
             @RequestParam(value = "providername", required = false) String providerName,
             @RequestParam(value = "servicearea", required = false) String serviceArea,
-            @RequestParam(value = "phone", required = false) String phone) {
+            @RequestParam(value = "phone", required = false) String phone,
+            @RequestParam(value = "cursor", required = false) String cursor) {
 
         int resolvedPage = (page == null || page <= 0) ? 1 : page;
         Integer sizeParam = pageSizeAlias != null ? pageSizeAlias : pageSize;
         int resolvedPageSize = (sizeParam == null || sizeParam <= 0) ? defaultPageSize : sizeParam;
         resolvedPageSize = Math.min(resolvedPageSize, maxPageSize);
 
-        log.info("平台管理员查询服务商变更申请: providerName={}, contactPerson={}, area={}, phone={}, page={}, pageSize={}",
-                serviceProviderName, providerName, serviceArea, phone, resolvedPage, resolvedPageSize);
+        log.info("平台管理员查询服务商变更申请: providerName={}, contactPerson={}, area={}, phone={}, page={}, pageSize={}, cursor={}",
+                serviceProviderName, providerName, serviceArea, phone, resolvedPage, resolvedPageSize, cursor);
 
         return new ReturnObject(serviceProviderService.listDrafts(
                 serviceProviderName,
                 providerName,
                 serviceArea,
                 phone,
+                cursor,
                 resolvedPage,
                 resolvedPageSize));
     }
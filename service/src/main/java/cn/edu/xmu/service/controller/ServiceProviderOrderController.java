@@ -1,5 +1,6 @@
 package cn.edu.xmu.service.controller;
 
+import cn.edu.xmu.javaee.core.aop.Idempotent;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
 import cn.edu.xmu.javaee.core.model.ReturnObject;
 import cn.edu.xmu.service.controller.dto.ConfirmServiceOrderRequest;
@@ -27,6 +28,7 @@ public class ServiceProviderOrderController {
      * 服务商审核服务单
      * PUT /serviceprovider/{did}/serviceorders/{id}/confirm
      */
+    @Idempotent
     @PutMapping("/{id}/confirm")
     public ReturnObject confirmServiceOrder(
             @PathVariable("did") Long serviceProviderId,
@@ -45,6 +47,7 @@ public class ServiceProviderOrderController {
      * 服务商派工
      * PUT /serviceprovider/{did}/serviceorders/{id}/assign
      */
+    @Idempotent
     @PutMapping("/{id}/assign")
     public ReturnObject assignServiceOrder(
             @PathVariable("did") Long serviceProviderId,
@@ -63,6 +66,7 @@ public class ServiceProviderOrderController {
      * 验收寄修商品
      * PUT /serviceprovider/{did}/serviceorders/{id}/receive
      */
+    @Idempotent
     @PutMapping("/{id}/receive")
     public ReturnObject receiveServiceOrder(
             @PathVariable("did") Long serviceProviderId,
@@ -79,6 +83,7 @@ public class ServiceProviderOrderController {
      * 完成服务单
      * PUT /serviceprovider/{did}/serviceorders/{id}/complete
      */
+    @Idempotent
     @PutMapping("/{id}/complete")
     public ReturnObject completeServiceOrder(
             @PathVariable("did") Long serviceProviderId,
@@ -95,6 +100,7 @@ public class ServiceProviderOrderController {
      * 服务商取消服务单
      * DELETE /serviceprovider/{did}/serviceorders/{id}/cancel
      */
+    @Idempotent
     @DeleteMapping("/{id}/cancel")
     public ReturnObject cancelServiceOrder(
             @PathVariable("did") Long serviceProviderId,
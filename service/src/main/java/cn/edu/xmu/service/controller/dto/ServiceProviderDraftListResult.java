@@ -24,6 +24,11 @@ public class ServiceProviderDraftListResult {
     @JsonProperty("pagesize")
     private Integer pageSize;
 
+    /** 列表总数，按查询条件缓存，可能略滞后 */
     private Long total;
+
+    /** 下一页游标，为空表示没有下一页；翻页时作为cursor参数传回 */
+    @JsonProperty("nextcursor")
+    private String nextCursor;
 }
 
@@ -0,0 +1,72 @@
+package cn.edu.xmu.service.dao;
+
+import cn.edu.xmu.service.dao.po.ServiceOrderExpressPo;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 服务单-运单关联Mapper - 对应表 service_order_express
+ * call_status: 0-未调用 1-成功 2-失败 3-调用中
+ */
+@Mapper
+public interface ServiceOrderExpressMapper {
+
+    /**
+     * 关联服务单查询，带出商铺ID（服务商ID，未指定时为1）和服务单是否已取消，cancelled为服务单已取消的状态码
+     */
+    String SELECT_WITH_ORDER = "SELECT e.id, e.service_order_id, e.status, e.contract_id, e.pay_method, e.name, e.mobile, " +
+            "e.region_id, e.address, e.cargo_details, e.express_id, e.bill_code, e.express_status, e.call_status, " +
+            "e.fail_reason, e.retry_count, e.next_retry_time, e.created_at, e.updated_at, " +
+            "COALESCE(o.service_provider_id, 1) AS shop_id, (o.status = #{cancelled}) AS order_cancelled " +
+            "FROM service_order_express e JOIN service_order o ON o.id = e.service_order_id ";
+
+    /**
+     * 登记建单请求
+     */
+    @Insert("INSERT INTO service_order_express (service_order_id, status, contract_id, pay_method, name, mobile, region_id, address, " +
+            "cargo_details, call_status, retry_count, created_at, updated_at) " +
+            "VALUES (#{serviceOrderId}, #{status}, #{contractId}, #{payMethod}, #{name}, #{mobile}, #{regionId}, #{address}, " +
+            "#{cargoDetails}, #{callStatus}, #{retryCount}, #{createdAt}, #{updatedAt})")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int insert(ServiceOrderExpressPo po);
+
+    @Select(SELECT_WITH_ORDER + "WHERE e.id = #{id}")
+    ServiceOrderExpressPo findById(@Param("id") Long id, @Param("cancelled") Integer cancelled);
+
+    /**
+     * 查询可派发的记录：未调用或失败且到了重试时间的，以及调用中但超时未回写的
+     */
+    @Select(SELECT_WITH_ORDER +
+            "WHERE e.status = 'CREATED' AND ((e.call_status IN (0, 2) AND e.retry_count < #{maxRetry} " +
+            "AND (e.next_retry_time IS NULL OR e.next_retry_time <= #{now})) " +
+            "OR (e.call_status = 3 AND e.updated_at < #{staleBefore})) " +
+            "ORDER BY e.id LIMIT #{limit}")
+    List<ServiceOrderExpressPo> findDispatchable(@Param("now") LocalDateTime now,
+                                              @Param("staleBefore") LocalDateTime staleBefore,
+                                              @Param("maxRetry") int maxRetry,
+                                              @Param("limit") int limit,
+                                              @Param("cancelled") Integer cancelled);
+
+    /**
+     * 抢占记录，call_status和updated_at与读到的一致才能置为调用中
+     */
+    @Update("UPDATE service_order_express SET call_status = 3, updated_at = #{now} " +
+            "WHERE id = #{id} AND status = 'CREATED' AND call_status = #{callStatus} AND updated_at = #{updatedAt}")
+    int claim(@Param("id") Long id, @Param("callStatus") Integer callStatus,
+              @Param("updatedAt") LocalDateTime updatedAt, @Param("now") LocalDateTime now);
+
+    @Update("UPDATE service_order_express SET call_status = 1, express_id = #{expressId}, bill_code = #{billCode}, " +
+            "express_status = #{expressStatus}, fail_reason = NULL, updated_at = #{now} WHERE id = #{id} AND call_status = 3")
+    int markSuccess(@Param("id") Long id, @Param("expressId") Long expressId, @Param("billCode") String billCode,
+                    @Param("expressStatus") Integer expressStatus, @Param("now") LocalDateTime now);
+
+    @Update("UPDATE service_order_express SET call_status = 2, retry_count = retry_count + 1, fail_reason = #{failReason}, " +
+            "next_retry_time = #{nextRetryTime}, updated_at = #{now} WHERE id = #{id} AND call_status = 3")
+    int markFailed(@Param("id") Long id, @Param("failReason") String failReason,
+                   @Param("nextRetryTime") LocalDateTime nextRetryTime, @Param("now") LocalDateTime now);
+
+    @Update("UPDATE service_order_express SET status = 'CANCELED', updated_at = #{now} WHERE id = #{id}")
+    int markCanceled(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
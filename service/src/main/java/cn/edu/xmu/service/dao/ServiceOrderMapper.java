@@ -9,6 +9,19 @@ import org.apache.ibatis.annotations.*;
 @Mapper
 public interface ServiceOrderMapper {
 
+    /**
+     * 查询服务单时取的列，与serviceOrderResult一一对应
+     */
+    String COLUMNS = "id, type, consignee, address, mobile, status, description, service_staff_id, service_provider_id, " +
+            "service_contract_id, service_id, customer_id, region_id, product_id, aftersale_id, express_id, " +
+            "return_express_id, created_at, updated_at";
+
+    /**
+     * 取消服务单时取的列，只含取消策略和条件更新用到的
+     */
+    String CANCEL_COLUMNS = "id, type, status, consignee, address, mobile, service_staff_id, service_provider_id, " +
+            "region_id, product_id, aftersale_id, express_id, return_express_id";
+
     /**
      * 插入服务单
      */
@@ -24,8 +37,8 @@ public interface ServiceOrderMapper {
     /**
      * 根据ID查询服务单
      */
-    @Select("SELECT * FROM service_order WHERE id = #{id}")
-    @Results({
+    @Select("SELECT " + COLUMNS + " FROM service_order WHERE id = #{id}")
+    @Results(id = "serviceOrderResult", value = {
             @Result(property = "id", column = "id"),
             @Result(property = "type", column = "type"),
             @Result(property = "consignee", column = "consignee"),
@@ -49,42 +62,51 @@ public interface ServiceOrderMapper {
     ServiceOrderPo findById(@Param("id") Long id);
 
     /**
-     * 根据售后单ID查询服务单
+     * 根据售后单ID查询取消用的服务单，走唯一索引uk_service_order_aftersale_id，最多一行
      */
-    @Select("SELECT * FROM service_order WHERE aftersale_id = #{aftersaleId}")
-    @Results({
-            @Result(property = "id", column = "id"),
-            @Result(property = "type", column = "type"),
-            @Result(property = "consignee", column = "consignee"),
-            @Result(property = "address", column = "address"),
-            @Result(property = "mobile", column = "mobile"),
-            @Result(property = "status", column = "status"),
-            @Result(property = "description", column = "description"),
-            @Result(property = "serviceStaffId", column = "service_staff_id"),
-            @Result(property = "serviceProviderId", column = "service_provider_id"),
-            @Result(property = "serviceContractId", column = "service_contract_id"),
-            @Result(property = "serviceId", column = "service_id"),
-            @Result(property = "customerId", column = "customer_id"),
-            @Result(property = "regionId", column = "region_id"),
-            @Result(property = "productId", column = "product_id"),
-            @Result(property = "aftersaleId", column = "aftersale_id"),
-            @Result(property = "expressId", column = "express_id"),
-            @Result(property = "returnExpressId", column = "return_express_id"),
-            @Result(property = "createdAt", column = "created_at"),
-            @Result(property = "updatedAt", column = "updated_at")
-    })
-    ServiceOrderPo findByAftersaleId(@Param("aftersaleId") Long aftersaleId);
+    @Select("SELECT " + CANCEL_COLUMNS + " FROM service_order WHERE aftersale_id = #{aftersaleId}")
+    @ResultMap("serviceOrderResult")
+    ServiceOrderPo findByAftersaleIdForCancel(@Param("aftersaleId") Long aftersaleId);
+
+    /**
+     * 根据售后单ID查询服务单ID，只读唯一索引不回表
+     */
+    @Select("SELECT id FROM service_order WHERE aftersale_id = #{aftersaleId}")
+    Long findIdByAftersaleId(@Param("aftersaleId") Long aftersaleId);
 
     /**
      * 更新服务单
+     * dirtyFields不为null时只写其中的列（领域对象与载入时相比改动过的），为null时写全部可更新的列
+     * express_id 可能已由运单发件箱异步回填，内存中为null时保留库里的值
+     * expectedStatus 不为null时只在库里的状态仍为该值时更新（比较并交换），被并发修改时返回0
      */
-    @Update("UPDATE service_order SET type = #{type}, consignee = #{consignee}, address = #{address}, " +
-            "mobile = #{mobile}, status = #{status}, description = #{description}, " +
-            "service_staff_id = #{serviceStaffId}, service_provider_id = #{serviceProviderId}, " +
-            "service_contract_id = #{serviceContractId}, service_id = #{serviceId}, " +
-            "customer_id = #{customerId}, region_id = #{regionId}, product_id = #{productId}, " +
-            "aftersale_id = #{aftersaleId}, express_id = #{expressId}, return_express_id = #{returnExpressId}, updated_at = #{updatedAt} " +
-            "WHERE id = #{id}")
+    @Update({"<script>",
+            "UPDATE service_order <set>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('type')\">type = #{type},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('consignee')\">consignee = #{consignee},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('address')\">address = #{address},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('mobile')\">mobile = #{mobile},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('status')\">status = #{status},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('description')\">description = #{description},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('serviceStaffId')\">service_staff_id = #{serviceStaffId},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('serviceProviderId')\">service_provider_id = #{serviceProviderId},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('serviceContractId')\">service_contract_id = #{serviceContractId},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('serviceId')\">service_id = #{serviceId},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('customerId')\">customer_id = #{customerId},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('regionId')\">region_id = #{regionId},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('productId')\">product_id = #{productId},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('aftersaleId')\">aftersale_id = #{aftersaleId},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('expressId')\">express_id = COALESCE(#{expressId}, express_id),</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('returnExpressId')\">return_express_id = #{returnExpressId},</if>",
+            "<if test=\"dirtyFields == null or dirtyFields.contains('updatedAt')\">updated_at = #{updatedAt},</if>",
+            "</set> WHERE id = #{id}",
+            "<if test='expectedStatus != null'>AND status = #{expectedStatus}</if>",
+            "</script>"})
     int updateStatus(ServiceOrderPo po);
-}
 
+    /**
+     * 回填异步创建的运单ID，服务单已取消或已有运单时不更新
+     */
+    @Update("UPDATE service_order SET express_id = #{expressId} WHERE id = #{id} AND express_id IS NULL AND status <> #{cancelled}")
+    int fillExpressId(@Param("id") Long id, @Param("expressId") Long expressId, @Param("cancelled") Integer cancelled);
+}
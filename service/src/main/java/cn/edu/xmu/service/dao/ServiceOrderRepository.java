@@ -2,10 +2,13 @@ package cn.edu.xmu.service.dao;
 
 import cn.edu.xmu.javaee.core.exception.BusinessException;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.TwoLevelCache;
 import cn.edu.xmu.service.dao.po.ServiceOrderPo;
 import cn.edu.xmu.service.model.ServiceOrder;
+import cn.edu.xmu.service.model.ServiceOrderStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -16,13 +19,17 @@ import org.springframework.stereotype.Repository;
 @RequiredArgsConstructor
 public class ServiceOrderRepository {
 
+    private static final Integer CANCELLED = ServiceOrder.convertStatusToInt(ServiceOrderStatus.CANCELED);
+
     private final ServiceOrderMapper mapper;
+    private final TwoLevelCache<ServiceOrderPo> cache;
 
     /**
      * 根据ID查询服务单
+     * 经两级缓存读取，所有写操作都会失效对应ID
      */
     public ServiceOrder findById(Long id) {
-        ServiceOrderPo po = mapper.findById(id);
+        ServiceOrderPo po = cache.get(String.valueOf(id), key -> mapper.findById(id));
         if (po == null) {
             throw new BusinessException(ReturnNo.RESOURCE_NOT_FOUND, "服务单不存在");
         }
@@ -31,36 +38,74 @@ public class ServiceOrderRepository {
 
     /**
      * 保存服务单
+     * 从数据库载入的服务单按载入时的状态做条件更新，期间被其他请求改过状态则抛出SERVICE_ORDER_STATE_CONFLICT，
+     * 由调用方事务回滚，不加行锁；只写与载入时相比改动过的列，没有改动时不访问数据库
      */
     public void save(ServiceOrder order) {
         ServiceOrderPo po = order.toPo();
+        if (po.getDirtyFields() != null && po.getDirtyFields().isEmpty()) {
+            log.debug("服务单没有改动，不更新: id={}", order.getId());
+            return;
+        }
         int rows = mapper.updateStatus(po);
+        cache.evict(String.valueOf(order.getId()));
         if (rows == 0) {
+            if (po.getExpectedStatus() != null && mapper.findById(order.getId()) != null) {
+                log.warn("服务单状态已被并发修改: id={}, expected={}", order.getId(), order.getPersistedStatus());
+                throw new BusinessException(ReturnNo.SERVICE_ORDER_STATE_CONFLICT,
+                        String.format("服务单(id=%d)状态已被修改，请刷新后重试", order.getId()));
+            }
             throw new BusinessException(ReturnNo.RESOURCE_NOT_FOUND, "服务单不存在");
         }
+        order.markPersisted();
         log.info("服务单更新成功: id={}, status={}", order.getId(), order.getStatus());
     }
 
     /**
      * 创建服务单
+     * 每个售后单只有一张服务单（aftersale_id唯一），重复创建时不插入，返回已有服务单的ID，
+     * 售后模块重试创建请求是幂等的
      */
     public ServiceOrder create(ServiceOrder order) {
         ServiceOrderPo po = order.toPo();
-        mapper.insert(po);
+        try {
+            mapper.insert(po);
+        } catch (DuplicateKeyException e) {
+            Long id = mapper.findIdByAftersaleId(order.getAftersaleId());
+            if (id == null) {
+                throw e;
+            }
+            order.setId(id);
+            log.info("售后单已有服务单，不重复创建: aftersaleId={}, id={}", order.getAftersaleId(), id);
+            return order;
+        }
         order.setId(po.getId());
         log.info("服务单创建成功: id={}", po.getId());
         return order;
     }
 
     /**
-     * 根据售后单ID查询服务单
+     * 根据售后单ID查询要取消的服务单
+     * 只载入取消策略用到的列，其余属性为null；不经缓存，保存时只写改动过的列，不会把未载入的列写成null
      */
-    public ServiceOrder findByAftersaleId(Long aftersaleId) {
-        ServiceOrderPo po = mapper.findByAftersaleId(aftersaleId);
+    public ServiceOrder findByAftersaleIdForCancel(Long aftersaleId) {
+        ServiceOrderPo po = mapper.findByAftersaleIdForCancel(aftersaleId);
         if (po == null) {
             return null;
         }
         return ServiceOrder.fromPo(po);
     }
-}
 
+    /**
+     * 回填异步创建的运单ID
+     * @return 服务单已取消或已有运单时返回false
+     */
+    public boolean fillExpressId(Long id, Long expressId) {
+        boolean filled = mapper.fillExpressId(id, expressId, CANCELLED) > 0;
+        if (filled) {
+            cache.evict(String.valueOf(id));
+        }
+        log.info("服务单运单回填: id={}, expressId={}, filled={}", id, expressId, filled);
+        return filled;
+    }
+}
@@ -3,6 +3,7 @@ package cn.edu.xmu.service.dao;
 import cn.edu.xmu.service.dao.po.ServiceProviderDraftPo;
 import org.apache.ibatis.annotations.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -11,10 +12,16 @@ import java.util.List;
 @Mapper
 public interface ServiceProviderDraftMapper {
 
+    /**
+     * 查询草稿时取的列，与draftResult一一对应
+     */
+    String COLUMNS = "id, service_provider_id, provider_name, contact_person, contact_phone, address, status, opinion, " +
+            "created_at, updated_at";
+
     /**
      * 根据ID查询草稿
      */
-    @Select("SELECT * FROM service_provider_draft WHERE id = #{id}")
+    @Select("SELECT " + COLUMNS + " FROM service_provider_draft WHERE id = #{id}")
     @Results(id = "draftResult", value = {
             @Result(property = "id", column = "id"),
             @Result(property = "serviceProviderId", column = "service_provider_id"),
@@ -30,24 +37,44 @@ public interface ServiceProviderDraftMapper {
     ServiceProviderDraftPo findById(@Param("id") Long id);
 
     /**
-     * 条件查询草稿列表（分页）
+     * 草稿列表的过滤条件
+     * 两个字及以上的关键字走ngram全文索引的短语匹配（等价于子串匹配）；单个字低于ngram长度，退回LIKE
+     * 全文索引须在关闭停用词（innodb_ft_enable_stopword=OFF）时创建，否则含a、i等字母的英文关键字匹配不到，见service_db(1).sql
      */
-    @Select("<script>" +
-            "SELECT * FROM service_provider_draft " +
-            "WHERE 1=1 " +
+    String SEARCH_FILTER =
             "<if test='providerName != null and providerName != \"\"'> " +
-            "AND provider_name LIKE CONCAT('%', #{providerName}, '%') " +
+            "<choose><when test='providerName.length() &gt; 1'>" +
+            "AND MATCH(provider_name) AGAINST(CONCAT('\"', #{providerName}, '\"') IN BOOLEAN MODE) " +
+            "</when><otherwise>AND provider_name LIKE CONCAT('%', #{providerName}, '%') </otherwise></choose>" +
             "</if> " +
             "<if test='contactPerson != null and contactPerson != \"\"'> " +
-            "AND contact_person LIKE CONCAT('%', #{contactPerson}, '%') " +
+            "<choose><when test='contactPerson.length() &gt; 1'>" +
+            "AND MATCH(contact_person) AGAINST(CONCAT('\"', #{contactPerson}, '\"') IN BOOLEAN MODE) " +
+            "</when><otherwise>AND contact_person LIKE CONCAT('%', #{contactPerson}, '%') </otherwise></choose>" +
             "</if> " +
             "<if test='contactPhone != null and contactPhone != \"\"'> " +
-            "AND contact_phone LIKE CONCAT('%', #{contactPhone}, '%') " +
+            "<choose><when test='contactPhone.length() &gt; 1'>" +
+            "AND MATCH(contact_phone) AGAINST(CONCAT('\"', #{contactPhone}, '\"') IN BOOLEAN MODE) " +
+            "</when><otherwise>AND contact_phone LIKE CONCAT('%', #{contactPhone}, '%') </otherwise></choose>" +
             "</if> " +
             "<if test='serviceArea != null and serviceArea != \"\"'> " +
-            "AND address LIKE CONCAT('%', #{serviceArea}, '%') " +
+            "<choose><when test='serviceArea.length() &gt; 1'>" +
+            "AND MATCH(address) AGAINST(CONCAT('\"', #{serviceArea}, '\"') IN BOOLEAN MODE) " +
+            "</when><otherwise>AND address LIKE CONCAT('%', #{serviceArea}, '%') </otherwise></choose>" +
+            "</if> ";
+
+    /**
+     * 条件查询草稿列表，按创建时间、ID倒序
+     * 给出游标时从游标之后继续取（keyset），offset只用于不带游标的浅翻页
+     */
+    @Select("<script>" +
+            "SELECT " + COLUMNS + " FROM service_provider_draft " +
+            "WHERE 1=1 " +
+            SEARCH_FILTER +
+            "<if test='cursorTime != null'> " +
+            "AND (created_at &lt; #{cursorTime} OR (created_at = #{cursorTime} AND id &lt; #{cursorId})) " +
             "</if> " +
-            "ORDER BY created_at DESC " +
+            "ORDER BY created_at DESC, id DESC " +
             "LIMIT #{limit} OFFSET #{offset}" +
             "</script>")
     @ResultMap("draftResult")
@@ -55,6 +82,8 @@ public interface ServiceProviderDraftMapper {
                                         @Param("contactPerson") String contactPerson,
                                         @Param("contactPhone") String contactPhone,
                                         @Param("serviceArea") String serviceArea,
+                                        @Param("cursorTime") LocalDateTime cursorTime,
+                                        @Param("cursorId") Long cursorId,
                                         @Param("offset") int offset,
                                         @Param("limit") int limit);
 
@@ -64,18 +93,7 @@ public interface ServiceProviderDraftMapper {
     @Select("<script>" +
             "SELECT COUNT(*) FROM service_provider_draft " +
             "WHERE 1=1 " +
-            "<if test='providerName != null and providerName != \"\"'> " +
-            "AND provider_name LIKE CONCAT('%', #{providerName}, '%') " +
-            "</if> " +
-            "<if test='contactPerson != null and contactPerson != \"\"'> " +
-            "AND contact_person LIKE CONCAT('%', #{contactPerson}, '%') " +
-            "</if> " +
-            "<if test='contactPhone != null and contactPhone != \"\"'> " +
-            "AND contact_phone LIKE CONCAT('%', #{contactPhone}, '%') " +
-            "</if> " +
-            "<if test='serviceArea != null and serviceArea != \"\"'> " +
-            "AND address LIKE CONCAT('%', #{serviceArea}, '%') " +
-            "</if> " +
+            SEARCH_FILTER +
             "</script>")
     long count(@Param("providerName") String providerName,
                @Param("contactPerson") String contactPerson,
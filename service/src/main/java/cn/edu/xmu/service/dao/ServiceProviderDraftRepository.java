@@ -1,13 +1,17 @@
 package cn.edu.xmu.service.dao;
 
 import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.PageCursor;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
 import cn.edu.xmu.service.dao.po.ServiceProviderDraftPo;
 import cn.edu.xmu.service.model.ServiceProviderDraft;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -18,8 +22,16 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ServiceProviderDraftRepository {
 
+    /** 列表总数的缓存时间 */
+    private static final Duration COUNT_TIMEOUT = Duration.ofSeconds(60);
+
     private final ServiceProviderDraftMapper mapper;
 
+    private final Cache<String, Long> countCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(COUNT_TIMEOUT)
+            .build();
+
     /**
      * 根据ID查询草稿
      */
@@ -49,6 +61,7 @@ public class ServiceProviderDraftRepository {
     public ServiceProviderDraft create(ServiceProviderDraft draft) {
         ServiceProviderDraftPo po = draft.toPo();
         mapper.insert(po);
+        countCache.invalidateAll();
         draft.setId(po.getId());
         log.info("服务商草稿创建成功: id={}", po.getId());
         return draft;
@@ -56,13 +69,13 @@ public class ServiceProviderDraftRepository {
 
     /**
      * 条件查询草稿列表
+     * @param after 上一页最后一条的游标，为null时从offset开始取
      */
     public List<ServiceProviderDraft> search(String providerName, String contactPerson, String contactPhone,
-                                             String serviceArea, int page, int pageSize) {
-        int safePage = Math.max(page, 1);
-        int safePageSize = Math.max(pageSize, 1);
-        int offset = (safePage - 1) * safePageSize;
-        return mapper.search(providerName, contactPerson, contactPhone, serviceArea, offset, safePageSize)
+                                             String serviceArea, PageCursor after, int offset, int limit) {
+        return mapper.search(normalize(providerName), normalize(contactPerson), normalize(contactPhone),
+                        normalize(serviceArea), after == null ? null : after.getCreatedAt(),
+                        after == null ? null : after.getId(), Math.max(offset, 0), Math.max(limit, 1))
                 .stream()
                 .map(ServiceProviderDraft::fromPo)
                 .toList();
@@ -70,9 +83,25 @@ public class ServiceProviderDraftRepository {
 
     /**
      * 统计查询结果数
+     * 同一组条件的结果在COUNT_TIMEOUT内复用，翻页时不再重复统计；新建草稿时清空
      */
     public long count(String providerName, String contactPerson, String contactPhone, String serviceArea) {
-        return mapper.count(providerName, contactPerson, contactPhone, serviceArea);
+        String name = normalize(providerName);
+        String person = normalize(contactPerson);
+        String phone = normalize(contactPhone);
+        String area = normalize(serviceArea);
+        return countCache.get(String.join("\u0001", String.valueOf(name), String.valueOf(person),
+                String.valueOf(phone), String.valueOf(area)), key -> mapper.count(name, person, phone, area));
     }
-}
 
+    /**
+     * 去掉首尾空白和双引号（双引号会结束全文检索的短语），空串视为不过滤
+     */
+    private static String normalize(String term) {
+        if (term == null) {
+            return null;
+        }
+        String value = term.replace("\"", "").trim();
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -1,14 +1,17 @@
 package cn.edu.xmu.service.dao.po;
 
 import lombok.Data;
+
+import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.Set;
 
 /**
  * 服务单持久化对象 - 对应数据库表 service_order
  * 注意：数据库字段是 created_at/updated_at，status是INT类型
  */
 @Data
-public class ServiceOrderPo {
+public class ServiceOrderPo implements Serializable {
     private Long id;
     private Integer type; // 服务方式：0-上门服务，1-寄件服务
     private String consignee; // 联系人姓名
@@ -28,5 +31,7 @@ public class ServiceOrderPo {
     private Long returnExpressId; // 返件运单ID
     private LocalDateTime createdAt; // 对应数据库 created_at
     private LocalDateTime updatedAt; // 对应数据库 updated_at
+    private Integer expectedStatus; // 条件更新时期望的原状态，不是表字段；为null时不做状态比较
+    private Set<String> dirtyFields; // 条件更新时要写的属性，不是表字段；为null时写全部可更新的列
 }
 
@@ -1,14 +1,25 @@
 package cn.edu.xmu.service.model;
 
+import cn.edu.xmu.javaee.core.clonefactory.CopyFrom;
+import cn.edu.xmu.javaee.core.clonefactory.CopyTo;
 import cn.edu.xmu.javaee.core.exception.BusinessException;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.model.Stateful;
 import cn.edu.xmu.service.dao.po.ServiceOrderPo;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * 服务单领域对象
@@ -17,7 +28,9 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class ServiceOrder {
+@CopyFrom(ServiceOrderPo.class)
+@CopyTo(ServiceOrderPo.class)
+public class ServiceOrder implements Stateful {
     
     private Long id;
     private Integer type; // 服务方式：0-上门服务，1-寄件服务
@@ -38,64 +51,92 @@ public class ServiceOrder {
     private Long returnExpressId; // 返件运单ID
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private ServiceOrderStatus persistedStatus; // 从数据库载入时的状态，保存时以此做条件更新
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private ServiceOrderPo loaded; // 从数据库载入（或上次保存）时的PO，保存时与之比较只写改动过的列
 
     /**
      * 从PO构建领域对象
+     * 同名属性由编译时生成的CloneFactory拷贝，状态码在这里转换
      */
     public static ServiceOrder fromPo(ServiceOrderPo po) {
         if (po == null) {
             return null;
         }
-        return ServiceOrder.builder()
-                .id(po.getId())
-                .type(po.getType())
-                .consignee(po.getConsignee())
-                .address(po.getAddress())
-                .mobile(po.getMobile())
-                .status(convertStatusFromInt(po.getStatus()))
-                .description(po.getDescription())
-                .serviceStaffId(po.getServiceStaffId())
-                .serviceProviderId(po.getServiceProviderId())
-                .serviceContractId(po.getServiceContractId())
-                .serviceId(po.getServiceId())
-                .customerId(po.getCustomerId())
-                .regionId(po.getRegionId())
-                .productId(po.getProductId())
-                .aftersaleId(po.getAftersaleId())
-                .expressId(po.getExpressId())
-                .returnExpressId(po.getReturnExpressId())
-                .createdAt(po.getCreatedAt())
-                .updatedAt(po.getUpdatedAt())
-                .build();
+        ServiceOrder serviceOrder = CloneFactory.copy(new ServiceOrder(), po);
+        serviceOrder.status = convertStatusFromInt(po.getStatus());
+        serviceOrder.persistedStatus = serviceOrder.status;
+        serviceOrder.loaded = po;
+        return serviceOrder;
     }
 
     /**
      * 转换为PO
      */
     public ServiceOrderPo toPo() {
-        ServiceOrderPo po = new ServiceOrderPo();
-        po.setId(this.id);
-        po.setType(this.type);
-        po.setConsignee(this.consignee);
-        po.setAddress(this.address);
-        po.setMobile(this.mobile);
+        ServiceOrderPo po = CloneFactory.copy(new ServiceOrderPo(), this);
         po.setStatus(convertStatusToInt(this.status));
-        po.setDescription(this.description);
-        po.setServiceStaffId(this.serviceStaffId);
-        po.setServiceProviderId(this.serviceProviderId);
-        po.setServiceContractId(this.serviceContractId);
-        po.setServiceId(this.serviceId);
-        po.setCustomerId(this.customerId);
-        po.setRegionId(this.regionId);
-        po.setProductId(this.productId);
-        po.setAftersaleId(this.aftersaleId);
-        po.setExpressId(this.expressId);
-        po.setReturnExpressId(this.returnExpressId);
-        po.setCreatedAt(this.createdAt);
-        po.setUpdatedAt(this.updatedAt);
+        po.setExpectedStatus(this.persistedStatus == null ? null : convertStatusToInt(this.persistedStatus));
+        po.setDirtyFields(dirtyFields(po));
         return po;
     }
 
+    /**
+     * 与载入时相比改动过的可更新属性，不是从数据库载入的返回null
+     */
+    private Set<String> dirtyFields(ServiceOrderPo po) {
+        if (this.loaded == null) {
+            return null;
+        }
+        Set<String> dirty = new HashSet<>();
+        markIfChanged(dirty, "type", po.getType(), loaded.getType());
+        markIfChanged(dirty, "consignee", po.getConsignee(), loaded.getConsignee());
+        markIfChanged(dirty, "address", po.getAddress(), loaded.getAddress());
+        markIfChanged(dirty, "mobile", po.getMobile(), loaded.getMobile());
+        markIfChanged(dirty, "status", po.getStatus(), loaded.getStatus());
+        markIfChanged(dirty, "description", po.getDescription(), loaded.getDescription());
+        markIfChanged(dirty, "serviceStaffId", po.getServiceStaffId(), loaded.getServiceStaffId());
+        markIfChanged(dirty, "serviceProviderId", po.getServiceProviderId(), loaded.getServiceProviderId());
+        markIfChanged(dirty, "serviceContractId", po.getServiceContractId(), loaded.getServiceContractId());
+        markIfChanged(dirty, "serviceId", po.getServiceId(), loaded.getServiceId());
+        markIfChanged(dirty, "customerId", po.getCustomerId(), loaded.getCustomerId());
+        markIfChanged(dirty, "regionId", po.getRegionId(), loaded.getRegionId());
+        markIfChanged(dirty, "productId", po.getProductId(), loaded.getProductId());
+        markIfChanged(dirty, "aftersaleId", po.getAftersaleId(), loaded.getAftersaleId());
+        markIfChanged(dirty, "expressId", po.getExpressId(), loaded.getExpressId());
+        markIfChanged(dirty, "returnExpressId", po.getReturnExpressId(), loaded.getReturnExpressId());
+        markIfChanged(dirty, "updatedAt", po.getUpdatedAt(), loaded.getUpdatedAt());
+        return dirty;
+    }
+
+    private static void markIfChanged(Set<String> dirty, String field, Object current, Object loaded) {
+        if (!Objects.equals(current, loaded)) {
+            dirty.add(field);
+        }
+    }
+
+    /**
+     * 保存成功后，当前状态即为数据库中的状态
+     */
+    public void markPersisted() {
+        this.persistedStatus = this.status;
+        this.loaded = toPo();
+    }
+
+    /** 从载入时的状态到当前状态的迁移，由DaoAspect计入state.transitions */
+    @Override
+    public Transition transition() {
+        if (this.status == null || this.status == this.persistedStatus) {
+            return null;
+        }
+        ServiceOrderType serviceOrderType = ServiceOrderType.ofCode(this.type);
+        return new Transition("service_order", serviceOrderType == null ? "UNKNOWN" : serviceOrderType.name(),
+                this.persistedStatus == null ? "NEW" : this.persistedStatus.name(), this.status.name());
+    }
+
     /**
      * 将数据库状态码转换为状态枚举
      */
@@ -119,7 +160,7 @@ public class ServiceOrder {
     /**
      * 将状态枚举转换为数据库状态码
      */
-    private static Integer convertStatusToInt(ServiceOrderStatus status) {
+    public static Integer convertStatusToInt(ServiceOrderStatus status) {
         if (status == null) {
             return 0;
         }
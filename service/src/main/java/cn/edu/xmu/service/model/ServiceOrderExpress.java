@@ -0,0 +1,134 @@
+package cn.edu.xmu.service.model;
+
+import cn.edu.xmu.service.client.dto.CreatePackageRequest;
+import cn.edu.xmu.service.dao.po.ServiceOrderExpressPo;
+import cn.edu.xmu.javaee.core.util.JacksonUtil;
+import cn.edu.xmu.javaee.core.util.OutboxDispatcher;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 服务单运单发件箱记录
+ * 寄修派工事务内登记建单请求，提交后由后台派发器调用物流模块创建运单并回填结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServiceOrderExpress implements OutboxDispatcher.Record {
+
+    private Long id;
+    private Long serviceOrderId;
+    private Long shopId;
+    private String status;
+    private CreatePackageRequest request;
+    private Long expressId;
+    private String billCode;
+    private Integer expressStatus;
+    private Integer callStatus;
+    private String failReason;
+    private Integer retryCount;
+    private LocalDateTime nextRetryTime;
+    /** 所属服务单是否已取消 */
+    private boolean orderCancelled;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    /**
+     * 为服务单登记一条待派发的建单请求
+     */
+    public static ServiceOrderExpress of(ServiceOrder order, CreatePackageRequest request) {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        return ServiceOrderExpress.builder()
+                .serviceOrderId(order.getId())
+                .shopId(order.getServiceProviderId() != null ? order.getServiceProviderId() : 1L)
+                .status(STATUS_CREATED)
+                .request(request)
+                .callStatus(CALL_PENDING)
+                .retryCount(0)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    /**
+     * 从PO构建领域对象
+     */
+    public static ServiceOrderExpress fromPo(ServiceOrderExpressPo po) {
+        if (po == null) {
+            return null;
+        }
+        CreatePackageRequest request = CreatePackageRequest.builder()
+                .contractId(po.getContractId())
+                .payMethod(po.getPayMethod())
+                .address(CreatePackageRequest.AddressInfo.builder()
+                        .name(po.getName())
+                        .mobile(po.getMobile())
+                        .regionId(po.getRegionId())
+                        .address(po.getAddress())
+                        .build())
+                .cargoDetails(parseCargoDetails(po.getCargoDetails()))
+                .build();
+        return ServiceOrderExpress.builder()
+                .id(po.getId())
+                .serviceOrderId(po.getServiceOrderId())
+                .shopId(po.getShopId())
+                .status(po.getStatus())
+                .request(request)
+                .expressId(po.getExpressId())
+                .billCode(po.getBillCode())
+                .expressStatus(po.getExpressStatus())
+                .callStatus(po.getCallStatus())
+                .failReason(po.getFailReason())
+                .retryCount(po.getRetryCount())
+                .nextRetryTime(po.getNextRetryTime())
+                .orderCancelled(Boolean.TRUE.equals(po.getOrderCancelled()))
+                .createdAt(po.getCreatedAt())
+                .updatedAt(po.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * 转换为PO
+     */
+    public ServiceOrderExpressPo toPo() {
+        ServiceOrderExpressPo po = new ServiceOrderExpressPo();
+        po.setId(this.id);
+        po.setServiceOrderId(this.serviceOrderId);
+        po.setStatus(this.status);
+        if (this.request != null) {
+            po.setContractId(this.request.getContractId());
+            po.setPayMethod(this.request.getPayMethod());
+            CreatePackageRequest.AddressInfo address = this.request.getAddress();
+            if (address != null) {
+                po.setName(address.getName());
+                po.setMobile(address.getMobile());
+                po.setRegionId(address.getRegionId());
+                po.setAddress(address.getAddress());
+            }
+            po.setCargoDetails(JacksonUtil.toJson(this.request.getCargoDetails()));
+        }
+        po.setExpressId(this.expressId);
+        po.setBillCode(this.billCode);
+        po.setExpressStatus(this.expressStatus);
+        po.setCallStatus(this.callStatus);
+        po.setFailReason(this.failReason);
+        po.setRetryCount(this.retryCount);
+        po.setNextRetryTime(this.nextRetryTime);
+        po.setCreatedAt(this.createdAt);
+        po.setUpdatedAt(this.updatedAt);
+        return po;
+    }
+
+    private static List<CreatePackageRequest.CargoDetail> parseCargoDetails(String json) {
+        CreatePackageRequest.CargoDetail[] details = JacksonUtil.toObj(json, CreatePackageRequest.CargoDetail[].class);
+        return details == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(details));
+    }
+}
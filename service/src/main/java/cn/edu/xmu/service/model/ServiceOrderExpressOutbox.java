@@ -0,0 +1,16 @@
+package cn.edu.xmu.service.model;
+
+import cn.edu.xmu.service.client.dto.CreatePackageRequest;
+
+/**
+ * 服务单运单发件箱
+ * 策略只在当前事务内登记建单请求，事务提交后再异步创建运单并回填服务单express_id
+ */
+public interface ServiceOrderExpressOutbox {
+
+    /**
+     * 登记建单请求
+     * @return 发件箱记录ID
+     */
+    Long enqueue(ServiceOrder order, CreatePackageRequest request);
+}
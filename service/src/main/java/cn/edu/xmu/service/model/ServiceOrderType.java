@@ -16,12 +16,36 @@ public enum ServiceOrderType {
     private final Integer code;
     private final String description;
 
+    /** 按code下标索引的类型表 */
+    private static final ServiceOrderType[] BY_CODE;
+
+    static {
+        ServiceOrderType[] values = values();
+        int max = 0;
+        for (ServiceOrderType type : values) {
+            max = Math.max(max, type.getCode());
+        }
+        BY_CODE = new ServiceOrderType[max + 1];
+        for (ServiceOrderType type : values) {
+            BY_CODE[type.getCode()] = type;
+        }
+    }
+
     public static ServiceOrderType valueOf(Integer code) {
-        for (ServiceOrderType type : values()) {
-            if (type.getCode().equals(code)) {
-                return type;
-            }
+        ServiceOrderType type = ofCode(code);
+        if (type == null) {
+            throw new IllegalArgumentException("未知的服务类型: " + code);
+        }
+        return type;
+    }
+
+    /**
+     * 按code取类型，未知code返回null
+     */
+    public static ServiceOrderType ofCode(Integer code) {
+        if (code == null || code < 0 || code >= BY_CODE.length) {
+            return null;
         }
-        throw new IllegalArgumentException("未知的服务类型: " + code);
+        return BY_CODE[code];
     }
 }
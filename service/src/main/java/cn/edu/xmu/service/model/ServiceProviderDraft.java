@@ -1,5 +1,7 @@
 package cn.edu.xmu.service.model;
 
+import cn.edu.xmu.javaee.core.clonefactory.CopyFrom;
+import cn.edu.xmu.javaee.core.clonefactory.CopyTo;
 import cn.edu.xmu.javaee.core.exception.BusinessException;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
 import cn.edu.xmu.service.dao.po.ServiceProviderDraftPo;
@@ -17,6 +19,8 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@CopyFrom(ServiceProviderDraftPo.class)
+@CopyTo(ServiceProviderDraftPo.class)
 public class ServiceProviderDraft {
     
     private Long id;
@@ -32,40 +36,23 @@ public class ServiceProviderDraft {
 
     /**
      * 从PO构建领域对象
+     * 同名属性由编译时生成的CloneFactory拷贝，状态在这里转换
      */
     public static ServiceProviderDraft fromPo(ServiceProviderDraftPo po) {
         if (po == null) {
             return null;
         }
-        return ServiceProviderDraft.builder()
-                .id(po.getId())
-                .serviceProviderId(po.getServiceProviderId())
-                .providerName(po.getProviderName())
-                .contactPerson(po.getContactPerson())
-                .contactPhone(po.getContactPhone())
-                .address(po.getAddress())
-                .status(DraftStatus.of(po.getStatus()))
-                .opinion(po.getOpinion())
-                .createdAt(po.getCreatedAt())
-                .updatedAt(po.getUpdatedAt())
-                .build();
+        ServiceProviderDraft draft = CloneFactory.copy(new ServiceProviderDraft(), po);
+        draft.status = DraftStatus.of(po.getStatus());
+        return draft;
     }
 
     /**
      * 转换为PO
      */
     public ServiceProviderDraftPo toPo() {
-        ServiceProviderDraftPo po = new ServiceProviderDraftPo();
-        po.setId(this.id);
-        po.setServiceProviderId(this.serviceProviderId);
-        po.setProviderName(this.providerName);
-        po.setContactPerson(this.contactPerson);
-        po.setContactPhone(this.contactPhone);
-        po.setAddress(this.address);
+        ServiceProviderDraftPo po = CloneFactory.copy(new ServiceProviderDraftPo(), this);
         po.setStatus(this.status.getCode());
-        po.setOpinion(this.opinion);
-        po.setCreatedAt(this.createdAt);
-        po.setUpdatedAt(this.updatedAt);
         return po;
     }
 
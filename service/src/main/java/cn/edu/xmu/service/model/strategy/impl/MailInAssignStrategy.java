@@ -1,10 +1,8 @@
 package cn.edu.xmu.service.model.strategy.impl;
 
-import cn.edu.xmu.javaee.core.model.InternalReturnObject;
-import cn.edu.xmu.service.client.LogisticsClient;
 import cn.edu.xmu.service.client.dto.CreatePackageRequest;
-import cn.edu.xmu.service.client.dto.CreatePackageResponse;
 import cn.edu.xmu.service.model.ServiceOrder;
+import cn.edu.xmu.service.model.ServiceOrderExpressOutbox;
 import cn.edu.xmu.service.model.ServiceOrderType;
 import cn.edu.xmu.service.model.strategy.ServiceOrderAssignStrategy;
 import lombok.RequiredArgsConstructor;
@@ -16,14 +14,14 @@ import java.util.List;
 
 /**
  * 寄修派工策略
- * 寄修派工时需要生成运单，通知客户寄送商品
+ * 寄修派工时需要生成运单，通知客户寄送商品；运单由发件箱在事务提交后异步创建
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class MailInAssignStrategy implements ServiceOrderAssignStrategy {
 
-    private final LogisticsClient logisticsClient;
+    private final ServiceOrderExpressOutbox expressOutbox;
 
     @Override
     public void assign(ServiceOrder order, Long serviceStaffId) {
@@ -32,18 +30,16 @@ public class MailInAssignStrategy implements ServiceOrderAssignStrategy {
         // 1. 分配维修师傅
         order.assign(serviceStaffId);
         
-        // 2. 生成运单（客户寄送商品到维修点）
+        // 2. 登记运单（客户寄送商品到维修点），事务提交后异步创建并回填expressId
         try {
-            Long expressId = createPackageForMailIn(order);
-            order.setExpressId(expressId);
-            log.info("寄修运单创建成功: orderId={}, expressId={}", order.getId(), expressId);
+            Long outboxId = expressOutbox.enqueue(order, buildPackageForMailIn(order));
+            log.info("寄修运单已登记: orderId={}, outboxId={}", order.getId(), outboxId);
         } catch (Exception e) {
             log.error("创建寄修运单失败: orderId={}", order.getId(), e);
             throw new RuntimeException("创建寄修运单失败: " + e.getMessage(), e);
         }
         
-        log.info("寄修派工完成: orderId={}, serviceStaffId={}, expressId={}", 
-                 order.getId(), serviceStaffId, order.getExpressId());
+        log.info("寄修派工完成: orderId={}, serviceStaffId={}", order.getId(), serviceStaffId);
     }
 
     @Override
@@ -52,10 +48,10 @@ public class MailInAssignStrategy implements ServiceOrderAssignStrategy {
     }
     
     /**
-     * 创建寄修运单
+     * 构建寄修运单请求
      * 客户寄送商品到维修点
      */
-    private Long createPackageForMailIn(ServiceOrder order) {
+    private CreatePackageRequest buildPackageForMailIn(ServiceOrder order) {
         // 构建发件地址（客户地址 - 从服务单获取）
         CreatePackageRequest.AddressInfo address = 
             CreatePackageRequest.AddressInfo.builder()
@@ -80,26 +76,11 @@ public class MailInAssignStrategy implements ServiceOrderAssignStrategy {
         cargoList.add(cargo);
         
         // 构建完整请求
-        CreatePackageRequest request = CreatePackageRequest.builder()
+        return CreatePackageRequest.builder()
                 .contractId(0L)          // 0表示自动选择物流合同
                 .payMethod(2)            // 2-收方付（服务商承担运费）
                 .address(address)
                 .cargoDetails(cargoList)
                 .build();
-        
-        // 调用物流API
-        InternalReturnObject<CreatePackageResponse> response = 
-            logisticsClient.createPackage(
-                1L,  // shopId，实际应该从服务单获取
-                "Bearer token",  // 实际应该从上下文获取
-                request
-            );
-        
-        CreatePackageResponse packageData = response.getData();
-        log.info("物流运单创建成功: packageId={}, billCode={}", 
-                 packageData.getId(), packageData.getBillCode());
-        
-        return packageData.getId();
     }
 }
-
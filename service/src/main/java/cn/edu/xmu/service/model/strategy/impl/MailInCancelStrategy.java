@@ -1,6 +1,7 @@
 package cn.edu.xmu.service.model.strategy.impl;
 
 import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
 import cn.edu.xmu.service.client.LogisticsClient;
 import cn.edu.xmu.service.client.dto.CreatePackageRequest;
 import cn.edu.xmu.service.client.dto.CreatePackageResponse;
@@ -24,6 +25,7 @@ import java.util.List;
 public class MailInCancelStrategy implements ServiceOrderCancelStrategy {
 
     private final LogisticsClient logisticsClient;
+    private final ServiceTokenProvider serviceTokenProvider;
 
     @Override
     public void cancel(ServiceOrder order) {
@@ -73,7 +75,7 @@ public class MailInCancelStrategy implements ServiceOrderCancelStrategy {
             logisticsClient.cancelPackage(
                     1L,  // shopId，实际应该从服务单获取
                     order.getExpressId(),
-                    "Bearer token"  // 实际应该从上下文获取
+                    serviceTokenProvider.getToken()
             );
             
             log.info("运单取消成功: expressId={}", order.getExpressId());
@@ -113,7 +115,7 @@ public class MailInCancelStrategy implements ServiceOrderCancelStrategy {
 
             Long shopId = order.getServiceProviderId() != null ? order.getServiceProviderId() : 1L;
             InternalReturnObject<CreatePackageResponse> response =
-                    logisticsClient.createPackage(shopId, "Bearer token", request);
+                    logisticsClient.createPackage(shopId, serviceTokenProvider.getToken(), request);
             CreatePackageResponse data = response.getData();
             return data.getId();
         } catch (Exception e) {
@@ -0,0 +1,110 @@
+package cn.edu.xmu.service.service;
+
+import cn.edu.xmu.service.client.LogisticsClient;
+import cn.edu.xmu.service.client.dto.CreatePackageRequest;
+import cn.edu.xmu.service.client.dto.CreatePackageResponse;
+import cn.edu.xmu.service.dao.ServiceOrderExpressRepository;
+import cn.edu.xmu.service.dao.ServiceOrderRepository;
+import cn.edu.xmu.service.model.ServiceOrderExpress;
+import cn.edu.xmu.service.model.ServiceOrderExpressOutbox;
+import cn.edu.xmu.service.model.ServiceOrder;
+import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.OutboxDispatcher;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * 服务单运单发件箱
+ * 寄修派工事务内只登记建单请求（service_order_express，call_status=0），事务提交后由OutboxDispatcher调用物流模块；
+ * 建单成功后回填服务单express_id，派发期间服务单被取消的撤销运单
+ */
+@Slf4j
+@Service
+public class ServiceOrderExpressDispatcher implements ServiceOrderExpressOutbox, OutboxDispatcher.Handler<ServiceOrderExpress, CreatePackageResponse> {
+
+    private final ServiceOrderExpressRepository expressRepository;
+    private final ServiceOrderRepository orderRepository;
+    private final LogisticsClient logisticsClient;
+    private final ServiceTokenProvider serviceTokenProvider;
+    private final OutboxDispatcher<ServiceOrderExpress, CreatePackageResponse> dispatcher;
+
+    public ServiceOrderExpressDispatcher(ServiceOrderExpressRepository expressRepository,
+                                      ServiceOrderRepository orderRepository,
+                                      LogisticsClient logisticsClient,
+                                      ServiceTokenProvider serviceTokenProvider,
+                                      @Value("${service.express-outbox.concurrency:4}") int concurrency,
+                                      @Value("${service.express-outbox.batch-size:100}") int batchSize,
+                                      @Value("${service.express-outbox.max-retry:8}") int maxRetry,
+                                      @Value("${service.express-outbox.stale-seconds:120}") long staleSeconds) {
+        this.expressRepository = expressRepository;
+        this.orderRepository = orderRepository;
+        this.logisticsClient = logisticsClient;
+        this.serviceTokenProvider = serviceTokenProvider;
+        this.dispatcher = new OutboxDispatcher<>("service-order-express", expressRepository, this,
+                concurrency, batchSize, maxRetry, Duration.ofSeconds(staleSeconds));
+    }
+
+    /**
+     * 登记建单请求，在调用方事务提交后派发
+     */
+    @Override
+    public Long enqueue(ServiceOrder order, CreatePackageRequest request) {
+        ServiceOrderExpress express = expressRepository.create(ServiceOrderExpress.of(order, request));
+        dispatcher.submitAfterCommit(express.getId());
+        return express.getId();
+    }
+
+    /**
+     * 定时扫描待派发的记录
+     */
+    @Scheduled(fixedDelayString = "${service.express-outbox.poll-interval:5000}",
+            initialDelayString = "${service.express-outbox.poll-interval:5000}")
+    public void poll() {
+        dispatcher.poll();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    /**
+     * 调用物流模块创建运单
+     */
+    @Override
+    public CreatePackageResponse send(ServiceOrderExpress express) {
+        InternalReturnObject<CreatePackageResponse> response =
+                logisticsClient.createPackage(express.getShopId(), serviceTokenProvider.getToken(), express.getRequest());
+        if (response == null || response.getData() == null
+                || !Integer.valueOf(ReturnNo.OK.getErrNo()).equals(response.getErrno())) {
+            throw new IllegalStateException(response == null ? "物流模块无响应" : response.getErrmsg());
+        }
+        return response.getData();
+    }
+
+    /**
+     * 回填服务单express_id，派发期间服务单被取消时撤销刚创建的运单
+     */
+    @Override
+    public void onSuccess(ServiceOrderExpress express, CreatePackageResponse data) {
+        log.info("运单创建成功: id={}, serviceOrderId={}, expressId={}, billCode={}",
+                express.getId(), express.getServiceOrderId(), data.getId(), data.getBillCode());
+        if (orderRepository.fillExpressId(express.getServiceOrderId(), data.getId())) {
+            return;
+        }
+        try {
+            logisticsClient.cancelPackage(express.getShopId(), data.getId(), serviceTokenProvider.getToken());
+            expressRepository.markCanceled(express.getId());
+            log.info("服务单已取消，撤销运单: serviceOrderId={}, expressId={}", express.getServiceOrderId(), data.getId());
+        } catch (RuntimeException e) {
+            log.error("撤销运单失败: serviceOrderId={}, expressId={}", express.getServiceOrderId(), data.getId(), e);
+        }
+    }
+}
@@ -7,12 +7,15 @@ import cn.edu.xmu.service.model.ServiceOrderType;
 import cn.edu.xmu.service.model.strategy.ServiceOrderAssignStrategy;
 import cn.edu.xmu.service.model.strategy.ServiceOrderCancelStrategy;
 import cn.edu.xmu.service.model.strategy.ServiceOrderCompleteStrategy;
-import lombok.RequiredArgsConstructor;
+import cn.edu.xmu.javaee.core.util.StrategyRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 
 /**
@@ -20,16 +23,43 @@ import java.util.List;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ServiceOrderService {
 
     private final ServiceOrderRepository repository;
-    private final List<ServiceOrderAssignStrategy> assignStrategies;
-    private final List<ServiceOrderCancelStrategy> cancelStrategies;
-    private final List<ServiceOrderCompleteStrategy> completeStrategies;
+    private final StrategyRegistry<ServiceOrderType, ServiceOrderAssignStrategy> assignStrategies;
+    private final StrategyRegistry<ServiceOrderType, ServiceOrderCancelStrategy> cancelStrategies;
+    /** 完成策略按类型、状态两级分派 */
+    private final EnumMap<ServiceOrderType, StrategyRegistry<ServiceOrderStatus, ServiceOrderCompleteStrategy>> completeStrategies;
+
+    /**
+     * 启动时按服务单类型（完成策略按类型和状态）建立策略分派表
+     * 上门维修和寄修必须有派工、取消策略，并且至少有一个可完成的状态
+     */
+    public ServiceOrderService(ServiceOrderRepository repository,
+                               List<ServiceOrderAssignStrategy> assignStrategies,
+                               List<ServiceOrderCancelStrategy> cancelStrategies,
+                               List<ServiceOrderCompleteStrategy> completeStrategies) {
+        EnumSet<ServiceOrderType> required = EnumSet.of(ServiceOrderType.ONSITE_REPAIR, ServiceOrderType.MAIL_IN_REPAIR);
+        this.repository = repository;
+        this.assignStrategies = StrategyRegistry.of("服务单派工策略", ServiceOrderType.class, assignStrategies,
+                (s, type) -> s.support(type.getCode()), required);
+        this.cancelStrategies = StrategyRegistry.of("服务单取消策略", ServiceOrderType.class, cancelStrategies,
+                (s, type) -> s.support(type.getCode()), required);
+        this.completeStrategies = new EnumMap<>(ServiceOrderType.class);
+        for (ServiceOrderType type : ServiceOrderType.values()) {
+            StrategyRegistry<ServiceOrderStatus, ServiceOrderCompleteStrategy> registry = StrategyRegistry.of(
+                    "服务单完成策略(" + type + ")", ServiceOrderStatus.class, completeStrategies,
+                    (s, status) -> s.support(type.getCode(), status.ordinal()), Collections.emptySet());
+            if (required.contains(type) && registry.keys().isEmpty()) {
+                throw new IllegalStateException("服务单完成策略: " + type + "没有对应的策略");
+            }
+            this.completeStrategies.put(type, registry);
+        }
+    }
 
     /**
      * 创建服务单（被aftersale模块调用）
+     * 同一售后单重复调用时返回已有服务单的ID
      */
     @Transactional
     public Long createServiceOrder(Long shopId, Long aftersalesId, Integer type, 
@@ -111,10 +141,7 @@ public class ServiceOrderService {
         order.checkToBeAssignedStatus();
         
         // 3. 根据类型选择派工策略（多态）
-        ServiceOrderAssignStrategy strategy = assignStrategies.stream()
-                .filter(s -> s.support(order.getType()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("不支持的服务类型: " + order.getType()));
+        ServiceOrderAssignStrategy strategy = dispatch(assignStrategies, order.getType());
         
         // 4. 执行派工策略
         strategy.assign(order, serviceStaffId);
@@ -167,11 +194,13 @@ public class ServiceOrderService {
         ServiceOrder order = repository.findById(orderId);
         
         // 2. 根据类型和状态选择策略（多态）
-        ServiceOrderCompleteStrategy strategy = completeStrategies.stream()
-                .filter(s -> s.support(order.getType(), order.getStatus().ordinal()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "当前状态和类型不支持完成操作: type=" + order.getType() + ", status=" + order.getStatus()));
+        StrategyRegistry<ServiceOrderStatus, ServiceOrderCompleteStrategy> byStatus =
+                completeStrategies.get(ServiceOrderType.ofCode(order.getType()));
+        ServiceOrderCompleteStrategy strategy = byStatus == null ? null : byStatus.get(order.getStatus());
+        if (strategy == null) {
+            throw new IllegalArgumentException(
+                    "当前状态和类型不支持完成操作: type=" + order.getType() + ", status=" + order.getStatus());
+        }
         
         // 3. 执行策略
         strategy.complete(order);
@@ -196,10 +225,7 @@ public class ServiceOrderService {
         order.checkCanCancel();
         
         // 3. 根据类型选择策略（多态）
-        ServiceOrderCancelStrategy strategy = cancelStrategies.stream()
-                .filter(s -> s.support(order.getType()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("不支持的服务类型: " + order.getType()));
+        ServiceOrderCancelStrategy strategy = dispatch(cancelStrategies, order.getType());
         
         // 4. 执行策略
         strategy.cancel(order);
@@ -217,8 +243,8 @@ public class ServiceOrderService {
     public void cancelServiceOrderByAftersale(Long aftersalesId, String reason) {
         log.info("售后模块取消服务单: aftersalesId={}, reason={}", aftersalesId, reason);
         
-        // 1. 根据售后单ID查询服务单
-        ServiceOrder order = repository.findByAftersaleId(aftersalesId);
+        // 1. 根据售后单ID查询服务单（只取取消用到的列）
+        ServiceOrder order = repository.findByAftersaleIdForCancel(aftersalesId);
         if (order == null) {
             log.warn("未找到对应的服务单: aftersalesId={}", aftersalesId);
             return;
@@ -231,10 +257,7 @@ public class ServiceOrderService {
         }
         
         // 3. 根据类型选择策略（多态）
-        ServiceOrderCancelStrategy strategy = cancelStrategies.stream()
-                .filter(s -> s.support(order.getType()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("不支持的服务类型: " + order.getType()));
+        ServiceOrderCancelStrategy strategy = dispatch(cancelStrategies, order.getType());
         
         // 4. 执行策略
         strategy.cancel(order);
@@ -245,5 +268,15 @@ public class ServiceOrderService {
         log.info("服务单取消完成: orderId={}, aftersalesId={}, status={}", 
                 order.getId(), aftersalesId, order.getStatus());
     }
-}
 
+    /**
+     * 按服务单类型取策略
+     */
+    private static <S> S dispatch(StrategyRegistry<ServiceOrderType, S> registry, Integer type) {
+        S strategy = registry.get(ServiceOrderType.ofCode(type));
+        if (strategy == null) {
+            throw new IllegalArgumentException("不支持的服务类型: " + type);
+        }
+        return strategy;
+    }
+}
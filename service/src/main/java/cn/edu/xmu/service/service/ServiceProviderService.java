@@ -1,5 +1,6 @@
 package cn.edu.xmu.service.service;
 
+import cn.edu.xmu.javaee.core.model.PageCursor;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
 import cn.edu.xmu.service.controller.dto.ServiceProviderBrief;
 import cn.edu.xmu.service.controller.dto.ServiceProviderDraftHistoryResponse;
@@ -75,12 +76,25 @@ public class ServiceProviderService {
 
     /**
      * 平台管理员查询服务商变更申请
+     * 带cursor时按游标取下一页（keyset），忽略page；多取一条判断是否还有下一页
+     * total为缓存的统计结果，可能略滞后
      */
     public ServiceProviderDraftListResult listDrafts(String serviceProviderName, String contactPerson,
-                                                     String serviceArea, String phone, int page, int pageSize) {
-        List<ServiceProviderDraft> drafts = repository.search(serviceProviderName, contactPerson, phone, serviceArea, page, pageSize);
+                                                     String serviceArea, String phone, String cursor,
+                                                     int page, int pageSize) {
+        PageCursor after = PageCursor.decode(cursor);
+        int offset = after == null ? (page - 1) * pageSize : 0;
+        List<ServiceProviderDraft> drafts = repository.search(serviceProviderName, contactPerson, phone, serviceArea,
+                after, offset, pageSize + 1);
         long total = repository.count(serviceProviderName, contactPerson, phone, serviceArea);
 
+        String nextCursor = null;
+        if (drafts.size() > pageSize) {
+            drafts = drafts.subList(0, pageSize);
+            ServiceProviderDraft last = drafts.get(pageSize - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
         List<ServiceProviderDraftListItem> items = drafts.stream()
                 .map(this::toListItem)
                 .toList();
@@ -90,6 +104,7 @@ public class ServiceProviderService {
                 .page(page)
                 .pageSize(pageSize)
                 .total(total)
+                .nextCursor(nextCursor)
                 .build();
     }
 
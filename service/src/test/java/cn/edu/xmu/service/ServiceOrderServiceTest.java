@@ -212,7 +212,7 @@ class ServiceOrderServiceTest {
 
     @Test
     void cancelServiceOrderByAftersaleShouldSkipWhenMissing() {
-        when(repository.findByAftersaleId(100L)).thenReturn(null);
+        when(repository.findByAftersaleIdForCancel(100L)).thenReturn(null);
 
         assertDoesNotThrow(() -> serviceOrderService.cancelServiceOrderByAftersale(100L, "reason"));
     }
@@ -220,7 +220,7 @@ class ServiceOrderServiceTest {
     @Test
     void cancelServiceOrderByAftersaleShouldValidateStatus() {
         ServiceOrder order = buildOrder(ServiceOrderStatus.COMPLETED, ServiceOrderType.ONSITE_REPAIR);
-        when(repository.findByAftersaleId(200L)).thenReturn(order);
+        when(repository.findByAftersaleIdForCancel(200L)).thenReturn(order);
 
         assertThrows(IllegalArgumentException.class,
                 () -> serviceOrderService.cancelServiceOrderByAftersale(200L, "reason"));
@@ -229,7 +229,7 @@ class ServiceOrderServiceTest {
     @Test
     void cancelServiceOrderByAftersaleShouldInvokeStrategy() {
         ServiceOrder order = buildOrder(ServiceOrderStatus.RECEIVED, ServiceOrderType.MAIL_IN_REPAIR);
-        when(repository.findByAftersaleId(201L)).thenReturn(order);
+        when(repository.findByAftersaleIdForCancel(201L)).thenReturn(order);
 
         serviceOrderService.cancelServiceOrderByAftersale(201L, "原因");
 
@@ -237,6 +237,37 @@ class ServiceOrderServiceTest {
         verify(repository).save(order);
     }
 
+    @Test
+    void completeServiceOrderShouldRejectUnsupportedStatus() {
+        ServiceOrder order = buildOrder(ServiceOrderStatus.ASSIGNED, ServiceOrderType.MAIL_IN_REPAIR);
+        when(repository.findById(12L)).thenReturn(order);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> serviceOrderService.completeServiceOrder(1L, 12L));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void constructorShouldRejectDuplicateCompleteStrategies() {
+        when(mailInCompleteStrategy.support(eq(ServiceOrderType.ONSITE_REPAIR.getCode()),
+                eq(ServiceOrderStatus.ASSIGNED.ordinal()))).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> new ServiceOrderService(
+                repository,
+                List.of(onsiteAssignStrategy, mailInAssignStrategy),
+                List.of(onsiteCancelStrategy, mailInCancelStrategy),
+                List.of(onsiteCompleteStrategy, mailInCompleteStrategy)));
+    }
+
+    @Test
+    void constructorShouldRejectMissingCancelStrategy() {
+        assertThrows(IllegalStateException.class, () -> new ServiceOrderService(
+                repository,
+                List.of(onsiteAssignStrategy, mailInAssignStrategy),
+                List.of(onsiteCancelStrategy),
+                List.of(onsiteCompleteStrategy, mailInCompleteStrategy)));
+    }
+
     private ServiceOrder buildOrder(ServiceOrderStatus status, ServiceOrderType type) {
         return ServiceOrder.builder()
                 .id(999L)
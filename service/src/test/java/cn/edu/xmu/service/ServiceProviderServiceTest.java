@@ -1,6 +1,8 @@
 package cn.edu.xmu.service;
 
 import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.PageCursor;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
 import cn.edu.xmu.service.controller.dto.ServiceProviderDraftHistoryResponse;
 import cn.edu.xmu.service.controller.dto.ServiceProviderDraftListResult;
 import cn.edu.xmu.service.dao.ServiceProviderDraftRepository;
@@ -201,18 +203,59 @@ class ServiceProviderServiceTest {
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        when(repository.search(any(), any(), any(), any(), anyInt(), anyInt())).thenReturn(List.of(draft));
+        when(repository.search(any(), any(), any(), any(), any(), anyInt(), anyInt())).thenReturn(List.of(draft));
         when(repository.count(any(), any(), any(), any())).thenReturn(1L);
 
-        ServiceProviderDraftListResult result = serviceProviderService.listDrafts("张三", "张三", "厦门", "138", 1, 5);
+        ServiceProviderDraftListResult result = serviceProviderService.listDrafts("张三", "张三", "厦门", "138", null, 1, 5);
 
         assertEquals(1, result.getList().size());
         assertEquals(1, result.getPage());
         assertEquals(5, result.getPageSize());
         assertEquals(1L, result.getTotal());
+        assertNull(result.getNextCursor());
         assertTrue(result.getList().get(0).getChange().contains("服务商名称"));
     }
 
+    @Test
+    void listDraftsShouldReturnCursorAndSeekFromIt() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 10, 0);
+        List<ServiceProviderDraft> rows = List.of(buildDraft(3L, time), buildDraft(2L, time), buildDraft(1L, time));
+        when(repository.search(null, null, null, null, null, 2, 3)).thenReturn(rows);
+
+        ServiceProviderDraftListResult first = serviceProviderService.listDrafts(null, null, null, null, null, 2, 2);
+
+        assertEquals(2, first.getList().size());
+        PageCursor cursor = PageCursor.decode(first.getNextCursor());
+        assertEquals(2L, cursor.getId());
+        assertEquals(time, cursor.getCreatedAt());
+
+        when(repository.search(eq(null), eq(null), eq(null), eq(null), any(PageCursor.class), eq(0), eq(3)))
+                .thenReturn(List.of(buildDraft(1L, time)));
+        ServiceProviderDraftListResult second = serviceProviderService.listDrafts(null, null, null, null,
+                first.getNextCursor(), 2, 2);
+
+        assertEquals(1, second.getList().size());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void listDraftsShouldRejectMalformedCursor() {
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> serviceProviderService.listDrafts(null, null, null, null, "%%%", 1, 10));
+
+        assertEquals(ReturnNo.FIELD_NOTVALID, e.getErrno());
+    }
+
+    private ServiceProviderDraft buildDraft(Long id, LocalDateTime createdAt) {
+        return ServiceProviderDraft.builder()
+                .id(id)
+                .serviceProviderId(10L)
+                .providerName("服务商" + id)
+                .status(DraftStatus.PENDING)
+                .createdAt(createdAt)
+                .build();
+    }
+
     @Test
     void getDraftHistoryShouldReturnReadableHistory() {
         LocalDateTime createTime = LocalDateTime.now().minusDays(1);
@@ -46,12 +46,12 @@ class ServiceProviderControllerTest {
     @Test
     void listDraftsShouldDelegateToService() {
         ServiceProviderDraftListResult expected = ServiceProviderDraftListResult.builder().build();
-        when(serviceProviderService.listDrafts(any(), any(), any(), any(), anyInt(), anyInt()))
+        when(serviceProviderService.listDrafts(any(), any(), any(), any(), any(), anyInt(), anyInt()))
                 .thenReturn(expected);
 
-        ReturnObject ret = controller.listDrafts(null, null, null, null, null, null, null);
+        ReturnObject ret = controller.listDrafts(null, null, null, null, null, null, null, null);
 
-        verify(serviceProviderService).listDrafts(null, null, null, null, 1, 10);
+        verify(serviceProviderService).listDrafts(null, null, null, null, null, 1, 10);
         assertSame(expected, ret.getData());
     }
 
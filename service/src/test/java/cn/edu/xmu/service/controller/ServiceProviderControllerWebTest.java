@@ -526,6 +526,39 @@ public class ServiceProviderControllerWebTest {
                     .andExpect(jsonPath("$.data.page").value(1))
                     .andExpect(jsonPath("$.data.pagesize").value(5));
         }
+
+        @Test
+        @DisplayName("【正常】英文名称含a、i等停用词字母时仍能检索到")
+        void listDrafts_EnglishNameWithStopwordLetters_ShouldMatch() throws Exception {
+            String name = "Mario Repair " + System.nanoTime();
+            ServiceProviderDraft draft = ServiceProviderDraft.builder()
+                    .serviceProviderId(12L)
+                    .providerName(name)
+                    .contactPerson("Adrian")
+                    .contactPhone("13800138002")
+                    .address("Main Street")
+                    .status(DraftStatus.PENDING)
+                    .createdAt(LocalDateTime.now())
+                    .updatedAt(LocalDateTime.now())
+                    .build();
+            draftRepository.create(draft);
+
+            mockMvc.perform(get("/drafts")
+                            .param("serviceprovidername", name)
+                            .param("page", "1")
+                            .param("pagesize", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.errno").value(ReturnNo.OK.getErrNo()))
+                    .andExpect(jsonPath("$.data.list[*].serviceprovider.name", hasItem(name)));
+
+            mockMvc.perform(get("/drafts")
+                            .param("serviceprovidername", "Mario")
+                            .param("providername", "Adrian")
+                            .param("page", "1")
+                            .param("pagesize", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.list[*].serviceprovider.name", hasItem(name)));
+        }
     }
 
     @Nested
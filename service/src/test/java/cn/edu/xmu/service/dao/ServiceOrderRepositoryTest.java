@@ -1,19 +1,26 @@
 package cn.edu.xmu.service.dao;
 
 import cn.edu.xmu.javaee.core.exception.BusinessException;
+import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.TwoLevelCache;
 import cn.edu.xmu.service.dao.po.ServiceOrderPo;
 import cn.edu.xmu.service.model.ServiceOrder;
 import cn.edu.xmu.service.model.ServiceOrderStatus;
 import cn.edu.xmu.service.model.ServiceOrderType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -28,7 +35,23 @@ class ServiceOrderRepositoryTest {
 
     @BeforeEach
     void setUp() {
-        repository = new ServiceOrderRepository(mapper);
+        repository = new ServiceOrderRepository(mapper,
+                new TwoLevelCache<>("service:order", 100, 60, 600, null, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void findByIdShouldServeRepeatedReadsFromCacheUntilSaved() {
+        when(mapper.findById(1L)).thenReturn(buildPo());
+        when(mapper.updateStatus(any(ServiceOrderPo.class))).thenReturn(1);
+
+        ServiceOrder order = repository.findById(1L);
+        repository.findById(1L);
+        verify(mapper, times(1)).findById(1L);
+
+        order.approve(2L);
+        repository.save(order);
+        repository.findById(1L);
+        verify(mapper, times(2)).findById(1L);
     }
 
     @Test
@@ -65,6 +88,73 @@ class ServiceOrderRepositoryTest {
         verify(mapper).updateStatus(any(ServiceOrderPo.class));
     }
 
+    @Test
+    void saveShouldCompareWithLoadedStatus() {
+        when(mapper.findById(1L)).thenReturn(buildPo());
+        when(mapper.updateStatus(any(ServiceOrderPo.class))).thenReturn(1);
+        ServiceOrder order = repository.findById(1L);
+        order.approve(2L);
+
+        repository.save(order);
+
+        ArgumentCaptor<ServiceOrderPo> captor = ArgumentCaptor.forClass(ServiceOrderPo.class);
+        verify(mapper).updateStatus(captor.capture());
+        assertEquals(0, captor.getValue().getExpectedStatus());
+        assertEquals(1, captor.getValue().getStatus());
+        assertEquals(ServiceOrderStatus.TO_BE_ASSIGNED, order.getPersistedStatus());
+    }
+
+    @Test
+    void saveShouldOnlyWriteChangedColumns() {
+        ServiceOrderPo loaded = buildPo();
+        loaded.setUpdatedAt(LocalDateTime.now().minusMinutes(1));
+        when(mapper.findById(1L)).thenReturn(loaded);
+        when(mapper.updateStatus(any(ServiceOrderPo.class))).thenReturn(1);
+        ServiceOrder order = repository.findById(1L);
+        order.approve(2L);
+
+        repository.save(order);
+
+        ArgumentCaptor<ServiceOrderPo> captor = ArgumentCaptor.forClass(ServiceOrderPo.class);
+        verify(mapper).updateStatus(captor.capture());
+        assertEquals(Set.of("status", "serviceProviderId", "updatedAt"), captor.getValue().getDirtyFields());
+    }
+
+    @Test
+    void saveShouldSkipUnchangedOrder() {
+        when(mapper.findById(1L)).thenReturn(buildPo());
+        ServiceOrder order = repository.findById(1L);
+
+        repository.save(order);
+
+        verify(mapper, never()).updateStatus(any(ServiceOrderPo.class));
+    }
+
+    @Test
+    void saveShouldReportConflictWhenStatusChangedConcurrently() {
+        when(mapper.findById(1L)).thenReturn(buildPo());
+        when(mapper.updateStatus(any(ServiceOrderPo.class))).thenReturn(0);
+        ServiceOrder order = repository.findById(1L);
+        order.approve(2L);
+
+        BusinessException e = assertThrows(BusinessException.class, () -> repository.save(order));
+
+        assertEquals(ReturnNo.SERVICE_ORDER_STATE_CONFLICT, e.getErrno());
+        assertEquals(409, e.getErrno().getHttpStatus());
+    }
+
+    @Test
+    void saveShouldNotCompareStatusForUnloadedOrder() {
+        when(mapper.updateStatus(any(ServiceOrderPo.class))).thenReturn(0);
+
+        BusinessException e = assertThrows(BusinessException.class, () -> repository.save(buildOrder()));
+
+        assertEquals(ReturnNo.RESOURCE_NOT_FOUND, e.getErrno());
+        ArgumentCaptor<ServiceOrderPo> captor = ArgumentCaptor.forClass(ServiceOrderPo.class);
+        verify(mapper).updateStatus(captor.capture());
+        assertNull(captor.getValue().getExpectedStatus());
+    }
+
     @Test
     void createShouldSetGeneratedId() {
         doAnswer(invocation -> {
@@ -79,6 +169,38 @@ class ServiceOrderRepositoryTest {
         verify(mapper).insert(any(ServiceOrderPo.class));
     }
 
+    @Test
+    void createShouldReturnExistingOrderForSameAftersale() {
+        when(mapper.insert(any(ServiceOrderPo.class))).thenThrow(new DuplicateKeyException("uk_service_order_aftersale_id"));
+        when(mapper.findIdByAftersaleId(10L)).thenReturn(7L);
+        ServiceOrder order = buildOrder();
+        order.setId(null);
+
+        repository.create(order);
+
+        assertEquals(7L, order.getId());
+    }
+
+    @Test
+    void cancelByAftersaleShouldOnlyWriteChangedColumns() {
+        ServiceOrderPo projected = new ServiceOrderPo();
+        projected.setId(1L);
+        projected.setType(ServiceOrderType.ONSITE_REPAIR.getCode());
+        projected.setStatus(1);
+        projected.setAftersaleId(10L);
+        when(mapper.findByAftersaleIdForCancel(10L)).thenReturn(projected);
+        when(mapper.updateStatus(any(ServiceOrderPo.class))).thenReturn(1);
+        ServiceOrder order = repository.findByAftersaleIdForCancel(10L);
+        order.cancel();
+
+        repository.save(order);
+
+        ArgumentCaptor<ServiceOrderPo> captor = ArgumentCaptor.forClass(ServiceOrderPo.class);
+        verify(mapper).updateStatus(captor.capture());
+        assertEquals(Set.of("status", "updatedAt"), captor.getValue().getDirtyFields());
+        assertEquals(1, captor.getValue().getExpectedStatus());
+    }
+
     private ServiceOrder buildOrder() {
         return ServiceOrder.builder()
                 .id(1L)
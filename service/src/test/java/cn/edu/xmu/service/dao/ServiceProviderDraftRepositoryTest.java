@@ -0,0 +1,71 @@
+package cn.edu.xmu.service.dao;
+
+import cn.edu.xmu.javaee.core.model.PageCursor;
+import cn.edu.xmu.service.dao.po.ServiceProviderDraftPo;
+import cn.edu.xmu.service.model.DraftStatus;
+import cn.edu.xmu.service.model.ServiceProviderDraft;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ServiceProviderDraftRepositoryTest {
+
+    @Mock
+    private ServiceProviderDraftMapper mapper;
+
+    private ServiceProviderDraftRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ServiceProviderDraftRepository(mapper);
+    }
+
+    @Test
+    void countShouldReuseResultForSameTerms() {
+        when(mapper.count("张三", null, null, null)).thenReturn(3L);
+
+        assertEquals(3L, repository.count("张三", null, null, null));
+        assertEquals(3L, repository.count(" 张三 ", "", null, null));
+
+        verify(mapper, times(1)).count("张三", null, null, null);
+    }
+
+    @Test
+    void createShouldInvalidateCachedCount() {
+        when(mapper.count(null, null, null, null)).thenReturn(1L, 2L);
+        repository.count(null, null, null, null);
+
+        repository.create(ServiceProviderDraft.builder()
+                .serviceProviderId(10L)
+                .providerName("张三维修服务")
+                .status(DraftStatus.PENDING)
+                .build());
+
+        assertEquals(2L, repository.count(null, null, null, null));
+    }
+
+    @Test
+    void searchShouldStripQuotesAndPassCursor() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 10, 0);
+        ServiceProviderDraftPo po = new ServiceProviderDraftPo();
+        po.setId(8L);
+        po.setStatus("PENDING");
+        when(mapper.search("张三", null, null, null, time, 9L, 0, 11)).thenReturn(List.of(po));
+
+        List<ServiceProviderDraft> drafts = repository.search("\"张三\"", " ", null, null,
+                new PageCursor(time, 9L), 0, 11);
+
+        assertEquals(1, drafts.size());
+        verify(mapper, never()).count(any(), any(), any(), any());
+    }
+}
@@ -1,11 +1,8 @@
 package cn.edu.xmu.service.model.strategy;
 
-import cn.edu.xmu.javaee.core.model.InternalReturnObject;
-import cn.edu.xmu.javaee.core.model.ReturnNo;
-import cn.edu.xmu.service.client.LogisticsClient;
 import cn.edu.xmu.service.client.dto.CreatePackageRequest;
-import cn.edu.xmu.service.client.dto.CreatePackageResponse;
 import cn.edu.xmu.service.model.ServiceOrder;
+import cn.edu.xmu.service.model.ServiceOrderExpressOutbox;
 import cn.edu.xmu.service.model.ServiceOrderStatus;
 import cn.edu.xmu.service.model.ServiceOrderType;
 import cn.edu.xmu.service.model.strategy.impl.MailInAssignStrategy;
@@ -23,29 +20,29 @@ import static org.mockito.Mockito.*;
 
 /**
  * 服务单派工策略测试
- * 重点测试：寄修派工时生成运单的逻辑
+ * 重点测试：寄修派工时登记运单的逻辑，运单由发件箱异步创建
  */
 @ExtendWith(MockitoExtension.class)
 class ServiceOrderAssignStrategyTest {
 
     @Mock
-    private LogisticsClient logisticsClient;
+    private ServiceOrderExpressOutbox expressOutbox;
     
     private MailInAssignStrategy mailInAssignStrategy;
     private OnsiteAssignStrategy onsiteAssignStrategy;
 
     @BeforeEach
     void setUp() {
-        mailInAssignStrategy = new MailInAssignStrategy(logisticsClient);
+        mailInAssignStrategy = new MailInAssignStrategy(expressOutbox);
         onsiteAssignStrategy = new OnsiteAssignStrategy();
     }
 
     /**
-     * 测试：寄修派工应该创建运单
+     * 测试：寄修派工应该登记运单
      * 这是核心测试用例
      */
     @Test
-    void mailInAssignShouldCreatePackage() {
+    void mailInAssignShouldEnqueuePackage() {
         // Arrange: 准备测试数据
         ServiceOrder order = ServiceOrder.builder()
                 .id(100L)
@@ -58,20 +55,9 @@ class ServiceOrderAssignStrategyTest {
                 .productId(888L)
                 .build();
         
-        // Mock: 模拟物流模块返回成功响应
-        CreatePackageResponse mockResponse = new CreatePackageResponse();
-        mockResponse.setId(999L);  // 运单ID
-        mockResponse.setBillCode("SF1234567890");  // 运单号
-        mockResponse.setPayMethod(2);
-        mockResponse.setStatus(0);
-        
-        InternalReturnObject<CreatePackageResponse> returnObject = 
-            new InternalReturnObject<>();
-        returnObject.setErrno(ReturnNo.OK.getErrNo());
-        returnObject.setData(mockResponse);
-        
-        when(logisticsClient.createPackage(anyLong(), anyString(), any(CreatePackageRequest.class)))
-            .thenReturn(returnObject);
+        // Mock: 发件箱登记成功
+        when(expressOutbox.enqueue(any(ServiceOrder.class), any(CreatePackageRequest.class)))
+            .thenReturn(999L);
         
         // Act: 执行派工策略
         mailInAssignStrategy.assign(order, 66L);  // 派工给师傅66
@@ -83,14 +69,14 @@ class ServiceOrderAssignStrategyTest {
         // 2. 验证师傅ID已设置
         assertEquals(66L, order.getServiceStaffId());
         
-        // 3. 验证运单ID已保存
-        assertEquals(999L, order.getExpressId());
+        // 3. 运单ID由发件箱事务提交后回填，派工时为空
+        assertNull(order.getExpressId());
         
-        // 4. 验证是否调用了物流客户端
+        // 4. 验证是否登记到发件箱
         ArgumentCaptor<CreatePackageRequest> captor = 
             ArgumentCaptor.forClass(CreatePackageRequest.class);
-        verify(logisticsClient, times(1))
-            .createPackage(eq(1L), anyString(), captor.capture());
+        verify(expressOutbox, times(1))
+            .enqueue(eq(order), captor.capture());
         
         // 5. 验证请求参数是否正确
         CreatePackageRequest request = captor.getValue();
@@ -106,10 +92,10 @@ class ServiceOrderAssignStrategyTest {
     }
 
     /**
-     * 测试：寄修派工时物流API调用失败应该抛出异常
+     * 测试：寄修派工时登记发件箱失败应该抛出异常
      */
     @Test
-    void mailInAssignShouldThrowExceptionWhenLogisticsFails() {
+    void mailInAssignShouldThrowExceptionWhenEnqueueFails() {
         // Arrange
         ServiceOrder order = ServiceOrder.builder()
                 .id(100L)
@@ -121,9 +107,9 @@ class ServiceOrderAssignStrategyTest {
                 .productId(777L)
                 .build();
         
-        // Mock: 模拟物流模块抛出异常
-        when(logisticsClient.createPackage(anyLong(), anyString(), any()))
-            .thenThrow(new RuntimeException("物流服务不可用"));
+        // Mock: 模拟写发件箱抛出异常
+        when(expressOutbox.enqueue(any(), any()))
+            .thenThrow(new RuntimeException("数据库不可用"));
         
         // Act & Assert: 验证异常
         RuntimeException exception = assertThrows(
@@ -133,9 +119,9 @@ class ServiceOrderAssignStrategyTest {
         
         assertTrue(exception.getMessage().contains("创建寄修运单失败"));
         
-        // 验证物流客户端被调用了
-        verify(logisticsClient, times(1))
-            .createPackage(anyLong(), anyString(), any());
+        // 验证发件箱被调用了
+        verify(expressOutbox, times(1))
+            .enqueue(any(), any());
     }
 
     /**
@@ -186,10 +172,10 @@ class ServiceOrderAssignStrategyTest {
     }
 
     /**
-     * 测试：寄修派工应该正确传递所有参数到物流API
+     * 测试：寄修派工应该正确登记所有参数到发件箱
      */
     @Test
-    void mailInAssignShouldPassCorrectParametersToLogisticsAPI() {
+    void mailInAssignShouldPassCorrectParametersToOutbox() {
         // Arrange
         ServiceOrder order = ServiceOrder.builder()
                 .id(300L)
@@ -203,17 +189,8 @@ class ServiceOrderAssignStrategyTest {
                 .build();
         
         // Mock
-        CreatePackageResponse mockResponse = new CreatePackageResponse();
-        mockResponse.setId(555L);
-        mockResponse.setBillCode("TEST123");
-        
-        InternalReturnObject<CreatePackageResponse> returnObject = 
-            new InternalReturnObject<>();
-        returnObject.setErrno(ReturnNo.OK.getErrNo());
-        returnObject.setData(mockResponse);
-        
-        when(logisticsClient.createPackage(anyLong(), anyString(), any()))
-            .thenReturn(returnObject);
+        when(expressOutbox.enqueue(any(), any()))
+            .thenReturn(555L);
         
         // Act
         mailInAssignStrategy.assign(order, 99L);
@@ -221,7 +198,7 @@ class ServiceOrderAssignStrategyTest {
         // Assert: 详细验证请求参数
         ArgumentCaptor<CreatePackageRequest> captor = 
             ArgumentCaptor.forClass(CreatePackageRequest.class);
-        verify(logisticsClient).createPackage(eq(1L), anyString(), captor.capture());
+        verify(expressOutbox).enqueue(eq(order), captor.capture());
         
         CreatePackageRequest request = captor.getValue();
         
@@ -2,6 +2,7 @@ package cn.edu.xmu.service.model.strategy;
 
 import cn.edu.xmu.javaee.core.model.InternalReturnObject;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
 import cn.edu.xmu.service.client.LogisticsClient;
 import cn.edu.xmu.service.client.dto.CreatePackageResponse;
 import cn.edu.xmu.service.model.ServiceOrder;
@@ -28,13 +29,15 @@ class ServiceOrderCancelStrategyTest {
 
     @Mock
     private LogisticsClient logisticsClient;
+
+    private final ServiceTokenProvider serviceTokenProvider = new ServiceTokenProvider(3600, 300);
     
     private MailInCancelStrategy mailInCancelStrategy;
     private OnsiteCancelStrategy onsiteCancelStrategy;
 
     @BeforeEach
     void setUp() {
-        mailInCancelStrategy = new MailInCancelStrategy(logisticsClient);
+        mailInCancelStrategy = new MailInCancelStrategy(logisticsClient, serviceTokenProvider);
         onsiteCancelStrategy = new OnsiteCancelStrategy();
     }
 
@@ -11,6 +11,7 @@ import cn.edu.xmu.service.model.strategy.impl.OnsiteCompleteStrategy;
 import cn.edu.xmu.service.client.dto.CreatePackageResponse;
 import cn.edu.xmu.javaee.core.model.InternalReturnObject;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -29,6 +30,8 @@ class ServiceOrderStrategyTest {
     @Mock
     private LogisticsClient logisticsClient;
 
+    private final ServiceTokenProvider serviceTokenProvider = new ServiceTokenProvider(3600, 300);
+
     private OnsiteCompleteStrategy onsiteCompleteStrategy;
     private MailInCompleteStrategy mailInCompleteStrategy;
     private OnsiteCancelStrategy onsiteCancelStrategy;
@@ -39,7 +42,7 @@ class ServiceOrderStrategyTest {
         onsiteCompleteStrategy = new OnsiteCompleteStrategy();
         mailInCompleteStrategy = new MailInCompleteStrategy();
         onsiteCancelStrategy = new OnsiteCancelStrategy();
-        mailInCancelStrategy = new MailInCancelStrategy(logisticsClient);  // 注入Mock
+        mailInCancelStrategy = new MailInCancelStrategy(logisticsClient, serviceTokenProvider);  // 注入Mock
     }
 
     @Test
@@ -0,0 +1,106 @@
+package cn.edu.xmu.service.service;
+
+import cn.edu.xmu.service.client.LogisticsClient;
+import cn.edu.xmu.service.client.dto.CreatePackageRequest;
+import cn.edu.xmu.service.client.dto.CreatePackageResponse;
+import cn.edu.xmu.service.dao.ServiceOrderExpressRepository;
+import cn.edu.xmu.service.dao.ServiceOrderRepository;
+import cn.edu.xmu.service.model.ServiceOrderExpress;
+import cn.edu.xmu.service.model.ServiceOrder;
+import cn.edu.xmu.javaee.core.model.InternalReturnObject;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 派发循环（抢占、重试、轮询）由core的OutboxDispatcherTest覆盖，这里只测服务单相关的部分
+ */
+@ExtendWith(MockitoExtension.class)
+class ServiceOrderExpressDispatcherTest {
+
+    @Mock
+    private ServiceOrderExpressRepository expressRepository;
+    @Mock
+    private ServiceOrderRepository orderRepository;
+    @Mock
+    private LogisticsClient logisticsClient;
+
+    private final ServiceTokenProvider serviceTokenProvider = new ServiceTokenProvider(3600, 300);
+
+    private ServiceOrderExpressDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new ServiceOrderExpressDispatcher(expressRepository, orderRepository, logisticsClient, serviceTokenProvider, 2, 10, 3, 120);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sendShouldThrowWhenLogisticsRejects() {
+        when(logisticsClient.createPackage(eq(10L), anyString(), any()))
+                .thenReturn(new InternalReturnObject<>(500, "合同不存在"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> dispatcher.send(buildExpress()));
+
+        assertEquals("合同不存在", e.getMessage());
+    }
+
+    @Test
+    void onSuccessShouldCancelPackageWhenOrderCancelledMeanwhile() {
+        when(orderRepository.fillExpressId(1L, 888L)).thenReturn(false);
+
+        dispatcher.onSuccess(buildExpress(), new CreatePackageResponse(888L, "SF888", 2, 0));
+
+        verify(logisticsClient).cancelPackage(eq(10L), eq(888L), anyString());
+        verify(expressRepository).markCanceled(5L);
+    }
+
+    @Test
+    void enqueueShouldRecordPendingRequest() {
+        ServiceOrder order = ServiceOrder.builder().id(1L).serviceProviderId(10L).build();
+        when(expressRepository.create(any())).thenAnswer(invocation -> {
+            ServiceOrderExpress created = invocation.getArgument(0);
+            created.setId(5L);
+            return created;
+        });
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertEquals(5L, dispatcher.enqueue(order, CreatePackageRequest.builder().contractId(0L).build()));
+
+        ArgumentCaptor<ServiceOrderExpress> captor = ArgumentCaptor.forClass(ServiceOrderExpress.class);
+        verify(expressRepository).create(captor.capture());
+        assertEquals(1L, captor.getValue().getServiceOrderId());
+        assertEquals(10L, captor.getValue().getShopId());
+        assertEquals(ServiceOrderExpress.CALL_PENDING, captor.getValue().getCallStatus());
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+    }
+
+    private ServiceOrderExpress buildExpress() {
+        return ServiceOrderExpress.builder()
+                .id(5L)
+                .serviceOrderId(1L)
+                .shopId(10L)
+                .status(ServiceOrderExpress.STATUS_CREATED)
+                .request(CreatePackageRequest.builder().contractId(0L).payMethod(2).build())
+                .callStatus(ServiceOrderExpress.CALL_PENDING)
+                .retryCount(0)
+                .build();
+    }
+}
@@ -3,11 +3,13 @@ package cn.edu.xmu.service.service;
 import cn.edu.xmu.javaee.core.exception.BusinessException;
 import cn.edu.xmu.javaee.core.model.InternalReturnObject;
 import cn.edu.xmu.javaee.core.model.ReturnNo;
+import cn.edu.xmu.javaee.core.util.ServiceTokenProvider;
 import cn.edu.xmu.service.client.LogisticsClient;
 import cn.edu.xmu.service.client.dto.CreatePackageRequest;
 import cn.edu.xmu.service.client.dto.CreatePackageResponse;
 import cn.edu.xmu.service.dao.ServiceOrderRepository;
 import cn.edu.xmu.service.model.ServiceOrder;
+import cn.edu.xmu.service.model.ServiceOrderExpressOutbox;
 import cn.edu.xmu.service.model.ServiceOrderStatus;
 import cn.edu.xmu.service.model.ServiceOrderType;
 import cn.edu.xmu.service.model.strategy.impl.*;
@@ -35,8 +37,13 @@ class ServiceOrderServiceIntegrationTest {
     // ✅ 只Mock外部依赖
     @Mock
     private LogisticsClient logisticsClient;
+
+    private final ServiceTokenProvider serviceTokenProvider = new ServiceTokenProvider(3600, 300);
+
     @Mock
     private ServiceOrderRepository repository;
+    @Mock
+    private ServiceOrderExpressOutbox expressOutbox;
 
     // ✅ 使用真实的策略实例
     private ServiceOrderService serviceOrderService;
@@ -44,10 +51,10 @@ class ServiceOrderServiceIntegrationTest {
     @BeforeEach
     void setUp() {
         // 创建真实的策略实例（注入Mock的LogisticsClient）
-        MailInAssignStrategy mailInAssignStrategy = new MailInAssignStrategy(logisticsClient);
+        MailInAssignStrategy mailInAssignStrategy = new MailInAssignStrategy(expressOutbox);
         OnsiteAssignStrategy onsiteAssignStrategy = new OnsiteAssignStrategy();
 
-        MailInCancelStrategy mailInCancelStrategy = new MailInCancelStrategy(logisticsClient);
+        MailInCancelStrategy mailInCancelStrategy = new MailInCancelStrategy(logisticsClient, serviceTokenProvider);
         OnsiteCancelStrategy onsiteCancelStrategy = new OnsiteCancelStrategy();
 
         MailInCompleteStrategy mailInCompleteStrategy = new MailInCompleteStrategy();
@@ -161,7 +168,7 @@ class ServiceOrderServiceIntegrationTest {
     // ==================== 服务单派工测试 ====================
 
     @Test
-    void assignMailInServiceOrder_ShouldCreatePackage() {
+    void assignMailInServiceOrder_ShouldEnqueuePackage() {
         // Arrange
         ServiceOrder order = ServiceOrder.builder()
                 .id(10L)
@@ -176,13 +183,8 @@ class ServiceOrderServiceIntegrationTest {
 
         when(repository.findById(10L)).thenReturn(order);
 
-        // Mock物流API返回
-        CreatePackageResponse mockResponse = new CreatePackageResponse(999L, "SF1234567890", 2, 0);
-        InternalReturnObject<CreatePackageResponse> returnObject = new InternalReturnObject<>();
-        returnObject.setErrno(ReturnNo.OK.getErrNo());
-        returnObject.setData(mockResponse);
-        when(logisticsClient.createPackage(anyLong(), anyString(), any(CreatePackageRequest.class)))
-                .thenReturn(returnObject);
+        // Mock发件箱登记
+        when(expressOutbox.enqueue(eq(order), any(CreatePackageRequest.class))).thenReturn(1L);
 
         // Act
         serviceOrderService.assignServiceOrder(1L, 10L, 66L);
@@ -190,11 +192,12 @@ class ServiceOrderServiceIntegrationTest {
         // Assert - 验证业务逻辑
         assertEquals(ServiceOrderStatus.ASSIGNED, order.getStatus());
         assertEquals(66L, order.getServiceStaffId());
-        assertEquals(999L, order.getExpressId()); // ⭐ 核心验证：运单ID已保存
+        assertNull(order.getExpressId()); // ⭐ 核心验证：运单ID由发件箱异步回填
 
-        // Assert - 验证物流API被正确调用
+        // Assert - 验证登记到发件箱，派工事务内不调用物流API
         ArgumentCaptor<CreatePackageRequest> captor = ArgumentCaptor.forClass(CreatePackageRequest.class);
-        verify(logisticsClient, times(1)).createPackage(eq(1L), anyString(), captor.capture());
+        verify(expressOutbox, times(1)).enqueue(eq(order), captor.capture());
+        verify(logisticsClient, never()).createPackage(anyLong(), anyString(), any());
 
         CreatePackageRequest request = captor.getValue();
         assertEquals(0L, request.getContractId());
@@ -452,7 +455,7 @@ class ServiceOrderServiceIntegrationTest {
         // Arrange
         ServiceOrder order = buildOrder(ServiceOrderStatus.RECEIVED, ServiceOrderType.MAIL_IN_REPAIR);
         order.setExpressId(888L);
-        when(repository.findByAftersaleId(100L)).thenReturn(order);
+        when(repository.findByAftersaleIdForCancel(100L)).thenReturn(order);
 
         // Mock返件运单创建
         CreatePackageResponse createResponse = new CreatePackageResponse(779L, "RT-AFT", 2, 0);
@@ -479,7 +482,7 @@ class ServiceOrderServiceIntegrationTest {
     @Test
     void cancelServiceOrderByAftersale_NotFound_ShouldNotThrow() {
         // Arrange - 未找到服务单
-        when(repository.findByAftersaleId(200L)).thenReturn(null);
+        when(repository.findByAftersaleIdForCancel(200L)).thenReturn(null);
 
         // Act & Assert - 不应该抛出异常
         assertDoesNotThrow(() ->
@@ -493,7 +496,7 @@ class ServiceOrderServiceIntegrationTest {
     void cancelServiceOrderByAftersale_InvalidStatus_ShouldThrowException() {
         // Arrange - 已完成状态不能取消
         ServiceOrder order = buildOrder(ServiceOrderStatus.COMPLETED, ServiceOrderType.ONSITE_REPAIR);
-        when(repository.findByAftersaleId(300L)).thenReturn(order);
+        when(repository.findByAftersaleIdForCancel(300L)).thenReturn(order);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
@@ -506,7 +509,7 @@ class ServiceOrderServiceIntegrationTest {
     // ==================== 异常场景测试 ====================
 
     @Test
-    void assignMailInServiceOrder_LogisticsApiFails_ShouldThrowException() {
+    void assignMailInServiceOrder_EnqueueFails_ShouldThrowException() {
         // Arrange
         ServiceOrder order = ServiceOrder.builder()
                 .id(50L)
@@ -521,16 +524,16 @@ class ServiceOrderServiceIntegrationTest {
 
         when(repository.findById(50L)).thenReturn(order);
 
-        // Mock物流API抛出异常
-        when(logisticsClient.createPackage(anyLong(), anyString(), any()))
-                .thenThrow(new RuntimeException("物流服务不可用"));
+        // Mock写发件箱抛出异常
+        when(expressOutbox.enqueue(any(), any()))
+                .thenThrow(new RuntimeException("数据库不可用"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () ->
                 serviceOrderService.assignServiceOrder(1L, 50L, 100L));
 
-        assertTrue(exception.getMessage().contains("物流服务不可用"));
-        verify(logisticsClient, times(1)).createPackage(anyLong(), anyString(), any());
+        assertTrue(exception.getMessage().contains("数据库不可用"));
+        verify(repository, never()).save(any());
     }
 
     @Test
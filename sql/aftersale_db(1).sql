@@ -42,6 +42,9 @@ CREATE TABLE IF NOT EXISTS `aftersales` (
     PRIMARY KEY (`id`),
     KEY `idx_shop_id` (`shop_id`),
     KEY `idx_shop_order` (`shop_id`, `order_id`),
+    -- 售后单列表keyset翻页：按状态过滤 / 不按状态过滤，均按 gmt_create DESC, id DESC 排序
+    KEY `idx_shop_status_create` (`shop_id`, `status`, `gmt_create`, `id`),
+    KEY `idx_shop_create` (`shop_id`, `gmt_create`, `id`),
     KEY `idx_aftersales_region_id` (`region_id`),
     KEY `idx_aftersales_mobile` (`mobile`)
     ) ENGINE=InnoDB
@@ -52,6 +55,7 @@ CREATE TABLE IF NOT EXISTS `aftersales` (
 -- =========================
 -- 3) 售后单-运单关联表 aftersale_express
 --    字段 = 创建运单内部API要求字段 + aftersale_id
+--    已有库由 migrations/aftersale_db_V1__express_outbox_retry.sql 补上发件箱的重试列和派发索引
 -- =========================
 CREATE TABLE IF NOT EXISTS `aftersale_express` (
                                      `id`           BIGINT NOT NULL AUTO_INCREMENT COMMENT '关联记录ID',
@@ -78,8 +82,10 @@ CREATE TABLE IF NOT EXISTS `aftersale_express` (
                                      `express_status` INT NULL COMMENT '运单状态(返回data.status)',
 
     -- 内部调用的状态（你们自己用，便于重试/排错）
-                                     `call_status`  INT NOT NULL DEFAULT 0 COMMENT '内部调用状态 0-未调用 1-成功 2-失败',
+                                     `call_status`  INT NOT NULL DEFAULT 0 COMMENT '内部调用状态 0-未调用 1-成功 2-失败 3-调用中',
                                      `fail_reason`  VARCHAR(255) NULL COMMENT '失败原因(记录errmsg/异常信息)',
+                                     `retry_count`  INT NOT NULL DEFAULT 0 COMMENT '已失败次数',
+                                     `next_retry_time` DATETIME NULL COMMENT '下次重试时间',
 
                                      `gmt_create`   DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
                                      `gmt_modified` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
@@ -88,6 +94,7 @@ CREATE TABLE IF NOT EXISTS `aftersale_express` (
                                      KEY `idx_ae_aftersale_id` (`aftersale_id`),
                                      KEY `idx_ae_express_id` (`express_id`),
                                      KEY `idx_ae_bill_code` (`bill_code`),
+                                     KEY `idx_ae_dispatch` (`status`, `call_status`, `next_retry_time`),
 
                                      CONSTRAINT `fk_ae_aftersale`
                                          FOREIGN KEY (`aftersale_id`) REFERENCES `aftersales`(`id`)
@@ -96,7 +103,24 @@ CREATE TABLE IF NOT EXISTS `aftersale_express` (
   COMMENT='售后单-运单关联表(请求体+返回体+aftersale_id)';
 
 -- =========================
--- 4) （可选）插入测试数据
+-- 4) 售后单统计汇总表 aftersale_stats
+--    按 商铺、创建日期、类型、当前状态 计数，售后单创建和状态变化时在同一事务内增减
+--    与aftersales不一致时（如建表前的历史数据）由重建任务按商铺重新汇总
+-- =========================
+CREATE TABLE IF NOT EXISTS `aftersale_stats` (
+    `shop_id`     BIGINT  NOT NULL COMMENT '店铺ID',
+    `stat_date`   DATE    NOT NULL COMMENT '售后单创建日期(DATE(aftersales.gmt_create))',
+    `type`        TINYINT NOT NULL COMMENT '售后类型 0-换货 1-退货 2-维修',
+    `status`      TINYINT NOT NULL COMMENT '售后单当前状态',
+    `order_count` INT     NOT NULL DEFAULT 0 COMMENT '售后单数',
+    PRIMARY KEY (`shop_id`, `stat_date`, `type`, `status`)
+    ) ENGINE=InnoDB
+    DEFAULT CHARSET=utf8mb4
+    COLLATE=utf8mb4_unicode_ci
+    COMMENT='售后单统计汇总表';
+
+-- =========================
+-- 5) （可选）插入测试数据
 -- =========================
 -- TRUNCATE TABLE `aftersale_packages`;
 -- TRUNCATE TABLE `aftersales`;
@@ -110,3 +134,10 @@ VALUES
     (1, 20003, 60003, 21003, 31003, 2, '设备无法开机，申请维修', 0, NULL, '王五', '13800000003', 6, '福建省厦门市思明区xx路3号'),
     (2, 20004, 60004, 21004, 31004, 1, '商品破损', 1, '同意退货退款', '赵六', '13800000004', 8, '福建省厦门市湖里区yy路4号'),
     (2, 20005, NULL,  21005, 31005, 0, '不喜欢款式', 2, '非质量问题不支持换货', '孙七', '13800000005', 8, '福建省厦门市湖里区yy路5号');
+
+-- 测试数据直接写入aftersales，按其汇总统计（重复执行时以汇总结果覆盖）
+INSERT INTO `aftersale_stats` (`shop_id`, `stat_date`, `type`, `status`, `order_count`)
+SELECT `shop_id`, DATE(`gmt_create`), `type`, `status`, COUNT(*)
+FROM `aftersales`
+GROUP BY `shop_id`, DATE(`gmt_create`), `type`, `status`
+ON DUPLICATE KEY UPDATE `order_count` = VALUES(`order_count`);
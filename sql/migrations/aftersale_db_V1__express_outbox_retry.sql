@@ -0,0 +1,19 @@
+-- =========================
+-- 已有库升级：aftersale_express作为运单发件箱所需的列和索引
+-- aftersale_db(1).sql只在建表时创建retry_count、next_retry_time和idx_ae_dispatch，表已存在时不会生效，
+-- 已有库需执行本脚本后再启动新版本aftersale服务，否则派发任务查询这些列会报错
+-- =========================
+USE aftersale_db;
+
+-- 预览：升级后会被派发任务当作待建单处理的已有记录（未调用或失败、还没有运单）
+SELECT id, aftersale_id, call_status, fail_reason, gmt_create
+FROM aftersale_express
+WHERE status = 'CREATED'
+  AND call_status IN (0, 2)
+  AND express_id IS NULL;
+
+ALTER TABLE aftersale_express
+    MODIFY COLUMN `call_status` INT NOT NULL DEFAULT 0 COMMENT '内部调用状态 0-未调用 1-成功 2-失败 3-调用中',
+    ADD COLUMN `retry_count` INT NOT NULL DEFAULT 0 COMMENT '已失败次数' AFTER `fail_reason`,
+    ADD COLUMN `next_retry_time` DATETIME NULL COMMENT '下次重试时间' AFTER `retry_count`,
+    ADD KEY `idx_ae_dispatch` (`status`, `call_status`, `next_retry_time`);
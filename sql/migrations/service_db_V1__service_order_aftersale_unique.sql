@@ -0,0 +1,58 @@
+-- =========================
+-- 已有库升级：service_order.aftersale_id 改为唯一索引
+-- service_db(1).sql 只在建表时创建 uk_service_order_aftersale_id，表已存在时不会生效，
+-- 已有库需执行本脚本。先合并同一售后单的重复服务单，再把普通索引换成唯一索引。
+-- 执行前停掉service服务，避免合并期间又插入重复的服务单。要求MySQL 8.0（窗口函数）
+-- =========================
+USE service_db;
+
+-- 预览：有重复服务单的售后单
+SELECT aftersale_id, COUNT(*) AS cnt, GROUP_CONCAT(id ORDER BY id) AS ids
+FROM service_order
+GROUP BY aftersale_id
+HAVING COUNT(*) > 1;
+
+START TRANSACTION;
+
+-- 每个售后单保留一张服务单：优先保留未拒绝/取消/退回的（status不为4、6、7），其次ID最小的
+DROP TEMPORARY TABLE IF EXISTS service_order_dup;
+CREATE TEMPORARY TABLE service_order_dup (
+    id      BIGINT NOT NULL PRIMARY KEY,
+    keep_id BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+INSERT INTO service_order_dup (id, keep_id)
+SELECT id, keep_id
+FROM (SELECT id,
+             FIRST_VALUE(id) OVER (PARTITION BY aftersale_id ORDER BY status IN (4, 6, 7), id) AS keep_id
+      FROM service_order) t
+WHERE id <> keep_id;
+
+-- 保留的服务单缺运单ID时，用重复服务单上的补上
+UPDATE service_order k
+    JOIN (SELECT d.keep_id,
+                 MAX(o.express_id)        AS express_id,
+                 MAX(o.return_express_id) AS return_express_id
+          FROM service_order_dup d
+                   JOIN service_order o ON o.id = d.id
+          GROUP BY d.keep_id) m ON m.keep_id = k.id
+SET k.express_id        = COALESCE(k.express_id, m.express_id),
+    k.return_express_id = COALESCE(k.return_express_id, m.return_express_id);
+
+-- 运单关联记录改挂到保留的服务单上，fk_soe_service_order是ON DELETE CASCADE，不改挂会随重复服务单一起删掉
+UPDATE service_order_express e
+    JOIN service_order_dup d ON d.id = e.service_order_id
+SET e.service_order_id = d.keep_id;
+
+DELETE o
+FROM service_order o
+         JOIN service_order_dup d ON d.id = o.id;
+
+COMMIT;
+
+DROP TEMPORARY TABLE service_order_dup;
+
+-- 去重后换成唯一索引，之后重复创建由ServiceOrderRepository.create返回已有服务单
+ALTER TABLE service_order
+    DROP INDEX idx_service_order_aftersale_id,
+    ADD UNIQUE KEY uk_service_order_aftersale_id (aftersale_id);
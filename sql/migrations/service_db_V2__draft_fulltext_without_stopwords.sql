@@ -0,0 +1,39 @@
+-- =========================
+-- 已有库升级：服务商变更草稿表的keyset翻页索引和ngram全文索引
+-- 全文索引沿用创建时的停用词设置，按默认停用词表建的索引里没有含a、i等字母的ngram词元，
+-- 英文名称、联系人按关键字检索不到。这里关闭停用词后删掉已有的全文索引再重建；
+-- 早于全文检索建的库没有这些索引，只新建。索引重建期间草稿列表检索会变慢
+-- =========================
+USE service_db;
+
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+-- 按索引是否存在生成DROP语句（MySQL没有DROP INDEX IF EXISTS）
+SELECT IFNULL(CONCAT('ALTER TABLE service_provider_draft ',
+                     GROUP_CONCAT(DISTINCT CONCAT('DROP INDEX ', index_name) SEPARATOR ', ')), 'DO 0')
+INTO @drop_fulltext
+FROM information_schema.statistics
+WHERE table_schema = DATABASE()
+  AND table_name = 'service_provider_draft'
+  AND index_name IN ('ft_provider_name', 'ft_contact_person', 'ft_contact_phone', 'ft_address');
+PREPARE stmt FROM @drop_fulltext;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT IF(COUNT(*) = 0, 'ALTER TABLE service_provider_draft ADD INDEX idx_created (created_at, id)', 'DO 0')
+INTO @add_created
+FROM information_schema.statistics
+WHERE table_schema = DATABASE()
+  AND table_name = 'service_provider_draft'
+  AND index_name = 'idx_created';
+PREPARE stmt FROM @add_created;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- InnoDB一条ALTER只能新建一个全文索引
+ALTER TABLE service_provider_draft ADD FULLTEXT INDEX ft_provider_name (provider_name) WITH PARSER ngram;
+ALTER TABLE service_provider_draft ADD FULLTEXT INDEX ft_contact_person (contact_person) WITH PARSER ngram;
+ALTER TABLE service_provider_draft ADD FULLTEXT INDEX ft_contact_phone (contact_phone) WITH PARSER ngram;
+ALTER TABLE service_provider_draft ADD FULLTEXT INDEX ft_address (address) WITH PARSER ngram;
+
+SET SESSION innodb_ft_enable_stopword = ON;
@@ -31,6 +31,12 @@ CREATE TABLE IF NOT EXISTS service_provider (
 -- =========================
 -- 3) 服务商变更草稿表
 -- =========================
+-- 全文索引在创建时取当前会话的停用词设置并一直沿用。默认停用词表含a、i等单字母，
+-- ngram分词后凡含停用词的词元都不进索引，英文名称（如Mario）按关键字检索不到，
+-- 所以建表前关闭停用词；以后重建这几个全文索引（DROP/ADD INDEX、ALTER TABLE ... FORCE）时同样要先关闭。
+-- 已有库由 migrations/service_db_V2__draft_fulltext_without_stopwords.sql 重建索引
+SET SESSION innodb_ft_enable_stopword = OFF;
+
 CREATE TABLE IF NOT EXISTS service_provider_draft (
                                                       id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '草稿ID',
                                                       service_provider_id BIGINT NOT NULL COMMENT '服务商ID',
@@ -43,9 +49,18 @@ CREATE TABLE IF NOT EXISTS service_provider_draft (
     created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     INDEX idx_service_provider_id (service_provider_id),
-    INDEX idx_status (status)
+    INDEX idx_status (status),
+    -- 草稿列表keyset翻页
+    INDEX idx_created (created_at, id),
+    -- 草稿列表关键字检索：ngram分词（ngram_token_size默认2），按列短语匹配
+    FULLTEXT INDEX ft_provider_name (provider_name) WITH PARSER ngram,
+    FULLTEXT INDEX ft_contact_person (contact_person) WITH PARSER ngram,
+    FULLTEXT INDEX ft_contact_phone (contact_phone) WITH PARSER ngram,
+    FULLTEXT INDEX ft_address (address) WITH PARSER ngram
     ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='服务商变更草稿表';
 
+SET SESSION innodb_ft_enable_stopword = ON;
+
 -- =========================
 -- 4) 服务单表
 -- =========================
@@ -78,7 +93,9 @@ CREATE TABLE IF NOT EXISTS `service_order` (
     ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
 
     PRIMARY KEY (`id`),
-    KEY `idx_service_order_aftersale_id` (`aftersale_id`),
+    -- 一个售后单只对应一张服务单，重复创建时返回已有的
+    -- 已有库由 migrations/service_db_V1__service_order_aftersale_unique.sql 去重后加唯一索引
+    UNIQUE KEY `uk_service_order_aftersale_id` (`aftersale_id`),
     KEY `idx_service_order_express_id` (`express_id`),
     KEY `idx_service_order_return_express_id` (`return_express_id`)
     ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='服务单表';
@@ -87,6 +104,7 @@ CREATE TABLE IF NOT EXISTS `service_order` (
 -- 5) 服务单-运单关联表（新增）
 --    字段 = 创建运单API请求体字段 + service_order.id
 --    +（建议）返回体字段，便于回填
+--    已有库由 migrations/service_db_V3__express_outbox_retry.sql 补上发件箱的重试列和派发索引
 -- =========================
 CREATE TABLE IF NOT EXISTS `service_order_express` (
                                                        `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '关联记录ID',
@@ -111,8 +129,10 @@ CREATE TABLE IF NOT EXISTS `service_order_express` (
     `express_status` INT NULL COMMENT '运单状态(返回data.status)',
 
     -- ===== 内部调用辅助字段（建议保留，方便重试/排错）=====
-    `call_status` INT NOT NULL DEFAULT 0 COMMENT '内部调用状态 0-未调用 1-成功 2-失败',
+    `call_status` INT NOT NULL DEFAULT 0 COMMENT '内部调用状态 0-未调用 1-成功 2-失败 3-调用中',
     `fail_reason` VARCHAR(255) NULL COMMENT '失败原因(记录errmsg/异常信息)',
+    `retry_count` INT NOT NULL DEFAULT 0 COMMENT '已失败次数',
+    `next_retry_time` DATETIME NULL COMMENT '下次重试时间',
 
     `created_at`  DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `updated_at`  DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
@@ -122,6 +142,7 @@ CREATE TABLE IF NOT EXISTS `service_order_express` (
     KEY `idx_soe_service_order_id` (`service_order_id`),
     KEY `idx_soe_express_id` (`express_id`),
     KEY `idx_soe_bill_code` (`bill_code`),
+    KEY `idx_soe_dispatch` (`status`, `call_status`, `next_retry_time`),
 
     CONSTRAINT `fk_soe_service_order`
     FOREIGN KEY (`service_order_id`) REFERENCES `service_order`(`id`)